@@ -1,30 +1,58 @@
 package me.jellysquid.mods.sodium.client.gl.arena;
 
+import me.jellysquid.mods.sodium.client.gl.arena.staging.StagingAllocation;
 import me.jellysquid.mods.sodium.client.gl.arena.staging.StagingBuffer;
 import me.jellysquid.mods.sodium.client.gl.buffer.GlBuffer;
 import me.jellysquid.mods.sodium.client.gl.buffer.GlBufferUsage;
 import me.jellysquid.mods.sodium.client.gl.buffer.GlMutableBuffer;
 import me.jellysquid.mods.sodium.client.gl.device.CommandList;
+import me.jellysquid.mods.sodium.client.util.MathUtil;
 
-import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+/**
+ * Sub-allocates segments of a single buffer object. Free segments are kept in segregated free lists by size class
+ * (one list for each power of two), so that finding a free segment for an allocation doesn't need to walk every
+ * segment of the arena. Adjacent free segments are always merged when a segment is freed.
+ *
+ * When an allocation can't be satisfied, the buffer is re-allocated with a larger capacity, which compacts all used
+ * segments. To avoid reaching that point because of fragmentation alone, {@link #compact(CommandList, long)} can be
+ * called every frame to incrementally move used segments from the end of the arena into free space at the start.
+ */
 public class GlBufferArena {
     static final boolean CHECK_ASSERTIONS = false;
 
     private static final GlBufferUsage BUFFER_USAGE = GlBufferUsage.STATIC_DRAW;
 
+    // One free list for every possible power of two, as segment lengths are stored in an int
+    private static final int SIZE_CLASS_COUNT = Integer.SIZE;
+
+    // The maximum number of used segments to look at in each call to compact()
+    private static final int MAX_COMPACTION_CANDIDATES = 32;
+
     private final int resizeIncrement;
 
     private final StagingBuffer stagingBuffer;
     private GlMutableBuffer arenaBuffer;
 
-    private GlBufferSegment head;
+    // The first and last segments of the arena, which together cover its whole capacity
+    private GlBufferSegment head, tail;
+
+    // The first free segment of each size class, where size class N holds segments with a length in [2^N, 2^(N+1))
+    private final GlBufferSegment[] freeLists = new GlBufferSegment[SIZE_CLASS_COUNT];
+
+    // Bit N is set if the free list of size class N is not empty
+    private int freeListMask;
+    private int freeSegmentCount;
+
+    // True if segments have been freed since the last time the arena was found to be compacted
+    private boolean needsCompaction;
 
     private int capacity;
     private int used;
@@ -38,7 +66,8 @@ public class GlBufferArena {
         this.stride = stride;
 
         this.head = new GlBufferSegment(this, 0, initialCapacity);
-        this.head.setFree(true);
+        this.tail = this.head;
+        this.addFreeSegment(this.head);
 
         this.arenaBuffer = commands.createMutableBuffer();
         commands.allocateStorage(this.arenaBuffer, this.capacity * stride, BUFFER_USAGE);
@@ -56,21 +85,32 @@ public class GlBufferArena {
         int tail = newCapacity - this.used;
 
         List<GlBufferSegment> usedSegments = this.getUsedSegments();
-        List<PendingBufferCopyCommand> pendingCopies = this.buildTransferList(usedSegments, tail);
+        List<PendingBufferCopyCommand> pendingCopies = this.buildTransferList(usedSegments, 0);
 
         this.transferSegments(commandList, pendingCopies, newCapacity);
 
-        this.head = new GlBufferSegment(this, 0, tail);
-        this.head.setFree(true);
+        Arrays.fill(this.freeLists, null);
+        this.freeListMask = 0;
+        this.freeSegmentCount = 0;
+
+        // The used segments are packed at the start of the new buffer, followed by all the free space
+        GlBufferSegment free = new GlBufferSegment(this, this.used, tail);
+        this.addFreeSegment(free);
 
         if (usedSegments.isEmpty()) {
-            this.head.setNext(null);
+            this.head = free;
         } else {
-            this.head.setNext(usedSegments.get(0));
-            this.head.getNext()
-                    .setPrev(this.head);
+            this.head = usedSegments.get(0);
+
+            GlBufferSegment last = usedSegments.get(usedSegments.size() - 1);
+            last.setNext(free);
+            free.setPrev(last);
         }
 
+        this.tail = free;
+
+        this.needsCompaction = false;
+
         this.checkAssertions();
     }
 
@@ -161,6 +201,26 @@ public class GlBufferArena {
         return this.capacity * this.stride;
     }
 
+    /**
+     * Returns the size of the largest free segment in bytes, which is the largest allocation that can be made without
+     * resizing the arena. Only the free list of the largest size class needs to be searched.
+     */
+    public int getDeviceLargestFreeMemory() {
+        if (this.freeListMask == 0) {
+            return 0;
+        }
+
+        int largest = 0;
+        GlBufferSegment seg = this.freeLists[31 - Integer.numberOfLeadingZeros(this.freeListMask)];
+
+        while (seg != null) {
+            largest = Math.max(largest, seg.getLength());
+            seg = seg.getNextFree();
+        }
+
+        return largest * this.stride;
+    }
+
     private GlBufferSegment alloc(int size) {
         GlBufferSegment a = this.findFree(size);
 
@@ -168,24 +228,31 @@ public class GlBufferArena {
             return null;
         }
 
+        this.removeFreeSegment(a);
+
         GlBufferSegment result;
 
         if (a.getLength() == size) {
-            a.setFree(false);
-
             result = a;
         } else {
-            GlBufferSegment b = new GlBufferSegment(this, a.getEnd() - size, size);
-            b.setNext(a.getNext());
-            b.setPrev(a);
-
-            if (b.getNext() != null) {
-                b.getNext()
-                        .setPrev(b);
+            // Allocations are taken from the start of the free segment, so that free space accumulates towards the end
+            // of the arena where compaction leaves it
+            GlBufferSegment b = new GlBufferSegment(this, a.getOffset(), size);
+            b.setPrev(a.getPrev());
+            b.setNext(a);
+
+            if (b.getPrev() != null) {
+                b.getPrev()
+                        .setNext(b);
+            } else {
+                this.head = b;
             }
 
+            a.setOffset(a.getOffset() + size);
             a.setLength(a.getLength() - size);
-            a.setNext(b);
+            a.setPrev(b);
+
+            this.addFreeSegment(a);
 
             result = b;
         }
@@ -197,24 +264,29 @@ public class GlBufferArena {
     }
 
     private GlBufferSegment findFree(int size) {
-        GlBufferSegment entry = this.head;
-        GlBufferSegment best = null;
+        int sizeClass = getSizeClass(size);
+
+        // Any segment in a size class above the one containing the allocation is large enough, so the smallest
+        // non-empty one can be taken without searching. If the size is a power of two, its own class also qualifies.
+        int minSizeClass = MathUtil.isPowerOfTwo(size) ? sizeClass : sizeClass + 1;
+        int candidates = minSizeClass < SIZE_CLASS_COUNT ? this.freeListMask & (-1 << minSizeClass) : 0;
+
+        if (candidates != 0) {
+            return this.freeLists[Integer.numberOfTrailingZeros(candidates)];
+        }
+
+        // Otherwise, only some of the segments in the same size class can hold the allocation
+        GlBufferSegment entry = this.freeLists[sizeClass];
 
         while (entry != null) {
-            if (entry.isFree()) {
-                if (entry.getLength() == size) {
-                    return entry;
-                } else if (entry.getLength() >= size) {
-                    if (best == null || best.getLength() > entry.getLength()) {
-                        best = entry;
-                    }
-                }
+            if (entry.getLength() >= size) {
+                return entry;
             }
 
-            entry = entry.getNext();
+            entry = entry.getNextFree();
         }
 
-        return best;
+        return null;
     }
 
     public void free(GlBufferSegment entry) {
@@ -222,23 +294,253 @@ public class GlBufferArena {
             throw new IllegalStateException("Already freed");
         }
 
-        entry.setFree(true);
-
         this.used -= entry.getLength();
+        this.release(entry);
+
+        this.needsCompaction = true;
 
+        this.checkAssertions();
+    }
+
+    /**
+     * Marks a segment as free and merges it with any adjacent free segments.
+     *
+     * @return The free segment which the segment was merged into
+     */
+    private GlBufferSegment release(GlBufferSegment entry) {
         GlBufferSegment next = entry.getNext();
 
         if (next != null && next.isFree()) {
+            this.removeFreeSegment(next);
             entry.mergeInto(next);
         }
 
         GlBufferSegment prev = entry.getPrev();
 
         if (prev != null && prev.isFree()) {
+            this.removeFreeSegment(prev);
             prev.mergeInto(entry);
+
+            entry = prev;
+        }
+
+        if (entry.getNext() == null) {
+            this.tail = entry;
+        }
+
+        this.addFreeSegment(entry);
+
+        return entry;
+    }
+
+    private void addFreeSegment(GlBufferSegment seg) {
+        int sizeClass = getSizeClass(seg.getLength());
+        GlBufferSegment head = this.freeLists[sizeClass];
+
+        seg.setFree(true);
+        seg.setPrevFree(null);
+        seg.setNextFree(head);
+
+        if (head != null) {
+            head.setPrevFree(seg);
+        }
+
+        this.freeLists[sizeClass] = seg;
+        this.freeListMask |= 1 << sizeClass;
+        this.freeSegmentCount++;
+    }
+
+    private void removeFreeSegment(GlBufferSegment seg) {
+        int sizeClass = getSizeClass(seg.getLength());
+
+        GlBufferSegment prev = seg.getPrevFree();
+        GlBufferSegment next = seg.getNextFree();
+
+        if (prev != null) {
+            prev.setNextFree(next);
+        } else {
+            this.freeLists[sizeClass] = next;
+
+            if (next == null) {
+                this.freeListMask &= ~(1 << sizeClass);
+            }
+        }
+
+        if (next != null) {
+            next.setPrevFree(prev);
+        }
+
+        seg.setFree(false);
+        seg.setPrevFree(null);
+        seg.setNextFree(null);
+
+        this.freeSegmentCount--;
+    }
+
+    private static int getSizeClass(int length) {
+        return 31 - Integer.numberOfLeadingZeros(length);
+    }
+
+    /**
+     * Moves used segments from the end of the arena into free segments closer to the start, so that free space
+     * accumulates in one contiguous segment at the end of the arena. Only a bounded amount of work is done in each
+     * call, so this can be called every frame. The offsets of any segments which were moved will have changed.
+     *
+     * @param maxBytes The maximum number of bytes to copy
+     * @return The number of bytes which were copied
+     */
+    public long compact(CommandList commandList, long maxBytes) {
+        if (!this.needsCompaction) {
+            return 0L;
+        }
+
+        // The free space is already contiguous
+        if (this.freeSegmentCount <= 1) {
+            this.needsCompaction = false;
+            return 0L;
+        }
+
+        long bytesMoved = 0L;
+        boolean limited = false;
+
+        GlBufferSegment seg = this.tail;
+
+        for (int candidates = 0; seg != null && candidates < MAX_COMPACTION_CANDIDATES; ) {
+            if (seg.isFree()) {
+                seg = seg.getPrev();
+                continue;
+            }
+
+            candidates++;
+
+            long bytes = (long) seg.getLength() * this.stride;
+
+            if (bytesMoved + bytes > maxBytes) {
+                limited = true;
+                seg = seg.getPrev();
+                continue;
+            }
+
+            GlBufferSegment hole = this.findFreeBefore(seg.getLength(), seg.getOffset());
+
+            if (hole == null) {
+                seg = seg.getPrev();
+                continue;
+            }
+
+            GlBufferSegment vacated = this.relocate(commandList, seg, hole);
+            bytesMoved += bytes;
+
+            seg = vacated.getPrev();
+        }
+
+        // If nothing could be moved for a reason other than the budget, moving more segments later won't help until
+        // some other segment is freed
+        if (bytesMoved == 0L && !limited) {
+            this.needsCompaction = false;
         }
 
         this.checkAssertions();
+
+        return bytesMoved;
+    }
+
+    /**
+     * Finds the free segment closest to the start of the arena which can hold the given length and which starts before
+     * the given offset. Only the free lists of the size classes which can hold the length are searched, so the used
+     * segments of the arena are never visited.
+     */
+    private GlBufferSegment findFreeBefore(int length, int offset) {
+        int sizeClass = getSizeClass(length);
+        int candidates = this.freeListMask & (-1 << sizeClass);
+
+        GlBufferSegment best = null;
+
+        while (candidates != 0) {
+            int candidateClass = Integer.numberOfTrailingZeros(candidates);
+            candidates &= candidates - 1;
+
+            GlBufferSegment entry = this.freeLists[candidateClass];
+
+            while (entry != null) {
+                boolean fits = entry.getOffset() < offset && entry.getLength() >= length;
+
+                if (fits && (best == null || entry.getOffset() < best.getOffset())) {
+                    best = entry;
+                }
+
+                entry = entry.getNextFree();
+            }
+        }
+
+        return best;
+    }
+
+    /**
+     * Copies the contents of a used segment into the start of a free segment which comes before it, and then moves
+     * the segment object to its new location.
+     *
+     * @return The free segment which now contains the previous location of the segment
+     */
+    private GlBufferSegment relocate(CommandList commandList, GlBufferSegment seg, GlBufferSegment hole) {
+        int length = seg.getLength();
+        int srcOffset = seg.getOffset();
+        int dstOffset = hole.getOffset();
+
+        // The free segment comes before the used segment, so the source and destination ranges can't overlap
+        commandList.copyBufferSubData(this.arenaBuffer, this.arenaBuffer,
+                (long) srcOffset * this.stride,
+                (long) dstOffset * this.stride,
+                (long) length * this.stride);
+
+        // Leave an unlinked placeholder where the segment used to be, which is freed below
+        GlBufferSegment vacated = new GlBufferSegment(this, srcOffset, length);
+        this.replaceSegment(seg, vacated);
+
+        this.removeFreeSegment(hole);
+
+        if (hole.getLength() == length) {
+            this.replaceSegment(hole, seg);
+        } else {
+            seg.setPrev(hole.getPrev());
+            seg.setNext(hole);
+
+            if (hole.getPrev() != null) {
+                hole.getPrev()
+                        .setNext(seg);
+            } else {
+                this.head = seg;
+            }
+
+            hole.setPrev(seg);
+            hole.setOffset(dstOffset + length);
+            hole.setLength(hole.getLength() - length);
+
+            this.addFreeSegment(hole);
+        }
+
+        seg.setOffset(dstOffset);
+
+        return this.release(vacated);
+    }
+
+    private void replaceSegment(GlBufferSegment prev, GlBufferSegment next) {
+        next.setPrev(prev.getPrev());
+        next.setNext(prev.getNext());
+
+        if (next.getPrev() != null) {
+            next.getPrev()
+                    .setNext(next);
+        } else {
+            this.head = next;
+        }
+
+        if (next.getNext() != null) {
+            next.getNext()
+                    .setPrev(next);
+        } else {
+            this.tail = next;
+        }
     }
 
     public void delete(CommandList commands) {
@@ -268,7 +570,7 @@ public class GlBufferArena {
         if (!queue.isEmpty()) {
             // Calculate the amount of memory needed for the remaining uploads
             int remainingElements = queue.stream()
-                    .mapToInt(upload -> upload.getDataBuffer().getLength())
+                    .mapToInt(PendingUpload::getLength)
                     .sum();
 
             // Ask the arena to grow to accommodate the remaining uploads
@@ -294,10 +596,7 @@ public class GlBufferArena {
     }
 
     private boolean tryUpload(CommandList commandList, PendingUpload upload) {
-        ByteBuffer data = upload.getDataBuffer()
-                .getDirectBuffer();
-
-        int elementCount = data.remaining() / this.stride;
+        int elementCount = upload.getLength() / this.stride;
 
         GlBufferSegment dst = this.alloc(elementCount);
 
@@ -305,8 +604,15 @@ public class GlBufferArena {
             return false;
         }
 
-        // Copy the data into our staging buffer, then copy it into the arena's buffer
-        this.stagingBuffer.enqueueCopy(commandList, data, this.arenaBuffer, dst.getOffset() * this.stride);
+        StagingAllocation stagedData = upload.getStagedData();
+
+        if (stagedData != null) {
+            // The data is already in our staging buffer, so it only needs to be copied into the arena's buffer
+            this.stagingBuffer.enqueueCopy(commandList, stagedData, this.arenaBuffer, dst.getOffset() * this.stride);
+        } else {
+            // Copy the data into our staging buffer, then copy it into the arena's buffer
+            this.stagingBuffer.enqueueCopy(commandList, upload.getDataBuffer().getDirectBuffer(), this.arenaBuffer, dst.getOffset() * this.stride);
+        }
 
         upload.setResult(dst);
 
@@ -319,8 +625,10 @@ public class GlBufferArena {
         // We calculate the number of free elements in our arena and then subtract that from the total requested
         int elementsNeeded = elementCount - (this.capacity - this.used);
 
-        // Try to allocate some extra buffer space unless this is an unusually large allocation
-        this.resize(commandList, Math.max(this.capacity + this.resizeIncrement, this.capacity + elementsNeeded));
+        // Grow the arena geometrically so that the number of re-allocations stays small as the arena gets larger, unless
+        // this is an unusually large allocation
+        int increment = Math.max(this.resizeIncrement, this.capacity / 4);
+        this.resize(commandList, Math.max(this.capacity + increment, this.capacity + elementsNeeded));
     }
 
     private void checkAssertions() {
@@ -342,6 +650,8 @@ public class GlBufferArena {
 
             if (!seg.isFree()) {
                 used += seg.getLength();
+            } else if (!this.isInFreeList(seg)) {
+                throw new IllegalStateException("segment.free && !freeList.contains(segment): lost free segment");
             }
 
             GlBufferSegment next = seg.getNext();
@@ -390,4 +700,18 @@ public class GlBufferArena {
         }
     }
 
+    private boolean isInFreeList(GlBufferSegment seg) {
+        GlBufferSegment entry = this.freeLists[getSizeClass(seg.getLength())];
+
+        while (entry != null) {
+            if (entry == seg) {
+                return true;
+            }
+
+            entry = entry.getNextFree();
+        }
+
+        return false;
+    }
+
 }
@@ -1,19 +1,42 @@
 package me.jellysquid.mods.sodium.client.gl.arena;
 
+import me.jellysquid.mods.sodium.client.gl.arena.staging.StagingAllocation;
 import me.jellysquid.mods.sodium.client.util.NativeBuffer;
+import org.jetbrains.annotations.Nullable;
 
 public class PendingUpload {
     private final NativeBuffer data;
+    private final StagingAllocation stagedData;
+
     private GlBufferSegment result;
 
     public PendingUpload(NativeBuffer data) {
         this.data = data;
+        this.stagedData = null;
+    }
+
+    /**
+     * Creates an upload for data which has already been written into the staging buffer of the arena.
+     */
+    public PendingUpload(StagingAllocation stagedData) {
+        this.data = null;
+        this.stagedData = stagedData;
     }
 
-    public NativeBuffer getDataBuffer() {
+    /**
+     * @return The data to upload, or null if the data has already been written into the staging buffer
+     */
+    public @Nullable NativeBuffer getDataBuffer() {
         return this.data;
     }
 
+    /**
+     * @return The data to upload, or null if the data has not been written into the staging buffer
+     */
+    public @Nullable StagingAllocation getStagedData() {
+        return this.stagedData;
+    }
+
     protected void setResult(GlBufferSegment result) {
         if (this.result != null) {
             throw new IllegalStateException("Result already provided");
@@ -31,6 +54,6 @@ public class PendingUpload {
     }
 
     public int getLength() {
-        return this.data.getLength();
+        return this.data != null ? this.data.getLength() : this.stagedData.getLength();
     }
 }
@@ -4,6 +4,7 @@ import me.jellysquid.mods.sodium.client.gl.buffer.GlBuffer;
 import me.jellysquid.mods.sodium.client.gl.buffer.GlBufferUsage;
 import me.jellysquid.mods.sodium.client.gl.buffer.GlMutableBuffer;
 import me.jellysquid.mods.sodium.client.gl.device.CommandList;
+import org.jetbrains.annotations.Nullable;
 
 import java.nio.ByteBuffer;
 
@@ -20,6 +21,16 @@ public class FallbackStagingBuffer implements StagingBuffer {
         commandList.copyBufferSubData(this.fallbackBufferObject, dst, 0, writeOffset, data.remaining());
     }
 
+    @Override
+    public @Nullable StagingAllocation allocate(int length) {
+        return null;
+    }
+
+    @Override
+    public void enqueueCopy(CommandList commandList, StagingAllocation allocation, GlBuffer dst, long writeOffset) {
+        throw new IllegalArgumentException("Allocation does not belong to this staging buffer");
+    }
+
     @Override
     public void flush(CommandList commandList) {
         commandList.allocateStorage(this.fallbackBufferObject, 0L, GlBufferUsage.STREAM_COPY);
@@ -31,7 +42,7 @@ public class FallbackStagingBuffer implements StagingBuffer {
     }
 
     @Override
-    public void flip() {
+    public void flip(CommandList commandList) {
 
     }
 
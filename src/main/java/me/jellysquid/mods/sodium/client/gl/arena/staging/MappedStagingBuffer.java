@@ -9,11 +9,24 @@ import me.jellysquid.mods.sodium.client.gl.functions.BufferStorageFunctions;
 import me.jellysquid.mods.sodium.client.gl.sync.GlFence;
 import me.jellysquid.mods.sodium.client.gl.util.EnumBitField;
 import me.jellysquid.mods.sodium.client.util.MathUtil;
+import org.jetbrains.annotations.Nullable;
+import org.lwjgl.system.MemoryUtil;
 
 import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.List;
 
+/**
+ * A staging buffer which is backed by a persistently mapped ring of memory. Space in the ring can be reserved by any
+ * thread with {@link #allocate(int)}, which allows worker threads to write their data directly into the ring so that
+ * the render thread only needs to issue the copy commands.
+ *
+ * Allocations are reclaimed in the order they were made, once the fence which follows their copy has been signaled.
+ * If the ring doesn't have enough free space for an allocation, the data goes through the fallback staging buffer
+ * instead, and a larger ring is created on the next call to {@link #flip(CommandList)}. The previous ring is deleted
+ * once every allocation in it has been reclaimed.
+ */
 public class MappedStagingBuffer implements StagingBuffer {
     private static final EnumBitField<GlBufferStorageFlags> STORAGE_FLAGS =
             EnumBitField.of(GlBufferStorageFlags.PERSISTENT, GlBufferStorageFlags.CLIENT_STORAGE, GlBufferStorageFlags.MAP_WRITE);
@@ -21,67 +34,89 @@ public class MappedStagingBuffer implements StagingBuffer {
     private static final EnumBitField<GlBufferMapFlags> MAP_FLAGS =
             EnumBitField.of(GlBufferMapFlags.PERSISTENT, GlBufferMapFlags.INVALIDATE_BUFFER, GlBufferMapFlags.WRITE, GlBufferMapFlags.EXPLICIT_FLUSH);
 
+    private static final int DEFAULT_CAPACITY = 1024 * 1024 * 16; /* 16 MB */
+
+    // The ring will not grow beyond this size, even if allocations continue to fail
+    private static final int MAX_CAPACITY = 1024 * 1024 * 128; /* 128 MB */
+
     private final FallbackStagingBuffer fallbackStagingBuffer;
 
-    private final MappedBuffer mappedBuffer;
+    // Only accessed by the render thread
     private final PriorityQueue<CopyCommand> pendingCopies = new ObjectArrayFIFOQueue<>();
-    private final PriorityQueue<FencedMemoryRegion> fencedRegions = new ObjectArrayFIFOQueue<>();
-
-    private int start = 0;
-    private int pos = 0;
+    private final List<StagingAllocation> pendingAllocations = new ArrayList<>();
+    private final PriorityQueue<FencedAllocations> fencedAllocations = new ObjectArrayFIFOQueue<>();
 
-    private final int capacity;
-    private int remaining;
+    // Guarded by the lock of this object, since allocations can be made from any thread
+    private Ring ring;
+    private final List<Ring> retiredRings = new ArrayList<>();
+    private boolean growthRequested;
 
     public MappedStagingBuffer(CommandList commandList) {
-        this(commandList, 1024 * 1024 * 16 /* 16 MB */);
+        this(commandList, DEFAULT_CAPACITY);
     }
 
     public MappedStagingBuffer(CommandList commandList, int capacity) {
-        GlImmutableBuffer buffer = commandList.createImmutableBuffer(capacity, STORAGE_FLAGS);
-        GlBufferMapping map = commandList.mapBuffer(buffer, 0, capacity, MAP_FLAGS);
-
-        this.mappedBuffer = new MappedBuffer(buffer, map);
+        this.ring = new Ring(commandList, capacity);
         this.fallbackStagingBuffer = new FallbackStagingBuffer(commandList);
-        this.capacity = capacity;
-        this.remaining = this.capacity;
     }
 
     public static boolean isSupported(RenderDevice instance) {
         return instance.getDeviceFunctions().getBufferStorageFunctions() != BufferStorageFunctions.NONE;
     }
 
+    @Override
+    public synchronized @Nullable StagingAllocation allocate(int length) {
+        // The buffer has been deleted
+        if (this.ring == null) {
+            return null;
+        }
+
+        StagingAllocation allocation = this.ring.tryAllocate(length);
+
+        if (allocation == null && this.ring.capacity < MAX_CAPACITY) {
+            this.growthRequested = true;
+        }
+
+        return allocation;
+    }
+
+    synchronized void release(StagingAllocation allocation) {
+        if (allocation.state == StagingAllocation.STATE_ALLOCATED) {
+            allocation.state = StagingAllocation.STATE_RELEASED;
+        }
+    }
+
     @Override
     public void enqueueCopy(CommandList commandList, ByteBuffer data, GlBuffer dst, long writeOffset) {
-        int length = data.remaining();
+        StagingAllocation allocation = this.allocate(data.remaining());
 
-        if (length > this.remaining) {
+        if (allocation == null) {
             this.fallbackStagingBuffer.enqueueCopy(commandList, data, dst, writeOffset);
 
             return;
         }
 
-        int remaining = this.capacity - this.pos;
-
-        // Split the transfer in two if we have enough available memory at the end and start of the buffer
-        if (length > remaining) {
-            int split = length - remaining;
+        allocation.write(data);
 
-            this.addTransfer(data.slice(0, remaining), dst, this.pos, writeOffset);
-            this.addTransfer(data.slice(remaining, split), dst, 0, writeOffset + remaining);
+        this.enqueueCopy(commandList, allocation, dst, writeOffset);
+    }
 
-            this.pos = split;
-        } else {
-            this.addTransfer(data, dst, this.pos, writeOffset);
-            this.pos += length;
+    @Override
+    public void enqueueCopy(CommandList commandList, StagingAllocation allocation, GlBuffer dst, long writeOffset) {
+        if (allocation.ring.getOwner() != this) {
+            throw new IllegalArgumentException("Allocation does not belong to this staging buffer");
         }
 
-        this.remaining -= length;
-    }
+        synchronized (this) {
+            if (allocation.state != StagingAllocation.STATE_ALLOCATED) {
+                throw new IllegalStateException("Allocation has already been submitted or released");
+            }
+
+            allocation.state = StagingAllocation.STATE_SUBMITTED;
+        }
 
-    private void addTransfer(ByteBuffer data, GlBuffer dst, long readOffset, long writeOffset) {
-        this.mappedBuffer.map.write(data, (int) readOffset);
-        this.pendingCopies.enqueue(new CopyCommand(dst, readOffset, writeOffset, data.remaining()));
+        this.pendingCopies.enqueue(new CopyCommand(allocation.ring, dst, allocation.offset, writeOffset, allocation.length));
+        this.pendingAllocations.add(allocation);
     }
 
     @Override
@@ -90,24 +125,15 @@ public class MappedStagingBuffer implements StagingBuffer {
             return;
         }
 
-        if (this.pos < this.start) {
-            commandList.flushMappedRange(this.mappedBuffer.map, this.start, this.capacity - this.start);
-            commandList.flushMappedRange(this.mappedBuffer.map, 0, this.pos);
-        } else {
-            commandList.flushMappedRange(this.mappedBuffer.map, this.start, this.pos - this.start);
-        }
-
-        int bytes = 0;
-
         for (CopyCommand command : consolidateCopies(this.pendingCopies)) {
-            bytes += command.bytes;
-
-            commandList.copyBufferSubData(this.mappedBuffer.buffer, command.buffer, command.readOffset, command.writeOffset, command.bytes);
+            // The data may have been written by another thread, but it will always have been handed over to the
+            // render thread before now, so flushing the range here is enough to make the writes visible
+            commandList.flushMappedRange(command.ring.map, (int) command.readOffset, (int) command.bytes);
+            commandList.copyBufferSubData(command.ring.buffer, command.buffer, command.readOffset, command.writeOffset, command.bytes);
         }
 
-        this.fencedRegions.enqueue(new FencedMemoryRegion(commandList.createFence(), bytes));
-
-        this.start = this.pos;
+        this.fencedAllocations.enqueue(new FencedAllocations(commandList.createFence(), List.copyOf(this.pendingAllocations)));
+        this.pendingAllocations.clear();
     }
 
     private static List<CopyCommand> consolidateCopies(PriorityQueue<CopyCommand> queue) {
@@ -118,7 +144,8 @@ public class MappedStagingBuffer implements StagingBuffer {
             CopyCommand command = queue.dequeue();
 
             if (last != null) {
-                if (last.buffer == command.buffer &&
+                if (last.ring == command.ring &&
+                        last.buffer == command.buffer &&
                         last.writeOffset + last.bytes == command.writeOffset &&
                         last.readOffset + last.bytes == command.readOffset) {
                     last.bytes += command.bytes;
@@ -133,16 +160,33 @@ public class MappedStagingBuffer implements StagingBuffer {
     }
 
     @Override
-    public void delete(CommandList commandList) {
-        this.mappedBuffer.delete(commandList);
+    public synchronized void delete(CommandList commandList) {
+        while (!this.fencedAllocations.isEmpty()) {
+            this.fencedAllocations.dequeue()
+                    .fence()
+                    .delete();
+        }
+
+        if (this.ring != null) {
+            this.ring.delete(commandList);
+            this.ring = null;
+        }
+
+        for (Ring ring : this.retiredRings) {
+            ring.delete(commandList);
+        }
+
+        this.retiredRings.clear();
+
         this.fallbackStagingBuffer.delete(commandList);
         this.pendingCopies.clear();
+        this.pendingAllocations.clear();
     }
 
     @Override
-    public void flip() {
-        while (!this.fencedRegions.isEmpty()) {
-            var region = this.fencedRegions.first();
+    public void flip(CommandList commandList) {
+        while (!this.fencedAllocations.isEmpty()) {
+            var region = this.fencedAllocations.first();
             var fence = region.fence();
 
             if (!fence.isCompleted()) {
@@ -151,19 +195,143 @@ public class MappedStagingBuffer implements StagingBuffer {
 
             fence.delete();
 
-            this.fencedRegions.dequeue();
-            this.remaining += region.length();
+            this.fencedAllocations.dequeue();
+
+            synchronized (this) {
+                for (StagingAllocation allocation : region.allocations()) {
+                    allocation.state = StagingAllocation.STATE_COMPLETED;
+                }
+            }
+        }
+
+        synchronized (this) {
+            this.ring.reclaim();
+
+            var it = this.retiredRings.iterator();
+
+            while (it.hasNext()) {
+                Ring ring = it.next();
+                ring.reclaim();
+
+                if (ring.isEmpty()) {
+                    ring.delete(commandList);
+                    it.remove();
+                }
+            }
+
+            if (this.growthRequested) {
+                this.growthRequested = false;
+
+                this.retiredRings.add(this.ring);
+                this.ring = new Ring(commandList, Math.min(this.ring.capacity * 2, MAX_CAPACITY));
+            }
+        }
+    }
+
+    /**
+     * A persistently mapped buffer which is allocated from in a circular fashion. Each allocation is a contiguous
+     * range of the buffer, so if an allocation doesn't fit in the space left at the end of the buffer, that space is
+     * skipped and counted as part of the allocation.
+     */
+    final class Ring {
+        final GlImmutableBuffer buffer;
+        final GlBufferMapping map;
+
+        final long address;
+        final int capacity;
+
+        // The allocations which have not been reclaimed yet, in the order they were made
+        private final ArrayDeque<StagingAllocation> allocations = new ArrayDeque<>();
+
+        private int head;
+        private int used;
+
+        private Ring(CommandList commandList, int capacity) {
+            this.buffer = commandList.createImmutableBuffer(capacity, STORAGE_FLAGS);
+            this.map = commandList.mapBuffer(this.buffer, 0, capacity, MAP_FLAGS);
+
+            this.address = MemoryUtil.memAddress(this.map.getMemoryBuffer());
+            this.capacity = capacity;
+        }
+
+        MappedStagingBuffer getOwner() {
+            return MappedStagingBuffer.this;
+        }
+
+        private @Nullable StagingAllocation tryAllocate(int length) {
+            if (length > this.capacity - this.used) {
+                return null;
+            }
+
+            if (this.used == 0) {
+                this.head = 0;
+            }
+
+            int tail = Math.floorMod(this.head - this.used, this.capacity);
+
+            int offset;
+            int reserved;
+
+            if (this.head >= tail) {
+                // The free space is split between the end and the start of the buffer
+                if (this.capacity - this.head >= length) {
+                    offset = this.head;
+                    reserved = length;
+                } else if (tail >= length) {
+                    offset = 0;
+                    reserved = (this.capacity - this.head) + length;
+                } else {
+                    return null;
+                }
+            } else if (tail - this.head >= length) {
+                offset = this.head;
+                reserved = length;
+            } else {
+                return null;
+            }
+
+            this.head = (offset + length) % this.capacity;
+            this.used += reserved;
+
+            var allocation = new StagingAllocation(this, offset, length, reserved);
+            this.allocations.addLast(allocation);
+
+            return allocation;
+        }
+
+        private void reclaim() {
+            StagingAllocation allocation;
+
+            while ((allocation = this.allocations.peekFirst()) != null) {
+                if (allocation.state != StagingAllocation.STATE_COMPLETED && allocation.state != StagingAllocation.STATE_RELEASED) {
+                    break;
+                }
+
+                this.allocations.removeFirst();
+                this.used -= allocation.reserved;
+            }
+        }
+
+        private boolean isEmpty() {
+            return this.allocations.isEmpty();
+        }
+
+        private void delete(CommandList commandList) {
+            commandList.unmap(this.map);
+            commandList.deleteBuffer(this.buffer);
         }
     }
 
     private static final class CopyCommand {
+        private final Ring ring;
         private final GlBuffer buffer;
         private final long readOffset;
         private final long writeOffset;
 
         private long bytes;
 
-        private CopyCommand(GlBuffer buffer, long readOffset, long writeOffset, long bytes) {
+        private CopyCommand(Ring ring, GlBuffer buffer, long readOffset, long writeOffset, long bytes) {
+            this.ring = ring;
             this.buffer = buffer;
             this.readOffset = readOffset;
             this.writeOffset = writeOffset;
@@ -171,6 +339,7 @@ public class MappedStagingBuffer implements StagingBuffer {
         }
 
         public CopyCommand(CopyCommand command) {
+            this.ring = command.ring;
             this.buffer = command.buffer;
             this.writeOffset = command.writeOffset;
             this.readOffset = command.readOffset;
@@ -178,20 +347,17 @@ public class MappedStagingBuffer implements StagingBuffer {
         }
     }
 
-    private record MappedBuffer(GlImmutableBuffer buffer,
-                                GlBufferMapping map) {
-        public void delete(CommandList commandList) {
-            commandList.unmap(this.map);
-            commandList.deleteBuffer(this.buffer);
-        }
-    }
-
-    private record FencedMemoryRegion(GlFence fence, int length) {
+    private record FencedAllocations(GlFence fence, List<StagingAllocation> allocations) {
 
     }
 
     @Override
-    public String toString() {
-        return "Mapped (%s/%s MiB)".formatted(MathUtil.toMib(this.remaining), MathUtil.toMib(this.capacity));
+    public synchronized String toString() {
+        if (this.ring == null) {
+            return "Mapped (deleted)";
+        }
+
+        return "Mapped (%s/%s MiB, %s retired)".formatted(MathUtil.toMib(this.ring.capacity - this.ring.used),
+                MathUtil.toMib(this.ring.capacity), this.retiredRings.size());
     }
 }
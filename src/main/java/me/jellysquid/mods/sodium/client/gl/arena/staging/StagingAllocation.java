@@ -0,0 +1,64 @@
+package me.jellysquid.mods.sodium.client.gl.arena.staging;
+
+import org.lwjgl.system.MemoryUtil;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A range of a {@link MappedStagingBuffer} which has been reserved ahead of time, so that it can be written to by any
+ * thread and copied into a device buffer later on by the render thread. The writer owns the range until it is either
+ * submitted with {@link StagingBuffer#enqueueCopy(me.jellysquid.mods.sodium.client.gl.device.CommandList,
+ * StagingAllocation, me.jellysquid.mods.sodium.client.gl.buffer.GlBuffer, long)} or released, and the range can't be
+ * re-used until the device has finished copying from it.
+ *
+ * The state of an allocation is only modified while holding the lock of the staging buffer which owns it.
+ */
+public class StagingAllocation {
+    static final int STATE_ALLOCATED = 0;
+    static final int STATE_SUBMITTED = 1;
+    static final int STATE_COMPLETED = 2;
+    static final int STATE_RELEASED = 3;
+
+    final MappedStagingBuffer.Ring ring;
+
+    // The offset of the data within the ring, and the number of bytes which were taken from the ring for it, which
+    // includes any space that was skipped at the end of the ring to keep the data contiguous
+    final int offset;
+    final int length;
+    final int reserved;
+
+    int state = STATE_ALLOCATED;
+
+    StagingAllocation(MappedStagingBuffer.Ring ring, int offset, int length, int reserved) {
+        this.ring = ring;
+        this.offset = offset;
+        this.length = length;
+        this.reserved = reserved;
+    }
+
+    /**
+     * Copies the data into the allocation. This can be called from any thread, but only before the allocation has been
+     * submitted or released.
+     */
+    public void write(ByteBuffer data) {
+        if (data.remaining() != this.length) {
+            throw new IllegalArgumentException("Data is %s bytes, but the allocation is %s bytes"
+                    .formatted(data.remaining(), this.length));
+        }
+
+        MemoryUtil.memCopy(MemoryUtil.memAddress(data), this.ring.address + this.offset, this.length);
+    }
+
+    /**
+     * Returns the allocation to the staging buffer without copying it anywhere. This does nothing if the allocation
+     * has already been submitted, since it will be reclaimed once the device has finished copying from it.
+     */
+    public void release() {
+        this.ring.getOwner()
+                .release(this);
+    }
+
+    public int getLength() {
+        return this.length;
+    }
+}
@@ -2,15 +2,27 @@ package me.jellysquid.mods.sodium.client.gl.arena.staging;
 
 import me.jellysquid.mods.sodium.client.gl.buffer.GlBuffer;
 import me.jellysquid.mods.sodium.client.gl.device.CommandList;
+import org.jetbrains.annotations.Nullable;
 
 import java.nio.ByteBuffer;
 
 public interface StagingBuffer {
     void enqueueCopy(CommandList commandList, ByteBuffer data, GlBuffer dst, long writeOffset);
 
+    /**
+     * Reserves space in the staging buffer which the caller can write to ahead of time, and then pass to
+     * {@link #enqueueCopy(CommandList, StagingAllocation, GlBuffer, long)}. Unlike every other method of the staging
+     * buffer, this can be called from any thread.
+     *
+     * @return The allocation, or null if the staging buffer is out of space or doesn't support allocations
+     */
+    @Nullable StagingAllocation allocate(int length);
+
+    void enqueueCopy(CommandList commandList, StagingAllocation allocation, GlBuffer dst, long writeOffset);
+
     void flush(CommandList commandList);
 
     void delete(CommandList commandList);
 
-    void flip();
+    void flip(CommandList commandList);
 }
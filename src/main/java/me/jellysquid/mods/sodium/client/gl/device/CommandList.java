@@ -21,10 +21,33 @@ public interface CommandList extends AutoCloseable {
 
     void uploadData(GlMutableBuffer glBuffer, ByteBuffer byteBuffer, GlBufferUsage usage);
 
+    /**
+     * Replaces a range of the existing storage of a buffer with the given data, without re-allocating it.
+     */
+    void uploadSubData(GlBuffer glBuffer, long offset, ByteBuffer byteBuffer);
+
+    /**
+     * Reads back a range of a buffer into client memory. This stalls until the device has finished writing the buffer,
+     * and should only be used for debugging.
+     */
+    void downloadSubData(GlBuffer glBuffer, long offset, ByteBuffer byteBuffer);
+
     void copyBufferSubData(GlBuffer src, GlBuffer dst, long readOffset, long writeOffset, long bytes);
 
     void bindBuffer(GlBufferTarget target, GlBuffer buffer);
 
+    /**
+     * Binds a buffer to an indexed binding point of the target, such as a shader storage block.
+     */
+    void bindBufferBase(GlBufferTarget target, int index, GlBuffer buffer);
+
+    void dispatchCompute(int numGroupsX, int numGroupsY, int numGroupsZ);
+
+    /**
+     * @param barriers The bitfield of barriers, see {@link org.lwjgl.opengl.GL42C#glMemoryBarrier(int)}
+     */
+    void memoryBarrier(int barriers);
+
     void unbindVertexArray();
 
     void allocateStorage(GlMutableBuffer buffer, long bufferSize, GlBufferUsage usage);
@@ -1,10 +1,36 @@
 package me.jellysquid.mods.sodium.client.gl.device;
 
+import me.jellysquid.mods.sodium.client.gl.buffer.GlBuffer;
 import me.jellysquid.mods.sodium.client.gl.tessellation.GlIndexType;
 
 public interface DrawCommandList extends AutoCloseable {
     void multiDrawElementsBaseVertex(MultiDrawBatch batch, GlIndexType indexType);
 
+    /**
+     * Executes the draw commands which have been uploaded to the given buffer, which must be laid out as described by
+     * {@link IndirectDrawBatch}.
+     *
+     * @param commandBuffer The buffer containing the draw commands
+     * @param commandCount The number of draw commands to execute
+     */
+    void multiDrawElementsIndirect(GlBuffer commandBuffer, int commandCount, GlIndexType indexType);
+
+    /**
+     * Executes the draw commands which have been written to the given buffer, where the number of commands is read
+     * from the first integer of the count buffer when the draw is executed.
+     *
+     * @param commandBuffer The buffer containing the draw commands
+     * @param countBuffer The buffer containing the number of draw commands
+     * @param maxCommandCount The maximum number of draw commands which will be executed
+     */
+    void multiDrawElementsIndirectCount(GlBuffer commandBuffer, GlBuffer countBuffer, int maxCommandCount, GlIndexType indexType);
+
+    /**
+     * Draws the given number of instances, each of which is made up of the first {@param vertexCount} vertices. This
+     * is meant for tessellations whose only attributes are advanced per instance.
+     */
+    void drawArraysInstanced(int vertexCount, int instanceCount);
+
     void endTessellating();
 
     void flush();
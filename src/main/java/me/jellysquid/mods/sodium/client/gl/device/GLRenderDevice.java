@@ -2,6 +2,7 @@ package me.jellysquid.mods.sodium.client.gl.device;
 
 import me.jellysquid.mods.sodium.client.gl.array.GlVertexArray;
 import me.jellysquid.mods.sodium.client.gl.buffer.*;
+import me.jellysquid.mods.sodium.client.gl.func.GlFunctions;
 import me.jellysquid.mods.sodium.client.gl.functions.DeviceFunctions;
 import me.jellysquid.mods.sodium.client.gl.state.GlStateTracker;
 import me.jellysquid.mods.sodium.client.gl.sync.GlFence;
@@ -89,6 +90,20 @@ public class GLRenderDevice implements RenderDevice {
             glBuffer.setSize(byteBuffer.remaining());
         }
 
+        @Override
+        public void uploadSubData(GlBuffer glBuffer, long offset, ByteBuffer byteBuffer) {
+            this.bindBuffer(GlBufferTarget.ARRAY_BUFFER, glBuffer);
+
+            GL20C.glBufferSubData(GlBufferTarget.ARRAY_BUFFER.getTargetParameter(), offset, byteBuffer);
+        }
+
+        @Override
+        public void downloadSubData(GlBuffer glBuffer, long offset, ByteBuffer byteBuffer) {
+            this.bindBuffer(GlBufferTarget.COPY_READ_BUFFER, glBuffer);
+
+            GL20C.glGetBufferSubData(GlBufferTarget.COPY_READ_BUFFER.getTargetParameter(), offset, byteBuffer);
+        }
+
         @Override
         public void copyBufferSubData(GlBuffer src, GlBuffer dst, long readOffset, long writeOffset, long bytes) {
             this.bindBuffer(GlBufferTarget.COPY_READ_BUFFER, src);
@@ -104,6 +119,24 @@ public class GLRenderDevice implements RenderDevice {
             }
         }
 
+        @Override
+        public void bindBufferBase(GlBufferTarget target, int index, GlBuffer buffer) {
+            // This also replaces the generic binding of the target
+            this.stateTracker.makeBufferActive(target, buffer);
+
+            GL30C.glBindBufferBase(target.getTargetParameter(), index, buffer.handle());
+        }
+
+        @Override
+        public void dispatchCompute(int numGroupsX, int numGroupsY, int numGroupsZ) {
+            GL43C.glDispatchCompute(numGroupsX, numGroupsY, numGroupsZ);
+        }
+
+        @Override
+        public void memoryBarrier(int barriers) {
+            GL42C.glMemoryBarrier(barriers);
+        }
+
         @Override
         public void unbindVertexArray() {
             if (this.stateTracker.makeVertexArrayActive(null)) {
@@ -279,6 +312,41 @@ public class GLRenderDevice implements RenderDevice {
                     batch.pBaseVertex);
         }
 
+        @Override
+        public void multiDrawElementsIndirect(GlBuffer commandBuffer, int commandCount, GlIndexType indexType) {
+            GlPrimitiveType primitiveType = GLRenderDevice.this.activeTessellation.getPrimitiveType();
+
+            GLRenderDevice.this.commandList.bindBuffer(GlBufferTarget.DRAW_INDIRECT_BUFFER, commandBuffer);
+
+            GlFunctions.INDIRECT_DRAW.glMultiDrawElementsIndirect(primitiveType.getId(),
+                    indexType.getFormatId(),
+                    0L,
+                    commandCount,
+                    IndirectDrawBatch.COMMAND_STRIDE);
+        }
+
+        @Override
+        public void multiDrawElementsIndirectCount(GlBuffer commandBuffer, GlBuffer countBuffer, int maxCommandCount, GlIndexType indexType) {
+            GlPrimitiveType primitiveType = GLRenderDevice.this.activeTessellation.getPrimitiveType();
+
+            GLRenderDevice.this.commandList.bindBuffer(GlBufferTarget.DRAW_INDIRECT_BUFFER, commandBuffer);
+            GLRenderDevice.this.commandList.bindBuffer(GlBufferTarget.PARAMETER_BUFFER, countBuffer);
+
+            GlFunctions.INDIRECT_COUNT_DRAW.glMultiDrawElementsIndirectCount(primitiveType.getId(),
+                    indexType.getFormatId(),
+                    0L,
+                    0L,
+                    maxCommandCount,
+                    IndirectDrawBatch.COMMAND_STRIDE);
+        }
+
+        @Override
+        public void drawArraysInstanced(int vertexCount, int instanceCount) {
+            GlPrimitiveType primitiveType = GLRenderDevice.this.activeTessellation.getPrimitiveType();
+
+            GL31C.glDrawArraysInstanced(primitiveType.getId(), 0, vertexCount, instanceCount);
+        }
+
         @Override
         public void endTessellating() {
             GLRenderDevice.this.activeTessellation.unbind(GLRenderDevice.this.commandList);
@@ -0,0 +1,121 @@
+package me.jellysquid.mods.sodium.client.gl.device;
+
+import org.lwjgl.system.MemoryUtil;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Provides a growable queue for building a list of indexed draw commands usable with
+ * {@link org.lwjgl.opengl.GL43C#glMultiDrawElementsIndirect(int, int, long, int, int)}. Each command is laid out as
+ * the following sequence of 32-bit integers:
+ *
+ * - COUNT: The number of elements to draw
+ * - INSTANCE_COUNT: The number of instances to draw, which is always 1
+ * - FIRST_INDEX: The first element of the index buffer, which is always 0
+ * - BASE_VERTEX: The value added to every element before fetching vertices
+ * - BASE_INSTANCE: The instance which is used to fetch per-instance attributes
+ *
+ * The batch only contains client memory, so it can be built without an OpenGL context.
+ */
+public final class IndirectDrawBatch {
+    public static final int COMMAND_STRIDE = 5 * Integer.BYTES;
+
+    private static final long OFFSET_COUNT = 0L;
+    private static final long OFFSET_INSTANCE_COUNT = 4L;
+    private static final long OFFSET_FIRST_INDEX = 8L;
+    private static final long OFFSET_BASE_VERTEX = 12L;
+    private static final long OFFSET_BASE_INSTANCE = 16L;
+
+    private long pCommands;
+    private int capacity;
+
+    private int size;
+
+    public IndirectDrawBatch(int initialCapacity) {
+        this.pCommands = MemoryUtil.nmemAlloc((long) initialCapacity * COMMAND_STRIDE);
+        this.capacity = initialCapacity;
+    }
+
+    /**
+     * Makes sure that at least {@param count} more commands can be written with
+     * {@link #set(int, int, int, int)} after the current end of the batch.
+     */
+    public void reserve(int count) {
+        int required = this.size + count;
+
+        if (required > this.capacity) {
+            int capacity = Math.max(this.capacity * 2, required);
+
+            this.pCommands = MemoryUtil.nmemRealloc(this.pCommands, (long) capacity * COMMAND_STRIDE);
+            this.capacity = capacity;
+        }
+    }
+
+    /**
+     * Writes a command at the given index, which must have been reserved. The size of the batch is not changed, so that
+     * callers can write commands unconditionally and only advance the size for the ones which should be kept.
+     */
+    public void set(int index, int elementCount, int baseVertex, int baseInstance) {
+        long pCommand = this.pCommands + ((long) index * COMMAND_STRIDE);
+
+        MemoryUtil.memPutInt(pCommand + OFFSET_COUNT, elementCount);
+        MemoryUtil.memPutInt(pCommand + OFFSET_INSTANCE_COUNT, 1);
+        MemoryUtil.memPutInt(pCommand + OFFSET_FIRST_INDEX, 0);
+        MemoryUtil.memPutInt(pCommand + OFFSET_BASE_VERTEX, baseVertex);
+        MemoryUtil.memPutInt(pCommand + OFFSET_BASE_INSTANCE, baseInstance);
+    }
+
+    public int getElementCount(int index) {
+        return MemoryUtil.memGetInt(this.pCommands + ((long) index * COMMAND_STRIDE) + OFFSET_COUNT);
+    }
+
+    public int getBaseVertex(int index) {
+        return MemoryUtil.memGetInt(this.pCommands + ((long) index * COMMAND_STRIDE) + OFFSET_BASE_VERTEX);
+    }
+
+    public int getBaseInstance(int index) {
+        return MemoryUtil.memGetInt(this.pCommands + ((long) index * COMMAND_STRIDE) + OFFSET_BASE_INSTANCE);
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public void setSize(int size) {
+        if (size < 0 || size > this.capacity) {
+            throw new IndexOutOfBoundsException("size=" + size + ", capacity=" + this.capacity);
+        }
+
+        this.size = size;
+    }
+
+    public void clear() {
+        this.size = 0;
+    }
+
+    public boolean isEmpty() {
+        return this.size <= 0;
+    }
+
+    /**
+     * @return A view of the commands in the batch, which is only valid until the batch is next modified
+     */
+    public ByteBuffer getBuffer() {
+        return MemoryUtil.memByteBuffer(this.pCommands, this.size * COMMAND_STRIDE);
+    }
+
+    public int getIndexBufferSize() {
+        int elements = 0;
+
+        for (var index = 0; index < this.size; index++) {
+            elements = Math.max(elements, this.getElementCount(index));
+        }
+
+        return elements;
+    }
+
+    public void delete() {
+        MemoryUtil.nmemFree(this.pCommands);
+        this.pCommands = MemoryUtil.NULL;
+    }
+}
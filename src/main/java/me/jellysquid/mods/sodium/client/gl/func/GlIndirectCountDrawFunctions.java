@@ -0,0 +1,38 @@
+package me.jellysquid.mods.sodium.client.gl.func;
+
+import org.lwjgl.opengl.ARBIndirectParameters;
+import org.lwjgl.opengl.GL46C;
+import org.lwjgl.opengl.GLCapabilities;
+
+public enum GlIndirectCountDrawFunctions {
+    CORE {
+        @Override
+        public void glMultiDrawElementsIndirectCount(int mode, int type, long indirect, long drawcount, int maxdrawcount, int stride) {
+            GL46C.glMultiDrawElementsIndirectCount(mode, type, indirect, drawcount, maxdrawcount, stride);
+        }
+    },
+    ARB {
+        @Override
+        public void glMultiDrawElementsIndirectCount(int mode, int type, long indirect, long drawcount, int maxdrawcount, int stride) {
+            ARBIndirectParameters.glMultiDrawElementsIndirectCountARB(mode, type, indirect, drawcount, maxdrawcount, stride);
+        }
+    },
+    UNSUPPORTED {
+        @Override
+        public void glMultiDrawElementsIndirectCount(int mode, int type, long indirect, long drawcount, int maxdrawcount, int stride) {
+            throw new UnsupportedOperationException();
+        }
+    };
+
+    public static GlIndirectCountDrawFunctions load(GLCapabilities capabilities) {
+        if (capabilities.OpenGL46) {
+            return CORE;
+        } else if (capabilities.GL_ARB_indirect_parameters) {
+            return ARB;
+        } else {
+            return UNSUPPORTED;
+        }
+    }
+
+    public abstract void glMultiDrawElementsIndirectCount(int mode, int type, long indirect, long drawcount, int maxdrawcount, int stride);
+}
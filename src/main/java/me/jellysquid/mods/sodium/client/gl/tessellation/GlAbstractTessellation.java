@@ -2,6 +2,7 @@ package me.jellysquid.mods.sodium.client.gl.tessellation;
 
 import me.jellysquid.mods.sodium.client.gl.attribute.GlVertexAttributeBinding;
 import me.jellysquid.mods.sodium.client.gl.device.CommandList;
+import me.jellysquid.mods.sodium.client.gl.func.GlFunctions;
 import org.lwjgl.opengl.GL20C;
 import org.lwjgl.opengl.GL30C;
 
@@ -32,6 +33,10 @@ public abstract class GlAbstractTessellation implements GlTessellation {
                             attrib.getStride(), attrib.getPointer());
                 }
                 GL20C.glEnableVertexAttribArray(attrib.getIndex());
+
+                if (binding.divisor() != 0) {
+                    GlFunctions.INSTANCED_ARRAY.glVertexAttribDivisor(attrib.getIndex(), binding.divisor());
+                }
             }
         }
     }
@@ -4,14 +4,27 @@ import me.jellysquid.mods.sodium.client.gl.attribute.GlVertexAttributeBinding;
 import me.jellysquid.mods.sodium.client.gl.buffer.GlBuffer;
 import me.jellysquid.mods.sodium.client.gl.buffer.GlBufferTarget;
 
+/**
+ * @param divisor The number of instances which each element of the attributes is used for, or zero if the attributes
+ *                are advanced per vertex
+ */
 public record TessellationBinding(GlBufferTarget target,
                                   GlBuffer buffer,
-                                  GlVertexAttributeBinding[] attributeBindings) {
+                                  GlVertexAttributeBinding[] attributeBindings,
+                                  int divisor) {
     public static TessellationBinding forVertexBuffer(GlBuffer buffer, GlVertexAttributeBinding[] attributes) {
-        return new TessellationBinding(GlBufferTarget.ARRAY_BUFFER, buffer, attributes);
+        return new TessellationBinding(GlBufferTarget.ARRAY_BUFFER, buffer, attributes, 0);
+    }
+
+    /**
+     * Binds attributes which are advanced once per instance, rather than once per vertex. This requires support for
+     * instanced arrays, see {@link me.jellysquid.mods.sodium.client.gl.func.GlFunctions#isInstancedArraySupported()}.
+     */
+    public static TessellationBinding forInstanceBuffer(GlBuffer buffer, GlVertexAttributeBinding[] attributes) {
+        return new TessellationBinding(GlBufferTarget.ARRAY_BUFFER, buffer, attributes, 1);
     }
 
     public static TessellationBinding forElementBuffer(GlBuffer buffer) {
-        return new TessellationBinding(GlBufferTarget.ELEMENT_BUFFER, buffer, new GlVertexAttributeBinding[0]);
+        return new TessellationBinding(GlBufferTarget.ELEMENT_BUFFER, buffer, new GlVertexAttributeBinding[0], 0);
     }
 }
@@ -43,13 +43,22 @@ public class SodiumGameOptions {
         public boolean animateOnlyVisibleTextures = true;
         public boolean useEntityCulling = true;
         public boolean useFogOcclusion = true;
+        public boolean useParallelGraphSearch = false;
+        public boolean useParallelParticleRendering = false;
+        public boolean useInstancedParticleRendering = false;
         public boolean useBlockFaceCulling = true;
         public boolean useNoErrorGLContext = true;
+
+        public boolean sortTranslucentGeometry = false;
+        public boolean useGreedyMeshing = false;
     }
 
     public static class AdvancedSettings {
         public boolean enableMemoryTracing = false;
         public boolean useAdvancedStagingBuffers = true;
+        public boolean useMeshCache = false;
+        public boolean useGlobalGeometryHeap = false;
+        public boolean useComputeCulling = false;
 
         public int cpuRenderAheadLimit = 3;
     }
@@ -2,7 +2,8 @@ package me.jellysquid.mods.sodium.client.model.light.data;
 
 import me.jellysquid.mods.sodium.client.world.WorldSlice;
 import net.minecraft.util.math.ChunkSectionPos;
-import net.minecraft.world.BlockRenderView;
+import net.minecraft.world.LightType;
+import net.minecraft.world.chunk.ChunkNibbleArray;
 
 import java.util.Arrays;
 
@@ -15,12 +16,16 @@ public class ArrayLightDataCache extends LightDataAccess {
     private static final int NEIGHBOR_BLOCK_RADIUS = 2;
     private static final int BLOCK_LENGTH = 16 + (NEIGHBOR_BLOCK_RADIUS * 2);
 
+    private final WorldSlice slice;
+    private final LightDataProperties properties;
     private final int[] light;
 
     private int xOffset, yOffset, zOffset;
 
-    public ArrayLightDataCache(BlockRenderView world) {
-        this.world = world;
+    public ArrayLightDataCache(WorldSlice slice, LightDataProperties properties) {
+        this.world = slice;
+        this.slice = slice;
+        this.properties = properties;
         this.light = new int[BLOCK_LENGTH * BLOCK_LENGTH * BLOCK_LENGTH];
     }
 
@@ -32,6 +37,63 @@ public class ArrayLightDataCache extends LightDataAccess {
         Arrays.fill(this.light, 0);
     }
 
+    /**
+     * Computes the light data of every block in the cache at once, reading the block state IDs and light arrays of the
+     * world slice directly in the order that the cache is laid out in. The properties of each block state are taken
+     * from the {@link LightDataProperties} given to the cache, and blocks which can't use the table are left to be computed on demand.
+     *
+     * This must only be called after the world slice has copied the data of the section which the cache was reset to.
+     */
+    public void precompute() {
+        var slice = this.slice;
+        var properties = this.properties;
+        var light = this.light;
+
+        for (int z = 0; z < BLOCK_LENGTH; z++) {
+            int blockZ = this.zOffset + z;
+
+            for (int y = 0; y < BLOCK_LENGTH; y++) {
+                int blockY = this.yOffset + y;
+                int index = (z * BLOCK_LENGTH * BLOCK_LENGTH) + (y * BLOCK_LENGTH);
+
+                // The row is split into runs which are within the same section, so that the arrays of each section
+                // only need to be looked up once per run
+                for (int x = 0; x < BLOCK_LENGTH; ) {
+                    int blockX = this.xOffset + x;
+                    int runLength = Math.min(BLOCK_LENGTH - x, 16 - (blockX & 15));
+
+                    int[] stateIds = slice.getStateIdArray(blockX, blockY, blockZ);
+                    ChunkNibbleArray blockLight = slice.getLightArray(LightType.BLOCK, blockX, blockY, blockZ);
+                    ChunkNibbleArray skyLight = slice.getLightArray(LightType.SKY, blockX, blockY, blockZ);
+
+                    for (int i = 0; i < runLength; i++) {
+                        int localX = (blockX + i) & 15;
+                        int localY = blockY & 15;
+                        int localZ = blockZ & 15;
+
+                        int word = properties.get(stateIds[WorldSlice.getLocalBlockIndex(localX, localY, localZ)]);
+
+                        if (word == LightDataProperties.DYNAMIC) {
+                            continue;
+                        }
+
+                        // OPTIMIZE: Do not calculate light data if the block is full and opaque and does not emit light.
+                        if (!LightDataProperties.skipsWorldLight(word)) {
+                            int bl = blockLight == null ? 0 : blockLight.get(localX, localY, localZ);
+                            int sl = skyLight == null ? 0 : skyLight.get(localX, localY, localZ);
+
+                            word |= packSL(sl) | packBL(bl);
+                        }
+
+                        light[index + x + i] = word;
+                    }
+
+                    x += runLength;
+                }
+            }
+        }
+    }
+
     private int index(int x, int y, int z) {
         int x2 = x - this.xOffset;
         int y2 = y - this.yOffset;
@@ -52,4 +114,4 @@ public class ArrayLightDataCache extends LightDataAccess {
 
         return this.light[l] = this.compute(x, y, z);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,81 @@
+package me.jellysquid.mods.sodium.client.model.light.data;
+
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.EmptyBlockView;
+
+/**
+ * A table of the light data properties of every block state, indexed by the raw ID of the state in
+ * {@link Block#STATE_IDS}. Each entry holds the fields of a light data word which only depend on the block state
+ * (see {@link LightDataAccess}), so that they don't need to be queried from the block state for every block in a
+ * chunk build.
+ *
+ * The properties are queried without a world or position, so they can only be used for blocks which don't have
+ * dynamic bounds. For any other block, the entry is {@link #DYNAMIC} and the light data must be computed with
+ * {@link LightDataAccess#compute(int, int, int)}.
+ *
+ * The raw IDs of block states can be remapped when joining a server, so the table is owned by the
+ * {@link me.jellysquid.mods.sodium.client.render.chunk.compile.pipeline.BlockRenderProperties} of the world renderer,
+ * which is created again whenever the renderer is reloaded.
+ */
+public class LightDataProperties {
+    /**
+     * The entry of any block state whose properties may depend on its position. This can't be confused with a valid
+     * entry, since the light level fields of an entry are always zero.
+     */
+    public static final int DYNAMIC = 0xFF;
+
+    private final int[] table;
+
+    public LightDataProperties() {
+        this.table = new int[Block.STATE_IDS.size()];
+
+        for (int id = 0; id < this.table.length; id++) {
+            var state = Block.STATE_IDS.get(id);
+            this.table[id] = state != null ? getProperties(state) : DYNAMIC;
+        }
+    }
+
+    /**
+     * @return The light data word of the block state without the world light levels, or {@link #DYNAMIC}
+     */
+    public int get(int stateId) {
+        return this.table[stateId];
+    }
+
+    /**
+     * @return True if the block is an opaque full cube which does not emit light, in which case the light levels
+     * of the world are never needed
+     */
+    public static boolean skipsWorldLight(int word) {
+        return LightDataAccess.unpackFO(word) && LightDataAccess.unpackLU(word) == 0;
+    }
+
+    private static int getProperties(BlockState state) {
+        if (state.getBlock().hasDynamicBounds()) {
+            return DYNAMIC;
+        }
+
+        var world = EmptyBlockView.INSTANCE;
+        var pos = BlockPos.ORIGIN;
+
+        boolean em = state.hasEmissiveLighting(world, pos);
+        boolean op = state.shouldBlockVision(world, pos) && state.getOpacity(world, pos) != 0;
+        boolean fo = state.isOpaqueFullCube(world, pos);
+        boolean fc = state.isFullCube(world, pos);
+
+        int lu = state.getLuminance();
+
+        // FIX: Do not apply AO from blocks that emit light
+        float ao;
+        if (lu == 0) {
+            ao = state.getAmbientOcclusionLightLevel(world, pos);
+        } else {
+            ao = 1.0f;
+        }
+
+        return LightDataAccess.packFC(fc) | LightDataAccess.packFO(fo) | LightDataAccess.packOP(op) |
+                LightDataAccess.packEM(em) | LightDataAccess.packAO(ao) | LightDataAccess.packLU(lu);
+    }
+}
@@ -0,0 +1,375 @@
+package me.jellysquid.mods.sodium.client.render.chunk;
+
+import me.jellysquid.mods.sodium.client.SodiumClientMod;
+import me.jellysquid.mods.sodium.client.gl.attribute.GlVertexAttribute;
+import me.jellysquid.mods.sodium.client.gl.attribute.GlVertexAttributeBinding;
+import me.jellysquid.mods.sodium.client.gl.attribute.GlVertexAttributeFormat;
+import me.jellysquid.mods.sodium.client.gl.buffer.GlBuffer;
+import me.jellysquid.mods.sodium.client.gl.buffer.GlBufferUsage;
+import me.jellysquid.mods.sodium.client.gl.buffer.GlMutableBuffer;
+import me.jellysquid.mods.sodium.client.gl.device.CommandList;
+import me.jellysquid.mods.sodium.client.gl.device.DrawCommandList;
+import me.jellysquid.mods.sodium.client.gl.device.IndirectDrawBatch;
+import me.jellysquid.mods.sodium.client.gl.device.RenderDevice;
+import me.jellysquid.mods.sodium.client.gl.func.GlFunctions;
+import me.jellysquid.mods.sodium.client.gl.tessellation.GlIndexType;
+import me.jellysquid.mods.sodium.client.gl.tessellation.GlPrimitiveType;
+import me.jellysquid.mods.sodium.client.gl.tessellation.GlTessellation;
+import me.jellysquid.mods.sodium.client.gl.tessellation.TessellationBinding;
+import me.jellysquid.mods.sodium.client.model.quad.properties.ModelQuadFacing;
+import me.jellysquid.mods.sodium.client.render.chunk.compute.ComputeChunkCuller;
+import me.jellysquid.mods.sodium.client.render.chunk.data.SectionRenderDataStorage;
+import me.jellysquid.mods.sodium.client.render.chunk.data.SectionRenderDataUnsafe;
+import me.jellysquid.mods.sodium.client.render.chunk.lists.ChunkRenderList;
+import me.jellysquid.mods.sodium.client.render.chunk.lists.ChunkRenderListIterable;
+import me.jellysquid.mods.sodium.client.render.chunk.region.RenderRegion;
+import me.jellysquid.mods.sodium.client.render.chunk.shader.ChunkFogMode;
+import me.jellysquid.mods.sodium.client.render.chunk.shader.ChunkShaderBindingPoints;
+import me.jellysquid.mods.sodium.client.render.chunk.shader.ChunkShaderInterface;
+import me.jellysquid.mods.sodium.client.render.chunk.shader.ChunkShaderOptions;
+import me.jellysquid.mods.sodium.client.render.chunk.terrain.TerrainRenderPass;
+import me.jellysquid.mods.sodium.client.render.chunk.vertex.format.ChunkMeshAttribute;
+import me.jellysquid.mods.sodium.client.render.chunk.vertex.format.ChunkVertexType;
+import me.jellysquid.mods.sodium.client.render.viewport.CameraTransform;
+import org.jetbrains.annotations.Nullable;
+import org.lwjgl.opengl.GLCapabilities;
+import org.lwjgl.system.MemoryUtil;
+
+import java.util.Iterator;
+
+/**
+ * A chunk renderer which draws every region with a single draw call for each render pass. This requires the geometry
+ * of all regions to be stored in one arena which is shared between them (see
+ * {@link me.jellysquid.mods.sodium.client.render.chunk.region.RenderRegionManager}), so that the draw commands of
+ * every region can refer to the same vertex buffer.
+ *
+ * Since the vertex positions of each section are relative to its region, the offset of every region from the camera
+ * is written to a buffer which is bound as a per-instance vertex attribute. Each draw command draws a single instance
+ * whose base instance is the index of its region in that buffer.
+ *
+ * The draw commands of each pass are built in client memory first (see {@link #fillCommandBuffer}), which doesn't
+ * touch any OpenGL state, and then uploaded and executed with one call to glMultiDrawElementsIndirect. If compute
+ * culling is enabled, the commands of passes which don't need to be sorted are instead generated on the device by
+ * {@link ComputeChunkCuller}.
+ */
+public class GlobalChunkRenderer extends ShaderChunkRenderer {
+    private static final int REGION_OFFSET_STRIDE = 3 * Float.BYTES;
+
+    private final IndirectDrawBatch batch;
+    private final SharedQuadIndexBuffer sharedIndexBuffer;
+
+    private final GlMutableBuffer commandBuffer;
+    private final GlMutableBuffer regionOffsetBuffer;
+
+    // The offset of each region in the current batch from the camera, indexed by the base instance of its commands
+    private long pRegionOffsets;
+    private int regionOffsetCapacity;
+
+    private GlTessellation tessellation;
+    private GlBuffer tessellationVertexBuffer;
+
+    // Generates the draw commands on the device, or null if the commands are always built on the CPU
+    private final @Nullable ComputeChunkCuller computeCuller;
+
+    public GlobalChunkRenderer(RenderDevice device, ChunkVertexType vertexType) {
+        super(device, vertexType);
+
+        CommandList commandList = device.createCommandList();
+
+        this.batch = new IndirectDrawBatch(ModelQuadFacing.COUNT * RenderRegion.REGION_SIZE);
+        this.sharedIndexBuffer = new SharedQuadIndexBuffer(commandList, SharedQuadIndexBuffer.IndexType.INTEGER);
+
+        this.commandBuffer = commandList.createMutableBuffer();
+        this.regionOffsetBuffer = commandList.createMutableBuffer();
+
+        this.regionOffsetCapacity = 64;
+        this.pRegionOffsets = MemoryUtil.nmemAlloc((long) this.regionOffsetCapacity * REGION_OFFSET_STRIDE);
+
+        if (SodiumClientMod.options().advanced.useComputeCulling && ComputeChunkCuller.isSupported(device)) {
+            this.computeCuller = new ComputeChunkCuller(commandList);
+        } else {
+            this.computeCuller = null;
+        }
+    }
+
+    /**
+     * @return True if the device supports indirect draws with a base instance, and instanced vertex attributes
+     */
+    public static boolean isSupported(RenderDevice device) {
+        GLCapabilities capabilities = device.getCapabilities();
+
+        return GlFunctions.isIndirectMultiDrawSupported() && GlFunctions.isInstancedArraySupported() &&
+                (capabilities.OpenGL42 || capabilities.GL_ARB_base_instance);
+    }
+
+    @Override
+    protected ChunkShaderOptions createShaderOptions(TerrainRenderPass pass) {
+        return new ChunkShaderOptions(ChunkFogMode.SMOOTH, pass, this.vertexType, true,
+                SodiumClientMod.options().performance.useGreedyMeshing);
+    }
+
+    @Override
+    public void render(ChunkRenderMatrices matrices,
+                       CommandList commandList,
+                       ChunkRenderListIterable renderLists,
+                       TerrainRenderPass renderPass,
+                       CameraTransform camera) {
+        boolean useBlockFaceCulling = SodiumClientMod.options().performance.useBlockFaceCulling;
+
+        // Commands generated by the device are written in no particular order, so they can't be used for passes
+        // which need to be drawn back-to-front
+        if (this.computeCuller != null && !renderPass.isReverseOrder()) {
+            this.renderWithComputeCulling(matrices, commandList, renderLists, renderPass, camera, useBlockFaceCulling);
+        } else {
+            this.renderWithClientCommands(matrices, commandList, renderLists, renderPass, camera, useBlockFaceCulling);
+        }
+    }
+
+    private void renderWithClientCommands(ChunkRenderMatrices matrices,
+                                          CommandList commandList,
+                                          ChunkRenderListIterable renderLists,
+                                          TerrainRenderPass renderPass,
+                                          CameraTransform camera,
+                                          boolean useBlockFaceCulling) {
+        this.batch.clear();
+
+        GlBuffer vertexBuffer = null;
+        int regionCount = 0;
+
+        Iterator<ChunkRenderList> iterator = renderLists.iterator(renderPass.isReverseOrder());
+
+        while (iterator.hasNext()) {
+            ChunkRenderList renderList = iterator.next();
+
+            var region = renderList.getRegion();
+            var storage = region.getStorage(renderPass);
+            var resources = region.getResources();
+
+            if (storage == null || resources == null) {
+                continue;
+            }
+
+            int commandCount = this.batch.size();
+
+            fillCommandBuffer(this.batch, region, storage, renderList, camera, renderPass, useBlockFaceCulling, regionCount);
+
+            // Only regions which added any commands need an offset
+            if (this.batch.size() != commandCount) {
+                this.setRegionOffset(regionCount++, region, camera);
+                vertexBuffer = resources.getVertexBuffer();
+            }
+        }
+
+        if (this.batch.isEmpty()) {
+            return;
+        }
+
+        this.sharedIndexBuffer.ensureCapacity(commandList, this.batch.getIndexBufferSize());
+
+        commandList.uploadData(this.commandBuffer, this.batch.getBuffer(), GlBufferUsage.STREAM_DRAW);
+        this.uploadRegionOffsets(commandList, regionCount);
+
+        this.begin(renderPass, matrices);
+
+        try (DrawCommandList drawCommandList = commandList.beginTessellating(this.prepareTessellation(commandList, vertexBuffer))) {
+            drawCommandList.multiDrawElementsIndirect(this.commandBuffer, this.batch.size(), GlIndexType.UNSIGNED_INT);
+        }
+
+        super.end(renderPass);
+    }
+
+    private void renderWithComputeCulling(ChunkRenderMatrices matrices,
+                                          CommandList commandList,
+                                          ChunkRenderListIterable renderLists,
+                                          TerrainRenderPass renderPass,
+                                          CameraTransform camera,
+                                          boolean useBlockFaceCulling) {
+        ComputeChunkCuller culler = this.computeCuller;
+        culler.begin(matrices, camera, useBlockFaceCulling);
+
+        GlBuffer vertexBuffer = null;
+
+        Iterator<ChunkRenderList> iterator = renderLists.iterator(false);
+
+        while (iterator.hasNext()) {
+            ChunkRenderList renderList = iterator.next();
+
+            var region = renderList.getRegion();
+            var storage = region.getStorage(renderPass);
+            var resources = region.getResources();
+
+            if (storage == null || resources == null) {
+                continue;
+            }
+
+            int regionIndex = culler.addRegion(commandList, region, storage, renderList, camera);
+
+            if (regionIndex >= 0) {
+                this.setRegionOffset(regionIndex, region, camera);
+                vertexBuffer = resources.getVertexBuffer();
+            }
+        }
+
+        if (culler.isEmpty()) {
+            return;
+        }
+
+        this.sharedIndexBuffer.ensureCapacity(commandList, culler.getMaxElementCount());
+        this.uploadRegionOffsets(commandList, culler.getRegionCount());
+
+        culler.dispatch(commandList);
+
+        this.begin(renderPass, matrices);
+
+        try (DrawCommandList drawCommandList = commandList.beginTessellating(this.prepareTessellation(commandList, vertexBuffer))) {
+            drawCommandList.multiDrawElementsIndirectCount(culler.getCommandBuffer(), culler.getCommandCountBuffer(),
+                    culler.getMaxCommandCount(), GlIndexType.UNSIGNED_INT);
+        }
+
+        super.end(renderPass);
+    }
+
+    private void begin(TerrainRenderPass renderPass, ChunkRenderMatrices matrices) {
+        super.begin(renderPass);
+
+        ChunkShaderInterface shader = this.activeProgram.getInterface();
+        shader.setProjectionMatrix(matrices.projection());
+        shader.setModelViewMatrix(matrices.modelView());
+    }
+
+    /**
+     * Appends the draw commands for the visible sections of a region to the batch. Every command refers to the region
+     * with the given index through its base instance.
+     */
+    static void fillCommandBuffer(IndirectDrawBatch batch,
+                                  RenderRegion renderRegion,
+                                  SectionRenderDataStorage renderDataStorage,
+                                  ChunkRenderList renderList,
+                                  CameraTransform camera,
+                                  TerrainRenderPass pass,
+                                  boolean useBlockFaceCulling,
+                                  int regionIndex) {
+        var iterator = renderList.sectionsWithGeometryIterator(pass.isReverseOrder());
+
+        if (iterator == null) {
+            return;
+        }
+
+        int originX = renderRegion.getChunkX();
+        int originY = renderRegion.getChunkY();
+        int originZ = renderRegion.getChunkZ();
+
+        while (iterator.hasNext()) {
+            int sectionIndex = iterator.nextByteAsInt();
+
+            int chunkX = originX + LocalSectionIndex.unpackX(sectionIndex);
+            int chunkY = originY + LocalSectionIndex.unpackY(sectionIndex);
+            int chunkZ = originZ + LocalSectionIndex.unpackZ(sectionIndex);
+
+            var pMeshData = renderDataStorage.getDataPointer(sectionIndex);
+
+            int slices;
+
+            if (useBlockFaceCulling) {
+                slices = DefaultChunkRenderer.getVisibleFaces(camera.intX, camera.intY, camera.intZ, chunkX, chunkY, chunkZ);
+            } else {
+                slices = ModelQuadFacing.ALL;
+            }
+
+            slices &= SectionRenderDataUnsafe.getSliceMask(pMeshData);
+
+            if (slices != 0) {
+                addDrawCommands(batch, pMeshData, slices, regionIndex);
+            }
+        }
+    }
+
+    private static void addDrawCommands(IndirectDrawBatch batch, long pMeshData, int mask, int regionIndex) {
+        batch.reserve(ModelQuadFacing.COUNT);
+
+        int size = batch.size();
+
+        for (int facing = 0; facing < ModelQuadFacing.COUNT; facing++) {
+            batch.set(size, SectionRenderDataUnsafe.getElementCount(pMeshData, facing),
+                    SectionRenderDataUnsafe.getVertexOffset(pMeshData, facing), regionIndex);
+
+            size += (mask >> facing) & 1;
+        }
+
+        batch.setSize(size);
+    }
+
+    private void setRegionOffset(int index, RenderRegion region, CameraTransform camera) {
+        if (index >= this.regionOffsetCapacity) {
+            this.regionOffsetCapacity *= 2;
+            this.pRegionOffsets = MemoryUtil.nmemRealloc(this.pRegionOffsets, (long) this.regionOffsetCapacity * REGION_OFFSET_STRIDE);
+        }
+
+        long pOffset = this.pRegionOffsets + ((long) index * REGION_OFFSET_STRIDE);
+
+        MemoryUtil.memPutFloat(pOffset + 0L, DefaultChunkRenderer.getCameraTranslation(region.getOriginX(), camera.intX, camera.fracX));
+        MemoryUtil.memPutFloat(pOffset + 4L, DefaultChunkRenderer.getCameraTranslation(region.getOriginY(), camera.intY, camera.fracY));
+        MemoryUtil.memPutFloat(pOffset + 8L, DefaultChunkRenderer.getCameraTranslation(region.getOriginZ(), camera.intZ, camera.fracZ));
+    }
+
+    private void uploadRegionOffsets(CommandList commandList, int regionCount) {
+        commandList.uploadData(this.regionOffsetBuffer,
+                MemoryUtil.memByteBuffer(this.pRegionOffsets, regionCount * REGION_OFFSET_STRIDE), GlBufferUsage.STREAM_DRAW);
+    }
+
+    private GlTessellation prepareTessellation(CommandList commandList, GlBuffer vertexBuffer) {
+        // The shared arena creates a new buffer whenever it is re-allocated
+        if (this.tessellation == null || this.tessellationVertexBuffer != vertexBuffer) {
+            if (this.tessellation != null) {
+                this.tessellation.delete(commandList);
+            }
+
+            this.tessellation = this.createTessellation(commandList, vertexBuffer);
+            this.tessellationVertexBuffer = vertexBuffer;
+        }
+
+        return this.tessellation;
+    }
+
+    private GlTessellation createTessellation(CommandList commandList, GlBuffer vertexBuffer) {
+        return commandList.createTessellation(GlPrimitiveType.TRIANGLES, new TessellationBinding[] {
+                TessellationBinding.forVertexBuffer(vertexBuffer, new GlVertexAttributeBinding[] {
+                        new GlVertexAttributeBinding(ChunkShaderBindingPoints.ATTRIBUTE_POSITION_ID,
+                                this.vertexFormat.getAttribute(ChunkMeshAttribute.POSITION_MATERIAL_MESH)),
+                        new GlVertexAttributeBinding(ChunkShaderBindingPoints.ATTRIBUTE_COLOR,
+                                this.vertexFormat.getAttribute(ChunkMeshAttribute.COLOR_SHADE)),
+                        new GlVertexAttributeBinding(ChunkShaderBindingPoints.ATTRIBUTE_BLOCK_TEXTURE,
+                                this.vertexFormat.getAttribute(ChunkMeshAttribute.BLOCK_TEXTURE)),
+                        new GlVertexAttributeBinding(ChunkShaderBindingPoints.ATTRIBUTE_LIGHT_TEXTURE,
+                                this.vertexFormat.getAttribute(ChunkMeshAttribute.LIGHT_TEXTURE))
+                }),
+                TessellationBinding.forInstanceBuffer(this.regionOffsetBuffer, new GlVertexAttributeBinding[] {
+                        new GlVertexAttributeBinding(ChunkShaderBindingPoints.ATTRIBUTE_REGION_OFFSET,
+                                new GlVertexAttribute(GlVertexAttributeFormat.FLOAT, 3, false, 0, REGION_OFFSET_STRIDE, false))
+                }),
+                TessellationBinding.forElementBuffer(this.sharedIndexBuffer.getBufferObject())
+        });
+    }
+
+    @Override
+    public void delete(CommandList commandList) {
+        super.delete(commandList);
+
+        if (this.tessellation != null) {
+            this.tessellation.delete(commandList);
+            this.tessellation = null;
+        }
+
+        if (this.computeCuller != null) {
+            this.computeCuller.delete(commandList);
+        }
+
+        commandList.deleteBuffer(this.commandBuffer);
+        commandList.deleteBuffer(this.regionOffsetBuffer);
+
+        this.sharedIndexBuffer.delete(commandList);
+        this.batch.delete();
+
+        MemoryUtil.nmemFree(this.pRegionOffsets);
+    }
+}
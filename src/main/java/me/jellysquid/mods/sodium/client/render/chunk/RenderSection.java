@@ -1,8 +1,7 @@
 package me.jellysquid.mods.sodium.client.render.chunk;
 
 import me.jellysquid.mods.sodium.client.render.chunk.data.BuiltSectionInfo;
-import me.jellysquid.mods.sodium.client.render.chunk.occlusion.GraphDirection;
-import me.jellysquid.mods.sodium.client.render.chunk.occlusion.GraphDirectionSet;
+import me.jellysquid.mods.sodium.client.render.chunk.data.TranslucentQuadData;
 import me.jellysquid.mods.sodium.client.render.chunk.occlusion.VisibilityEncoding;
 import me.jellysquid.mods.sodium.client.render.chunk.region.RenderRegion;
 import me.jellysquid.mods.sodium.client.util.task.CancellationToken;
@@ -25,44 +24,38 @@ public class RenderSection {
     // Chunk Section State
     private final int chunkX, chunkY, chunkZ;
 
-    // Occlusion Culling State
-    private long visibilityData = VisibilityEncoding.NULL;
-
-    private int incomingDirections;
-    private int lastVisibleFrame = -1;
-
-    private int adjacentMask;
-    public RenderSection
-            adjacentDown,
-            adjacentUp,
-            adjacentNorth,
-            adjacentSouth,
-            adjacentWest,
-            adjacentEast;
-
+    // The row of this section in the section table, which holds its graph and build state
+    private final SectionTable table;
+    private final int id;
 
     // Rendering State
-    private boolean built = false; // merge with the flags?
-    private int flags = RenderSectionFlags.NONE;
     private BlockEntity @Nullable[] globalBlockEntities;
     private BlockEntity @Nullable[] culledBlockEntities;
     private Sprite @Nullable[] animatedSprites;
 
+    // Greedy Meshing Statistics
+    private int mergedFaceCount, mergedQuadCount;
 
     // Pending Update State
     @Nullable
     private CancellationToken buildCancellationToken = null;
 
+    // Translucency Sorting State
     @Nullable
-    private ChunkUpdateType pendingUpdateType;
+    private TranslucentQuadData translucentData;
 
-    private int lastBuiltFrame = -1;
-    private int lastSubmittedFrame = -1;
+    @Nullable
+    private CancellationToken sortCancellationToken = null;
+
+    private float lastSortX, lastSortY, lastSortZ;
 
     // Lifetime state
     private boolean disposed;
 
-    public RenderSection(RenderRegion region, int chunkX, int chunkY, int chunkZ) {
+    RenderSection(RenderRegion region, SectionTable table, int id, int chunkX, int chunkY, int chunkZ) {
+        this.table = table;
+        this.id = id;
+
         this.chunkX = chunkX;
         this.chunkY = chunkY;
         this.chunkZ = chunkZ;
@@ -76,38 +69,13 @@ public class RenderSection {
         this.region = region;
     }
 
-    public RenderSection getAdjacent(int direction) {
-        return switch (direction) {
-            case GraphDirection.DOWN -> this.adjacentDown;
-            case GraphDirection.UP -> this.adjacentUp;
-            case GraphDirection.NORTH -> this.adjacentNorth;
-            case GraphDirection.SOUTH -> this.adjacentSouth;
-            case GraphDirection.WEST -> this.adjacentWest;
-            case GraphDirection.EAST -> this.adjacentEast;
-            default -> null;
-        };
-    }
-
-    public void setAdjacentNode(int direction, RenderSection node) {
-        if (node == null) {
-            this.adjacentMask &= ~GraphDirectionSet.of(direction);
-        } else {
-            this.adjacentMask |= GraphDirectionSet.of(direction);
-        }
-
-        switch (direction) {
-            case GraphDirection.DOWN -> this.adjacentDown = node;
-            case GraphDirection.UP -> this.adjacentUp = node;
-            case GraphDirection.NORTH -> this.adjacentNorth = node;
-            case GraphDirection.SOUTH -> this.adjacentSouth = node;
-            case GraphDirection.WEST -> this.adjacentWest = node;
-            case GraphDirection.EAST -> this.adjacentEast = node;
-            default -> { }
-        }
+    public @Nullable RenderSection getAdjacent(int direction) {
+        int id = this.table.getAdjacent(this.id, direction);
+        return id == SectionTable.ABSENT ? null : this.table.get(id);
     }
 
     public int getAdjacentMask() {
-        return this.adjacentMask;
+        return this.table.getAdjacentMask(this.id);
     }
 
     /**
@@ -121,8 +89,17 @@ public class RenderSection {
             this.buildCancellationToken = null;
         }
 
+        if (this.sortCancellationToken != null) {
+            this.sortCancellationToken.setCancelled();
+            this.sortCancellationToken = null;
+        }
+
+        this.translucentData = null;
+
         this.clearRenderState();
         this.disposed = true;
+
+        this.table.free(this.id);
     }
 
     public void setInfo(@Nullable BuiltSectionInfo info) {
@@ -134,21 +111,21 @@ public class RenderSection {
     }
 
     private void setRenderState(@NotNull BuiltSectionInfo info) {
-        this.built = true;
-        this.flags = info.flags;
-        this.visibilityData = info.visibilityData;
+        this.table.setRenderState(this.id, true, info.flags, info.visibilityData);
         this.globalBlockEntities = info.globalBlockEntities;
         this.culledBlockEntities = info.culledBlockEntities;
         this.animatedSprites = info.animatedSprites;
+        this.mergedFaceCount = info.mergedFaceCount;
+        this.mergedQuadCount = info.mergedQuadCount;
     }
 
     private void clearRenderState() {
-        this.built = false;
-        this.flags = RenderSectionFlags.NONE;
-        this.visibilityData = VisibilityEncoding.NULL;
+        this.table.setRenderState(this.id, false, RenderSectionFlags.NONE, VisibilityEncoding.NULL);
         this.globalBlockEntities = null;
         this.culledBlockEntities = null;
         this.animatedSprites = null;
+        this.mergedFaceCount = 0;
+        this.mergedQuadCount = 0;
     }
 
     /**
@@ -244,7 +221,7 @@ public class RenderSection {
     }
 
     public boolean isBuilt() {
-        return this.built;
+        return this.table.isBuilt(this.id);
     }
 
     public int getSectionIndex() {
@@ -255,38 +232,49 @@ public class RenderSection {
         return this.region;
     }
 
+    /**
+     * Returns the dense id of this section within the {@link SectionTable}.
+     */
+    public int getId() {
+        return this.id;
+    }
+
+    public SectionTable getTable() {
+        return this.table;
+    }
+
     public void setLastVisibleFrame(int frame) {
-        this.lastVisibleFrame = frame;
+        this.table.setLastVisibleFrame(this.id, frame);
     }
 
     public int getLastVisibleFrame() {
-        return this.lastVisibleFrame;
+        return this.table.getLastVisibleFrame(this.id);
     }
 
     public int getIncomingDirections() {
-        return this.incomingDirections;
+        return this.table.getIncomingDirections(this.id);
     }
 
     public void addIncomingDirections(int directions) {
-        this.incomingDirections |= directions;
+        this.table.addIncomingDirections(this.id, directions);
     }
 
     public void setIncomingDirections(int directions) {
-        this.incomingDirections = directions;
+        this.table.setIncomingDirections(this.id, directions);
     }
 
     /**
      * Returns a bitfield containing the {@link RenderSectionFlags} for this built section.
      */
     public int getFlags() {
-        return this.flags;
+        return this.table.getFlags(this.id);
     }
 
     /**
      * Returns the occlusion culling data which determines this chunk's connectedness on the visibility graph.
      */
     public long getVisibilityData() {
-        return this.visibilityData;
+        return this.table.getVisibilityData(this.id);
     }
 
     /**
@@ -311,6 +299,20 @@ public class RenderSection {
         return this.globalBlockEntities;
     }
 
+    /**
+     * @return The number of block faces which were merged by greedy meshing
+     */
+    public int getMergedFaceCount() {
+        return this.mergedFaceCount;
+    }
+
+    /**
+     * @return The number of quads which the merged block faces were replaced with
+     */
+    public int getMergedQuadCount() {
+        return this.mergedQuadCount;
+    }
+
     public @Nullable CancellationToken getBuildCancellationToken() {
         return this.buildCancellationToken;
     }
@@ -320,26 +322,68 @@ public class RenderSection {
     }
 
     public @Nullable ChunkUpdateType getPendingUpdate() {
-        return this.pendingUpdateType;
+        return this.table.getPendingUpdate(this.id);
     }
 
     public void setPendingUpdate(@Nullable ChunkUpdateType type) {
-        this.pendingUpdateType = type;
+        this.table.setPendingUpdate(this.id, type);
     }
 
     public int getLastBuiltFrame() {
-        return this.lastBuiltFrame;
+        return this.table.getLastBuiltFrame(this.id);
     }
 
     public void setLastBuiltFrame(int lastBuiltFrame) {
-        this.lastBuiltFrame = lastBuiltFrame;
+        this.table.setLastBuiltFrame(this.id, lastBuiltFrame);
     }
 
     public int getLastSubmittedFrame() {
-        return this.lastSubmittedFrame;
+        return this.table.getLastSubmittedFrame(this.id);
     }
 
     public void setLastSubmittedFrame(int lastSubmittedFrame) {
-        this.lastSubmittedFrame = lastSubmittedFrame;
+        this.table.setLastSubmittedFrame(this.id, lastSubmittedFrame);
+    }
+
+    /**
+     * Returns the unsorted translucent geometry of this section, which is used to re-sort it as the camera moves, or
+     * null if the section has no sorted geometry.
+     */
+    public @Nullable TranslucentQuadData getTranslucentData() {
+        return this.translucentData;
+    }
+
+    public void setTranslucentData(@Nullable TranslucentQuadData data) {
+        this.translucentData = data;
+    }
+
+    public @Nullable CancellationToken getSortCancellationToken() {
+        return this.sortCancellationToken;
+    }
+
+    public void setSortCancellationToken(@Nullable CancellationToken token) {
+        this.sortCancellationToken = token;
+    }
+
+    /**
+     * Records the camera position (in world space) which the translucent geometry of this section was last sorted
+     * against.
+     */
+    public void setLastSortPosition(float x, float y, float z) {
+        this.lastSortX = x;
+        this.lastSortY = y;
+        this.lastSortZ = z;
+    }
+
+    /**
+     * @return The squared distance between the given position and the camera position which the translucent geometry
+     * of this section was last sorted against
+     */
+    public float getSquaredDistanceFromLastSort(float x, float y, float z) {
+        float xDist = x - this.lastSortX;
+        float yDist = y - this.lastSortY;
+        float zDist = z - this.lastSortZ;
+
+        return (xDist * xDist) + (yDist * yDist) + (zDist * zDist);
     }
 }
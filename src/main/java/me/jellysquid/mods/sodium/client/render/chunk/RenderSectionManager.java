@@ -1,9 +1,6 @@
 package me.jellysquid.mods.sodium.client.render.chunk;
 
 import com.mojang.blaze3d.systems.RenderSystem;
-import it.unimi.dsi.fastutil.longs.Long2ReferenceMap;
-import it.unimi.dsi.fastutil.longs.Long2ReferenceMaps;
-import it.unimi.dsi.fastutil.longs.Long2ReferenceOpenHashMap;
 import it.unimi.dsi.fastutil.objects.Reference2ReferenceLinkedOpenHashMap;
 import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
 import it.unimi.dsi.fastutil.objects.ReferenceSet;
@@ -11,19 +8,23 @@ import it.unimi.dsi.fastutil.objects.ReferenceSets;
 import me.jellysquid.mods.sodium.client.SodiumClientMod;
 import me.jellysquid.mods.sodium.client.gl.device.CommandList;
 import me.jellysquid.mods.sodium.client.gl.device.RenderDevice;
+import me.jellysquid.mods.sodium.client.render.chunk.cache.MeshCache;
 import me.jellysquid.mods.sodium.client.render.chunk.compile.ChunkBuildOutput;
+import me.jellysquid.mods.sodium.client.render.chunk.compile.ChunkSortOutput;
 import me.jellysquid.mods.sodium.client.render.chunk.compile.executor.ChunkBuilder;
 import me.jellysquid.mods.sodium.client.render.chunk.compile.executor.ChunkJobResult;
 import me.jellysquid.mods.sodium.client.render.chunk.compile.executor.ChunkJobCollector;
 import me.jellysquid.mods.sodium.client.render.chunk.compile.tasks.ChunkBuilderMeshingTask;
+import me.jellysquid.mods.sodium.client.render.chunk.compile.tasks.ChunkBuilderSortingTask;
 import me.jellysquid.mods.sodium.client.render.chunk.data.BuiltSectionInfo;
+import me.jellysquid.mods.sodium.client.render.chunk.data.TranslucentQuadData;
 import me.jellysquid.mods.sodium.client.render.chunk.lists.ChunkRenderList;
 import me.jellysquid.mods.sodium.client.render.chunk.lists.SortedRenderLists;
 import me.jellysquid.mods.sodium.client.render.chunk.lists.VisibleChunkCollector;
-import me.jellysquid.mods.sodium.client.render.chunk.occlusion.GraphDirection;
 import me.jellysquid.mods.sodium.client.render.chunk.occlusion.OcclusionCuller;
 import me.jellysquid.mods.sodium.client.render.chunk.region.RenderRegion;
 import me.jellysquid.mods.sodium.client.render.chunk.region.RenderRegionManager;
+import me.jellysquid.mods.sodium.client.render.chunk.terrain.DefaultTerrainRenderPasses;
 import me.jellysquid.mods.sodium.client.render.chunk.terrain.TerrainRenderPass;
 import me.jellysquid.mods.sodium.client.render.chunk.vertex.format.ChunkMeshFormats;
 import me.jellysquid.mods.sodium.client.render.texture.SpriteUtil;
@@ -32,6 +33,7 @@ import me.jellysquid.mods.sodium.client.render.viewport.CameraTransform;
 import me.jellysquid.mods.sodium.client.render.viewport.Viewport;
 import me.jellysquid.mods.sodium.client.util.MathUtil;
 import me.jellysquid.mods.sodium.client.world.WorldSlice;
+import me.jellysquid.mods.sodium.client.world.biome.WorldBiomeColorCache;
 import me.jellysquid.mods.sodium.client.world.cloned.ChunkRenderContext;
 import me.jellysquid.mods.sodium.client.world.cloned.ClonedChunkSectionCache;
 import net.minecraft.client.MinecraftClient;
@@ -39,7 +41,6 @@ import net.minecraft.client.render.Camera;
 import net.minecraft.client.texture.Sprite;
 import net.minecraft.client.world.ClientWorld;
 import net.minecraft.util.math.BlockPos;
-import net.minecraft.util.math.ChunkSectionPos;
 import net.minecraft.util.math.MathHelper;
 import net.minecraft.world.chunk.Chunk;
 import net.minecraft.world.chunk.ChunkSection;
@@ -53,23 +54,45 @@ import java.util.concurrent.ConcurrentLinkedDeque;
 public class RenderSectionManager {
     private final ChunkBuilder builder;
 
+    @Nullable
+    private final MeshCache meshCache;
+
+    private final WorldBiomeColorCache biomeColors;
+
     private final RenderRegionManager regions;
     private final ClonedChunkSectionCache sectionCache;
 
-    private final Long2ReferenceMap<RenderSection> sectionByPosition = new Long2ReferenceOpenHashMap<>();
+    private final SectionTable sectionTable;
+
+    // The maximum amount of vertex data which is uploaded each frame, unless a blocking rebuild was requested. Any
+    // other results are left in the queue for the next frame, so that a large batch of builds doesn't cause a stutter.
+    private static final long MAX_UPLOAD_BYTES_PER_FRAME = 8 * 1024 * 1024;
 
     private final ConcurrentLinkedDeque<ChunkJobResult<ChunkBuildOutput>> buildResults = new ConcurrentLinkedDeque<>();
 
+    // The sections whose sort job failed, which need to have their sort cancellation token cleared so that they can
+    // be sorted again
+    private final ConcurrentLinkedDeque<RenderSection> failedSorts = new ConcurrentLinkedDeque<>();
+
+    // Whether the upload budget should be ignored, since the results of blocking rebuilds are expected this frame
+    private boolean uploadAllResults;
+
     private final ChunkRenderer chunkRenderer;
 
     private final ClientWorld world;
 
     private final ReferenceSet<RenderSection> sectionsWithGlobalEntities = new ReferenceOpenHashSet<>();
+    private final ReferenceSet<RenderSection> sectionsWithTranslucentData = new ReferenceOpenHashSet<>();
+
+    private final ArrayDeque<RenderSection> sortQueue = new ArrayDeque<>();
 
     private final OcclusionCuller occlusionCuller;
 
     private final int renderDistance;
 
+    // The total number of block faces merged by greedy meshing in all built sections, and the quads they became
+    private long mergedFaceCount, mergedQuadCount;
+
     @NotNull
     private SortedRenderLists renderLists;
 
@@ -82,20 +105,35 @@ public class RenderSectionManager {
 
     private @Nullable BlockPos lastCameraPosition;
 
+    private float cameraX, cameraY, cameraZ;
+
     public RenderSectionManager(ClientWorld world, int renderDistance, CommandList commandList) {
-        this.chunkRenderer = new DefaultChunkRenderer(RenderDevice.INSTANCE, ChunkMeshFormats.COMPACT);
+        boolean useGlobalGeometryHeap = SodiumClientMod.options().advanced.useGlobalGeometryHeap &&
+                GlobalChunkRenderer.isSupported(RenderDevice.INSTANCE);
+
+        if (useGlobalGeometryHeap) {
+            this.chunkRenderer = new GlobalChunkRenderer(RenderDevice.INSTANCE, ChunkMeshFormats.COMPACT);
+        } else {
+            this.chunkRenderer = new DefaultChunkRenderer(RenderDevice.INSTANCE, ChunkMeshFormats.COMPACT);
+        }
 
         this.world = world;
         this.builder = new ChunkBuilder(world, ChunkMeshFormats.COMPACT);
 
+        this.meshCache = SodiumClientMod.options().advanced.useMeshCache ? MeshCache.open(world, ChunkMeshFormats.COMPACT) : null;
+        this.biomeColors = new WorldBiomeColorCache(world, MinecraftClient.getInstance().options.getBiomeBlendRadius().getValue());
+
         this.needsUpdate = true;
         this.renderDistance = renderDistance;
 
-        this.regions = new RenderRegionManager(commandList);
+        this.regions = new RenderRegionManager(commandList, useGlobalGeometryHeap);
         this.sectionCache = new ClonedChunkSectionCache(this.world);
 
+        this.sectionTable = new SectionTable(renderDistance, world);
+
         this.renderLists = SortedRenderLists.empty();
-        this.occlusionCuller = new OcclusionCuller(Long2ReferenceMaps.unmodifiable(this.sectionByPosition), this.world);
+        this.occlusionCuller = new OcclusionCuller(this.sectionTable, this.world,
+                SodiumClientMod.options().performance.useParallelGraphSearch);
 
         this.rebuildLists = new EnumMap<>(ChunkUpdateType.class);
 
@@ -107,7 +145,13 @@ public class RenderSectionManager {
     public void update(Camera camera, Viewport viewport, int frame, boolean spectator) {
         this.lastCameraPosition = camera.getBlockPos();
 
+        var transform = viewport.getTransform();
+        this.cameraX = (float) transform.x;
+        this.cameraY = (float) transform.y;
+        this.cameraZ = (float) transform.z;
+
         this.createTerrainRenderList(camera, viewport, frame, spectator);
+        this.createSortQueue(frame);
 
         this.needsUpdate = false;
         this.lastUpdatedFrame = frame;
@@ -125,6 +169,33 @@ public class RenderSectionManager {
 
         this.renderLists = visitor.createRenderLists();
         this.rebuildLists = visitor.getRebuildLists();
+
+        this.builder.updatePriorities(viewport);
+    }
+
+    // The distance (in blocks) which the camera needs to move before the translucent geometry of a section is re-sorted
+    private static final float RESORT_DISTANCE = 1.0f;
+
+    private void createSortQueue(int frame) {
+        this.sortQueue.clear();
+
+        for (var section : this.sectionsWithTranslucentData) {
+            var sortJob = section.getSortCancellationToken();
+
+            // A cancelled sort job will never produce a result, so it shouldn't stop the section from being sorted
+            if (sortJob != null && sortJob.isCancelled()) {
+                section.setSortCancellationToken(null);
+                sortJob = null;
+            }
+
+            if (section.getLastVisibleFrame() != frame || section.getBuildCancellationToken() != null || sortJob != null) {
+                continue;
+            }
+
+            if (section.getSquaredDistanceFromLastSort(this.cameraX, this.cameraY, this.cameraZ) >= RESORT_DISTANCE * RESORT_DISTANCE) {
+                this.sortQueue.add(section);
+            }
+        }
     }
 
     private float getSearchDistance() {
@@ -162,19 +233,15 @@ public class RenderSectionManager {
     }
 
     public void onSectionAdded(int x, int y, int z) {
-        long key = ChunkSectionPos.asLong(x, y, z);
-
-        if (this.sectionByPosition.containsKey(key)) {
+        if (this.sectionTable.getId(x, y, z) != SectionTable.ABSENT) {
             return;
         }
 
         RenderRegion region = this.regions.createForChunk(x, y, z);
 
-        RenderSection renderSection = new RenderSection(region, x, y, z);
+        RenderSection renderSection = this.sectionTable.add(region, x, y, z);
         region.addSection(renderSection);
 
-        this.sectionByPosition.put(key, renderSection);
-
         Chunk chunk = this.world.getChunk(x, z);
         ChunkSection section = chunk.getSectionArray()[this.world.sectionCoordToIndex(y)];
 
@@ -184,13 +251,11 @@ public class RenderSectionManager {
             renderSection.setPendingUpdate(ChunkUpdateType.INITIAL_BUILD);
         }
 
-        this.connectNeighborNodes(renderSection);
-
         this.needsUpdate = true;
     }
 
     public void onSectionRemoved(int x, int y, int z) {
-        RenderSection section = this.sectionByPosition.remove(ChunkSectionPos.asLong(x, y, z));
+        RenderSection section = this.sectionTable.remove(x, y, z);
 
         if (section == null) {
             return;
@@ -202,8 +267,8 @@ public class RenderSectionManager {
             region.removeSection(section);
         }
 
-        this.disconnectNeighborNodes(section);
         this.updateSectionInfo(section, null);
+        this.updateTranslucentData(section, null);
 
         section.delete();
 
@@ -263,21 +328,65 @@ public class RenderSectionManager {
     }
 
     public void updateChunks(boolean updateImmediately) {
+        this.updateBuildMetrics();
+
         this.sectionCache.cleanup();
-        this.regions.update();
+        this.builder.getMetrics()
+                .recordCompaction(this.regions.update());
 
-        var blockingRebuilds = new ChunkJobCollector(Integer.MAX_VALUE, this.buildResults::add);
-        var deferredRebuilds = new ChunkJobCollector(this.builder.getSchedulingBudget(), this.buildResults::add);
+        var blockingRebuilds = new ChunkJobCollector(Integer.MAX_VALUE, this::onJobFinished);
+        var deferredRebuilds = new ChunkJobCollector(this.builder.getSchedulingBudget(), this::onJobFinished);
 
         this.submitRebuildTasks(blockingRebuilds, ChunkUpdateType.IMPORTANT_REBUILD);
         this.submitRebuildTasks(updateImmediately ? blockingRebuilds : deferredRebuilds, ChunkUpdateType.REBUILD);
         this.submitRebuildTasks(updateImmediately ? blockingRebuilds : deferredRebuilds, ChunkUpdateType.INITIAL_BUILD);
+        this.submitSortTasks(deferredRebuilds);
 
         blockingRebuilds.awaitCompletion(this.builder);
+
+        this.uploadAllResults = updateImmediately || !blockingRebuilds.isEmpty();
+    }
+
+    /**
+     * Called by the thread which finished a job. The meshes of the result are written into the staging buffer here,
+     * rather than when they are uploaded, so that the render thread only needs to issue the copy commands.
+     */
+    private void onJobFinished(ChunkJobResult<ChunkBuildOutput> result) {
+        var output = result.getOutput();
+
+        if (output != null) {
+            this.builder.getMetrics()
+                    .recordStaging(this.regions.stageMeshes(output), output.getVertexDataLength());
+        }
+
+        this.buildResults.add(result);
+    }
+
+    private void updateBuildMetrics() {
+        var metrics = this.builder.getMetrics();
+
+        // Walking the segments of every arena isn't free, so only do it while someone is looking at the results
+        float fragmentation = metrics.isStageTimingEnabled() ? this.getArenaFragmentation() : Float.NaN;
+
+        metrics.endFrame(this.builder.getPendingJobCount(), this.builder.getBusyThreadCount(), fragmentation);
+    }
+
+    private float getArenaFragmentation() {
+        long free = 0;
+        long largestFree = 0;
+
+        for (var arena : this.regions.getGeometryArenas()) {
+            free += arena.getDeviceAllocatedMemory() - arena.getDeviceUsedMemory();
+            largestFree += arena.getDeviceLargestFreeMemory();
+        }
+
+        return free == 0 ? 0.0f : 1.0f - ((float) largestFree / free);
     }
 
     public void uploadChunks() {
-        var results = this.collectChunkBuildResults();
+        this.clearFailedSorts();
+
+        var results = this.collectChunkBuildResults(this.uploadAllResults ? Long.MAX_VALUE : MAX_UPLOAD_BYTES_PER_FRAME);
 
         if (results.isEmpty()) {
             return;
@@ -285,21 +394,39 @@ public class RenderSectionManager {
 
         this.processChunkBuildResults(results);
 
+        var metrics = this.builder.getMetrics();
+        long now = System.nanoTime();
+
         for (var result : results) {
+            metrics.recordUploadLatency(now - result.finishTime);
             result.delete();
         }
 
+        metrics.recordDeferredUploads(this.buildResults.size());
+
         this.needsUpdate = true;
     }
 
+    private void clearFailedSorts() {
+        RenderSection section;
+
+        while ((section = this.failedSorts.poll()) != null) {
+            section.setSortCancellationToken(null);
+        }
+    }
+
     private void processChunkBuildResults(ArrayList<ChunkBuildOutput> results) {
         var filtered = filterChunkBuildResults(results);
 
-        this.regions.uploadMeshes(RenderDevice.INSTANCE.createCommandList(), filtered);
+        var metrics = this.builder.getMetrics();
+        metrics.recordUpload(this.regions.uploadMeshes(RenderDevice.INSTANCE.createCommandList(), filtered));
 
         for (var result : filtered) {
             this.updateSectionInfo(result.render, result.info);
 
+            var translucentMesh = result.getMesh(DefaultTerrainRenderPasses.TRANSLUCENT);
+            this.updateTranslucentData(result.render, translucentMesh != null ? translucentMesh.getTranslucentData() : null);
+
             var job = result.render.getBuildCancellationToken();
 
             if (job != null && result.buildTime >= result.render.getLastSubmittedFrame()) {
@@ -308,11 +435,44 @@ public class RenderSectionManager {
 
             result.render.setLastBuiltFrame(result.buildTime);
         }
+
+        // Sort results are only applied after any rebuilds, so that we can tell if they are still relevant
+        var sorted = filterChunkSortResults(results);
+
+        metrics.recordUpload(this.regions.uploadMeshes(RenderDevice.INSTANCE.createCommandList(), sorted));
+
+        for (var result : sorted) {
+            result.render.setSortCancellationToken(null);
+        }
+    }
+
+    private void updateTranslucentData(RenderSection render, @Nullable TranslucentQuadData data) {
+        var sortJob = render.getSortCancellationToken();
+
+        // Any sort which is still in flight was started for the old geometry, so its result will be discarded
+        if (sortJob != null) {
+            sortJob.setCancelled();
+            render.setSortCancellationToken(null);
+        }
+
+        render.setTranslucentData(data);
+
+        if (data == null) {
+            this.sectionsWithTranslucentData.remove(render);
+        } else {
+            this.sectionsWithTranslucentData.add(render);
+        }
     }
 
     private void updateSectionInfo(RenderSection render, BuiltSectionInfo info) {
+        this.mergedFaceCount -= render.getMergedFaceCount();
+        this.mergedQuadCount -= render.getMergedQuadCount();
+
         render.setInfo(info);
 
+        this.mergedFaceCount += render.getMergedFaceCount();
+        this.mergedQuadCount += render.getMergedQuadCount();
+
         if (info == null || ArrayUtils.isEmpty(info.globalBlockEntities)) {
             this.sectionsWithGlobalEntities.remove(render);
         } else {
@@ -324,6 +484,10 @@ public class RenderSectionManager {
         var map = new Reference2ReferenceLinkedOpenHashMap<RenderSection, ChunkBuildOutput>();
 
         for (var output : outputs) {
+            if (!output.replacesAllMeshes()) {
+                continue;
+            }
+
             if (output.render.isDisposed() || output.render.getLastBuiltFrame() > output.buildTime) {
                 continue;
             }
@@ -339,12 +503,44 @@ public class RenderSectionManager {
         return new ArrayList<>(map.values());
     }
 
+    private static List<ChunkBuildOutput> filterChunkSortResults(ArrayList<ChunkBuildOutput> outputs) {
+        var map = new Reference2ReferenceLinkedOpenHashMap<RenderSection, ChunkBuildOutput>();
+
+        for (var output : outputs) {
+            // Discard the result if the section has been rebuilt since the sort was started
+            if (!(output instanceof ChunkSortOutput sortOutput) || output.render.isDisposed() || output.render.getTranslucentData() != sortOutput.source) {
+                continue;
+            }
+
+            var previous = map.get(output.render);
+
+            if (previous == null || previous.buildTime < output.buildTime) {
+                map.put(output.render, output);
+            }
+        }
+
+        return new ArrayList<>(map.values());
+    }
+
     private ArrayList<ChunkBuildOutput> collectChunkBuildResults() {
+        return this.collectChunkBuildResults(Long.MAX_VALUE);
+    }
+
+    /**
+     * Takes results from the queue until the total size of their vertex data reaches {@param budget} bytes. At least
+     * one result is always taken if the queue isn't empty, so that large results can't get stuck.
+     */
+    private ArrayList<ChunkBuildOutput> collectChunkBuildResults(long budget) {
         ArrayList<ChunkBuildOutput> results = new ArrayList<>();
         ChunkJobResult<ChunkBuildOutput> result;
 
-        while ((result = this.buildResults.poll()) != null) {
-            results.add(result.unwrap());
+        long bytes = 0;
+
+        while (bytes < budget && (result = this.buildResults.poll()) != null) {
+            var output = result.unwrap();
+            results.add(output);
+
+            bytes += output.getVertexDataLength();
         }
 
         return results;
@@ -377,17 +573,48 @@ public class RenderSectionManager {
 
             section.setLastSubmittedFrame(frame);
             section.setPendingUpdate(null);
+            section.setLastSortPosition(this.cameraX, this.cameraY, this.cameraZ);
+        }
+    }
+
+    private void submitSortTasks(ChunkJobCollector collector) {
+        var queue = this.sortQueue;
+
+        while (!queue.isEmpty() && collector.canOffer()) {
+            RenderSection section = queue.remove();
+            TranslucentQuadData data = section.getTranslucentData();
+
+            if (section.isDisposed() || data == null || section.getBuildCancellationToken() != null) {
+                continue;
+            }
+
+            var task = new ChunkBuilderSortingTask(section, DefaultTerrainRenderPasses.TRANSLUCENT, data,
+                    this.cameraX, this.cameraY, this.cameraZ, this.lastUpdatedFrame);
+
+            var job = this.builder.scheduleTask(task, false, result -> {
+                if (result.getOutput() != null) {
+                    collector.onJobFinished(result);
+                } else {
+                    // The section keeps its previous order until it is sorted again, which isn't worth crashing for
+                    this.failedSorts.add(section);
+                    collector.onJobDiscarded();
+                }
+            });
+            collector.addSubmittedJob(job);
+
+            section.setSortCancellationToken(job);
+            section.setLastSortPosition(this.cameraX, this.cameraY, this.cameraZ);
         }
     }
 
     public @Nullable ChunkBuilderMeshingTask createRebuildTask(RenderSection render, int frame) {
-        ChunkRenderContext context = WorldSlice.prepare(this.world, render.getPosition(), this.sectionCache);
+        ChunkRenderContext context = WorldSlice.prepare(this.world, render.getPosition(), this.sectionCache, this.biomeColors);
 
         if (context == null) {
             return null;
         }
 
-        return new ChunkBuilderMeshingTask(render, context, frame);
+        return new ChunkBuilderMeshingTask(render, context, frame, this.cameraX, this.cameraY, this.cameraZ, this.meshCache);
     }
 
     public void markGraphDirty() {
@@ -409,7 +636,13 @@ public class RenderSectionManager {
             result.delete(); // delete resources for any pending tasks (including those that were cancelled)
         }
 
+        if (this.meshCache != null) {
+            this.meshCache.close(); // the workers have stopped, so nothing else can access the cache
+        }
+
         this.sectionsWithGlobalEntities.clear();
+        this.sectionsWithTranslucentData.clear();
+        this.sortQueue.clear();
         this.resetRenderLists();
 
         try (CommandList commandList = RenderDevice.INSTANCE.createCommandList()) {
@@ -419,7 +652,7 @@ public class RenderSectionManager {
     }
 
     public int getTotalSections() {
-        return this.sectionByPosition.size();
+        return this.sectionTable.size();
     }
 
     public int getVisibleChunkCount() {
@@ -439,7 +672,7 @@ public class RenderSectionManager {
 
         this.sectionCache.invalidate(x, y, z);
 
-        RenderSection section = this.sectionByPosition.get(ChunkSectionPos.asLong(x, y, z));
+        RenderSection section = this.sectionTable.get(x, y, z);
 
         if (section != null && section.isBuilt()) {
             ChunkUpdateType pendingUpdate;
@@ -486,32 +719,8 @@ public class RenderSectionManager {
         return this.renderDistance * 16.0f;
     }
 
-    private void connectNeighborNodes(RenderSection render) {
-        for (int direction = 0; direction < GraphDirection.COUNT; direction++) {
-            RenderSection adj = this.getRenderSection(render.getChunkX() + GraphDirection.x(direction),
-                    render.getChunkY() + GraphDirection.y(direction),
-                    render.getChunkZ() + GraphDirection.z(direction));
-
-            if (adj != null) {
-                adj.setAdjacentNode(GraphDirection.opposite(direction), render);
-                render.setAdjacentNode(direction, adj);
-            }
-        }
-    }
-
-    private void disconnectNeighborNodes(RenderSection render) {
-        for (int direction = 0; direction < GraphDirection.COUNT; direction++) {
-            RenderSection adj = render.getAdjacent(direction);
-
-            if (adj != null) {
-                adj.setAdjacentNode(GraphDirection.opposite(direction), null);
-                render.setAdjacentNode(direction, null);
-            }
-        }
-    }
-
     private RenderSection getRenderSection(int x, int y, int z) {
-        return this.sectionByPosition.get(ChunkSectionPos.asLong(x, y, z));
+        return this.sectionTable.get(x, y, z);
     }
 
     public Collection<String> getDebugStrings() {
@@ -522,15 +731,7 @@ public class RenderSectionManager {
         long deviceUsed = 0;
         long deviceAllocated = 0;
 
-        for (var region : this.regions.getLoadedRegions()) {
-            var resources = region.getResources();
-
-            if (resources == null) {
-                continue;
-            }
-
-            var buffer = resources.getGeometryArena();
-
+        for (var buffer : this.regions.getGeometryArenas()) {
             deviceUsed += buffer.getDeviceUsedMemory();
             deviceAllocated += buffer.getDeviceAllocatedMemory();
 
@@ -540,17 +741,35 @@ public class RenderSectionManager {
         list.add(String.format("Geometry Pool: %d/%d MiB (%d buffers)", MathUtil.toMib(deviceUsed), MathUtil.toMib(deviceAllocated), count));
         list.add(String.format("Transfer Queue: %s", this.regions.getStagingBuffer().toString()));
 
-        list.add(String.format("Chunk Builder: Permits=%02d | Busy=%02d | Total=%02d",
-                this.builder.getScheduledJobCount(), this.builder.getBusyThreadCount(), this.builder.getTotalThreadCount())
+        list.add(String.format("Chunk Builder: Permits=%02d | Pending=%02d | Busy=%02d | Total=%02d",
+                this.builder.getScheduledJobCount(), this.builder.getPendingJobCount(), this.builder.getBusyThreadCount(), this.builder.getTotalThreadCount())
         );
 
-        list.add(String.format("Chunk Queues: U=%02d (P0=%03d | P1=%03d | P2=%03d)",
+        list.add(String.format("Chunk Queues: U=%02d (P0=%03d | P1=%03d | P2=%03d | S=%03d)",
                 this.buildResults.size(),
                 this.rebuildLists.get(ChunkUpdateType.IMPORTANT_REBUILD).size(),
                 this.rebuildLists.get(ChunkUpdateType.REBUILD).size(),
-                this.rebuildLists.get(ChunkUpdateType.INITIAL_BUILD).size())
+                this.rebuildLists.get(ChunkUpdateType.INITIAL_BUILD).size(),
+                this.sortQueue.size())
         );
 
+        var metrics = this.builder.getMetrics();
+        metrics.requestStageTiming();
+
+        list.addAll(metrics.getDebugStrings());
+
+        if (this.mergedFaceCount > 0) {
+            // Each merged face would otherwise have been a quad of its own
+            long savedBytes = (this.mergedFaceCount - this.mergedQuadCount) * 4L * ChunkMeshFormats.COMPACT.getVertexFormat().getStride();
+
+            list.add(String.format("Greedy Meshing: Faces=%d | Quads=%d | Saved=%d MiB",
+                    this.mergedFaceCount, this.mergedQuadCount, MathUtil.toMib(savedBytes)));
+        }
+
+        if (this.meshCache != null) {
+            list.add(this.meshCache.getDebugString());
+        }
+
         return list;
     }
 
@@ -564,12 +783,16 @@ public class RenderSectionManager {
     }
 
     public void onChunkAdded(int x, int z) {
+        this.biomeColors.onChunkChanged(x, z);
+
         for (int y = this.world.getBottomSectionCoord(); y < this.world.getTopSectionCoord(); y++) {
             this.onSectionAdded(x, y, z);
         }
     }
 
     public void onChunkRemoved(int x, int z) {
+        this.biomeColors.onChunkChanged(x, z);
+
         for (int y = this.world.getBottomSectionCoord(); y < this.world.getTopSectionCoord(); y++) {
             this.onSectionRemoved(x, y, z);
         }
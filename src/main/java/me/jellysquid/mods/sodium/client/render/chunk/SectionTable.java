@@ -0,0 +1,361 @@
+package me.jellysquid.mods.sodium.client.render.chunk;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.Long2IntMap;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import me.jellysquid.mods.sodium.client.render.chunk.occlusion.GraphDirection;
+import me.jellysquid.mods.sodium.client.render.chunk.occlusion.GraphDirectionSet;
+import me.jellysquid.mods.sodium.client.render.chunk.occlusion.VisibilityEncoding;
+import me.jellysquid.mods.sodium.client.render.chunk.region.RenderRegion;
+import net.minecraft.util.math.ChunkSectionPos;
+import net.minecraft.util.math.MathHelper;
+import net.minecraft.world.HeightLimitView;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * The storage for all loaded render sections. Every section is assigned a dense integer id, and the state which is
+ * needed by the graph search (adjacency, visibility data, flags, and build state) is kept in flat primitive arrays
+ * indexed by that id. {@link RenderSection} is a thin view over its row in the table. Ids of removed sections are
+ * re-used, so the arrays stay compact even as sections are loaded and unloaded.
+ *
+ * Sections are looked up by position through a ring buffer which covers the loaded area around the camera. Since the
+ * width of the ring buffer is larger than the diameter of the loaded area, each loaded section maps to a unique slot
+ * without needing to re-center the buffer as the camera moves. The rare section which is loaded outside that area
+ * (and so collides with another section) is kept in a small overflow map instead.
+ *
+ * All methods must be called from the main thread.
+ */
+public class SectionTable {
+    public static final int ABSENT = -1;
+
+    private static final int INITIAL_CAPACITY = 4096;
+
+    private static final ChunkUpdateType[] UPDATE_TYPES = ChunkUpdateType.values();
+
+    // The client keeps chunks loaded slightly beyond the render distance
+    private static final int LOAD_DISTANCE_PADDING = 3;
+
+    // Ring buffer index from section position to id
+    private final int widthBits, widthMask;
+    private final int bottomSectionCoord, height;
+    private final int[] index;
+
+    private final Long2IntMap overflow = new Long2IntOpenHashMap();
+
+    private final IntArrayList freeIds = new IntArrayList();
+    private int nextId;
+
+    // Per-section state, indexed by id
+    private RenderSection[] sections;
+    private long[] positions;
+
+    private int[] adjacent; // six entries per section, indexed by GraphDirection
+    private byte[] adjacentMask;
+
+    private long[] visibilityData;
+    private int[] flags;
+    private boolean[] built;
+
+    private byte[] pendingUpdate;
+    private int[] lastBuiltFrame;
+    private int[] lastSubmittedFrame;
+
+    private int[] lastVisibleFrame;
+    private byte[] incomingDirections;
+
+    public SectionTable(int renderDistance, HeightLimitView world) {
+        int width = MathHelper.smallestEncompassingPowerOfTwo(((renderDistance + LOAD_DISTANCE_PADDING) * 2) + 1);
+
+        this.widthBits = Integer.numberOfTrailingZeros(width);
+        this.widthMask = width - 1;
+
+        this.bottomSectionCoord = world.getBottomSectionCoord();
+        this.height = world.countVerticalSections();
+
+        this.index = new int[width * width * this.height];
+        Arrays.fill(this.index, ABSENT);
+
+        this.overflow.defaultReturnValue(ABSENT);
+
+        this.sections = new RenderSection[INITIAL_CAPACITY];
+        this.positions = new long[INITIAL_CAPACITY];
+        this.adjacent = new int[INITIAL_CAPACITY * GraphDirection.COUNT];
+        this.adjacentMask = new byte[INITIAL_CAPACITY];
+        this.visibilityData = new long[INITIAL_CAPACITY];
+        this.flags = new int[INITIAL_CAPACITY];
+        this.built = new boolean[INITIAL_CAPACITY];
+        this.pendingUpdate = new byte[INITIAL_CAPACITY];
+        this.lastBuiltFrame = new int[INITIAL_CAPACITY];
+        this.lastSubmittedFrame = new int[INITIAL_CAPACITY];
+        this.lastVisibleFrame = new int[INITIAL_CAPACITY];
+        this.incomingDirections = new byte[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Creates a render section at the given position, and links it to any loaded neighbors. The caller must ensure
+     * that no section already exists at the position.
+     */
+    public RenderSection add(RenderRegion region, int x, int y, int z) {
+        int id = this.allocate();
+
+        var section = new RenderSection(region, this, id, x, y, z);
+
+        this.sections[id] = section;
+        this.positions[id] = ChunkSectionPos.asLong(x, y, z);
+
+        this.insert(x, y, z, id);
+        this.connectNeighbors(id, x, y, z);
+
+        return section;
+    }
+
+    /**
+     * Unlinks the render section at the given position from the table, and returns it. The id of the section remains
+     * reserved until the section is deleted.
+     */
+    public @Nullable RenderSection remove(int x, int y, int z) {
+        int id = this.getId(x, y, z);
+
+        if (id == ABSENT) {
+            return null;
+        }
+
+        this.erase(x, y, z, id);
+        this.disconnectNeighbors(id);
+
+        return this.sections[id];
+    }
+
+    /**
+     * Returns the id of the given section to the table. This is called when the section is deleted, after which the
+     * id can be assigned to another section.
+     */
+    void free(int id) {
+        this.sections[id] = null;
+        this.freeIds.add(id);
+    }
+
+    public @Nullable RenderSection get(int x, int y, int z) {
+        int id = this.getId(x, y, z);
+        return id == ABSENT ? null : this.sections[id];
+    }
+
+    public RenderSection get(int id) {
+        return this.sections[id];
+    }
+
+    public int getId(int x, int y, int z) {
+        if (y < this.bottomSectionCoord || y >= this.bottomSectionCoord + this.height) {
+            return ABSENT;
+        }
+
+        int id = this.index[this.getSlot(x, y, z)];
+        long key = ChunkSectionPos.asLong(x, y, z);
+
+        if (id != ABSENT && this.positions[id] == key) {
+            return id;
+        }
+
+        if (this.overflow.isEmpty()) {
+            return ABSENT;
+        }
+
+        return this.overflow.get(key);
+    }
+
+    private void insert(int x, int y, int z, int id) {
+        int slot = this.getSlot(x, y, z);
+
+        if (this.index[slot] == ABSENT) {
+            this.index[slot] = id;
+        } else {
+            this.overflow.put(ChunkSectionPos.asLong(x, y, z), id);
+        }
+    }
+
+    private void erase(int x, int y, int z, int id) {
+        int slot = this.getSlot(x, y, z);
+
+        if (this.index[slot] == id) {
+            this.index[slot] = ABSENT;
+        } else {
+            this.overflow.remove(ChunkSectionPos.asLong(x, y, z));
+        }
+    }
+
+    private int getSlot(int x, int y, int z) {
+        int tableX = x & this.widthMask;
+        int tableY = y - this.bottomSectionCoord;
+        int tableZ = z & this.widthMask;
+
+        return (((tableY << this.widthBits) | tableZ) << this.widthBits) | tableX;
+    }
+
+    private void connectNeighbors(int id, int x, int y, int z) {
+        for (int direction = 0; direction < GraphDirection.COUNT; direction++) {
+            int adjId = this.getId(x + GraphDirection.x(direction), y + GraphDirection.y(direction), z + GraphDirection.z(direction));
+
+            if (adjId != ABSENT) {
+                this.setAdjacent(adjId, GraphDirection.opposite(direction), id);
+            }
+
+            this.setAdjacent(id, direction, adjId);
+        }
+    }
+
+    private void disconnectNeighbors(int id) {
+        for (int direction = 0; direction < GraphDirection.COUNT; direction++) {
+            int adjId = this.adjacent[(id * GraphDirection.COUNT) + direction];
+
+            if (adjId != ABSENT) {
+                this.setAdjacent(adjId, GraphDirection.opposite(direction), ABSENT);
+            }
+
+            this.setAdjacent(id, direction, ABSENT);
+        }
+    }
+
+    private void setAdjacent(int id, int direction, int adjId) {
+        this.adjacent[(id * GraphDirection.COUNT) + direction] = adjId;
+
+        if (adjId == ABSENT) {
+            this.adjacentMask[id] &= (byte) ~GraphDirectionSet.of(direction);
+        } else {
+            this.adjacentMask[id] |= (byte) GraphDirectionSet.of(direction);
+        }
+    }
+
+    private int allocate() {
+        int id;
+
+        if (!this.freeIds.isEmpty()) {
+            id = this.freeIds.popInt();
+        } else {
+            id = this.nextId++;
+
+            if (id >= this.sections.length) {
+                this.grow(id + 1);
+            }
+        }
+
+        Arrays.fill(this.adjacent, id * GraphDirection.COUNT, (id + 1) * GraphDirection.COUNT, ABSENT);
+        this.adjacentMask[id] = GraphDirectionSet.NONE;
+
+        this.visibilityData[id] = VisibilityEncoding.NULL;
+        this.flags[id] = RenderSectionFlags.NONE;
+        this.built[id] = false;
+
+        this.pendingUpdate[id] = 0;
+        this.lastBuiltFrame[id] = -1;
+        this.lastSubmittedFrame[id] = -1;
+
+        this.lastVisibleFrame[id] = -1;
+        this.incomingDirections[id] = GraphDirectionSet.NONE;
+
+        return id;
+    }
+
+    private void grow(int minimumCapacity) {
+        int capacity = Math.max(minimumCapacity, this.sections.length * 2);
+
+        this.sections = Arrays.copyOf(this.sections, capacity);
+        this.positions = Arrays.copyOf(this.positions, capacity);
+        this.adjacent = Arrays.copyOf(this.adjacent, capacity * GraphDirection.COUNT);
+        this.adjacentMask = Arrays.copyOf(this.adjacentMask, capacity);
+        this.visibilityData = Arrays.copyOf(this.visibilityData, capacity);
+        this.flags = Arrays.copyOf(this.flags, capacity);
+        this.built = Arrays.copyOf(this.built, capacity);
+        this.pendingUpdate = Arrays.copyOf(this.pendingUpdate, capacity);
+        this.lastBuiltFrame = Arrays.copyOf(this.lastBuiltFrame, capacity);
+        this.lastSubmittedFrame = Arrays.copyOf(this.lastSubmittedFrame, capacity);
+        this.lastVisibleFrame = Arrays.copyOf(this.lastVisibleFrame, capacity);
+        this.incomingDirections = Arrays.copyOf(this.incomingDirections, capacity);
+    }
+
+    /**
+     * Returns the number of sections which are currently in the table.
+     */
+    public int size() {
+        return this.nextId - this.freeIds.size();
+    }
+
+    /**
+     * Returns the number of sections which did not fit into the ring buffer index.
+     */
+    public int getOverflowCount() {
+        return this.overflow.size();
+    }
+
+    public int getAdjacent(int id, int direction) {
+        return this.adjacent[(id * GraphDirection.COUNT) + direction];
+    }
+
+    public int getAdjacentMask(int id) {
+        return this.adjacentMask[id];
+    }
+
+    public long getVisibilityData(int id) {
+        return this.visibilityData[id];
+    }
+
+    public int getFlags(int id) {
+        return this.flags[id];
+    }
+
+    public boolean isBuilt(int id) {
+        return this.built[id];
+    }
+
+    void setRenderState(int id, boolean built, int flags, long visibilityData) {
+        this.built[id] = built;
+        this.flags[id] = flags;
+        this.visibilityData[id] = visibilityData;
+    }
+
+    public @Nullable ChunkUpdateType getPendingUpdate(int id) {
+        int type = this.pendingUpdate[id];
+        return type == 0 ? null : UPDATE_TYPES[type - 1];
+    }
+
+    public void setPendingUpdate(int id, @Nullable ChunkUpdateType type) {
+        this.pendingUpdate[id] = (byte) (type == null ? 0 : type.ordinal() + 1);
+    }
+
+    public int getLastBuiltFrame(int id) {
+        return this.lastBuiltFrame[id];
+    }
+
+    public void setLastBuiltFrame(int id, int frame) {
+        this.lastBuiltFrame[id] = frame;
+    }
+
+    public int getLastSubmittedFrame(int id) {
+        return this.lastSubmittedFrame[id];
+    }
+
+    public void setLastSubmittedFrame(int id, int frame) {
+        this.lastSubmittedFrame[id] = frame;
+    }
+
+    public int getLastVisibleFrame(int id) {
+        return this.lastVisibleFrame[id];
+    }
+
+    public void setLastVisibleFrame(int id, int frame) {
+        this.lastVisibleFrame[id] = frame;
+    }
+
+    public int getIncomingDirections(int id) {
+        return this.incomingDirections[id];
+    }
+
+    public void setIncomingDirections(int id, int directions) {
+        this.incomingDirections[id] = (byte) directions;
+    }
+
+    public void addIncomingDirections(int id, int directions) {
+        this.incomingDirections[id] |= (byte) directions;
+    }
+}
@@ -1,6 +1,7 @@
 package me.jellysquid.mods.sodium.client.render.chunk;
 
 import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
+import me.jellysquid.mods.sodium.client.SodiumClientMod;
 import me.jellysquid.mods.sodium.client.gl.attribute.GlVertexFormat;
 import me.jellysquid.mods.sodium.client.gl.device.CommandList;
 import me.jellysquid.mods.sodium.client.gl.device.RenderDevice;
@@ -56,6 +57,7 @@ public abstract class ShaderChunkRenderer implements ChunkRenderer {
                     .bindAttribute("a_Color", ChunkShaderBindingPoints.ATTRIBUTE_COLOR)
                     .bindAttribute("a_TexCoord", ChunkShaderBindingPoints.ATTRIBUTE_BLOCK_TEXTURE)
                     .bindAttribute("a_LightCoord", ChunkShaderBindingPoints.ATTRIBUTE_LIGHT_TEXTURE)
+                    .bindAttribute("a_RegionOffset", ChunkShaderBindingPoints.ATTRIBUTE_REGION_OFFSET)
                     .bindFragmentData("fragColor", ChunkShaderBindingPoints.FRAG_COLOR)
                     .link((shader) -> new ChunkShaderInterface(shader, options));
         } finally {
@@ -67,7 +69,7 @@ public abstract class ShaderChunkRenderer implements ChunkRenderer {
     protected void begin(TerrainRenderPass pass) {
         pass.startDrawing();
 
-        ChunkShaderOptions options = new ChunkShaderOptions(ChunkFogMode.SMOOTH, pass, this.vertexType);
+        ChunkShaderOptions options = this.createShaderOptions(pass);
 
         this.activeProgram = this.compileProgram(options);
         this.activeProgram.bind();
@@ -75,6 +77,11 @@ public abstract class ShaderChunkRenderer implements ChunkRenderer {
                 .setupState();
     }
 
+    protected ChunkShaderOptions createShaderOptions(TerrainRenderPass pass) {
+        return new ChunkShaderOptions(ChunkFogMode.SMOOTH, pass, this.vertexType,
+                SodiumClientMod.options().performance.useGreedyMeshing);
+    }
+
     protected void end(TerrainRenderPass pass) {
         this.activeProgram.unbind();
         this.activeProgram = null;
@@ -0,0 +1,36 @@
+package me.jellysquid.mods.sodium.client.render.chunk.cache;
+
+import me.jellysquid.mods.sodium.client.render.chunk.data.BuiltSectionMeshParts;
+import me.jellysquid.mods.sodium.client.render.chunk.terrain.TerrainRenderPass;
+import net.minecraft.client.texture.Sprite;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The meshes and render info of a section which were loaded from the mesh cache. Block entities are not part of the
+ * cached data, and must be collected from the world when the section is restored.
+ */
+public class CachedSectionMesh {
+    public final long visibilityData;
+    public final Map<TerrainRenderPass, BuiltSectionMeshParts> meshes;
+    public final List<Sprite> animatedSprites;
+
+    public final int mergedFaceCount;
+    public final int mergedQuadCount;
+
+    public CachedSectionMesh(long visibilityData, Map<TerrainRenderPass, BuiltSectionMeshParts> meshes, List<Sprite> animatedSprites,
+                             int mergedFaceCount, int mergedQuadCount) {
+        this.visibilityData = visibilityData;
+        this.meshes = meshes;
+        this.animatedSprites = animatedSprites;
+        this.mergedFaceCount = mergedFaceCount;
+        this.mergedQuadCount = mergedQuadCount;
+    }
+
+    public void delete() {
+        for (var mesh : this.meshes.values()) {
+            mesh.delete();
+        }
+    }
+}
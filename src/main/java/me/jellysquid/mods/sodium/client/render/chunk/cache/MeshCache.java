@@ -0,0 +1,367 @@
+package me.jellysquid.mods.sodium.client.render.chunk.cache;
+
+import it.unimi.dsi.fastutil.HashCommon;
+import it.unimi.dsi.fastutil.longs.Long2ObjectLinkedOpenHashMap;
+import me.jellysquid.mods.sodium.client.SodiumClientMod;
+import me.jellysquid.mods.sodium.client.render.chunk.LocalSectionIndex;
+import me.jellysquid.mods.sodium.client.render.chunk.data.BuiltSectionInfo;
+import me.jellysquid.mods.sodium.client.render.chunk.data.BuiltSectionMeshParts;
+import me.jellysquid.mods.sodium.client.render.chunk.region.RenderRegion;
+import me.jellysquid.mods.sodium.client.render.chunk.terrain.TerrainRenderPass;
+import me.jellysquid.mods.sodium.client.render.chunk.vertex.format.ChunkVertexType;
+import me.jellysquid.mods.sodium.client.util.MathUtil;
+import net.fabricmc.loader.api.FabricLoader;
+import net.minecraft.block.Block;
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.world.ClientWorld;
+import net.minecraft.util.WorldSavePath;
+import net.minecraft.util.math.ChunkSectionPos;
+import org.jetbrains.annotations.Nullable;
+import org.lwjgl.system.MemoryUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * A persistent on-disk cache of built section meshes, which allows sections to be restored without meshing them again
+ * when re-joining a world. Entries are keyed by the position of the section and a hash of the world data which was
+ * used to build it (see {@link SectionContentHasher}), and are stored in one file per render region.
+ *
+ * The cache of each world is tagged with a fingerprint of everything else which affects the meshes, such as the vertex
+ * format, resource packs, and graphics settings. Files with another fingerprint are discarded when they are opened.
+ * The total size of the cache across all worlds is limited, and the least recently written files are deleted first.
+ *
+ * If any I/O error occurs, the cache is disabled for the rest of the session.
+ */
+public class MeshCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger("Sodium-MeshCache");
+
+    // Increment this whenever the layout of the files or entries is changed
+    private static final int FORMAT_VERSION = 2;
+
+    private static final long MAXIMUM_CACHE_SIZE = 512L * 1024 * 1024;
+    private static final int MAXIMUM_OPEN_FILES = 64;
+
+    private static final String FILE_EXTENSION = ".bin";
+
+    private final Path directory;
+    private final long fingerprint;
+
+    private final Long2ObjectLinkedOpenHashMap<MeshCacheRegionFile> openFiles = new Long2ObjectLinkedOpenHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong bytesWritten = new AtomicLong();
+
+    private volatile boolean disabled;
+
+    private MeshCache(Path directory, long fingerprint) {
+        this.directory = directory;
+        this.fingerprint = fingerprint;
+    }
+
+    /**
+     * Opens the mesh cache for the given world, or returns null if the world can't be identified or the cache
+     * directory is not available.
+     */
+    public static @Nullable MeshCache open(ClientWorld world, ChunkVertexType vertexType) {
+        var worldName = getWorldName(MinecraftClient.getInstance());
+
+        if (worldName == null) {
+            return null;
+        }
+
+        var root = getRootDirectory();
+        var dimension = world.getRegistryKey().getValue();
+
+        var directory = root.resolve(sanitize(worldName))
+                .resolve(sanitize(dimension.getNamespace() + "_" + dimension.getPath()));
+
+        try {
+            evictOldFiles(root);
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            LOGGER.warn("Failed to open the mesh cache at {}, it will be disabled", directory, e);
+            return null;
+        }
+
+        return new MeshCache(directory, createFingerprint(vertexType));
+    }
+
+    /**
+     * Returns the cached meshes of the section if they were built from the same world data, otherwise null. The
+     * camera position is relative to the origin of the section, and is used to sort translucent geometry.
+     */
+    public @Nullable CachedSectionMesh load(ChunkSectionPos pos, long hash, float cameraX, float cameraY, float cameraZ) {
+        if (this.disabled) {
+            return null;
+        }
+
+        var file = this.getRegionFile(pos);
+
+        if (file == null) {
+            return null;
+        }
+
+        int index = getSectionIndex(pos);
+
+        try {
+            var entry = file.read(index, hash);
+
+            if (entry == null) {
+                this.misses.incrementAndGet();
+                return null;
+            }
+
+            try {
+                var mesh = SectionMeshCodec.decode(entry, cameraX, cameraY, cameraZ);
+                this.hits.incrementAndGet();
+
+                return mesh;
+            } catch (RuntimeException e) {
+                LOGGER.warn("Discarding corrupted mesh cache entry for section {}", pos, e);
+                file.remove(index);
+
+                this.misses.incrementAndGet();
+                return null;
+            } finally {
+                MemoryUtil.memFree(entry);
+            }
+        } catch (IOException e) {
+            this.disable(e);
+            return null;
+        }
+    }
+
+    /**
+     * Stores the meshes of the section, replacing any existing entry for it.
+     */
+    public void store(ChunkSectionPos pos, long hash, BuiltSectionInfo info, Map<TerrainRenderPass, BuiltSectionMeshParts> meshes) {
+        if (this.disabled) {
+            return;
+        }
+
+        var file = this.getRegionFile(pos);
+
+        if (file == null) {
+            return;
+        }
+
+        try {
+            var data = SectionMeshCodec.encode(hash, info, meshes);
+
+            if (data != null) {
+                file.write(getSectionIndex(pos), data);
+                this.bytesWritten.addAndGet(data.length);
+            }
+        } catch (IOException e) {
+            this.disable(e);
+        }
+    }
+
+    private @Nullable MeshCacheRegionFile getRegionFile(ChunkSectionPos pos) {
+        int regionX = pos.getX() >> 3;
+        int regionY = pos.getY() >> 2;
+        int regionZ = pos.getZ() >> 3;
+
+        long key = RenderRegion.key(regionX, regionY, regionZ);
+
+        synchronized (this.openFiles) {
+            var file = this.openFiles.getAndMoveToLast(key);
+
+            if (file != null) {
+                return file;
+            }
+
+            try {
+                while (this.openFiles.size() >= MAXIMUM_OPEN_FILES) {
+                    this.openFiles.removeFirst()
+                            .close();
+                }
+
+                var path = this.directory.resolve("r.%d.%d.%d%s".formatted(regionX, regionY, regionZ, FILE_EXTENSION));
+                file = MeshCacheRegionFile.open(path, FORMAT_VERSION, this.fingerprint);
+
+                this.openFiles.putAndMoveToLast(key, file);
+            } catch (IOException e) {
+                this.disable(e);
+            }
+
+            return file;
+        }
+    }
+
+    private static int getSectionIndex(ChunkSectionPos pos) {
+        return LocalSectionIndex.pack(pos.getX() & (RenderRegion.REGION_WIDTH - 1),
+                pos.getY() & (RenderRegion.REGION_HEIGHT - 1),
+                pos.getZ() & (RenderRegion.REGION_LENGTH - 1));
+    }
+
+    private void disable(IOException e) {
+        if (!this.disabled) {
+            this.disabled = true;
+            LOGGER.warn("Encountered an I/O error while accessing the mesh cache, it will be disabled", e);
+        }
+    }
+
+    /**
+     * Closes all the files of the cache, and evicts old files if the cache has grown too large. This must only be
+     * called once no more chunk builder tasks are running.
+     */
+    public void close() {
+        synchronized (this.openFiles) {
+            for (var file : this.openFiles.values()) {
+                try {
+                    file.close();
+                } catch (IOException e) {
+                    LOGGER.warn("Failed to close mesh cache file", e);
+                }
+            }
+
+            this.openFiles.clear();
+        }
+
+        try {
+            evictOldFiles(getRootDirectory());
+        } catch (IOException e) {
+            LOGGER.warn("Failed to evict old files from the mesh cache", e);
+        }
+    }
+
+    public String getDebugString() {
+        if (this.disabled) {
+            return "Mesh Cache: Disabled (I/O error)";
+        }
+
+        return String.format("Mesh Cache: Hits=%d | Misses=%d | Written=%d MiB",
+                this.hits.get(), this.misses.get(), MathUtil.toMib(this.bytesWritten.get()));
+    }
+
+    private static Path getRootDirectory() {
+        return FabricLoader.getInstance()
+                .getGameDir()
+                .resolve("sodium-mesh-cache");
+    }
+
+    private static @Nullable String getWorldName(MinecraftClient client) {
+        var server = client.getServer();
+
+        if (server != null) {
+            // The name of the save directory is unique, unlike the name of the world
+            var saveDirectory = server.getSavePath(WorldSavePath.ROOT)
+                    .normalize()
+                    .getFileName();
+
+            return saveDirectory != null ? "local_" + saveDirectory : null;
+        }
+
+        var serverEntry = client.getCurrentServerEntry();
+
+        if (serverEntry != null) {
+            return "server_" + serverEntry.address;
+        }
+
+        return null;
+    }
+
+    private static String sanitize(String name) {
+        return name.replaceAll("[^a-zA-Z0-9._-]", "_");
+    }
+
+    // Everything other than the world data which affects the contents of the meshes must be part of the fingerprint,
+    // otherwise stale meshes could be restored after changing settings or resource packs.
+    private static long createFingerprint(ChunkVertexType vertexType) {
+        var client = MinecraftClient.getInstance();
+        var options = client.options;
+
+        List<Object> components = new ArrayList<>();
+        components.add(vertexType.getClass().getName());
+        components.add(vertexType.getVertexFormat().getStride());
+        components.add(vertexType.getPositionScale());
+        components.add(vertexType.getPositionOffset());
+        components.add(vertexType.getTextureScale());
+
+        components.add(Block.STATE_IDS.size());
+
+        components.add(options.getAo().getValue());
+        components.add(options.getBiomeBlendRadius().getValue());
+        components.add(options.getGraphicsMode().getValue());
+        components.add(SodiumClientMod.options().quality.leavesQuality);
+        components.add(SodiumClientMod.options().performance.sortTranslucentGeometry);
+        components.add(SodiumClientMod.options().performance.useGreedyMeshing);
+
+        components.addAll(client.getResourcePackManager().getEnabledNames());
+
+        for (var mod : FabricLoader.getInstance().getAllMods()) {
+            var metadata = mod.getMetadata();
+            components.add(metadata.getId() + "@" + metadata.getVersion().getFriendlyString());
+        }
+
+        long fingerprint = 0;
+
+        for (var component : components) {
+            fingerprint = HashCommon.mix(fingerprint ^ component.toString().hashCode());
+        }
+
+        return fingerprint;
+    }
+
+    private static void evictOldFiles(Path root) throws IOException {
+        if (!Files.isDirectory(root)) {
+            return;
+        }
+
+        record CacheFile(Path path, long size, FileTime lastModified) { }
+
+        List<CacheFile> files;
+
+        try (Stream<Path> stream = Files.walk(root)) {
+            files = stream
+                    .filter(path -> path.getFileName().toString().endsWith(FILE_EXTENSION))
+                    .map(path -> {
+                        try {
+                            var attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                            return new CacheFile(path, attributes.size(), attributes.lastModifiedTime());
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    })
+                    .sorted(Comparator.comparing(CacheFile::lastModified))
+                    .toList();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        long totalSize = 0;
+
+        for (var file : files) {
+            totalSize += file.size();
+        }
+
+        for (var file : files) {
+            if (totalSize <= MAXIMUM_CACHE_SIZE) {
+                break;
+            }
+
+            try {
+                Files.delete(file.path());
+                totalSize -= file.size();
+            } catch (IOException e) {
+                // The file may still be mapped by a previous session, try again later
+                LOGGER.debug("Failed to delete mesh cache file {}", file.path(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package me.jellysquid.mods.sodium.client.render.chunk.cache;
+
+import me.jellysquid.mods.sodium.client.render.chunk.region.RenderRegion;
+import org.jetbrains.annotations.Nullable;
+import org.lwjgl.system.MemoryUtil;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A file which stores the cached meshes of every section within one render region. The file begins with a header and
+ * an index which holds the location of each section's entry, followed by the entries themselves. New entries are
+ * always appended to the end of the file, and the space of replaced entries is only reclaimed when the file is
+ * compacted as it is opened. Entries are read directly from the file into off-heap memory, which avoids having to
+ * map the file again each time an entry is appended past the end of an existing mapping.
+ *
+ * All methods are synchronized, as the file is shared between the chunk builder threads.
+ */
+class MeshCacheRegionFile implements Closeable {
+    private static final int MAGIC = 0x534D4348; // "SMCH"
+
+    private static final int INDEX_ENTRY_SIZE = Long.BYTES + Integer.BYTES;
+    private static final int HEADER_SIZE = Integer.BYTES + Integer.BYTES + Long.BYTES;
+    private static final int DATA_START = HEADER_SIZE + (RenderRegion.REGION_SIZE * INDEX_ENTRY_SIZE);
+
+    // Files are only compacted once they have accumulated at least this many bytes of unused space
+    private static final long MINIMUM_COMPACTION_WASTE = 1024 * 1024;
+
+    private final FileChannel channel;
+
+    private final long[] offsets = new long[RenderRegion.REGION_SIZE];
+    private final int[] lengths = new int[RenderRegion.REGION_SIZE];
+
+    private long fileSize;
+
+    private boolean closed;
+
+    private MeshCacheRegionFile(FileChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Opens the region file at the given path, creating it if it does not exist. If the file was written with another
+     * version or fingerprint, its contents are discarded.
+     */
+    static MeshCacheRegionFile open(Path path, int version, long fingerprint) throws IOException {
+        var channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        try {
+            var file = new MeshCacheRegionFile(channel);
+
+            if (!file.readHeader(version, fingerprint)) {
+                file.reset(version, fingerprint);
+            } else {
+                file.compactIfNeeded();
+            }
+
+            return file;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private boolean readHeader(int version, long fingerprint) throws IOException {
+        long size = this.channel.size();
+
+        if (size < DATA_START) {
+            return false;
+        }
+
+        var header = ByteBuffer.allocate(DATA_START);
+        readFully(this.channel, header, 0);
+        header.flip();
+
+        if (header.getInt() != MAGIC || header.getInt() != version || header.getLong() != fingerprint) {
+            return false;
+        }
+
+        for (int i = 0; i < RenderRegion.REGION_SIZE; i++) {
+            long offset = header.getLong();
+            int length = header.getInt();
+
+            // Drop any entries which are not fully contained within the file, such as after a crash during a write
+            if (length < 0 || offset < DATA_START || offset + length > size) {
+                offset = 0;
+                length = 0;
+            }
+
+            this.offsets[i] = offset;
+            this.lengths[i] = length;
+        }
+
+        this.fileSize = size;
+
+        return true;
+    }
+
+    private void reset(int version, long fingerprint) throws IOException {
+        this.channel.truncate(0);
+
+        var header = ByteBuffer.allocate(DATA_START);
+        header.putInt(MAGIC);
+        header.putInt(version);
+        header.putLong(fingerprint);
+        header.position(DATA_START);
+        header.flip();
+
+        writeFully(this.channel, header, 0);
+
+        this.fileSize = DATA_START;
+    }
+
+    private void compactIfNeeded() throws IOException {
+        long liveBytes = 0;
+
+        for (int length : this.lengths) {
+            liveBytes += length;
+        }
+
+        long wastedBytes = (this.fileSize - DATA_START) - liveBytes;
+
+        if (wastedBytes < MINIMUM_COMPACTION_WASTE || wastedBytes < liveBytes) {
+            return;
+        }
+
+        // Pull all the live entries into memory, and then write them back out contiguously. Region files are small
+        // enough that this is cheaper than doing it in place.
+        var entries = new ByteBuffer[RenderRegion.REGION_SIZE];
+
+        for (int i = 0; i < RenderRegion.REGION_SIZE; i++) {
+            if (this.lengths[i] != 0) {
+                entries[i] = ByteBuffer.allocate(this.lengths[i]);
+                readFully(this.channel, entries[i], this.offsets[i]);
+                entries[i].flip();
+            }
+        }
+
+        long position = DATA_START;
+
+        for (int i = 0; i < RenderRegion.REGION_SIZE; i++) {
+            if (entries[i] != null) {
+                writeFully(this.channel, entries[i], position);
+                this.writeIndex(i, position, this.lengths[i]);
+
+                position += this.lengths[i];
+            }
+        }
+
+        this.channel.truncate(position);
+        this.fileSize = position;
+    }
+
+    /**
+     * Returns a copy of the entry stored for the given section if its content hash matches, otherwise null. The
+     * returned buffer is allocated off-heap, and must be freed by the caller with {@link MemoryUtil#memFree}.
+     */
+    synchronized @Nullable ByteBuffer read(int index, long hash) throws IOException {
+        int length = this.lengths[index];
+
+        if (this.closed || length < Long.BYTES) {
+            return null;
+        }
+
+        long offset = this.offsets[index];
+
+        // Check the hash before reading the rest of the entry, since stale entries are common
+        var storedHash = ByteBuffer.allocate(Long.BYTES);
+        readFully(this.channel, storedHash, offset);
+
+        if (storedHash.getLong(0) != hash) {
+            return null;
+        }
+
+        // Entries are written with DataOutputStream, which is always big-endian
+        var entry = MemoryUtil.memAlloc(length)
+                .order(ByteOrder.BIG_ENDIAN);
+
+        try {
+            readFully(this.channel, entry, offset);
+        } catch (IOException | RuntimeException e) {
+            MemoryUtil.memFree(entry);
+            throw e;
+        }
+
+        return entry.flip();
+    }
+
+    synchronized void write(int index, byte[] data) throws IOException {
+        if (this.closed) {
+            return;
+        }
+
+        long offset = this.fileSize;
+
+        // The data is written before the index, so that the index never refers to data which is not present
+        writeFully(this.channel, ByteBuffer.wrap(data), offset);
+        this.writeIndex(index, offset, data.length);
+
+        this.fileSize += data.length;
+    }
+
+    synchronized void remove(int index) throws IOException {
+        if (this.closed || this.lengths[index] == 0) {
+            return;
+        }
+
+        this.writeIndex(index, 0, 0);
+    }
+
+    private void writeIndex(int index, long offset, int length) throws IOException {
+        var entry = ByteBuffer.allocate(INDEX_ENTRY_SIZE);
+        entry.putLong(offset);
+        entry.putInt(length);
+        entry.flip();
+
+        writeFully(this.channel, entry, HEADER_SIZE + ((long) index * INDEX_ENTRY_SIZE));
+
+        this.offsets[index] = offset;
+        this.lengths[index] = length;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (this.closed) {
+            return;
+        }
+
+        this.closed = true;
+
+        this.channel.close();
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+
+            if (read < 0) {
+                throw new IOException("Unexpected end of file");
+            }
+
+            position += read;
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package me.jellysquid.mods.sodium.client.render.chunk.cache;
+
+import it.unimi.dsi.fastutil.HashCommon;
+import me.jellysquid.mods.sodium.client.world.ReadableContainerExtended;
+import me.jellysquid.mods.sodium.client.world.cloned.ChunkRenderContext;
+import me.jellysquid.mods.sodium.client.world.cloned.ClonedChunkSection;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.registry.entry.RegistryEntry;
+import net.minecraft.world.LightType;
+import net.minecraft.world.biome.Biome;
+import net.minecraft.world.chunk.ChunkNibbleArray;
+
+/**
+ * Computes a hash over all the world data which is read when meshing a section. This includes the block states, light
+ * data and biomes of the section and each of its neighbors. Two render contexts with the same hash are assumed to
+ * produce the same meshes.
+ *
+ * Instances hold scratch arrays and must not be shared between threads.
+ */
+public class SectionContentHasher {
+    private static final long SEED = 0x9E3779B97F4A7C15L;
+
+    private final BlockState[] blocks = new BlockState[16 * 16 * 16];
+
+    @SuppressWarnings("unchecked")
+    private final RegistryEntry<Biome>[] biomes = new RegistryEntry[4 * 4 * 4];
+
+    /**
+     * Returns whether the meshes of the section can be cached. Sections whose blocks provide custom render data (which
+     * is usually attached by other mods through block entities) can't be cached, as the mesh depends on that data and
+     * we have no way to hash it.
+     */
+    public static boolean isCacheable(ChunkRenderContext context) {
+        for (var section : context.getSections()) {
+            if (section != null && section.getBlockEntityRenderDataMap() != null) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    public long hash(ChunkRenderContext context) {
+        long hash = SEED;
+
+        for (var section : context.getSections()) {
+            hash = this.hashSection(hash, section);
+        }
+
+        return HashCommon.mix(hash);
+    }
+
+    private long hashSection(long hash, ClonedChunkSection section) {
+        if (section == null) {
+            return combine(hash, 0);
+        }
+
+        hash = this.hashBlocks(hash, section);
+        hash = this.hashBiomes(hash, section);
+
+        hash = hashLight(hash, section.getLightArray(LightType.BLOCK));
+        hash = hashLight(hash, section.getLightArray(LightType.SKY));
+
+        return hash;
+    }
+
+    private long hashBlocks(long hash, ClonedChunkSection section) {
+        var container = section.getBlockData();
+
+        if (container == null) {
+            return combine(hash, -1);
+        }
+
+        var blocks = this.blocks;
+        ReadableContainerExtended.of(container)
+                .sodium$unpack(blocks);
+
+        BlockState prevState = null;
+        int prevId = 0;
+
+        for (BlockState state : blocks) {
+            // Most sections are made up of long runs of the same block, so avoid looking up the id for each of them
+            if (state != prevState) {
+                prevState = state;
+                prevId = Block.STATE_IDS.getRawId(state);
+            }
+
+            hash = combine(hash, prevId);
+        }
+
+        return hash;
+    }
+
+    private long hashBiomes(long hash, ClonedChunkSection section) {
+        var container = section.getBiomeData();
+
+        if (container == null) {
+            return combine(hash, -1);
+        }
+
+        var biomes = this.biomes;
+        ReadableContainerExtended.of(container)
+                .sodium$unpack(biomes);
+
+        RegistryEntry<Biome> prevBiome = null;
+        int prevId = 0;
+
+        for (RegistryEntry<Biome> biome : biomes) {
+            if (biome != prevBiome) {
+                prevBiome = biome;
+                prevId = biome.getKey()
+                        .map(key -> key.getValue().hashCode())
+                        .orElse(0);
+            }
+
+            hash = combine(hash, prevId);
+        }
+
+        return hash;
+    }
+
+    private static long hashLight(long hash, ChunkNibbleArray array) {
+        if (array == null) {
+            return combine(hash, -1);
+        }
+
+        if (array.isUninitialized()) {
+            // The array is filled with its default value
+            return combine(hash, array.get(0, 0, 0));
+        }
+
+        for (byte value : array.asByteArray()) {
+            hash = combine(hash, value);
+        }
+
+        return hash;
+    }
+
+    private static long combine(long hash, int value) {
+        return Long.rotateLeft(hash ^ value, 27) * SEED;
+    }
+}
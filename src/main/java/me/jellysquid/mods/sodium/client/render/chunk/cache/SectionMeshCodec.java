@@ -0,0 +1,215 @@
+package me.jellysquid.mods.sodium.client.render.chunk.cache;
+
+import it.unimi.dsi.fastutil.objects.Reference2ReferenceOpenHashMap;
+import me.jellysquid.mods.sodium.client.gl.util.VertexRange;
+import me.jellysquid.mods.sodium.client.model.quad.properties.ModelQuadFacing;
+import me.jellysquid.mods.sodium.client.render.chunk.data.BuiltSectionInfo;
+import me.jellysquid.mods.sodium.client.render.chunk.data.BuiltSectionMeshParts;
+import me.jellysquid.mods.sodium.client.render.chunk.data.TranslucentQuadData;
+import me.jellysquid.mods.sodium.client.render.chunk.terrain.DefaultTerrainRenderPasses;
+import me.jellysquid.mods.sodium.client.render.chunk.terrain.TerrainRenderPass;
+import me.jellysquid.mods.sodium.client.util.NativeBuffer;
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.texture.Sprite;
+import net.minecraft.util.Identifier;
+import org.apache.commons.lang3.ArrayUtils;
+import org.jetbrains.annotations.Nullable;
+import org.lwjgl.system.MemoryUtil;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Encodes the meshes and render info of a section into the format stored by the mesh cache, and decodes them again.
+ *
+ * An entry begins with the content hash of the section, followed by its visibility data, its greedy meshing statistics,
+ * the mesh of each render pass, and the identifiers of its animated sprites. Sorted meshes are stored in their unsorted
+ * form along with the quad centroids, and are sorted against the current camera position when they are decoded.
+ */
+class SectionMeshCodec {
+    private static final int ABSENT_RANGE = -1;
+
+    /**
+     * @return The encoded entry, or null if the meshes can't be stored in the cache
+     */
+    static byte @Nullable[] encode(long hash, BuiltSectionInfo info, Map<TerrainRenderPass, BuiltSectionMeshParts> meshes) throws IOException {
+        var bytes = new ByteArrayOutputStream();
+        var out = new DataOutputStream(bytes);
+
+        out.writeLong(hash);
+        out.writeLong(info.visibilityData);
+        out.writeInt(info.mergedFaceCount);
+        out.writeInt(info.mergedQuadCount);
+        out.writeByte(meshes.size());
+
+        for (var entry : meshes.entrySet()) {
+            int passIndex = ArrayUtils.indexOf(DefaultTerrainRenderPasses.ALL, entry.getKey());
+
+            if (passIndex == ArrayUtils.INDEX_NOT_FOUND) {
+                return null;
+            }
+
+            out.writeByte(passIndex);
+            writeMesh(out, entry.getValue());
+        }
+
+        var sprites = info.animatedSprites;
+
+        if (sprites == null) {
+            out.writeShort(0);
+        } else {
+            out.writeShort(sprites.length);
+
+            for (Sprite sprite : sprites) {
+                writeString(out, sprite.getAtlasId().toString());
+                writeString(out, sprite.getContents().getId().toString());
+            }
+        }
+
+        return bytes.toByteArray();
+    }
+
+    private static void writeMesh(DataOutputStream out, BuiltSectionMeshParts mesh) throws IOException {
+        var translucentData = mesh.getTranslucentData();
+
+        if (translucentData != null) {
+            out.writeBoolean(true);
+            out.writeInt(translucentData.getVertexStride());
+
+            var vertexData = translucentData.getVertexData();
+            out.writeInt(vertexData.length);
+            out.write(vertexData);
+
+            var centroids = translucentData.getCentroids();
+            out.writeInt(centroids.length);
+
+            for (float value : centroids) {
+                out.writeFloat(value);
+            }
+        } else {
+            out.writeBoolean(false);
+
+            for (VertexRange range : mesh.getVertexRanges()) {
+                out.writeInt(range != null ? range.vertexStart() : ABSENT_RANGE);
+                out.writeInt(range != null ? range.vertexCount() : 0);
+            }
+
+            var vertexData = mesh.getVertexData()
+                    .getDirectBuffer();
+            var array = new byte[vertexData.remaining()];
+            vertexData.get(array);
+
+            out.writeInt(array.length);
+            out.write(array);
+        }
+    }
+
+    /**
+     * Decodes an entry which was previously encoded with {@link #encode(long, BuiltSectionInfo, Map)}. The camera
+     * position is relative to the origin of the section, and is used to sort translucent geometry.
+     *
+     * @throws RuntimeException If the entry is malformed
+     */
+    static CachedSectionMesh decode(ByteBuffer buffer, float cameraX, float cameraY, float cameraZ) {
+        buffer.getLong(); // content hash, which has already been checked
+
+        long visibilityData = buffer.getLong();
+        int mergedFaceCount = buffer.getInt();
+        int mergedQuadCount = buffer.getInt();
+        int passCount = buffer.get();
+
+        Map<TerrainRenderPass, BuiltSectionMeshParts> meshes = new Reference2ReferenceOpenHashMap<>();
+
+        try {
+            for (int i = 0; i < passCount; i++) {
+                var pass = DefaultTerrainRenderPasses.ALL[buffer.get()];
+                meshes.put(pass, readMesh(buffer, cameraX, cameraY, cameraZ));
+            }
+
+            int spriteCount = buffer.getShort();
+            List<Sprite> sprites = new ArrayList<>(spriteCount);
+
+            var models = MinecraftClient.getInstance()
+                    .getBakedModelManager();
+
+            for (int i = 0; i < spriteCount; i++) {
+                var atlasId = new Identifier(readString(buffer));
+                var spriteId = new Identifier(readString(buffer));
+
+                sprites.add(models.getAtlas(atlasId).getSprite(spriteId));
+            }
+
+            return new CachedSectionMesh(visibilityData, meshes, sprites, mergedFaceCount, mergedQuadCount);
+        } catch (RuntimeException e) {
+            for (var mesh : meshes.values()) {
+                mesh.delete();
+            }
+
+            throw e;
+        }
+    }
+
+    private static BuiltSectionMeshParts readMesh(ByteBuffer buffer, float cameraX, float cameraY, float cameraZ) {
+        boolean sorted = buffer.get() != 0;
+
+        if (sorted) {
+            int vertexStride = buffer.getInt();
+
+            var vertexData = new byte[buffer.getInt()];
+            buffer.get(vertexData);
+
+            var centroids = new float[buffer.getInt()];
+
+            for (int i = 0; i < centroids.length; i++) {
+                centroids[i] = buffer.getFloat();
+            }
+
+            var translucentData = new TranslucentQuadData(vertexData, centroids, vertexStride);
+
+            VertexRange[] vertexRanges = new VertexRange[ModelQuadFacing.COUNT];
+            vertexRanges[ModelQuadFacing.UNASSIGNED.ordinal()] = new VertexRange(0, vertexData.length / vertexStride);
+
+            return new BuiltSectionMeshParts(translucentData.sort(cameraX, cameraY, cameraZ), vertexRanges, translucentData);
+        }
+
+        VertexRange[] vertexRanges = new VertexRange[ModelQuadFacing.COUNT];
+
+        for (int facing = 0; facing < ModelQuadFacing.COUNT; facing++) {
+            int start = buffer.getInt();
+            int count = buffer.getInt();
+
+            if (start != ABSENT_RANGE) {
+                vertexRanges[facing] = new VertexRange(start, count);
+            }
+        }
+
+        int length = buffer.getInt();
+
+        var vertexData = new NativeBuffer(length);
+        MemoryUtil.memCopy(buffer.slice(buffer.position(), length), vertexData.getDirectBuffer());
+
+        buffer.position(buffer.position() + length);
+
+        return new BuiltSectionMeshParts(vertexData, vertexRanges);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        var bytes = value.getBytes(StandardCharsets.UTF_8);
+
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        var bytes = new byte[buffer.getShort()];
+        buffer.get(bytes);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -1,12 +1,14 @@
 package me.jellysquid.mods.sodium.client.render.chunk.compile;
 
 import it.unimi.dsi.fastutil.objects.Reference2ReferenceOpenHashMap;
+import me.jellysquid.mods.sodium.client.SodiumClientMod;
 import me.jellysquid.mods.sodium.client.gl.util.VertexRange;
 import me.jellysquid.mods.sodium.client.model.quad.properties.ModelQuadFacing;
 import me.jellysquid.mods.sodium.client.render.chunk.compile.buffers.BakedChunkModelBuilder;
 import me.jellysquid.mods.sodium.client.render.chunk.compile.buffers.ChunkModelBuilder;
 import me.jellysquid.mods.sodium.client.render.chunk.data.BuiltSectionInfo;
 import me.jellysquid.mods.sodium.client.render.chunk.data.BuiltSectionMeshParts;
+import me.jellysquid.mods.sodium.client.render.chunk.data.TranslucentQuadData;
 import me.jellysquid.mods.sodium.client.render.chunk.terrain.DefaultTerrainRenderPasses;
 import me.jellysquid.mods.sodium.client.render.chunk.terrain.TerrainRenderPass;
 import me.jellysquid.mods.sodium.client.render.chunk.terrain.material.Material;
@@ -31,14 +33,17 @@ public class ChunkBuildBuffers {
     public ChunkBuildBuffers(ChunkVertexType vertexType) {
         this.vertexType = vertexType;
 
+        boolean sortTranslucentGeometry = SodiumClientMod.options().performance.sortTranslucentGeometry;
+
         for (TerrainRenderPass pass : DefaultTerrainRenderPasses.ALL) {
             var vertexBuffers = new ChunkMeshBufferBuilder[ModelQuadFacing.COUNT];
+            var sorted = sortTranslucentGeometry && pass.isSorted();
 
             for (int facing = 0; facing < ModelQuadFacing.COUNT; facing++) {
-                vertexBuffers[facing] = new ChunkMeshBufferBuilder(this.vertexType, 128 * 1024);
+                vertexBuffers[facing] = new ChunkMeshBufferBuilder(this.vertexType, 128 * 1024, sorted);
             }
 
-            this.builders.put(pass, new BakedChunkModelBuilder(vertexBuffers));
+            this.builders.put(pass, new BakedChunkModelBuilder(vertexBuffers, sorted));
         }
     }
 
@@ -56,10 +61,17 @@ public class ChunkBuildBuffers {
      * Creates immutable baked chunk meshes from all non-empty scratch buffers. This is used after all blocks
      * have been rendered to pass the finished meshes over to the graphics card. This function can be called multiple
      * times to return multiple copies.
+     *
+     * If the render pass is sorted, the quads of the mesh will be ordered back-to-front relative to the given camera
+     * position, which is relative to the origin of the section.
      */
-    public BuiltSectionMeshParts createMesh(TerrainRenderPass pass) {
+    public BuiltSectionMeshParts createMesh(TerrainRenderPass pass, float cameraX, float cameraY, float cameraZ) {
         var builder = this.builders.get(pass);
 
+        if (builder.isSorted()) {
+            return this.createSortedMesh(builder, cameraX, cameraY, cameraZ);
+        }
+
         List<ByteBuffer> vertexBuffers = new ArrayList<>();
         VertexRange[] vertexRanges = new VertexRange[ModelQuadFacing.COUNT];
 
@@ -94,6 +106,23 @@ public class ChunkBuildBuffers {
         return new BuiltSectionMeshParts(mergedBuffer, vertexRanges);
     }
 
+    private BuiltSectionMeshParts createSortedMesh(BakedChunkModelBuilder builder, float cameraX, float cameraY, float cameraZ) {
+        // All the geometry of a sorted pass is contained within the unassigned buffer
+        var buffer = builder.getVertexBuffer(ModelQuadFacing.UNASSIGNED);
+
+        if (buffer.isEmpty()) {
+            return null;
+        }
+
+        var translucentData = new TranslucentQuadData(buffer.slice(), buffer.copyCentroids(),
+                this.vertexType.getVertexFormat().getStride());
+
+        VertexRange[] vertexRanges = new VertexRange[ModelQuadFacing.COUNT];
+        vertexRanges[ModelQuadFacing.UNASSIGNED.ordinal()] = new VertexRange(0, buffer.count());
+
+        return new BuiltSectionMeshParts(translucentData.sort(cameraX, cameraY, cameraZ), vertexRanges, translucentData);
+    }
+
     public void destroy() {
         for (var builder : this.builders.values()) {
             builder.destroy();
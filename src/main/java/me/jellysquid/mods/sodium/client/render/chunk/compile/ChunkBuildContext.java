@@ -1,7 +1,10 @@
 package me.jellysquid.mods.sodium.client.render.chunk.compile;
 
+import me.jellysquid.mods.sodium.client.render.chunk.cache.SectionContentHasher;
+import me.jellysquid.mods.sodium.client.render.chunk.compile.profiling.ChunkBuildTimer;
 import me.jellysquid.mods.sodium.client.render.chunk.vertex.format.ChunkVertexType;
 import me.jellysquid.mods.sodium.client.render.chunk.compile.pipeline.BlockRenderCache;
+import me.jellysquid.mods.sodium.client.render.chunk.compile.pipeline.BlockRenderProperties;
 import net.minecraft.client.MinecraftClient;
 import net.minecraft.client.world.ClientWorld;
 import net.minecraft.world.World;
@@ -9,10 +12,12 @@ import net.minecraft.world.World;
 public class ChunkBuildContext {
     public final ChunkBuildBuffers buffers;
     public final BlockRenderCache cache;
+    public final SectionContentHasher hasher = new SectionContentHasher();
+    public final ChunkBuildTimer timer = new ChunkBuildTimer();
 
-    public ChunkBuildContext(ClientWorld world, ChunkVertexType vertexType) {
+    public ChunkBuildContext(ClientWorld world, ChunkVertexType vertexType, BlockRenderProperties properties) {
         this.buffers = new ChunkBuildBuffers(vertexType);
-        this.cache = new BlockRenderCache(MinecraftClient.getInstance(), world);
+        this.cache = new BlockRenderCache(MinecraftClient.getInstance(), world, properties, this.timer);
     }
 
     public void cleanup() {
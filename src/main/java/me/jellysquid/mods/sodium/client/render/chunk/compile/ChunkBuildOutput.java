@@ -20,22 +20,43 @@ public class ChunkBuildOutput {
 
     public final int buildTime;
 
+    // The time at which the output was created, in nanoseconds, which is used to measure how long it waits for upload
+    public final long finishTime;
+
     public ChunkBuildOutput(RenderSection render, BuiltSectionInfo info, Map<TerrainRenderPass, BuiltSectionMeshParts> meshes, int buildTime) {
         this.render = render;
         this.info = info;
         this.meshes = meshes;
 
         this.buildTime = buildTime;
+        this.finishTime = System.nanoTime();
+    }
+
+    /**
+     * Returns whether this output replaces the meshes of every render pass in the section. If false, only the meshes
+     * of the render passes contained in this output are replaced.
+     */
+    public boolean replacesAllMeshes() {
+        return true;
     }
 
     public BuiltSectionMeshParts getMesh(TerrainRenderPass pass) {
         return this.meshes.get(pass);
     }
 
+    public long getVertexDataLength() {
+        long length = 0;
+
+        for (BuiltSectionMeshParts data : this.meshes.values()) {
+            length += data.getVertexDataLength();
+        }
+
+        return length;
+    }
+
     public void delete() {
         for (BuiltSectionMeshParts data : this.meshes.values()) {
-            data.getVertexData()
-                    .free();
+            data.delete();
         }
     }
 }
@@ -0,0 +1,27 @@
+package me.jellysquid.mods.sodium.client.render.chunk.compile;
+
+import me.jellysquid.mods.sodium.client.render.chunk.RenderSection;
+import me.jellysquid.mods.sodium.client.render.chunk.data.BuiltSectionMeshParts;
+import me.jellysquid.mods.sodium.client.render.chunk.data.TranslucentQuadData;
+import me.jellysquid.mods.sodium.client.render.chunk.terrain.TerrainRenderPass;
+
+import java.util.Map;
+
+/**
+ * The result of re-sorting the translucent geometry of a chunk. This only replaces the mesh of the sorted render pass,
+ * and is discarded if the section has been rebuilt since the sort was started.
+ */
+public class ChunkSortOutput extends ChunkBuildOutput {
+    public final TranslucentQuadData source;
+
+    public ChunkSortOutput(RenderSection render, TerrainRenderPass pass, BuiltSectionMeshParts mesh, TranslucentQuadData source, int buildTime) {
+        super(render, null, Map.of(pass, mesh), buildTime);
+
+        this.source = source;
+    }
+
+    @Override
+    public boolean replacesAllMeshes() {
+        return false;
+    }
+}
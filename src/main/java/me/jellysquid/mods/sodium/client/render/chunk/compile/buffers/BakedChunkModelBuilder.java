@@ -8,17 +8,33 @@ import net.minecraft.client.texture.Sprite;
 public class BakedChunkModelBuilder implements ChunkModelBuilder {
     private final ChunkMeshBufferBuilder[] vertexBuffers;
 
+    // If true, all geometry is placed into the unassigned buffer so that it can be sorted as one mesh
+    private final boolean sorted;
+
     private BuiltSectionInfo.Builder renderData;
 
     public BakedChunkModelBuilder(ChunkMeshBufferBuilder[] vertexBuffers) {
+        this(vertexBuffers, false);
+    }
+
+    public BakedChunkModelBuilder(ChunkMeshBufferBuilder[] vertexBuffers, boolean sorted) {
         this.vertexBuffers = vertexBuffers;
+        this.sorted = sorted;
     }
 
     @Override
     public ChunkMeshBufferBuilder getVertexBuffer(ModelQuadFacing facing) {
+        if (this.sorted) {
+            facing = ModelQuadFacing.UNASSIGNED;
+        }
+
         return this.vertexBuffers[facing.ordinal()];
     }
 
+    public boolean isSorted() {
+        return this.sorted;
+    }
+
     @Override
     public void addSprite(Sprite sprite) {
         this.renderData.addSprite(sprite);
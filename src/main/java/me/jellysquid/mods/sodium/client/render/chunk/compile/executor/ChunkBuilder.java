@@ -2,14 +2,19 @@ package me.jellysquid.mods.sodium.client.render.chunk.compile.executor;
 
 import me.jellysquid.mods.sodium.client.SodiumClientMod;
 import me.jellysquid.mods.sodium.client.render.chunk.compile.ChunkBuildContext;
+import me.jellysquid.mods.sodium.client.render.chunk.compile.pipeline.BlockRenderProperties;
+import me.jellysquid.mods.sodium.client.render.chunk.compile.profiling.ChunkBuildMetrics;
 import me.jellysquid.mods.sodium.client.render.chunk.compile.tasks.ChunkBuilderTask;
 import me.jellysquid.mods.sodium.client.render.chunk.vertex.format.ChunkVertexType;
+import me.jellysquid.mods.sodium.client.render.viewport.Viewport;
 import me.jellysquid.mods.sodium.client.util.task.CancellationToken;
+import net.minecraft.client.MinecraftClient;
 import net.minecraft.client.world.ClientWorld;
 import net.minecraft.util.math.MathHelper;
 import org.apache.commons.lang3.Validate;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -20,20 +25,36 @@ import java.util.function.Consumer;
 public class ChunkBuilder {
     static final Logger LOGGER = LogManager.getLogger("ChunkBuilder");
 
-    private final ChunkJobQueue queue = new ChunkJobQueue();
+    /**
+     * The number of jobs which can be queued per worker thread before the builder stops accepting new work. Keeping a
+     * small backlog allows the queue to re-order work by priority, rather than executing jobs in submission order.
+     */
+    private static final int JOBS_PER_THREAD = 2;
+
+    private final ChunkJobQueue queue;
 
     private final List<Thread> threads = new ArrayList<>();
 
     private final AtomicInteger busyThreadCount = new AtomicInteger();
 
+    private final ChunkBuildMetrics metrics = new ChunkBuildMetrics();
+
     private final ChunkBuildContext localContext;
 
+    @Nullable
+    private volatile Viewport viewport;
+
     public ChunkBuilder(ClientWorld world, ChunkVertexType vertexType) {
         int count = getThreadCount();
 
+        this.queue = new ChunkJobQueue(count);
+
+        // The world renderer is reloaded whenever resources or graphics settings change, so the table is never stale
+        BlockRenderProperties properties = new BlockRenderProperties(MinecraftClient.getInstance().getBlockColors());
+
         for (int i = 0; i < count; i++) {
-            ChunkBuildContext context = new ChunkBuildContext(world, vertexType);
-            WorkerRunnable worker = new WorkerRunnable(context);
+            ChunkBuildContext context = new ChunkBuildContext(world, vertexType, properties);
+            WorkerRunnable worker = new WorkerRunnable(context, i);
 
             Thread thread = new Thread(worker, "Chunk Render Task Executor #" + i);
             thread.setPriority(Math.max(0, Thread.NORM_PRIORITY - 2));
@@ -44,15 +65,27 @@ public class ChunkBuilder {
 
         LOGGER.info("Started {} worker threads", this.threads.size());
 
-        this.localContext = new ChunkBuildContext(world, vertexType);
+        this.localContext = new ChunkBuildContext(world, vertexType, properties);
     }
 
     /**
      * Returns the remaining number of build tasks which should be scheduled this frame. If an attempt is made to
      * spawn more tasks than the budget allows, it will block until resources become available.
+     *
+     * The budget is based on the number of jobs which are still waiting for a worker thread, so that cancelled jobs
+     * and jobs which are already executing do not count against it.
      */
     public int getSchedulingBudget() {
-        return Math.max(0, this.threads.size() - this.queue.size());
+        return Math.max(0, (this.threads.size() * JOBS_PER_THREAD) - this.queue.getPendingJobCount());
+    }
+
+    /**
+     * Re-orders all queued jobs so that the sections which are closest to the camera and inside the view frustum are
+     * built first. Any cancelled jobs are removed from the queue. This should be called whenever the viewport changes.
+     */
+    public void updatePriorities(Viewport viewport) {
+        this.viewport = viewport;
+        this.queue.updatePriorities(viewport);
     }
 
     /**
@@ -100,9 +133,9 @@ public class ChunkBuilder {
             throw new IllegalStateException("Executor is stopped");
         }
 
-        var job = new ChunkJobTyped<>(task, consumer);
+        var job = new ChunkJobTyped<>(task, consumer, important, this.viewport);
 
-        this.queue.add(job, important);
+        this.queue.add(job);
 
         return job;
     }
@@ -129,12 +162,24 @@ public class ChunkBuilder {
             return;
         }
 
-        var localContext = this.localContext;
+        this.executeJob(job, this.localContext);
+    }
+
+    private void executeJob(ChunkJob job, ChunkBuildContext context) {
+        var metrics = this.metrics;
+        context.timer.begin(metrics.isStageTimingEnabled());
+
+        long start = System.nanoTime();
 
         try {
-            job.execute(localContext);
+            job.execute(context);
         } finally {
-            localContext.cleanup();
+            context.cleanup();
+
+            // Jobs which were cancelled before they started didn't do any work
+            if (job.isStarted()) {
+                metrics.recordJob(context.timer, System.nanoTime() - start);
+            }
         }
     }
 
@@ -146,6 +191,10 @@ public class ChunkBuilder {
         return this.queue.size();
     }
 
+    public int getPendingJobCount() {
+        return this.queue.getPendingJobCount();
+    }
+
     public int getBusyThreadCount() {
         return this.busyThreadCount.get();
     }
@@ -154,13 +203,21 @@ public class ChunkBuilder {
         return this.threads.size();
     }
 
+    public ChunkBuildMetrics getMetrics() {
+        return this.metrics;
+    }
+
     private class WorkerRunnable implements Runnable {
         // Making this thread-local provides a small boost to performance by avoiding the overhead in synchronizing
         // caches between different CPU cores
         private final ChunkBuildContext context;
 
-        public WorkerRunnable(ChunkBuildContext context) {
+        // The index of the queue which this worker takes jobs from before stealing from others
+        private final int index;
+
+        public WorkerRunnable(ChunkBuildContext context, int index) {
             this.context = context;
+            this.index = index;
         }
 
         @Override
@@ -170,7 +227,7 @@ public class ChunkBuilder {
                 ChunkJob job;
 
                 try {
-                    job = ChunkBuilder.this.queue.waitForNextJob();
+                    job = ChunkBuilder.this.queue.waitForNextJob(this.index);
                 } catch (InterruptedException ignored) {
                     continue;
                 }
@@ -183,10 +240,8 @@ public class ChunkBuilder {
                 ChunkBuilder.this.busyThreadCount.getAndIncrement();
 
                 try {
-                    job.execute(this.context);
+                    ChunkBuilder.this.executeJob(job, this.context);
                 } finally {
-                    this.context.cleanup();
-
                     ChunkBuilder.this.busyThreadCount.decrementAndGet();
                 }
             }
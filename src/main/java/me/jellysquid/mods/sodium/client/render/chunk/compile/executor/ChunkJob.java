@@ -1,10 +1,40 @@
 package me.jellysquid.mods.sodium.client.render.chunk.compile.executor;
 
 import me.jellysquid.mods.sodium.client.render.chunk.compile.ChunkBuildContext;
+import me.jellysquid.mods.sodium.client.render.viewport.Viewport;
 import me.jellysquid.mods.sodium.client.util.task.CancellationToken;
 
 public interface ChunkJob extends CancellationToken {
     void execute(ChunkBuildContext context);
 
     boolean isStarted();
+
+    /**
+     * Returns the scheduling tier of this job. Jobs of a lower tier are always executed before those of a higher tier.
+     */
+    int getPriorityTier();
+
+    /**
+     * Returns the scheduling priority of this job within its tier. Jobs with a lower value are executed first.
+     */
+    float getPriority();
+
+    /**
+     * Compares the scheduling order of two jobs, by their tier and then by their priority. Jobs which should be
+     * executed first are ordered before the others.
+     */
+    static int compareByPriority(ChunkJob a, ChunkJob b) {
+        int result = Integer.compare(a.getPriorityTier(), b.getPriorityTier());
+
+        if (result != 0) {
+            return result;
+        }
+
+        return Float.compare(a.getPriority(), b.getPriority());
+    }
+
+    /**
+     * Re-computes the scheduling priority of this job for the given viewport.
+     */
+    void updatePriority(Viewport viewport);
 }
@@ -20,8 +20,20 @@ public class ChunkJobCollector {
     }
 
     public void onJobFinished(ChunkJobResult<ChunkBuildOutput> result) {
+        // The result must be collected before anything waiting on the job is released, otherwise it could be missed
+        try {
+            this.collector.accept(result);
+        } finally {
+            this.semaphore.release(1);
+        }
+    }
+
+    /**
+     * Called instead of {@link #onJobFinished(ChunkJobResult)} when a job finished without a result which should be
+     * collected.
+     */
+    public void onJobDiscarded() {
         this.semaphore.release(1);
-        this.collector.accept(result);
     }
 
     public void awaitCompletion(ChunkBuilder builder) {
@@ -44,6 +56,10 @@ public class ChunkJobCollector {
         this.submitted.add(job);
     }
 
+    public boolean isEmpty() {
+        return this.submitted.isEmpty();
+    }
+
     public boolean canOffer() {
         return (this.budget - this.submitted.size()) > 0;
     }
@@ -1,46 +1,71 @@
 package me.jellysquid.mods.sodium.client.render.chunk.compile.executor;
 
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import me.jellysquid.mods.sodium.client.render.viewport.Viewport;
 import org.apache.commons.lang3.Validate;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayDeque;
 import java.util.Collection;
-import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * A job queue which keeps a separate priority-ordered deque for each worker thread. Workers take the most urgent job
+ * from their own deque, and steal from the other deques when theirs runs dry. The priorities of queued jobs can be
+ * re-computed at any time (usually once per frame) so that sections in front of the camera are built first.
+ *
+ * The semaphore holds one permit for every job which is queued (including cancelled jobs which have not yet been
+ * purged), so a worker which acquires a permit is guaranteed to find a job in one of the deques.
+ */
 class ChunkJobQueue {
-    private final ConcurrentLinkedDeque<ChunkJob> jobs = new ConcurrentLinkedDeque<>();
+    private final WorkerDeque[] deques;
 
     private final Semaphore semaphore = new Semaphore(0);
 
     private final AtomicBoolean isRunning = new AtomicBoolean(true);
 
+    // The number of jobs which have been queued but not yet taken by a worker or purged
+    private final AtomicInteger pendingJobs = new AtomicInteger();
+
+    private final AtomicInteger nextDeque = new AtomicInteger();
+
+    ChunkJobQueue(int workerCount) {
+        Validate.isTrue(workerCount > 0, "Worker count must be positive");
+
+        this.deques = new WorkerDeque[workerCount];
+
+        for (int i = 0; i < workerCount; i++) {
+            this.deques[i] = new WorkerDeque();
+        }
+    }
+
     public boolean isRunning() {
         return this.isRunning.get();
     }
 
-    public void add(ChunkJob job, boolean important) {
+    public void add(ChunkJob job) {
         Validate.isTrue(this.isRunning(), "Queue is no longer running");
 
-        if (important) {
-            this.jobs.addFirst(job);
-        } else {
-            this.jobs.addLast(job);
-        }
+        // Distribute jobs evenly across the worker deques, workers will steal from each other to even out any imbalance
+        var deque = this.deques[Math.floorMod(this.nextDeque.getAndIncrement(), this.deques.length)];
+        deque.add(job);
 
+        this.pendingJobs.incrementAndGet();
         this.semaphore.release(1);
     }
 
     @Nullable
-    public ChunkJob waitForNextJob() throws InterruptedException {
+    public ChunkJob waitForNextJob(int workerIndex) throws InterruptedException {
         if (!this.isRunning()) {
             return null;
         }
 
         this.semaphore.acquire();
 
-        return this.getNextTask();
+        return this.getNextTask(workerIndex);
     }
 
     public boolean stealJob(ChunkJob job) {
@@ -48,21 +73,55 @@ class ChunkJobQueue {
             return false;
         }
 
-        var success = this.jobs.remove(job);
-
-        if (!success) {
-            // If we didn't manage to actually steal the task, then we need to release the permit which we did steal
-            this.semaphore.release(1);
+        for (var deque : this.deques) {
+            if (deque.remove(job)) {
+                this.pendingJobs.decrementAndGet();
+                return true;
+            }
         }
 
-        return success;
+        // If we didn't manage to actually steal the task, then we need to release the permit which we did steal
+        this.semaphore.release(1);
+
+        return false;
     }
 
-    @Nullable
-    private ChunkJob getNextTask() {
-        return this.jobs.poll();
+    /**
+     * Re-computes the priority of every queued job against the given viewport and re-orders each worker deque. Jobs
+     * which have been cancelled are dropped from the queue so that they no longer take up a slot in the scheduling
+     * budget.
+     */
+    public void updatePriorities(Viewport viewport) {
+        for (var deque : this.deques) {
+            int purged = deque.updatePriorities(viewport, this.semaphore);
+
+            if (purged > 0) {
+                this.pendingJobs.addAndGet(-purged);
+            }
+        }
     }
 
+    @Nullable
+    private ChunkJob getNextTask(int workerIndex) {
+        var deques = this.deques;
+
+        // We hold a permit, so there must be a job somewhere, unless the queue was shut down in the meantime.
+        while (this.isRunning()) {
+            for (int i = 0; i < deques.length; i++) {
+                // Start with our own deque, and then try to steal work from the other workers
+                var job = deques[(workerIndex + i) % deques.length].tryPoll();
+
+                if (job != null) {
+                    this.pendingJobs.decrementAndGet();
+                    return job;
+                }
+            }
+
+            Thread.onSpinWait();
+        }
+
+        return null;
+    }
 
     public Collection<ChunkJob> shutdown() {
         var list = new ArrayDeque<ChunkJob>();
@@ -70,13 +129,18 @@ class ChunkJobQueue {
         this.isRunning.set(false);
 
         while (this.semaphore.tryAcquire()) {
-            var task = this.jobs.poll();
+            for (var deque : this.deques) {
+                var task = deque.poll();
 
-            if (task != null) {
-                list.add(task);
+                if (task != null) {
+                    list.add(task);
+                    break;
+                }
             }
         }
 
+        this.pendingJobs.set(0);
+
         // force the worker threads to wake up and exit
         this.semaphore.release(Runtime.getRuntime().availableProcessors());
 
@@ -87,7 +151,120 @@ class ChunkJobQueue {
         return this.semaphore.availablePermits();
     }
 
+    /**
+     * Returns the number of jobs which are waiting to be picked up by a worker thread.
+     */
+    public int getPendingJobCount() {
+        return Math.max(0, this.pendingJobs.get());
+    }
+
     public boolean isEmpty() {
         return this.size() == 0;
     }
+
+    /**
+     * The deque of a single worker. Jobs are kept sorted in descending order of their tier and priority value, so that
+     * the most urgent job (the one with the lowest values) can be removed from the tail in constant time.
+     */
+    private static class WorkerDeque {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final ObjectArrayList<ChunkJob> jobs = new ObjectArrayList<>();
+
+        public void add(ChunkJob job) {
+            this.lock.lock();
+
+            try {
+                var jobs = this.jobs;
+
+                // Binary search for the insertion point, keeping the list sorted in descending order
+                int low = 0;
+                int high = jobs.size();
+
+                while (low < high) {
+                    int mid = (low + high) >>> 1;
+
+                    if (ChunkJob.compareByPriority(jobs.get(mid), job) >= 0) {
+                        low = mid + 1;
+                    } else {
+                        high = mid;
+                    }
+                }
+
+                jobs.add(low, job);
+            } finally {
+                this.lock.unlock();
+            }
+        }
+
+        @Nullable
+        public ChunkJob poll() {
+            this.lock.lock();
+
+            try {
+                return this.removeLast();
+            } finally {
+                this.lock.unlock();
+            }
+        }
+
+        @Nullable
+        public ChunkJob tryPoll() {
+            if (!this.lock.tryLock()) {
+                // Another thread is working with this deque, so don't wait on it and try the next one instead
+                return null;
+            }
+
+            try {
+                return this.removeLast();
+            } finally {
+                this.lock.unlock();
+            }
+        }
+
+        @Nullable
+        private ChunkJob removeLast() {
+            var jobs = this.jobs;
+            return jobs.isEmpty() ? null : jobs.remove(jobs.size() - 1);
+        }
+
+        public boolean remove(ChunkJob job) {
+            this.lock.lock();
+
+            try {
+                return this.jobs.remove(job);
+            } finally {
+                this.lock.unlock();
+            }
+        }
+
+        public int updatePriorities(Viewport viewport, Semaphore semaphore) {
+            this.lock.lock();
+
+            try {
+                var jobs = this.jobs;
+                int purged = 0;
+
+                for (int i = jobs.size() - 1; i >= 0; i--) {
+                    var job = jobs.get(i);
+
+                    // Cancelled jobs can only be dropped if we can take their permit, otherwise a worker has already
+                    // claimed it and will need to find a job in the queue.
+                    if (job.isCancelled() && semaphore.tryAcquire()) {
+                        jobs.remove(i);
+                        purged++;
+
+                        continue;
+                    }
+
+                    job.updatePriority(viewport);
+                }
+
+                jobs.unstableSort((a, b) -> ChunkJob.compareByPriority(b, a));
+
+                return purged;
+            } finally {
+                this.lock.unlock();
+            }
+        }
+    }
 }
@@ -1,6 +1,7 @@
 package me.jellysquid.mods.sodium.client.render.chunk.compile.executor;
 
 import net.minecraft.util.crash.CrashException;
+import org.jetbrains.annotations.Nullable;
 
 public class ChunkJobResult<OUTPUT> {
     private final OUTPUT output;
@@ -29,4 +30,11 @@ public class ChunkJobResult<OUTPUT> {
 
         return this.output;
     }
+
+    /**
+     * @return The output of the job, or null if the job failed
+     */
+    public @Nullable OUTPUT getOutput() {
+        return this.output;
+    }
 }
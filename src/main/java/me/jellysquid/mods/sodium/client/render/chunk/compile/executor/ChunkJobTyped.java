@@ -2,6 +2,8 @@ package me.jellysquid.mods.sodium.client.render.chunk.compile.executor;
 
 import me.jellysquid.mods.sodium.client.render.chunk.compile.ChunkBuildContext;
 import me.jellysquid.mods.sodium.client.render.chunk.compile.tasks.ChunkBuilderTask;
+import me.jellysquid.mods.sodium.client.render.viewport.Viewport;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.function.Consumer;
 
@@ -11,12 +13,30 @@ public class ChunkJobTyped<TASK extends ChunkBuilderTask<OUTPUT>, OUTPUT>
     private final TASK task;
     private final Consumer<ChunkJobResult<OUTPUT>> consumer;
 
+    private final boolean important;
+
     private volatile boolean cancelled;
     private volatile boolean started;
 
-    ChunkJobTyped(TASK task, Consumer<ChunkJobResult<OUTPUT>> consumer) {
+    // Important jobs are always executed before any other work, and jobs outside the view frustum after all others
+    private static final int TIER_IMPORTANT = 0;
+    private static final int TIER_WITHIN_FRUSTUM = 1;
+    private static final int TIER_OUTSIDE_FRUSTUM = 2;
+
+    // Only accessed while holding the lock of the queue which contains this job
+    private int priorityTier;
+    private float priority;
+
+    ChunkJobTyped(TASK task, Consumer<ChunkJobResult<OUTPUT>> consumer, boolean important, @Nullable Viewport viewport) {
         this.task = task;
         this.consumer = consumer;
+        this.important = important;
+
+        if (viewport != null) {
+            this.updatePriority(viewport);
+        } else {
+            this.priorityTier = important ? TIER_IMPORTANT : TIER_WITHIN_FRUSTUM;
+        }
     }
 
     @Override
@@ -61,6 +81,27 @@ public class ChunkJobTyped<TASK extends ChunkBuilderTask<OUTPUT>, OUTPUT>
         }
     }
 
+    @Override
+    public int getPriorityTier() {
+        return this.priorityTier;
+    }
+
+    @Override
+    public float getPriority() {
+        return this.priority;
+    }
+
+    @Override
+    public void updatePriority(Viewport viewport) {
+        if (this.important) {
+            this.priorityTier = TIER_IMPORTANT;
+            this.priority = 0.0f;
+        } else {
+            this.priorityTier = this.task.isWithinFrustum(viewport) ? TIER_WITHIN_FRUSTUM : TIER_OUTSIDE_FRUSTUM;
+            this.priority = this.task.getPriority(viewport);
+        }
+    }
+
     @Override
     public boolean isStarted() {
         return this.started;
@@ -0,0 +1,211 @@
+package me.jellysquid.mods.sodium.client.render.chunk.compile.pipeline;
+
+import it.unimi.dsi.fastutil.HashCommon;
+import me.jellysquid.mods.sodium.client.util.DirectionUtil;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.util.function.BooleanBiFunction;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Box;
+import net.minecraft.util.math.Direction;
+import net.minecraft.util.shape.VoxelShape;
+import net.minecraft.util.shape.VoxelShapes;
+import net.minecraft.world.EmptyBlockView;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Caches whether a face of a block state is hidden by a neighboring block state, keyed by the raw IDs of both states
+ * and the direction of the face. The table is shared by all chunk builder threads and never locks: entries are
+ * published with a single compare-and-swap, and a thread which loses a race simply uses the result it computed itself.
+ * When every slot of a probe sequence is taken by other entries, one of them is overwritten, so that the table keeps
+ * caching the faces which are currently being queried once it is full. Since the culling shapes of blocks depend on
+ * the loaded resources, a new table is created whenever the world renderer is reloaded (which includes every resource
+ * reload), see {@link BlockRenderProperties}.
+ *
+ * When an entry is missing, the culling faces of both states are compared using a 16x16 bitmask of each face, which
+ * is computed once for every state and face that is queried. The bitmask can only represent shapes which are aligned
+ * to the pixel grid of a block, so other shapes fall back to {@link VoxelShapes#matchesAnywhere}.
+ *
+ * Only block states without dynamic bounds can be looked up in this table, as the culling face of every other state
+ * may depend on its position.
+ */
+public class BlockFaceOcclusionTable {
+    private static final int TABLE_SIZE = 1 << 16;
+    private static final int TABLE_MASK = TABLE_SIZE - 1;
+
+    // The number of slots to probe before an existing entry is replaced, which must be a power of two
+    private static final int MAX_PROBES = 8;
+
+    // Entries are packed as [SELF_ID:27][OTHER_ID:28][FACE:3][UNUSED:4][VALID:1][RESULT:1], where a zero entry is empty
+    private static final int STATE_ID_BITS = 27;
+    private static final long ENTRY_VALID = 0b10L;
+    private static final long ENTRY_RESULT = 0b01L;
+
+    private static final boolean STATE_IDS_FIT = Block.STATE_IDS.size() <= (1 << STATE_ID_BITS);
+
+    private static final int GRID_SIZE = 16;
+    private static final int MASK_WORDS = (GRID_SIZE * GRID_SIZE) / Long.SIZE;
+
+    // Marks a face whose culling shape isn't aligned to the pixel grid, and so can't be represented by a bitmask
+    private static final long[] MASK_INEXACT = new long[MASK_WORDS];
+
+    private final AtomicLongArray entries = new AtomicLongArray(TABLE_SIZE);
+
+    // The bitmask of the culling face of each block state, indexed by (id * 6) + face, lazily computed
+    private final AtomicReferenceArray<long[]> faceMasks = new AtomicReferenceArray<>(Block.STATE_IDS.size() * DirectionUtil.ALL_DIRECTIONS.length);
+
+    /**
+     * @return True if the face {@param facing} of the block state {@param selfState} is not hidden by the neighboring
+     * block state {@param otherState}, otherwise false
+     */
+    public boolean shouldDrawSide(BlockState selfState, int selfId, BlockState otherState, int otherId, Direction facing) {
+        if (!STATE_IDS_FIT) {
+            return this.calculate(selfState, selfId, otherState, otherId, facing);
+        }
+
+        long key = ((long) selfId << 37) | ((long) otherId << 9) | ((long) facing.ordinal() << 6) | ENTRY_VALID;
+        long hash = HashCommon.mix(key);
+        int slot = HashCommon.long2int(hash) & TABLE_MASK;
+
+        for (int probe = 0; probe < MAX_PROBES; probe++) {
+            int index = (slot + probe) & TABLE_MASK;
+            long entry = this.entries.get(index);
+
+            if (entry == 0L) {
+                boolean result = this.calculate(selfState, selfId, otherState, otherId, facing);
+                this.entries.compareAndSet(index, 0L, key | (result ? ENTRY_RESULT : 0L));
+
+                return result;
+            }
+
+            if ((entry & ~ENTRY_RESULT) == key) {
+                return (entry & ENTRY_RESULT) != 0L;
+            }
+        }
+
+        boolean result = this.calculate(selfState, selfId, otherState, otherId, facing);
+
+        // Replace one of the probed entries, chosen by the bits of the hash which weren't used to pick the slot, so
+        // that keys which share a probe sequence don't keep evicting the same entry. Each entry is self-contained, so
+        // overwriting it while another thread reads it is harmless.
+        int victim = (slot + ((int) (hash >>> 32) & (MAX_PROBES - 1))) & TABLE_MASK;
+        this.entries.set(victim, key | (result ? ENTRY_RESULT : 0L));
+
+        return result;
+    }
+
+    private boolean calculate(BlockState selfState, int selfId, BlockState otherState, int otherId, Direction facing) {
+        // Blocks can define special behavior to control whether faces are rendered.
+        // This is mostly used by transparent blocks (Leaves, Glass, etc.) to not render interior faces between blocks
+        // of the same type.
+        if (selfState.isSideInvisible(otherState, facing)) {
+            return false;
+        }
+
+        // If the other block is transparent, then it is unable to hide any geometry.
+        if (!otherState.isOpaque()) {
+            return true;
+        }
+
+        Direction opposite = DirectionUtil.getOpposite(facing);
+
+        long[] selfMask = this.getFaceMask(selfState, selfId, facing);
+        long[] otherMask = this.getFaceMask(otherState, otherId, opposite);
+
+        if (selfMask == MASK_INEXACT || otherMask == MASK_INEXACT) {
+            VoxelShape selfShape = getCullingFace(selfState, facing);
+            VoxelShape otherShape = getCullingFace(otherState, opposite);
+
+            return selfShape.isEmpty() || otherShape.isEmpty() ||
+                    VoxelShapes.matchesAnywhere(selfShape, otherShape, BooleanBiFunction.ONLY_FIRST);
+        }
+
+        long selfBits = 0L;
+        long uncoveredBits = 0L;
+
+        for (int i = 0; i < MASK_WORDS; i++) {
+            selfBits |= selfMask[i];
+            uncoveredBits |= selfMask[i] & ~otherMask[i];
+        }
+
+        // If the block being rendered has an empty cull shape, it can't be hidden. Otherwise, the face is only hidden
+        // if the other face covers every part of it.
+        return selfBits == 0L || uncoveredBits != 0L;
+    }
+
+    private long[] getFaceMask(BlockState state, int id, Direction facing) {
+        int index = (id * DirectionUtil.ALL_DIRECTIONS.length) + facing.ordinal();
+        long[] mask = this.faceMasks.get(index);
+
+        if (mask == null) {
+            // Other threads may compute the same mask at the same time, but they will always produce the same result
+            mask = createFaceMask(getCullingFace(state, facing), facing.getAxis());
+            this.faceMasks.set(index, mask);
+        }
+
+        return mask;
+    }
+
+    private static VoxelShape getCullingFace(BlockState state, Direction facing) {
+        return state.getCullingFace(EmptyBlockView.INSTANCE, BlockPos.ORIGIN, facing);
+    }
+
+    /**
+     * Projects the culling face of a block onto the plane perpendicular to {@param axis}, with one bit for each pixel
+     * of the face. Culling faces are always extruded through the whole block along their axis, so the projection is
+     * exact as long as every box of the shape is aligned to the pixel grid.
+     */
+    private static long[] createFaceMask(VoxelShape shape, Direction.Axis axis) {
+        long[] mask = new long[MASK_WORDS];
+
+        for (Box box : shape.getBoundingBoxes()) {
+            int minU, maxU, minV, maxV;
+
+            switch (axis) {
+                case X -> {
+                    minU = toGrid(box.minZ); maxU = toGrid(box.maxZ);
+                    minV = toGrid(box.minY); maxV = toGrid(box.maxY);
+                }
+                case Y -> {
+                    minU = toGrid(box.minX); maxU = toGrid(box.maxX);
+                    minV = toGrid(box.minZ); maxV = toGrid(box.maxZ);
+                }
+                case Z -> {
+                    minU = toGrid(box.minX); maxU = toGrid(box.maxX);
+                    minV = toGrid(box.minY); maxV = toGrid(box.maxY);
+                }
+                default -> throw new IllegalArgumentException("Unknown axis: " + axis);
+            }
+
+            if (minU < 0 || maxU < 0 || minV < 0 || maxV < 0) {
+                return MASK_INEXACT;
+            }
+
+            for (int v = minV; v < maxV; v++) {
+                for (int u = minU; u < maxU; u++) {
+                    int bit = (v * GRID_SIZE) + u;
+                    mask[bit >> 6] |= 1L << (bit & 63);
+                }
+            }
+        }
+
+        return mask;
+    }
+
+    /**
+     * @return The pixel coordinate of {@param value} clamped to the bounds of the block, or -1 if the value is not
+     * aligned to the pixel grid
+     */
+    private static int toGrid(double value) {
+        double scaled = Math.min(Math.max(value, 0.0D), 1.0D) * GRID_SIZE;
+        long rounded = Math.round(scaled);
+
+        if (Math.abs(scaled - rounded) > 1.0E-6D) {
+            return -1;
+        }
+
+        return (int) rounded;
+    }
+}
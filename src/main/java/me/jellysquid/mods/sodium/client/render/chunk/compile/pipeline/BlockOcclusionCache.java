@@ -3,6 +3,7 @@ package me.jellysquid.mods.sodium.client.render.chunk.compile.pipeline;
 import it.unimi.dsi.fastutil.Hash;
 import it.unimi.dsi.fastutil.objects.Object2IntLinkedOpenCustomHashMap;
 import me.jellysquid.mods.sodium.client.util.DirectionUtil;
+import me.jellysquid.mods.sodium.client.world.WorldSlice;
 import net.minecraft.block.BlockState;
 import net.minecraft.util.function.BooleanBiFunction;
 import net.minecraft.util.math.BlockPos;
@@ -18,16 +19,47 @@ public class BlockOcclusionCache {
     private static final int ENTRY_FALSE = 0;
     private static final int ENTRY_TRUE = 1;
 
+    private final BlockRenderProperties properties;
+    private final BlockFaceOcclusionTable occlusionTable;
 
+    // Only used for blocks with dynamic bounds, which can't be looked up in the shared table
     private final Object2IntLinkedOpenCustomHashMap<ShapeComparison> comparisonLookupTable;
     private final ShapeComparison cachedComparisonObject = new ShapeComparison();
     private final BlockPos.Mutable cachedPositionObject = new BlockPos.Mutable();
 
-    public BlockOcclusionCache() {
+    public BlockOcclusionCache(BlockRenderProperties properties) {
+        this.properties = properties;
+        this.occlusionTable = properties.getOcclusionTable();
+
         this.comparisonLookupTable = new Object2IntLinkedOpenCustomHashMap<>(CACHE_SIZE, 0.5F, new ShapeComparison.ShapeComparisonStrategy());
         this.comparisonLookupTable.defaultReturnValue(ENTRY_ABSENT);
     }
 
+    /**
+     * @param selfState The state of the block in the world
+     * @param selfId The raw ID of the state of the block
+     * @param selfProperties The render properties of the state of the block, see {@link BlockRenderProperties}
+     * @param view The world slice for this render context
+     * @param selfPos The position of the block
+     * @param facing The facing direction of the side to check
+     * @return True if the block side facing {@param dir} is not occluded, otherwise false
+     */
+    public boolean shouldDrawSide(BlockState selfState, int selfId, long selfProperties, WorldSlice view, BlockPos selfPos, Direction facing) {
+        int otherX = selfPos.getX() + facing.getOffsetX();
+        int otherY = selfPos.getY() + facing.getOffsetY();
+        int otherZ = selfPos.getZ() + facing.getOffsetZ();
+
+        int otherId = view.getStateId(otherX, otherY, otherZ);
+
+        // The result only depends on the two block states if neither of their shapes depend on their position
+        if (!BlockRenderProperties.hasDynamicShape(selfProperties) &&
+                !BlockRenderProperties.hasDynamicShape(this.properties.get(otherId))) {
+            return this.occlusionTable.shouldDrawSide(selfState, selfId, view.getBlockState(otherX, otherY, otherZ), otherId, facing);
+        }
+
+        return this.shouldDrawSide(selfState, view, selfPos, facing);
+    }
+
     /**
      * @param selfState The state of the block in the world
      * @param view The world view for this render context
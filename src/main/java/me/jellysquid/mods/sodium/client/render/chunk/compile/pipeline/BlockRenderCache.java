@@ -1,8 +1,8 @@
 package me.jellysquid.mods.sodium.client.render.chunk.compile.pipeline;
 
-import me.jellysquid.mods.sodium.client.model.color.ColorProviderRegistry;
 import me.jellysquid.mods.sodium.client.model.light.LightPipelineProvider;
 import me.jellysquid.mods.sodium.client.model.light.data.ArrayLightDataCache;
+import me.jellysquid.mods.sodium.client.render.chunk.compile.profiling.ChunkBuildTimer;
 import me.jellysquid.mods.sodium.client.world.WorldSlice;
 import me.jellysquid.mods.sodium.client.world.cloned.ChunkRenderContext;
 import net.minecraft.client.MinecraftClient;
@@ -19,24 +19,29 @@ public class BlockRenderCache {
     private final BlockModels blockModels;
     private final WorldSlice worldSlice;
 
-    public BlockRenderCache(MinecraftClient client, ClientWorld world) {
+    private final BlockRenderProperties properties;
+
+    public BlockRenderCache(MinecraftClient client, ClientWorld world, BlockRenderProperties properties, ChunkBuildTimer timer) {
         this.worldSlice = new WorldSlice(world);
-        this.lightDataCache = new ArrayLightDataCache(this.worldSlice);
+        this.lightDataCache = new ArrayLightDataCache(this.worldSlice, properties.getLightProperties());
 
         LightPipelineProvider lightPipelineProvider = new LightPipelineProvider(this.lightDataCache);
 
-        var colorRegistry = new ColorProviderRegistry(client.getBlockColors());
-
-        this.blockRenderer = new BlockRenderer(colorRegistry, lightPipelineProvider);
-        this.fluidRenderer = new FluidRenderer(colorRegistry, lightPipelineProvider);
+        this.blockRenderer = new BlockRenderer(properties, lightPipelineProvider, timer);
+        this.fluidRenderer = new FluidRenderer(properties.getColorRegistry(), lightPipelineProvider);
 
         this.blockModels = client.getBakedModelManager().getBlockModels();
+        this.properties = properties;
     }
 
     public BlockModels getBlockModels() {
         return this.blockModels;
     }
 
+    public BlockRenderProperties getProperties() {
+        return this.properties;
+    }
+
     public BlockRenderer getBlockRenderer() {
         return this.blockRenderer;
     }
@@ -48,6 +53,16 @@ public class BlockRenderCache {
     public void init(ChunkRenderContext context) {
         this.lightDataCache.reset(context.getOrigin());
         this.worldSlice.copyData(context);
+
+        this.blockRenderer.reset();
+    }
+
+    /**
+     * Computes the light data of the section and its neighbors ahead of time, see
+     * {@link ArrayLightDataCache#precompute()}. This must be called after {@link #init(ChunkRenderContext)}.
+     */
+    public void precomputeLightData() {
+        this.lightDataCache.precompute();
     }
 
     public WorldSlice getWorldSlice() {
@@ -19,12 +19,14 @@ public class BlockRenderContext {
 
     private long seed;
 
+    private int stateId;
+    private long properties;
 
     public BlockRenderContext(WorldSlice world) {
         this.world = world;
     }
 
-    public void update(BlockPos pos, BlockPos origin, BlockState state, BakedModel model, long seed) {
+    public void update(BlockPos pos, BlockPos origin, BlockState state, BakedModel model, long seed, int stateId, long properties) {
         this.pos.set(pos);
         this.origin.set(origin.getX(), origin.getY(), origin.getZ());
 
@@ -32,6 +34,8 @@ public class BlockRenderContext {
         this.model = model;
 
         this.seed = seed;
+        this.stateId = stateId;
+        this.properties = properties;
     }
 
     /**
@@ -75,4 +79,18 @@ public class BlockRenderContext {
     public long seed() {
         return this.seed;
     }
+
+    /**
+     * @return The raw ID of the state of the block being rendered
+     */
+    public int stateId() {
+        return this.stateId;
+    }
+
+    /**
+     * @return The packed render properties of the block state, see {@link BlockRenderProperties}
+     */
+    public long properties() {
+        return this.properties;
+    }
 }
@@ -0,0 +1,237 @@
+package me.jellysquid.mods.sodium.client.render.chunk.compile.pipeline;
+
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
+import me.jellysquid.mods.sodium.client.model.color.ColorProvider;
+import me.jellysquid.mods.sodium.client.model.color.ColorProviderRegistry;
+import me.jellysquid.mods.sodium.client.model.light.data.LightDataProperties;
+import me.jellysquid.mods.sodium.client.render.chunk.terrain.material.DefaultMaterials;
+import me.jellysquid.mods.sodium.client.render.chunk.terrain.material.Material;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockRenderType;
+import net.minecraft.block.BlockState;
+import net.minecraft.client.color.block.BlockColors;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.EmptyBlockView;
+import org.apache.commons.lang3.ArrayUtils;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A table of the properties of every block state which the chunk meshing pipeline needs, indexed by the raw ID of the
+ * state in {@link Block#STATE_IDS}. The properties of each state are packed into a single long, so that the meshing
+ * loop can decide what to do with a block without calling into the block state, and without any hash lookups for
+ * its material or color provider.
+ *
+ * Some of these properties depend on the loaded resources and graphics settings (such as the render layer of leaves),
+ * so a new table is created whenever the world renderer is reloaded. For the same reason, the table also owns the
+ * {@link BlockFaceOcclusionTable} which is shared by all chunk builder threads. It also owns the
+ * {@link LightDataProperties} of every block state, since the raw IDs of block states may be remapped when joining a
+ * server.
+ *
+ * Each long contains the following fields:
+ * - AIR: True if the block is air
+ * - BE: True if the block has a block entity
+ * - MDL: True if the block is rendered with a baked model
+ * - FL: True if the block contains a fluid
+ * - FO: True if the block is an opaque full cube, only valid if DS is false
+ * - DS: True if the shape of the block depends on its position
+ * - OFS: True if the model of the block is offset depending on its position
+ * - LU: True if the block emits light
+ * - MAT: The index of the material of the block, only valid if MDL is true, see {@link #getMaterial(long)}
+ * - COL: The index of the color provider of the block, see {@link #getColorProvider(long)}
+ */
+public class BlockRenderProperties {
+    private static final long FLAG_AIR = 1L << 0;
+    private static final long FLAG_BLOCK_ENTITY = 1L << 1;
+    private static final long FLAG_MODEL = 1L << 2;
+    private static final long FLAG_FLUID = 1L << 3;
+    private static final long FLAG_OPAQUE_FULL_CUBE = 1L << 4;
+    private static final long FLAG_DYNAMIC_SHAPE = 1L << 5;
+    private static final long FLAG_MODEL_OFFSET = 1L << 6;
+    private static final long FLAG_LUMINOUS = 1L << 7;
+
+    private static final int MATERIAL_SHIFT = 8;
+    private static final long MATERIAL_MASK = 0xFFL;
+
+    private static final int COLOR_PROVIDER_SHIFT = 16;
+    private static final long COLOR_PROVIDER_MASK = 0xFFFFL;
+
+    private static final Material[] MATERIALS = new Material[] {
+            DefaultMaterials.SOLID, DefaultMaterials.CUTOUT, DefaultMaterials.CUTOUT_MIPPED, DefaultMaterials.TRANSLUCENT
+    };
+
+    private final long[] properties;
+
+    private final ColorProviderRegistry colorRegistry;
+
+    private final BlockFaceOcclusionTable occlusionTable = new BlockFaceOcclusionTable();
+
+    private final LightDataProperties lightProperties = new LightDataProperties();
+
+    // The color providers referenced by the table, where the first element is always null (no color provider)
+    private final ColorProvider<BlockState>[] colorProviders;
+
+    @SuppressWarnings("unchecked")
+    public BlockRenderProperties(BlockColors blockColors) {
+        this.colorRegistry = new ColorProviderRegistry(blockColors);
+
+        List<ColorProvider<BlockState>> colorProviders = new ArrayList<>();
+        colorProviders.add(null);
+
+        var colorProviderIndices = new Reference2IntOpenHashMap<ColorProvider<BlockState>>();
+        colorProviderIndices.defaultReturnValue(-1);
+
+        this.properties = new long[Block.STATE_IDS.size()];
+
+        for (int id = 0; id < this.properties.length; id++) {
+            var state = Block.STATE_IDS.get(id);
+
+            if (state == null) {
+                this.properties[id] = FLAG_AIR;
+                continue;
+            }
+
+            var colorProvider = this.colorRegistry.getColorProvider(state.getBlock());
+            int colorProviderIndex = 0;
+
+            if (colorProvider != null) {
+                colorProviderIndex = colorProviderIndices.getInt(colorProvider);
+
+                if (colorProviderIndex == -1) {
+                    colorProviderIndex = colorProviders.size();
+                    colorProviders.add(colorProvider);
+
+                    colorProviderIndices.put(colorProvider, colorProviderIndex);
+                }
+            }
+
+            this.properties[id] = createProperties(state, colorProviderIndex);
+        }
+
+        if (colorProviders.size() > COLOR_PROVIDER_MASK) {
+            throw new IllegalStateException("Too many color providers: " + colorProviders.size());
+        }
+
+        this.colorProviders = colorProviders.toArray(new ColorProvider[0]);
+    }
+
+    private static long createProperties(BlockState state, int colorProviderIndex) {
+        long properties = 0L;
+
+        if (state.isAir()) {
+            properties |= FLAG_AIR;
+        }
+
+        if (state.hasBlockEntity()) {
+            properties |= FLAG_BLOCK_ENTITY;
+        }
+
+        if (state.getRenderType() == BlockRenderType.MODEL) {
+            properties |= FLAG_MODEL;
+
+            // Only blocks with a model need a material, and the render layers of other blocks may not have one
+            int materialIndex = ArrayUtils.indexOf(MATERIALS, DefaultMaterials.forBlockState(state));
+            properties |= (long) materialIndex << MATERIAL_SHIFT;
+        }
+
+        if (!state.getFluidState().isEmpty()) {
+            properties |= FLAG_FLUID;
+        }
+
+        if (state.getBlock().hasDynamicBounds()) {
+            properties |= FLAG_DYNAMIC_SHAPE;
+        } else if (state.isOpaqueFullCube(EmptyBlockView.INSTANCE, BlockPos.ORIGIN)) {
+            properties |= FLAG_OPAQUE_FULL_CUBE;
+        }
+
+        if (state.hasModelOffset()) {
+            properties |= FLAG_MODEL_OFFSET;
+        }
+
+        if (state.getLuminance() != 0) {
+            properties |= FLAG_LUMINOUS;
+        }
+
+        properties |= (long) colorProviderIndex << COLOR_PROVIDER_SHIFT;
+
+        return properties;
+    }
+
+    /**
+     * @return The packed properties of the block state with the given raw ID
+     */
+    public long get(int stateId) {
+        return this.properties[stateId];
+    }
+
+    /**
+     * @return The color provider registry which the color providers of the table were taken from
+     */
+    public ColorProviderRegistry getColorRegistry() {
+        return this.colorRegistry;
+    }
+
+    /**
+     * @return The face occlusion table which is shared by every user of these properties
+     */
+    public BlockFaceOcclusionTable getOcclusionTable() {
+        return this.occlusionTable;
+    }
+
+    /**
+     * @return The light data properties of every block state, which are shared by every user of these properties
+     */
+    public LightDataProperties getLightProperties() {
+        return this.lightProperties;
+    }
+
+    /**
+     * @return True if the block needs to be visited by the meshing loop, which is the case for any block other than
+     * air without a block entity
+     */
+    public static boolean isRenderable(long properties) {
+        return (properties & (FLAG_AIR | FLAG_BLOCK_ENTITY)) != FLAG_AIR;
+    }
+
+    public static boolean hasBlockEntity(long properties) {
+        return (properties & FLAG_BLOCK_ENTITY) != 0;
+    }
+
+    public static boolean hasModel(long properties) {
+        return (properties & FLAG_MODEL) != 0;
+    }
+
+    public static boolean hasFluid(long properties) {
+        return (properties & FLAG_FLUID) != 0;
+    }
+
+    /**
+     * @return True if the shape of the block depends on its position, in which case {@link #isOpaqueFullCube(long)}
+     * can't be used
+     */
+    public static boolean hasDynamicShape(long properties) {
+        return (properties & FLAG_DYNAMIC_SHAPE) != 0;
+    }
+
+    public static boolean isOpaqueFullCube(long properties) {
+        return (properties & FLAG_OPAQUE_FULL_CUBE) != 0;
+    }
+
+    public static boolean hasModelOffset(long properties) {
+        return (properties & FLAG_MODEL_OFFSET) != 0;
+    }
+
+    public static boolean isLuminous(long properties) {
+        return (properties & FLAG_LUMINOUS) != 0;
+    }
+
+    public static Material getMaterial(long properties) {
+        return MATERIALS[(int) ((properties >>> MATERIAL_SHIFT) & MATERIAL_MASK)];
+    }
+
+    public @Nullable ColorProvider<BlockState> getColorProvider(long properties) {
+        return this.colorProviders[(int) ((properties >>> COLOR_PROVIDER_SHIFT) & COLOR_PROVIDER_MASK)];
+    }
+}
@@ -1,7 +1,7 @@
 package me.jellysquid.mods.sodium.client.render.chunk.compile.pipeline;
 
+import me.jellysquid.mods.sodium.client.SodiumClientMod;
 import me.jellysquid.mods.sodium.client.model.color.ColorProvider;
-import me.jellysquid.mods.sodium.client.model.color.ColorProviderRegistry;
 import me.jellysquid.mods.sodium.client.model.light.LightMode;
 import me.jellysquid.mods.sodium.client.model.light.LightPipeline;
 import me.jellysquid.mods.sodium.client.model.light.LightPipelineProvider;
@@ -11,6 +11,9 @@ import me.jellysquid.mods.sodium.client.model.quad.properties.ModelQuadFacing;
 import me.jellysquid.mods.sodium.client.model.quad.properties.ModelQuadOrientation;
 import me.jellysquid.mods.sodium.client.render.chunk.compile.ChunkBuildBuffers;
 import me.jellysquid.mods.sodium.client.render.chunk.compile.buffers.ChunkModelBuilder;
+import me.jellysquid.mods.sodium.client.render.chunk.compile.profiling.ChunkBuildStage;
+import me.jellysquid.mods.sodium.client.render.chunk.compile.profiling.ChunkBuildTimer;
+import me.jellysquid.mods.sodium.client.render.chunk.data.BuiltSectionInfo;
 import me.jellysquid.mods.sodium.client.render.chunk.terrain.material.DefaultMaterials;
 import me.jellysquid.mods.sodium.client.render.chunk.terrain.material.Material;
 import me.jellysquid.mods.sodium.client.render.chunk.vertex.format.ChunkVertexEncoder;
@@ -32,70 +35,116 @@ import java.util.List;
 public class BlockRenderer {
     private final Random random = new LocalRandom(42L);
 
-    private final ColorProviderRegistry colorProviderRegistry;
+    private final BlockRenderProperties properties;
     private final BlockOcclusionCache occlusionCache;
 
     private final QuadLightData quadLightData = new QuadLightData();
 
     private final LightPipelineProvider lighters;
 
+    private final ChunkBuildTimer timer;
+
     private final ChunkVertexEncoder.Vertex[] vertices = ChunkVertexEncoder.Vertex.uninitializedQuad();
 
     private final boolean useAmbientOcclusion;
 
     private final int[] quadColors = new int[4];
 
-    public BlockRenderer(ColorProviderRegistry colorRegistry, LightPipelineProvider lighters) {
-        this.colorProviderRegistry = colorRegistry;
+    // Null if greedy meshing is disabled
+    private final GreedyQuadMerger quadMerger;
+
+    public BlockRenderer(BlockRenderProperties properties, LightPipelineProvider lighters, ChunkBuildTimer timer) {
+        this.properties = properties;
         this.lighters = lighters;
+        this.timer = timer;
 
-        this.occlusionCache = new BlockOcclusionCache();
+        this.occlusionCache = new BlockOcclusionCache(properties);
         this.useAmbientOcclusion = MinecraftClient.isAmbientOcclusionEnabled();
+
+        this.quadMerger = SodiumClientMod.options().performance.useGreedyMeshing ? new GreedyQuadMerger() : null;
+    }
+
+    /**
+     * Prepares the renderer for building a new section, discarding any faces which were left over from a previous
+     * build that didn't finish.
+     */
+    public void reset() {
+        if (this.quadMerger != null) {
+            this.quadMerger.reset();
+        }
+    }
+
+    /**
+     * Emits the geometry of all faces which were merged while rendering the section. This must be called once after
+     * all blocks in the section have been rendered.
+     */
+    public void flushMergedQuads(ChunkBuildBuffers buffers, BuiltSectionInfo.Builder renderData) {
+        if (this.quadMerger == null) {
+            return;
+        }
+
+        var material = DefaultMaterials.SOLID;
+        this.quadMerger.flush(buffers.get(material), material);
+
+        renderData.addMergedQuads(this.quadMerger.getMergedFaceCount(), this.quadMerger.getMergedQuadCount());
     }
 
     public void renderModel(BlockRenderContext ctx, ChunkBuildBuffers buffers) {
-        var material = DefaultMaterials.forBlockState(ctx.state());
+        long properties = ctx.properties();
+
+        var material = BlockRenderProperties.getMaterial(properties);
         var meshBuilder = buffers.get(material);
 
-        ColorProvider<BlockState> colorizer = this.colorProviderRegistry.getColorProvider(ctx.state().getBlock());
+        ColorProvider<BlockState> colorizer = this.properties.getColorProvider(properties);
 
-        LightPipeline lighter = this.lighters.getLighter(this.getLightingMode(ctx.state(), ctx.model()));
+        LightPipeline lighter = this.lighters.getLighter(this.getLightingMode(properties, ctx.model()));
         Vec3d renderOffset;
-        
-        if (ctx.state().hasModelOffset()) {
+
+        if (BlockRenderProperties.hasModelOffset(properties)) {
             renderOffset = ctx.state().getModelOffset(ctx.world(), ctx.pos());
         } else {
             renderOffset = Vec3d.ZERO;
         }
 
+        // Only opaque blocks can be merged, since the order of translucent and cutout geometry matters
+        boolean mergeable = this.quadMerger != null && material == DefaultMaterials.SOLID && renderOffset == Vec3d.ZERO;
+
         for (Direction face : DirectionUtil.ALL_DIRECTIONS) {
             List<BakedQuad> quads = this.getGeometry(ctx, face);
 
             if (!quads.isEmpty() && this.isFaceVisible(ctx, face)) {
-                this.renderQuadList(ctx, material, lighter, colorizer, renderOffset, meshBuilder, quads, face);
+                // Faces with overlays can't be merged, as the merged quad would be drawn after its overlay
+                this.renderQuadList(ctx, material, lighter, colorizer, renderOffset, meshBuilder, quads, face,
+                        mergeable && quads.size() == 1);
             }
         }
 
         List<BakedQuad> all = this.getGeometry(ctx, null);
 
         if (!all.isEmpty()) {
-            this.renderQuadList(ctx, material, lighter, colorizer, renderOffset, meshBuilder, all, null);
+            this.renderQuadList(ctx, material, lighter, colorizer, renderOffset, meshBuilder, all, null, false);
         }
     }
 
     private List<BakedQuad> getGeometry(BlockRenderContext ctx, Direction face) {
+        long start = this.timer.start();
+
         var random = this.random;
         random.setSeed(ctx.seed());
 
-        return ctx.model().getQuads(ctx.state(), face, random);
+        List<BakedQuad> quads = ctx.model().getQuads(ctx.state(), face, random);
+
+        this.timer.stop(ChunkBuildStage.BLOCK_MODELS, start);
+
+        return quads;
     }
 
     private boolean isFaceVisible(BlockRenderContext ctx, Direction face) {
-        return this.occlusionCache.shouldDrawSide(ctx.state(), ctx.world(), ctx.pos(), face);
+        return this.occlusionCache.shouldDrawSide(ctx.state(), ctx.stateId(), ctx.properties(), ctx.world(), ctx.pos(), face);
     }
 
     private void renderQuadList(BlockRenderContext ctx, Material material, LightPipeline lighter, ColorProvider<BlockState> colorizer, Vec3d offset,
-                                ChunkModelBuilder builder, List<BakedQuad> quads, Direction cullFace) {
+                                ChunkModelBuilder builder, List<BakedQuad> quads, Direction cullFace, boolean mergeable) {
 
         // This is a very hot allocation, iterate over it manually
         // noinspection ForLoopReplaceableByForEach
@@ -105,7 +154,13 @@ public class BlockRenderer {
             final var lightData = this.getVertexLight(ctx, lighter, cullFace, quad);
             final var vertexColors = this.getVertexColors(ctx, colorizer, quad);
 
-            this.writeGeometry(ctx, builder, offset, material, quad, vertexColors, lightData);
+            long start = this.timer.start();
+
+            if (!mergeable || !this.tryMergeQuad(ctx, cullFace, quad, vertexColors, lightData)) {
+                this.writeGeometry(ctx, builder, offset, material, quad, vertexColors, lightData);
+            }
+
+            this.timer.stop(ChunkBuildStage.VERTEX_ENCODING, start);
 
             Sprite sprite = quad.getSprite();
 
@@ -115,14 +170,26 @@ public class BlockRenderer {
         }
     }
 
+    private boolean tryMergeQuad(BlockRenderContext ctx, Direction face, BakedQuadView quad, int[] colors, QuadLightData light) {
+        var origin = ctx.origin();
+
+        return this.quadMerger.add((int) origin.x(), (int) origin.y(), (int) origin.z(), face, quad, colors, light);
+    }
+
     private QuadLightData getVertexLight(BlockRenderContext ctx, LightPipeline lighter, Direction cullFace, BakedQuadView quad) {
+        long start = this.timer.start();
+
         QuadLightData light = this.quadLightData;
         lighter.calculate(quad, ctx.pos(), light, cullFace, quad.getLightFace(), quad.hasShade());
 
+        this.timer.stop(ChunkBuildStage.LIGHTING, start);
+
         return light;
     }
 
     private int[] getVertexColors(BlockRenderContext ctx, ColorProvider<BlockState> colorProvider, BakedQuadView quad) {
+        long start = this.timer.start();
+
         final int[] vertexColors = this.quadColors;
 
         if (colorProvider != null && quad.hasColor()) {
@@ -131,6 +198,8 @@ public class BlockRenderer {
             Arrays.fill(vertexColors, 0xFFFFFFFF);
         }
 
+        this.timer.stop(ChunkBuildStage.COLOR_BLENDING, start);
+
         return vertexColors;
     }
 
@@ -167,8 +236,8 @@ public class BlockRenderer {
         vertexBuffer.push(vertices, material);
     }
 
-    private LightMode getLightingMode(BlockState state, BakedModel model) {
-        if (this.useAmbientOcclusion && model.useAmbientOcclusion() && state.getLuminance() == 0) {
+    private LightMode getLightingMode(long properties, BakedModel model) {
+        if (this.useAmbientOcclusion && model.useAmbientOcclusion() && !BlockRenderProperties.isLuminous(properties)) {
             return LightMode.SMOOTH;
         } else {
             return LightMode.FLAT;
@@ -0,0 +1,453 @@
+package me.jellysquid.mods.sodium.client.render.chunk.compile.pipeline;
+
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ReferenceArrayList;
+import me.jellysquid.mods.sodium.client.model.light.data.QuadLightData;
+import me.jellysquid.mods.sodium.client.model.quad.BakedQuadView;
+import me.jellysquid.mods.sodium.client.model.quad.properties.ModelQuadFacing;
+import me.jellysquid.mods.sodium.client.render.chunk.compile.buffers.ChunkModelBuilder;
+import me.jellysquid.mods.sodium.client.render.chunk.terrain.material.Material;
+import me.jellysquid.mods.sodium.client.render.chunk.vertex.format.ChunkVertexEncoder;
+import net.caffeinemc.mods.sodium.api.util.ColorABGR;
+import net.minecraft.client.texture.Sprite;
+import net.minecraft.util.math.Direction;
+import net.minecraft.util.math.MathHelper;
+
+import java.util.Arrays;
+
+/**
+ * Merges the faces of full cubes which are adjacent and coplanar into larger quads, when they share the same texture,
+ * color, and light. Faces are collected while the blocks of a section are rendered, and the merged quads are emitted
+ * once all blocks have been visited.
+ *
+ * Merged quads repeat their texture once per block. Since the texture is a tile within the block atlas, this can't be
+ * done with texture wrapping, and instead the shader wraps the texture coordinates within the tile. The parameters
+ * which the shader needs for this are stored in the unused upper bits of each light coordinate:
+ *
+ * - Block light, bits 8..15: the base-2 logarithm of the sprite's width (bits 0..3) and height (bits 4..7) in texels
+ * - Sky light, bits 8..15: the texture orientation (bits 0..2), the axis of the face (bits 3..4), and a flag which
+ *   marks the quad as repeating (bit 7)
+ *
+ * Instances hold scratch arrays and must not be shared between threads.
+ */
+public class GreedyQuadMerger {
+    private static final int SIZE = 16;
+
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    // The axes of each face, in the same order as the texture repeat shader expects
+    private static final int AXIS_X = 0, AXIS_Y = 1, AXIS_Z = 2;
+
+    private static final int ORIENTATION_SWAP = 0b001;
+    private static final int ORIENTATION_FLIP_S = 0b010;
+    private static final int ORIENTATION_FLIP_T = 0b100;
+
+    private static final int REPEAT_FLAG = 0x80;
+
+    // Faces are only merged if their vertices are within this distance of the block grid
+    private static final float EPSILON = 1.0e-4f;
+
+    // The maximum number of distinct sprites which can be merged in one section (limited by the bits in the key)
+    private static final int MAX_SPRITES = 1 << 12;
+
+    // Every non-empty cell has this bit set, so that a key of zero always means the cell is empty
+    private static final long KEY_PRESENT = 1L << 63;
+
+    // The cells of each face direction, indexed by [direction][depth * 256 + b * 16 + a]
+    private final long[][] cells = new long[DIRECTIONS.length][SIZE * SIZE * SIZE];
+    private final boolean[] dirty = new boolean[DIRECTIONS.length];
+
+    private final Reference2IntOpenHashMap<Sprite> spriteIds = new Reference2IntOpenHashMap<>();
+    private final ReferenceArrayList<Sprite> sprites = new ReferenceArrayList<>();
+
+    private final ChunkVertexEncoder.Vertex[] vertices = ChunkVertexEncoder.Vertex.uninitializedQuad();
+
+    // Scratch arrays holding the corners of the face and texture for each vertex of the quad being added
+    private final int[] planeA = new int[4], planeB = new int[4];
+    private final int[] texS = new int[4], texT = new int[4];
+
+    private int mergedFaceCount;
+    private int mergedQuadCount;
+
+    public GreedyQuadMerger() {
+        this.spriteIds.defaultReturnValue(-1);
+    }
+
+    /**
+     * Tries to add the face of a block to the merger. The face will only be accepted if it covers the entire side of
+     * the block, and if its texture, color, and light are uniform across the face.
+     *
+     * @param x The x-coordinate of the block within the section
+     * @param y The y-coordinate of the block within the section
+     * @param z The z-coordinate of the block within the section
+     * @param face The side of the block which the quad belongs to
+     * @return True if the face was accepted, otherwise false if it must be rendered normally
+     */
+    public boolean add(int x, int y, int z, Direction face, BakedQuadView quad, int[] colors, QuadLightData light) {
+        if (quad.getNormalFace() != ModelQuadFacing.fromDirection(face)) {
+            return false;
+        }
+
+        Sprite sprite = quad.getSprite();
+
+        if (sprite == null || !isRepeatable(sprite)) {
+            return false;
+        }
+
+        int color = ColorABGR.withAlpha(colors[0], light.br[0]);
+        int lightmap = light.lm[0];
+
+        for (int i = 1; i < 4; i++) {
+            if (ColorABGR.withAlpha(colors[i], light.br[i]) != color || light.lm[i] != lightmap) {
+                return false;
+            }
+        }
+
+        // The upper bits of each light coordinate are used for the repeat parameters
+        if ((lightmap & 0xFF00FF00) != 0) {
+            return false;
+        }
+
+        int axis = getAxis(face);
+        int orientation = this.getTextureOrientation(quad, sprite, axis, face.getDirection() == Direction.AxisDirection.POSITIVE);
+
+        if (orientation < 0) {
+            return false;
+        }
+
+        int spriteId = this.spriteIds.getInt(sprite);
+
+        if (spriteId < 0) {
+            if (this.sprites.size() >= MAX_SPRITES) {
+                return false;
+            }
+
+            spriteId = this.sprites.size();
+
+            this.sprites.add(sprite);
+            this.spriteIds.put(sprite, spriteId);
+        }
+
+        long key = KEY_PRESENT;
+        key |= Integer.toUnsignedLong(color);
+        key |= (long) ((lightmap & 0xFF) | ((lightmap >>> 16) & 0xFF) << 8) << 32;
+        key |= (long) orientation << 48;
+        key |= (long) spriteId << 51;
+
+        int depth = getDepth(x, y, z, axis);
+        int a = getPlaneA(x, y, z, axis);
+        int b = getPlaneB(x, y, z, axis);
+
+        int dir = face.ordinal();
+
+        this.cells[dir][getCellIndex(depth, a, b)] = key;
+        this.dirty[dir] = true;
+
+        return true;
+    }
+
+    /**
+     * Emits the merged quads for all the faces which have been added, and resets the merger for the next section.
+     */
+    public void flush(ChunkModelBuilder builder, Material material) {
+        this.mergedFaceCount = 0;
+        this.mergedQuadCount = 0;
+
+        for (Direction face : DIRECTIONS) {
+            int dir = face.ordinal();
+
+            if (!this.dirty[dir]) {
+                continue;
+            }
+
+            var cells = this.cells[dir];
+
+            for (int depth = 0; depth < SIZE; depth++) {
+                this.mergeSlice(builder, material, face, cells, depth);
+            }
+
+            this.dirty[dir] = false;
+        }
+
+        this.resetSprites();
+    }
+
+    /**
+     * Discards all the faces which have been added, such as when a build is cancelled.
+     */
+    public void reset() {
+        for (int dir = 0; dir < DIRECTIONS.length; dir++) {
+            if (this.dirty[dir]) {
+                Arrays.fill(this.cells[dir], 0L);
+                this.dirty[dir] = false;
+            }
+        }
+
+        this.resetSprites();
+
+        this.mergedFaceCount = 0;
+        this.mergedQuadCount = 0;
+    }
+
+    private void resetSprites() {
+        this.spriteIds.clear();
+        this.sprites.clear();
+    }
+
+    private void mergeSlice(ChunkModelBuilder builder, Material material, Direction face, long[] cells, int depth) {
+        int offset = depth * SIZE * SIZE;
+
+        for (int b = 0; b < SIZE; b++) {
+            for (int a = 0; a < SIZE; a++) {
+                long key = cells[offset + (b * SIZE) + a];
+
+                if (key == 0L) {
+                    continue;
+                }
+
+                // Extend the quad along the first axis as far as possible, and then along the second axis for as long
+                // as every cell in the next row matches
+                int width = 1;
+
+                while (a + width < SIZE && cells[offset + (b * SIZE) + a + width] == key) {
+                    width++;
+                }
+
+                int height = 1;
+
+                extend:
+                while (b + height < SIZE) {
+                    int row = offset + ((b + height) * SIZE);
+
+                    for (int i = a; i < a + width; i++) {
+                        if (cells[row + i] != key) {
+                            break extend;
+                        }
+                    }
+
+                    height++;
+                }
+
+                for (int j = b; j < b + height; j++) {
+                    Arrays.fill(cells, offset + (j * SIZE) + a, offset + (j * SIZE) + a + width, 0L);
+                }
+
+                this.writeQuad(builder, material, face, key, depth, a, b, width, height);
+
+                this.mergedFaceCount += width * height;
+                this.mergedQuadCount++;
+            }
+        }
+    }
+
+    private void writeQuad(ChunkModelBuilder builder, Material material, Direction face, long key,
+                           int depth, int a, int b, int width, int height) {
+        var sprite = this.sprites.get((int) ((key >>> 51) & (MAX_SPRITES - 1)));
+
+        int color = (int) key;
+        int lightmap = (int) ((key >>> 32) & 0xFF) | (int) ((key >>> 40) & 0xFF) << 16;
+        int orientation = (int) ((key >>> 48) & 0b111);
+
+        int axis = getAxis(face);
+
+        int sizeParams = MathHelper.floorLog2(sprite.getContents().getWidth()) |
+                (MathHelper.floorLog2(sprite.getContents().getHeight()) << 4);
+        int modeParams = orientation | (axis << 3) | REPEAT_FLAG;
+
+        lightmap |= (sizeParams << 8) | (modeParams << 24);
+
+        boolean positive = face.getDirection() == Direction.AxisDirection.POSITIVE;
+        int plane = depth + (positive ? 1 : 0);
+
+        // The plane axes of the X and Y faces are left-handed relative to their normal, so the winding of the corners
+        // needs to be reversed for the faces pointing along the positive axis, and vice versa for the Z faces
+        boolean reverse = (axis == AXIS_Z) != positive;
+
+        var vertices = this.vertices;
+
+        for (int i = 0; i < 4; i++) {
+            int corner = reverse ? ((4 - i) & 3) : i;
+
+            // Corners are visited in the order (0, 0), (1, 0), (1, 1), (0, 1)
+            int ca = a + ((corner == 1 || corner == 2) ? width : 0);
+            int cb = b + ((corner >= 2) ? height : 0);
+
+            var out = vertices[i];
+            setPosition(out, axis, plane, ca, cb);
+
+            out.color = color;
+            out.u = sprite.getMinU();
+            out.v = sprite.getMinV();
+            out.light = lightmap;
+        }
+
+        builder.getVertexBuffer(ModelQuadFacing.fromDirection(face))
+                .push(vertices, material);
+    }
+
+    /**
+     * @return The number of block faces which were merged by the last call to {@link #flush(ChunkModelBuilder, Material)}
+     */
+    public int getMergedFaceCount() {
+        return this.mergedFaceCount;
+    }
+
+    /**
+     * @return The number of quads which were emitted by the last call to {@link #flush(ChunkModelBuilder, Material)}
+     */
+    public int getMergedQuadCount() {
+        return this.mergedQuadCount;
+    }
+
+    /**
+     * Finds the orientation of the texture on the face, which maps the coordinates of each vertex within the plane of
+     * the face onto the texture coordinates within the sprite.
+     *
+     * @return The orientation bits, or -1 if the quad doesn't cover the whole face with the whole sprite
+     */
+    private int getTextureOrientation(BakedQuadView quad, Sprite sprite, int axis, boolean positive) {
+        float depth = positive ? 1.0f : 0.0f;
+
+        float minU = sprite.getMinU(), maxU = sprite.getMaxU();
+        float minV = sprite.getMinV(), maxV = sprite.getMaxV();
+
+        int[] planeA = this.planeA, planeB = this.planeB;
+        int[] texS = this.texS, texT = this.texT;
+
+        for (int i = 0; i < 4; i++) {
+            float x = quad.getX(i), y = quad.getY(i), z = quad.getZ(i);
+
+            if (!isNear(getDepth(x, y, z, axis), depth)) {
+                return -1;
+            }
+
+            if ((planeA[i] = snap(getPlaneA(x, y, z, axis), 0.0f, 1.0f)) < 0 ||
+                    (planeB[i] = snap(getPlaneB(x, y, z, axis), 0.0f, 1.0f)) < 0 ||
+                    (texS[i] = snap(quad.getTexU(i), minU, maxU)) < 0 ||
+                    (texT[i] = snap(quad.getTexV(i), minV, maxV)) < 0) {
+                return -1;
+            }
+        }
+
+        for (int orientation = 0; orientation < 8; orientation++) {
+            if (matchesOrientation(orientation, planeA, planeB, texS, texT)) {
+                return orientation;
+            }
+        }
+
+        return -1;
+    }
+
+    private static boolean matchesOrientation(int orientation, int[] planeA, int[] planeB, int[] texS, int[] texT) {
+        // Each corner of the face is visited once, so a match means the texture covers the whole face
+        int corners = 0;
+
+        for (int i = 0; i < 4; i++) {
+            boolean swap = (orientation & ORIENTATION_SWAP) != 0;
+
+            int s = swap ? planeB[i] : planeA[i];
+            int t = swap ? planeA[i] : planeB[i];
+
+            if ((orientation & ORIENTATION_FLIP_S) != 0) {
+                s = 1 - s;
+            }
+
+            if ((orientation & ORIENTATION_FLIP_T) != 0) {
+                t = 1 - t;
+            }
+
+            if (s != texS[i] || t != texT[i]) {
+                return false;
+            }
+
+            corners |= 1 << (planeA[i] | (planeB[i] << 1));
+        }
+
+        return corners == 0b1111;
+    }
+
+    private static boolean isRepeatable(Sprite sprite) {
+        int width = sprite.getContents().getWidth();
+        int height = sprite.getContents().getHeight();
+
+        // The shader stores the size of the sprite as a power-of-two exponent
+        return MathHelper.isPowerOfTwo(width) && MathHelper.isPowerOfTwo(height) && width < (1 << 16) && height < (1 << 16);
+    }
+
+    /**
+     * @return 0 if the value is near the minimum, 1 if it is near the maximum, or -1 otherwise
+     */
+    private static int snap(float value, float min, float max) {
+        float epsilon = EPSILON * Math.max(1.0f, Math.abs(max - min));
+
+        if (Math.abs(value - min) <= epsilon) {
+            return 0;
+        } else if (Math.abs(value - max) <= epsilon) {
+            return 1;
+        }
+
+        return -1;
+    }
+
+    private static boolean isNear(float a, float b) {
+        return Math.abs(a - b) <= EPSILON;
+    }
+
+    private static int getAxis(Direction face) {
+        return switch (face.getAxis()) {
+            case X -> AXIS_X;
+            case Y -> AXIS_Y;
+            case Z -> AXIS_Z;
+        };
+    }
+
+    private static int getCellIndex(int depth, int a, int b) {
+        return (depth * SIZE * SIZE) + (b * SIZE) + a;
+    }
+
+    // The plane coordinates of each axis must match those used by the texture repeat shader
+
+    private static int getDepth(int x, int y, int z, int axis) {
+        return axis == AXIS_X ? x : (axis == AXIS_Y ? y : z);
+    }
+
+    private static int getPlaneA(int x, int y, int z, int axis) {
+        return axis == AXIS_X ? z : x;
+    }
+
+    private static int getPlaneB(int x, int y, int z, int axis) {
+        return axis == AXIS_Y ? z : y;
+    }
+
+    private static float getDepth(float x, float y, float z, int axis) {
+        return axis == AXIS_X ? x : (axis == AXIS_Y ? y : z);
+    }
+
+    private static float getPlaneA(float x, float y, float z, int axis) {
+        return axis == AXIS_X ? z : x;
+    }
+
+    private static float getPlaneB(float x, float y, float z, int axis) {
+        return axis == AXIS_Y ? z : y;
+    }
+
+    private static void setPosition(ChunkVertexEncoder.Vertex vertex, int axis, int depth, int a, int b) {
+        switch (axis) {
+            case AXIS_X -> {
+                vertex.x = depth;
+                vertex.y = b;
+                vertex.z = a;
+            }
+            case AXIS_Y -> {
+                vertex.x = a;
+                vertex.y = depth;
+                vertex.z = b;
+            }
+            default -> {
+                vertex.x = a;
+                vertex.y = b;
+                vertex.z = depth;
+            }
+        }
+    }
+}
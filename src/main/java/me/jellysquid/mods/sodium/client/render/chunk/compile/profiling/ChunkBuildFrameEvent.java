@@ -0,0 +1,109 @@
+package me.jellysquid.mods.sodium.client.render.chunk.compile.profiling;
+
+import jdk.jfr.*;
+
+/**
+ * A summary of the work done by the chunk build pipeline in a single frame, which is emitted to Java Flight Recorder
+ * when the event is enabled in the recording settings. All times are the sum across every worker thread.
+ */
+@Name("sodium.ChunkBuildFrame")
+@Label("Chunk Build Frame")
+@Category({ "Sodium", "Chunk Building" })
+@Description("Statistics of the chunk build pipeline over one frame")
+@StackTrace(false)
+public class ChunkBuildFrameEvent extends Event {
+    @Label("Jobs Completed")
+    public int jobCount;
+
+    @Label("Job Time")
+    @Timespan
+    public long jobTime;
+
+    @Label("Copy Time")
+    @Timespan
+    public long copyDataTime;
+
+    @Label("Block Model Time")
+    @Timespan
+    public long blockModelsTime;
+
+    @Label("Lighting Time")
+    @Timespan
+    public long lightingTime;
+
+    @Label("Color Blending Time")
+    @Timespan
+    public long colorBlendingTime;
+
+    @Label("Vertex Encoding Time")
+    @Timespan
+    public long vertexEncodingTime;
+
+    @Label("Fluid Time")
+    @Timespan
+    public long fluidsTime;
+
+    @Label("Mesh Creation Time")
+    @Timespan
+    public long meshCreationTime;
+
+    @Label("Sorting Time")
+    @Timespan
+    public long sortingTime;
+
+    @Label("Copy Calls")
+    public long copyDataCount;
+
+    @Label("Block Model Calls")
+    public long blockModelsCount;
+
+    @Label("Lighting Calls")
+    public long lightingCount;
+
+    @Label("Color Blending Calls")
+    public long colorBlendingCount;
+
+    @Label("Vertex Encoding Calls")
+    public long vertexEncodingCount;
+
+    @Label("Fluid Calls")
+    public long fluidsCount;
+
+    @Label("Mesh Creation Calls")
+    public long meshCreationCount;
+
+    @Label("Sorting Calls")
+    public long sortingCount;
+
+    @Label("Queue Depth")
+    public int queueDepth;
+
+    @Label("Busy Threads")
+    public int busyThreads;
+
+    @Label("Uploaded")
+    @DataAmount
+    public long uploadBytes;
+
+    @Label("Compacted")
+    @DataAmount
+    public long compactedBytes;
+
+    @Label("Staged By Workers")
+    @DataAmount
+    public long stagedBytes;
+
+    @Label("Results Uploaded")
+    public int uploadedResults;
+
+    @Label("Results Deferred")
+    public int deferredResults;
+
+    @Label("Max Upload Latency")
+    @Timespan
+    public long maxUploadLatency;
+
+    @Label("Arena Fragmentation")
+    @Percentage
+    public float arenaFragmentation;
+}
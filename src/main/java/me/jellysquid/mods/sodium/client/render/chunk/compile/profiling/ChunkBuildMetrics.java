@@ -0,0 +1,400 @@
+package me.jellysquid.mods.sodium.client.render.chunk.compile.profiling;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Collects timings and counters from the chunk build pipeline, and aggregates them into per-frame samples.
+ *
+ * Worker threads publish the totals of each finished job with atomic additions, so that recording never blocks. Once
+ * per frame, the main thread drains those totals into a sample, along with the state of the build queue and the
+ * amount of data uploaded during the frame. The most recent samples are kept to produce the averages and percentiles
+ * shown on the debug screen, and each sample is also emitted as a {@link ChunkBuildFrameEvent} for Flight Recorder.
+ */
+public class ChunkBuildMetrics {
+    // The number of frames which the statistics on the debug screen are computed over
+    private static final int FRAME_HISTORY = 60;
+
+    // Job durations are counted in power-of-two buckets of microseconds, which covers anything up to ~8 seconds
+    private static final int HISTOGRAM_BUCKETS = 24;
+
+    // Written by any thread, and drained by the main thread at the end of each frame
+    private final AtomicLongArray pendingStageTime = new AtomicLongArray(ChunkBuildStage.COUNT);
+    private final AtomicLongArray pendingStageCount = new AtomicLongArray(ChunkBuildStage.COUNT);
+    private final AtomicLongArray pendingJobHistogram = new AtomicLongArray(HISTOGRAM_BUCKETS);
+    private final AtomicLong pendingJobTime = new AtomicLong();
+    private final AtomicLong pendingMeshedSections = new AtomicLong();
+    private final AtomicLong pendingSkippedSections = new AtomicLong();
+    private final AtomicLong pendingSkippedBlocks = new AtomicLong();
+    private final AtomicLong pendingStagedBytes = new AtomicLong();
+    private final AtomicLong pendingResultBytes = new AtomicLong();
+
+    // Only accessed by the main thread
+    private final long[][] stageTimeHistory = new long[FRAME_HISTORY][ChunkBuildStage.COUNT];
+    private final long[][] stageCountHistory = new long[FRAME_HISTORY][ChunkBuildStage.COUNT];
+    private final long[][] jobHistogramHistory = new long[FRAME_HISTORY][HISTOGRAM_BUCKETS];
+    private final long[] jobTimeHistory = new long[FRAME_HISTORY];
+    private final long[] uploadBytesHistory = new long[FRAME_HISTORY];
+    private final long[] compactedBytesHistory = new long[FRAME_HISTORY];
+    private final int[] queueDepthHistory = new int[FRAME_HISTORY];
+    private final int[] busyThreadsHistory = new int[FRAME_HISTORY];
+    private final long[] meshedSectionsHistory = new long[FRAME_HISTORY];
+    private final long[] skippedSectionsHistory = new long[FRAME_HISTORY];
+    private final long[] skippedBlocksHistory = new long[FRAME_HISTORY];
+    private final long[] stagedBytesHistory = new long[FRAME_HISTORY];
+    private final long[] resultBytesHistory = new long[FRAME_HISTORY];
+    private final long[] uploadLatencyHistory = new long[FRAME_HISTORY];
+    private final long[] maxUploadLatencyHistory = new long[FRAME_HISTORY];
+    private final int[] uploadedResultsHistory = new int[FRAME_HISTORY];
+    private final int[] deferredResultsHistory = new int[FRAME_HISTORY];
+
+    private int frameIndex;
+    private int frameCount;
+
+    private long pendingUploadBytes;
+    private long pendingCompactedBytes;
+    private long pendingUploadLatency;
+    private long pendingMaxUploadLatency;
+    private int pendingUploadedResults;
+    private int pendingDeferredResults;
+    private float arenaFragmentation = Float.NaN;
+
+    // The number of frames remaining before stage timing is disabled again, if nothing has asked for it since
+    private int stageTimingFrames;
+    private volatile boolean stageTimingEnabled;
+
+    /**
+     * Returns whether the individual stages of new jobs should be timed. This is only the case while the statistics
+     * are visible on the debug screen or being recorded by Flight Recorder, since reading the clock for every quad
+     * has a noticeable cost.
+     */
+    public boolean isStageTimingEnabled() {
+        return this.stageTimingEnabled;
+    }
+
+    /**
+     * Enables the timing of individual stages for at least the next {@link #FRAME_HISTORY} frames.
+     */
+    public void requestStageTiming() {
+        this.stageTimingFrames = FRAME_HISTORY;
+        this.stageTimingEnabled = true;
+    }
+
+    /**
+     * Records a finished job. This can be called from any thread.
+     *
+     * @param timer The timer which holds the stage times of the job
+     * @param duration The total time taken by the job, in nanoseconds
+     */
+    public void recordJob(ChunkBuildTimer timer, long duration) {
+        if (timer.isEnabled()) {
+            for (int stage = 0; stage < ChunkBuildStage.COUNT; stage++) {
+                long time = timer.getStageTime(stage);
+
+                if (time != 0) {
+                    this.pendingStageTime.getAndAdd(stage, time);
+                }
+
+                int count = timer.getStageCount(stage);
+
+                if (count != 0) {
+                    this.pendingStageCount.getAndAdd(stage, count);
+                }
+            }
+        }
+
+        if (timer.hasMeshedSection()) {
+            this.pendingMeshedSections.getAndIncrement();
+
+            if (timer.hasSkippedSection()) {
+                this.pendingSkippedSections.getAndIncrement();
+            }
+
+            this.pendingSkippedBlocks.getAndAdd(timer.getSkippedBlocks());
+        }
+
+        this.pendingJobHistogram.getAndIncrement(getHistogramBucket(duration));
+        this.pendingJobTime.getAndAdd(duration);
+    }
+
+    /**
+     * Records the vertex data of a finished job, and how much of it was written directly into the staging buffer by
+     * the worker thread. This can be called from any thread.
+     */
+    public void recordStaging(long stagedBytes, long totalBytes) {
+        this.pendingStagedBytes.getAndAdd(stagedBytes);
+        this.pendingResultBytes.getAndAdd(totalBytes);
+    }
+
+    /**
+     * Records a job result which was uploaded during the current frame. This must only be called from the main thread.
+     *
+     * @param latency The time between the job finishing and its result being uploaded, in nanoseconds
+     */
+    public void recordUploadLatency(long latency) {
+        this.pendingUploadLatency += latency;
+        this.pendingMaxUploadLatency = Math.max(this.pendingMaxUploadLatency, latency);
+        this.pendingUploadedResults++;
+    }
+
+    /**
+     * Records the number of job results which were left for the next frame after the upload budget of the current
+     * frame ran out. This must only be called from the main thread.
+     */
+    public void recordDeferredUploads(int count) {
+        this.pendingDeferredResults += count;
+    }
+
+    /**
+     * Records data which was uploaded to graphics memory during the current frame. This must only be called from the
+     * main thread.
+     */
+    public void recordUpload(long bytes) {
+        this.pendingUploadBytes += bytes;
+    }
+
+    /**
+     * Records data which was moved within the geometry arenas by compaction during the current frame. This must only
+     * be called from the main thread.
+     */
+    public void recordCompaction(long bytes) {
+        this.pendingCompactedBytes += bytes;
+    }
+
+    /**
+     * Completes the sample of the current frame. This must only be called from the main thread.
+     *
+     * @param queueDepth The number of jobs waiting in the build queue
+     * @param busyThreads The number of worker threads which are executing a job
+     * @param arenaFragmentation The fraction of free memory in the geometry arenas which is not part of the largest
+     *                           free segment of each arena, or NaN if it was not measured this frame
+     */
+    public void endFrame(int queueDepth, int busyThreads, float arenaFragmentation) {
+        int index = this.frameIndex;
+
+        var stageTime = this.stageTimeHistory[index];
+        var stageCount = this.stageCountHistory[index];
+
+        for (int stage = 0; stage < ChunkBuildStage.COUNT; stage++) {
+            stageTime[stage] = this.pendingStageTime.getAndSet(stage, 0L);
+            stageCount[stage] = this.pendingStageCount.getAndSet(stage, 0L);
+        }
+
+        var jobHistogram = this.jobHistogramHistory[index];
+        int jobCount = 0;
+
+        for (int bucket = 0; bucket < HISTOGRAM_BUCKETS; bucket++) {
+            jobHistogram[bucket] = this.pendingJobHistogram.getAndSet(bucket, 0L);
+            jobCount += (int) jobHistogram[bucket];
+        }
+
+        this.jobTimeHistory[index] = this.pendingJobTime.getAndSet(0L);
+        this.uploadBytesHistory[index] = this.pendingUploadBytes;
+        this.compactedBytesHistory[index] = this.pendingCompactedBytes;
+        this.queueDepthHistory[index] = queueDepth;
+        this.busyThreadsHistory[index] = busyThreads;
+        this.meshedSectionsHistory[index] = this.pendingMeshedSections.getAndSet(0L);
+        this.skippedSectionsHistory[index] = this.pendingSkippedSections.getAndSet(0L);
+        this.skippedBlocksHistory[index] = this.pendingSkippedBlocks.getAndSet(0L);
+        this.stagedBytesHistory[index] = this.pendingStagedBytes.getAndSet(0L);
+        this.resultBytesHistory[index] = this.pendingResultBytes.getAndSet(0L);
+        this.uploadLatencyHistory[index] = this.pendingUploadLatency;
+        this.maxUploadLatencyHistory[index] = this.pendingMaxUploadLatency;
+        this.uploadedResultsHistory[index] = this.pendingUploadedResults;
+        this.deferredResultsHistory[index] = this.pendingDeferredResults;
+
+        if (!Float.isNaN(arenaFragmentation)) {
+            this.arenaFragmentation = arenaFragmentation;
+        }
+
+        this.pendingUploadBytes = 0L;
+        this.pendingCompactedBytes = 0L;
+        this.pendingUploadLatency = 0L;
+        this.pendingMaxUploadLatency = 0L;
+        this.pendingUploadedResults = 0;
+        this.pendingDeferredResults = 0;
+
+        this.frameIndex = (index + 1) % FRAME_HISTORY;
+        this.frameCount = Math.min(this.frameCount + 1, FRAME_HISTORY);
+
+        var event = new ChunkBuildFrameEvent();
+
+        if (event.isEnabled()) {
+            this.emitEvent(event, index, jobCount);
+        }
+
+        if (this.stageTimingFrames > 0) {
+            this.stageTimingFrames--;
+        }
+
+        this.stageTimingEnabled = this.stageTimingFrames > 0 || event.isEnabled();
+    }
+
+    private void emitEvent(ChunkBuildFrameEvent event, int index, int jobCount) {
+        var stageTime = this.stageTimeHistory[index];
+        var stageCount = this.stageCountHistory[index];
+
+        event.jobCount = jobCount;
+        event.jobTime = this.jobTimeHistory[index];
+        event.copyDataTime = stageTime[ChunkBuildStage.COPY_DATA.ordinal()];
+        event.blockModelsTime = stageTime[ChunkBuildStage.BLOCK_MODELS.ordinal()];
+        event.lightingTime = stageTime[ChunkBuildStage.LIGHTING.ordinal()];
+        event.colorBlendingTime = stageTime[ChunkBuildStage.COLOR_BLENDING.ordinal()];
+        event.vertexEncodingTime = stageTime[ChunkBuildStage.VERTEX_ENCODING.ordinal()];
+        event.fluidsTime = stageTime[ChunkBuildStage.FLUIDS.ordinal()];
+        event.meshCreationTime = stageTime[ChunkBuildStage.MESH_CREATION.ordinal()];
+        event.sortingTime = stageTime[ChunkBuildStage.SORTING.ordinal()];
+        event.copyDataCount = stageCount[ChunkBuildStage.COPY_DATA.ordinal()];
+        event.blockModelsCount = stageCount[ChunkBuildStage.BLOCK_MODELS.ordinal()];
+        event.lightingCount = stageCount[ChunkBuildStage.LIGHTING.ordinal()];
+        event.colorBlendingCount = stageCount[ChunkBuildStage.COLOR_BLENDING.ordinal()];
+        event.vertexEncodingCount = stageCount[ChunkBuildStage.VERTEX_ENCODING.ordinal()];
+        event.fluidsCount = stageCount[ChunkBuildStage.FLUIDS.ordinal()];
+        event.meshCreationCount = stageCount[ChunkBuildStage.MESH_CREATION.ordinal()];
+        event.sortingCount = stageCount[ChunkBuildStage.SORTING.ordinal()];
+        event.queueDepth = this.queueDepthHistory[index];
+        event.busyThreads = this.busyThreadsHistory[index];
+        event.uploadBytes = this.uploadBytesHistory[index];
+        event.compactedBytes = this.compactedBytesHistory[index];
+        event.stagedBytes = this.stagedBytesHistory[index];
+        event.uploadedResults = this.uploadedResultsHistory[index];
+        event.deferredResults = this.deferredResultsHistory[index];
+        event.maxUploadLatency = this.maxUploadLatencyHistory[index];
+        event.arenaFragmentation = Float.isNaN(this.arenaFragmentation) ? 0.0f : this.arenaFragmentation;
+        event.commit();
+    }
+
+    public List<String> getDebugStrings() {
+        List<String> list = new ArrayList<>();
+
+        int frames = this.frameCount;
+
+        if (frames == 0) {
+            return list;
+        }
+
+        long[] jobHistogram = new long[HISTOGRAM_BUCKETS];
+        long[] stageTime = new long[ChunkBuildStage.COUNT];
+        long[] stageCount = new long[ChunkBuildStage.COUNT];
+
+        long jobCount = 0;
+        long uploadBytes = 0, maxUploadBytes = 0;
+        long compactedBytes = 0;
+        long queueDepth = 0, busyThreads = 0;
+        long meshedSections = 0, skippedSections = 0, skippedBlocks = 0;
+        long stagedBytes = 0, resultBytes = 0;
+        long uploadLatency = 0, maxUploadLatency = 0;
+        long uploadedResults = 0, deferredResults = 0;
+
+        for (int frame = 0; frame < frames; frame++) {
+            for (int bucket = 0; bucket < HISTOGRAM_BUCKETS; bucket++) {
+                jobHistogram[bucket] += this.jobHistogramHistory[frame][bucket];
+                jobCount += this.jobHistogramHistory[frame][bucket];
+            }
+
+            for (int stage = 0; stage < ChunkBuildStage.COUNT; stage++) {
+                stageTime[stage] += this.stageTimeHistory[frame][stage];
+                stageCount[stage] += this.stageCountHistory[frame][stage];
+            }
+
+            uploadBytes += this.uploadBytesHistory[frame];
+            maxUploadBytes = Math.max(maxUploadBytes, this.uploadBytesHistory[frame]);
+
+            compactedBytes += this.compactedBytesHistory[frame];
+
+            queueDepth += this.queueDepthHistory[frame];
+            busyThreads += this.busyThreadsHistory[frame];
+
+            meshedSections += this.meshedSectionsHistory[frame];
+            skippedSections += this.skippedSectionsHistory[frame];
+            skippedBlocks += this.skippedBlocksHistory[frame];
+
+            stagedBytes += this.stagedBytesHistory[frame];
+            resultBytes += this.resultBytesHistory[frame];
+
+            uploadLatency += this.uploadLatencyHistory[frame];
+            maxUploadLatency = Math.max(maxUploadLatency, this.maxUploadLatencyHistory[frame]);
+
+            uploadedResults += this.uploadedResultsHistory[frame];
+            deferredResults += this.deferredResultsHistory[frame];
+        }
+
+        list.add(String.format("Build Jobs: %.1f/frame | p50=%.2f ms | p95=%.2f ms",
+                (double) jobCount / frames,
+                getPercentile(jobHistogram, jobCount, 0.50) / 1000.0,
+                getPercentile(jobHistogram, jobCount, 0.95) / 1000.0));
+
+        var stages = new StringBuilder("Build Stages (ms/frame):");
+
+        for (var stage : ChunkBuildStage.VALUES) {
+            stages.append(String.format(" %s=%.2f", stage.getLabel(), (stageTime[stage.ordinal()] / 1_000_000.0) / frames));
+        }
+
+        list.add(stages.toString());
+
+        var stageCalls = new StringBuilder("Build Stage Calls (/frame):");
+
+        for (var stage : ChunkBuildStage.VALUES) {
+            stageCalls.append(String.format(" %s=%.0f", stage.getLabel(), (double) stageCount[stage.ordinal()] / frames));
+        }
+
+        list.add(stageCalls.toString());
+
+        list.add(String.format("Build Uploads: %d KiB/frame (max %d KiB) | Queue=%.1f | Busy=%.1f",
+                (uploadBytes / frames) / 1024, maxUploadBytes / 1024,
+                (double) queueDepth / frames, (double) busyThreads / frames));
+
+        list.add(String.format("Upload Latency: avg=%.2f ms | max=%.2f ms | Deferred=%.1f/frame | Staged=%.0f%%",
+                uploadedResults == 0 ? 0.0 : (uploadLatency / 1_000_000.0) / uploadedResults,
+                maxUploadLatency / 1_000_000.0,
+                (double) deferredResults / frames,
+                resultBytes == 0 ? 0.0 : (stagedBytes * 100.0) / resultBytes));
+
+        list.add(String.format("Arena Compaction: Moved=%d KiB/frame | Frag=%s",
+                (compactedBytes / frames) / 1024,
+                Float.isNaN(this.arenaFragmentation) ? "-" : String.format("%.0f%%", this.arenaFragmentation * 100.0f)));
+
+        list.add(String.format("Build Skips: Sections=%d/%d | Volume=%.0f%%",
+                skippedSections, meshedSections,
+                meshedSections == 0 ? 0.0 : (skippedBlocks * 100.0) / (meshedSections * 4096.0)));
+
+        return list;
+    }
+
+    private static int getHistogramBucket(long nanos) {
+        long micros = nanos / 1000L;
+
+        // Bucket N holds durations in the range [2^(N-1), 2^N) microseconds, and bucket 0 holds durations under 1us
+        return Math.min(HISTOGRAM_BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+    }
+
+    /**
+     * Estimates a percentile of the job durations in microseconds, assuming durations are evenly distributed within
+     * each bucket.
+     */
+    private static double getPercentile(long[] histogram, long total, double percentile) {
+        if (total == 0) {
+            return 0.0;
+        }
+
+        double target = total * percentile;
+        long seen = 0;
+
+        for (int bucket = 0; bucket < HISTOGRAM_BUCKETS; bucket++) {
+            long count = histogram[bucket];
+
+            if (count != 0 && seen + count >= target) {
+                double lower = bucket == 0 ? 0.0 : (1L << (bucket - 1));
+                double upper = 1L << bucket;
+
+                return lower + ((upper - lower) * ((target - seen) / count));
+            }
+
+            seen += count;
+        }
+
+        return 1L << (HISTOGRAM_BUCKETS - 1);
+    }
+}
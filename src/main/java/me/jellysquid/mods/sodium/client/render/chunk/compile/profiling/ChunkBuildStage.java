@@ -0,0 +1,29 @@
+package me.jellysquid.mods.sodium.client.render.chunk.compile.profiling;
+
+/**
+ * The stages of the chunk build pipeline which are timed separately. The time of each stage is exclusive, so that the
+ * stages of a job add up to no more than the total time of the job.
+ */
+public enum ChunkBuildStage {
+    COPY_DATA("Copy"),
+    BLOCK_MODELS("Models"),
+    LIGHTING("Light"),
+    COLOR_BLENDING("Color"),
+    VERTEX_ENCODING("Encode"),
+    FLUIDS("Fluid"),
+    MESH_CREATION("Mesh"),
+    SORTING("Sort");
+
+    public static final ChunkBuildStage[] VALUES = ChunkBuildStage.values();
+    public static final int COUNT = VALUES.length;
+
+    private final String label;
+
+    ChunkBuildStage(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return this.label;
+    }
+}
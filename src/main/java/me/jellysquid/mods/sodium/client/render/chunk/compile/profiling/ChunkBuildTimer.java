@@ -0,0 +1,90 @@
+package me.jellysquid.mods.sodium.client.render.chunk.compile.profiling;
+
+import java.util.Arrays;
+
+/**
+ * Accumulates the time spent in and the number of calls to each stage of a chunk build job, and the number of blocks
+ * which the job could skip without visiting them. Each worker thread owns its own timer, so that the hot paths of the
+ * pipeline only write to plain fields. The totals are handed off to the shared {@link ChunkBuildMetrics} once the job
+ * is finished.
+ *
+ * Timing individual stages requires reading the clock several times per quad, so it is only done while the results
+ * are being observed (see {@link ChunkBuildMetrics#isStageTimingEnabled()}). Otherwise, {@link #start()} and
+ * {@link #stop(ChunkBuildStage, long)} do nothing.
+ */
+public class ChunkBuildTimer {
+    private final long[] stageTime = new long[ChunkBuildStage.COUNT];
+    private final int[] stageCount = new int[ChunkBuildStage.COUNT];
+
+    private boolean enabled;
+
+    private boolean meshedSection;
+    private boolean skippedSection;
+    private int skippedBlocks;
+
+    /**
+     * Resets the timer for a new job.
+     *
+     * @param enabled True if the stages of the job should be timed
+     */
+    public void begin(boolean enabled) {
+        this.enabled = enabled;
+
+        Arrays.fill(this.stageTime, 0L);
+        Arrays.fill(this.stageCount, 0);
+
+        this.meshedSection = false;
+        this.skippedSection = false;
+        this.skippedBlocks = 0;
+    }
+
+    /**
+     * @return The timestamp which the stage started at, to be passed to {@link #stop(ChunkBuildStage, long)}
+     */
+    public long start() {
+        return this.enabled ? System.nanoTime() : 0L;
+    }
+
+    public void stop(ChunkBuildStage stage, long start) {
+        if (this.enabled) {
+            this.stageTime[stage.ordinal()] += System.nanoTime() - start;
+            this.stageCount[stage.ordinal()]++;
+        }
+    }
+
+    /**
+     * Records that the job meshed a section, and how many of its blocks were skipped by the meshing loop because they
+     * could not produce any geometry.
+     *
+     * @param wholeSection True if the entire section was skipped
+     */
+    public void recordMeshedSection(int skippedBlocks, boolean wholeSection) {
+        this.meshedSection = true;
+        this.skippedSection = wholeSection;
+        this.skippedBlocks = skippedBlocks;
+    }
+
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    long getStageTime(int stage) {
+        return this.stageTime[stage];
+    }
+
+    int getStageCount(int stage) {
+        return this.stageCount[stage];
+    }
+
+    boolean hasMeshedSection() {
+        return this.meshedSection;
+    }
+
+    boolean hasSkippedSection() {
+        return this.skippedSection;
+    }
+
+    int getSkippedBlocks() {
+        return this.skippedBlocks;
+    }
+}
@@ -2,30 +2,42 @@ package me.jellysquid.mods.sodium.client.render.chunk.compile.tasks;
 
 import it.unimi.dsi.fastutil.objects.Reference2ReferenceOpenHashMap;
 import me.jellysquid.mods.sodium.client.render.chunk.RenderSection;
+import me.jellysquid.mods.sodium.client.render.chunk.cache.CachedSectionMesh;
+import me.jellysquid.mods.sodium.client.render.chunk.cache.MeshCache;
+import me.jellysquid.mods.sodium.client.render.chunk.cache.SectionContentHasher;
 import me.jellysquid.mods.sodium.client.render.chunk.compile.ChunkBuildBuffers;
 import me.jellysquid.mods.sodium.client.render.chunk.compile.ChunkBuildContext;
 import me.jellysquid.mods.sodium.client.render.chunk.compile.ChunkBuildOutput;
 import me.jellysquid.mods.sodium.client.render.chunk.compile.pipeline.BlockRenderCache;
 import me.jellysquid.mods.sodium.client.render.chunk.compile.pipeline.BlockRenderContext;
+import me.jellysquid.mods.sodium.client.render.chunk.compile.pipeline.BlockRenderProperties;
+import me.jellysquid.mods.sodium.client.render.chunk.compile.profiling.ChunkBuildStage;
+import me.jellysquid.mods.sodium.client.render.chunk.compile.profiling.ChunkBuildTimer;
 import me.jellysquid.mods.sodium.client.render.chunk.data.BuiltSectionInfo;
 import me.jellysquid.mods.sodium.client.render.chunk.data.BuiltSectionMeshParts;
+import me.jellysquid.mods.sodium.client.render.chunk.occlusion.OcclusionCuller;
 import me.jellysquid.mods.sodium.client.render.chunk.terrain.DefaultTerrainRenderPasses;
 import me.jellysquid.mods.sodium.client.render.chunk.terrain.TerrainRenderPass;
+import me.jellysquid.mods.sodium.client.render.viewport.Viewport;
+import me.jellysquid.mods.sodium.client.util.DirectionUtil;
 import me.jellysquid.mods.sodium.client.util.task.CancellationToken;
 import me.jellysquid.mods.sodium.client.world.WorldSlice;
 import me.jellysquid.mods.sodium.client.world.cloned.ChunkRenderContext;
-import net.minecraft.block.BlockRenderType;
+import me.jellysquid.mods.sodium.client.world.cloned.ClonedChunkSection;
 import net.minecraft.block.BlockState;
 import net.minecraft.block.entity.BlockEntity;
 import net.minecraft.client.MinecraftClient;
 import net.minecraft.client.render.block.entity.BlockEntityRenderer;
+import net.minecraft.client.render.chunk.ChunkOcclusionData;
 import net.minecraft.client.render.chunk.ChunkOcclusionDataBuilder;
 import net.minecraft.client.render.model.BakedModel;
-import net.minecraft.fluid.FluidState;
+import net.minecraft.client.texture.Sprite;
 import net.minecraft.util.crash.CrashException;
 import net.minecraft.util.crash.CrashReport;
 import net.minecraft.util.crash.CrashReportSection;
 import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Direction;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.Map;
 
@@ -37,34 +49,89 @@ import java.util.Map;
  * array allocations, they are pooled to ensure that the garbage collector doesn't become overloaded.
  */
 public class ChunkBuilderMeshingTask extends ChunkBuilderTask<ChunkBuildOutput> {
+    // The blocks of a section are grouped into 4x4x4 cells, so that cells without any blocks to render can be skipped
+    // with a single test. The cells which contain such blocks are stored as the bits of a long.
+    private static final int CELL_SIZE = 4;
+    private static final int CELL_BLOCK_COUNT = CELL_SIZE * CELL_SIZE * CELL_SIZE;
+
     private final RenderSection render;
     private final ChunkRenderContext renderContext;
 
     private final int buildTime;
 
-    public ChunkBuilderMeshingTask(RenderSection render, ChunkRenderContext renderContext, int time) {
+    @Nullable
+    private final MeshCache meshCache;
+
+    // The position of the camera relative to the section origin, which is used to sort translucent geometry
+    private final float cameraX, cameraY, cameraZ;
+
+    public ChunkBuilderMeshingTask(RenderSection render, ChunkRenderContext renderContext, int time,
+                                   float cameraX, float cameraY, float cameraZ, @Nullable MeshCache meshCache) {
         this.render = render;
         this.renderContext = renderContext;
         this.buildTime = time;
+        this.meshCache = meshCache;
+
+        this.cameraX = cameraX - render.getOriginX();
+        this.cameraY = cameraY - render.getOriginY();
+        this.cameraZ = cameraZ - render.getOriginZ();
     }
 
     @Override
     public ChunkBuildOutput execute(ChunkBuildContext buildContext, CancellationToken cancellationToken) {
+        long contentHash = 0;
+        boolean cacheable = this.meshCache != null && SectionContentHasher.isCacheable(this.renderContext);
+
+        if (cacheable) {
+            contentHash = buildContext.hasher.hash(this.renderContext);
+
+            CachedSectionMesh cached = this.meshCache.load(this.render.getPosition(), contentHash,
+                    this.cameraX, this.cameraY, this.cameraZ);
+
+            if (cached != null) {
+                return this.createCachedOutput(cached);
+            }
+        }
+
         BuiltSectionInfo.Builder renderData = new BuiltSectionInfo.Builder();
         ChunkOcclusionDataBuilder occluder = new ChunkOcclusionDataBuilder();
 
         ChunkBuildBuffers buffers = buildContext.buffers;
         buffers.init(renderData, this.render.getSectionIndex());
 
+        ChunkBuildTimer timer = buildContext.timer;
+
+        long copyStart = timer.start();
+
         BlockRenderCache cache = buildContext.cache;
         cache.init(this.renderContext);
 
+        timer.stop(ChunkBuildStage.COPY_DATA, copyStart);
+
         WorldSlice slice = cache.getWorldSlice();
 
         int minX = this.render.getOriginX();
         int minY = this.render.getOriginY();
         int minZ = this.render.getOriginZ();
 
+        // The section being built is always fully contained in a single section of the slice
+        BlockState[] blockStates = slice.getBlockArray(minX, minY, minZ);
+        int[] stateIds = slice.getStateIdArray(minX, minY, minZ);
+
+        BlockRenderProperties properties = cache.getProperties();
+
+        int uniformStateId = slice.getUniformStateId(minX, minY, minZ);
+        boolean hidden = uniformStateId != -1 && isHiddenUniformSection(slice, properties, uniformStateId, minX, minY, minZ);
+
+        long occupiedCells = hidden ? 0L : getOccupiedCells(stateIds, uniformStateId, properties);
+        timer.recordMeshedSection(Long.bitCount(~occupiedCells) * CELL_BLOCK_COUNT, hidden);
+
+        if (occupiedCells != 0L) {
+            long lightStart = timer.start();
+            cache.precomputeLightData();
+            timer.stop(ChunkBuildStage.LIGHTING, lightStart);
+        }
+
         int maxX = minX + 16;
         int maxY = minY + 16;
         int maxZ = minZ + 16;
@@ -83,33 +150,43 @@ public class ChunkBuilderMeshingTask extends ChunkBuilderTask<ChunkBuildOutput>
 
                 for (int z = minZ; z < maxZ; z++) {
                     for (int x = minX; x < maxX; x++) {
-                        BlockState blockState = slice.getBlockState(x, y, z);
+                        // Skip the rest of the cell if none of its blocks need to be visited
+                        if ((occupiedCells & getCellBit(x, y, z)) == 0L) {
+                            x |= CELL_SIZE - 1;
+                            continue;
+                        }
+
+                        int blockIndex = WorldSlice.getLocalBlockIndex(x & 15, y & 15, z & 15);
+                        int blockStateId = stateIds[blockIndex];
+                        long blockProperties = properties.get(blockStateId);
 
-                        if (blockState.isAir() && !blockState.hasBlockEntity()) {
+                        if (!BlockRenderProperties.isRenderable(blockProperties)) {
                             continue;
                         }
 
+                        BlockState blockState = blockStates[blockIndex];
+
                         blockPos.set(x, y, z);
                         modelOffset.set(x & 15, y & 15, z & 15);
 
-                        if (blockState.getRenderType() == BlockRenderType.MODEL) {
+                        if (BlockRenderProperties.hasModel(blockProperties)) {
                             BakedModel model = cache.getBlockModels()
                                 .getModel(blockState);
 
                             long seed = blockState.getRenderingSeed(blockPos);
 
-                            context.update(blockPos, modelOffset, blockState, model, seed);
+                            context.update(blockPos, modelOffset, blockState, model, seed, blockStateId, blockProperties);
                             cache.getBlockRenderer()
                                 .renderModel(context, buffers);
                         }
 
-                        FluidState fluidState = blockState.getFluidState();
-
-                        if (!fluidState.isEmpty()) {
-                            cache.getFluidRenderer().render(slice, fluidState, blockPos, modelOffset, buffers);
+                        if (BlockRenderProperties.hasFluid(blockProperties)) {
+                            long fluidStart = timer.start();
+                            cache.getFluidRenderer().render(slice, blockState.getFluidState(), blockPos, modelOffset, buffers);
+                            timer.stop(ChunkBuildStage.FLUIDS, fluidStart);
                         }
 
-                        if (blockState.hasBlockEntity()) {
+                        if (BlockRenderProperties.hasBlockEntity(blockProperties)) {
                             BlockEntity entity = slice.getBlockEntity(blockPos);
 
                             if (entity != null) {
@@ -121,7 +198,8 @@ public class ChunkBuilderMeshingTask extends ChunkBuilderTask<ChunkBuildOutput>
                             }
                         }
 
-                        if (blockState.isOpaqueFullCube(slice, blockPos)) {
+                        if (BlockRenderProperties.hasDynamicShape(blockProperties) ?
+                                blockState.isOpaqueFullCube(slice, blockPos) : BlockRenderProperties.isOpaqueFullCube(blockProperties)) {
                             occluder.markClosed(blockPos);
                         }
                     }
@@ -135,10 +213,15 @@ public class ChunkBuilderMeshingTask extends ChunkBuilderTask<ChunkBuildOutput>
             throw fillCrashInfo(CrashReport.create(ex, "Encountered exception while building chunk meshes"), slice, blockPos);
         }
 
+        long meshStart = timer.start();
+
+        cache.getBlockRenderer()
+                .flushMergedQuads(buffers, renderData);
+
         Map<TerrainRenderPass, BuiltSectionMeshParts> meshes = new Reference2ReferenceOpenHashMap<>();
 
         for (TerrainRenderPass pass : DefaultTerrainRenderPasses.ALL) {
-            BuiltSectionMeshParts mesh = buffers.createMesh(pass);
+            BuiltSectionMeshParts mesh = buffers.createMesh(pass, this.cameraX, this.cameraY, this.cameraZ);
 
             if (mesh != null) {
                 meshes.put(pass, mesh);
@@ -146,9 +229,148 @@ public class ChunkBuilderMeshingTask extends ChunkBuilderTask<ChunkBuildOutput>
             }
         }
 
-        renderData.setOcclusionData(occluder.build());
+        timer.stop(ChunkBuildStage.MESH_CREATION, meshStart);
+
+        // A hidden section is entirely opaque, so it can't be seen through from any direction
+        renderData.setOcclusionData(hidden ? new ChunkOcclusionData() : occluder.build());
+
+        BuiltSectionInfo info = renderData.build();
+
+        if (cacheable) {
+            this.meshCache.store(this.render.getPosition(), contentHash, info, meshes);
+        }
+
+        return new ChunkBuildOutput(this.render, info, meshes, this.buildTime);
+    }
+
+    /**
+     * Returns whether the section is filled with a single kind of opaque full cube, and every block which touches the
+     * section from outside is also an opaque full cube. Nothing in such a section can ever be seen, so it doesn't need
+     * to be meshed at all.
+     */
+    private static boolean isHiddenUniformSection(WorldSlice slice, BlockRenderProperties properties, int stateId,
+                                                  int minX, int minY, int minZ) {
+        long blockProperties = properties.get(stateId);
+
+        if (!BlockRenderProperties.isOpaqueFullCube(blockProperties) ||
+                BlockRenderProperties.hasBlockEntity(blockProperties) || BlockRenderProperties.hasFluid(blockProperties)) {
+            return false;
+        }
+
+        for (Direction dir : DirectionUtil.ALL_DIRECTIONS) {
+            if (!isFaceCovered(slice, properties, dir, minX, minY, minZ)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static boolean isFaceCovered(WorldSlice slice, BlockRenderProperties properties, Direction dir,
+                                         int minX, int minY, int minZ) {
+        // The first block of the layer in the adjacent section which touches the face
+        int layerX = minX + (dir.getOffsetX() > 0 ? 16 : dir.getOffsetX());
+        int layerY = minY + (dir.getOffsetY() > 0 ? 16 : dir.getOffsetY());
+        int layerZ = minZ + (dir.getOffsetZ() > 0 ? 16 : dir.getOffsetZ());
+
+        int uniformStateId = slice.getUniformStateId(layerX, layerY, layerZ);
+
+        if (uniformStateId != -1) {
+            return BlockRenderProperties.isOpaqueFullCube(properties.get(uniformStateId));
+        }
+
+        int[] stateIds = slice.getStateIdArray(layerX, layerY, layerZ);
+
+        int sizeX = dir.getOffsetX() == 0 ? 16 : 1;
+        int sizeY = dir.getOffsetY() == 0 ? 16 : 1;
+        int sizeZ = dir.getOffsetZ() == 0 ? 16 : 1;
+
+        for (int y = layerY & 15, maxY = y + sizeY; y < maxY; y++) {
+            for (int z = layerZ & 15, maxZ = z + sizeZ; z < maxZ; z++) {
+                for (int x = layerX & 15, maxX = x + sizeX; x < maxX; x++) {
+                    if (!BlockRenderProperties.isOpaqueFullCube(properties.get(stateIds[WorldSlice.getLocalBlockIndex(x, y, z)]))) {
+                        return false;
+                    }
+                }
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * @return The bit set of the cells in the section which contain any blocks that need to be visited
+     */
+    private static long getOccupiedCells(int[] stateIds, int uniformStateId, BlockRenderProperties properties) {
+        if (uniformStateId != -1) {
+            return BlockRenderProperties.isRenderable(properties.get(uniformStateId)) ? -1L : 0L;
+        }
+
+        long cells = 0L;
+
+        for (int y = 0; y < 16; y++) {
+            for (int z = 0; z < 16; z++) {
+                for (int x = 0; x < 16; x++) {
+                    if (BlockRenderProperties.isRenderable(properties.get(stateIds[WorldSlice.getLocalBlockIndex(x, y, z)]))) {
+                        cells |= getCellBit(x, y, z);
+                    }
+                }
+            }
+        }
+
+        return cells;
+    }
+
+    private static long getCellBit(int x, int y, int z) {
+        return 1L << ((((y & 15) >> 2) << 4) | (((z & 15) >> 2) << 2) | ((x & 15) >> 2));
+    }
+
+    private ChunkBuildOutput createCachedOutput(CachedSectionMesh cached) {
+        BuiltSectionInfo.Builder renderData = new BuiltSectionInfo.Builder();
+        renderData.setVisibilityData(cached.visibilityData);
+        renderData.addMergedQuads(cached.mergedFaceCount, cached.mergedQuadCount);
+
+        for (TerrainRenderPass pass : DefaultTerrainRenderPasses.ALL) {
+            if (cached.meshes.containsKey(pass)) {
+                renderData.addRenderPass(pass);
+            }
+        }
+
+        for (Sprite sprite : cached.animatedSprites) {
+            renderData.addSprite(sprite);
+        }
+
+        // Block entities are not stored in the cache, so they need to be taken from the cloned section instead
+        for (ClonedChunkSection section : this.renderContext.getSections()) {
+            if (section == null || !section.getPosition().equals(this.renderContext.getOrigin())) {
+                continue;
+            }
+
+            var blockEntities = section.getBlockEntityMap();
+
+            if (blockEntities != null) {
+                for (BlockEntity entity : blockEntities.values()) {
+                    BlockEntityRenderer<BlockEntity> renderer = MinecraftClient.getInstance().getBlockEntityRenderDispatcher().get(entity);
+
+                    if (renderer != null) {
+                        renderData.addBlockEntity(entity, !renderer.rendersOutsideBoundingBox(entity));
+                    }
+                }
+            }
+        }
+
+        return new ChunkBuildOutput(this.render, renderData.build(), cached.meshes, this.buildTime);
+    }
 
-        return new ChunkBuildOutput(this.render, renderData.build(), meshes, this.buildTime);
+    @Override
+    public float getPriority(Viewport viewport) {
+        var camera = viewport.getTransform();
+        return this.render.getSquaredDistance((float) camera.x, (float) camera.y, (float) camera.z);
+    }
+
+    @Override
+    public boolean isWithinFrustum(Viewport viewport) {
+        return OcclusionCuller.isWithinFrustum(viewport, this.render);
     }
 
     private CrashException fillCrashInfo(CrashReport report, WorldSlice slice, BlockPos pos) {
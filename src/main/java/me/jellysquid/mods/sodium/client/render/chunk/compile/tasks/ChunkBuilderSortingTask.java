@@ -0,0 +1,71 @@
+package me.jellysquid.mods.sodium.client.render.chunk.compile.tasks;
+
+import me.jellysquid.mods.sodium.client.gl.util.VertexRange;
+import me.jellysquid.mods.sodium.client.model.quad.properties.ModelQuadFacing;
+import me.jellysquid.mods.sodium.client.render.chunk.RenderSection;
+import me.jellysquid.mods.sodium.client.render.chunk.compile.ChunkBuildContext;
+import me.jellysquid.mods.sodium.client.render.chunk.compile.ChunkBuildOutput;
+import me.jellysquid.mods.sodium.client.render.chunk.compile.ChunkSortOutput;
+import me.jellysquid.mods.sodium.client.render.chunk.compile.profiling.ChunkBuildStage;
+import me.jellysquid.mods.sodium.client.render.chunk.data.BuiltSectionMeshParts;
+import me.jellysquid.mods.sodium.client.render.chunk.data.TranslucentQuadData;
+import me.jellysquid.mods.sodium.client.render.chunk.occlusion.OcclusionCuller;
+import me.jellysquid.mods.sodium.client.render.chunk.terrain.TerrainRenderPass;
+import me.jellysquid.mods.sodium.client.render.viewport.Viewport;
+import me.jellysquid.mods.sodium.client.util.task.CancellationToken;
+
+/**
+ * Re-sorts the translucent geometry of a chunk for a new camera position, using the quad data which was retained
+ * when the chunk was built. This is much cheaper than rebuilding the chunk, since no blocks need to be rendered.
+ */
+public class ChunkBuilderSortingTask extends ChunkBuilderTask<ChunkBuildOutput> {
+    private final RenderSection render;
+    private final TerrainRenderPass pass;
+    private final TranslucentQuadData data;
+
+    private final float cameraX, cameraY, cameraZ;
+
+    private final int buildTime;
+
+    public ChunkBuilderSortingTask(RenderSection render, TerrainRenderPass pass, TranslucentQuadData data,
+                                   float cameraX, float cameraY, float cameraZ, int time) {
+        this.render = render;
+        this.pass = pass;
+        this.data = data;
+
+        this.cameraX = cameraX - render.getOriginX();
+        this.cameraY = cameraY - render.getOriginY();
+        this.cameraZ = cameraZ - render.getOriginZ();
+
+        this.buildTime = time;
+    }
+
+    @Override
+    public ChunkBuildOutput execute(ChunkBuildContext context, CancellationToken cancellationToken) {
+        if (cancellationToken.isCancelled()) {
+            return null;
+        }
+
+        var vertexRanges = new VertexRange[ModelQuadFacing.COUNT];
+        vertexRanges[ModelQuadFacing.UNASSIGNED.ordinal()] = new VertexRange(0, this.data.getQuadCount() * 4);
+
+        long start = context.timer.start();
+        var vertexData = this.data.sort(this.cameraX, this.cameraY, this.cameraZ);
+        context.timer.stop(ChunkBuildStage.SORTING, start);
+
+        var mesh = new BuiltSectionMeshParts(vertexData, vertexRanges, this.data);
+
+        return new ChunkSortOutput(this.render, this.pass, mesh, this.data, this.buildTime);
+    }
+
+    @Override
+    public float getPriority(Viewport viewport) {
+        var camera = viewport.getTransform();
+        return this.render.getSquaredDistance((float) camera.x, (float) camera.y, (float) camera.z);
+    }
+
+    @Override
+    public boolean isWithinFrustum(Viewport viewport) {
+        return OcclusionCuller.isWithinFrustum(viewport, this.render);
+    }
+}
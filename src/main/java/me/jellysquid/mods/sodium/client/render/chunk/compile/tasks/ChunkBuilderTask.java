@@ -1,6 +1,7 @@
 package me.jellysquid.mods.sodium.client.render.chunk.compile.tasks;
 
 import me.jellysquid.mods.sodium.client.render.chunk.compile.ChunkBuildContext;
+import me.jellysquid.mods.sodium.client.render.viewport.Viewport;
 import me.jellysquid.mods.sodium.client.util.task.CancellationToken;
 
 /**
@@ -24,4 +25,21 @@ public abstract class ChunkBuilderTask<OUTPUT> {
      *         if the task was cancelled.
      */
     public abstract OUTPUT execute(ChunkBuildContext context, CancellationToken cancellationToken);
+
+    /**
+     * Returns the scheduling priority of this task for the given viewport. This is called on the main thread whenever
+     * the viewport changes, and tasks with a lower value will be executed before those with a higher value within the
+     * same tier (see {@link #isWithinFrustum(Viewport)}).
+     *
+     * @param viewport The viewport of the camera which the world is being rendered from
+     */
+    public abstract float getPriority(Viewport viewport);
+
+    /**
+     * Returns whether the section of this task is within the view frustum. Tasks outside the frustum are always
+     * executed after those inside it, regardless of their priority.
+     *
+     * @param viewport The viewport of the camera which the world is being rendered from
+     */
+    public abstract boolean isWithinFrustum(Viewport viewport);
 }
@@ -0,0 +1,202 @@
+package me.jellysquid.mods.sodium.client.render.chunk.compute;
+
+import me.jellysquid.mods.sodium.client.render.chunk.lists.ChunkRenderList;
+import me.jellysquid.mods.sodium.client.render.chunk.region.RenderRegion;
+import me.jellysquid.mods.sodium.client.render.viewport.CameraTransform;
+import me.jellysquid.mods.sodium.client.util.iterator.ByteIterator;
+import org.joml.Matrix4f;
+import org.joml.Matrix4fc;
+import org.joml.Vector4f;
+import org.lwjgl.system.MemoryUtil;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * The inputs which are used to generate the draw commands for a render pass, which are kept in client memory so that
+ * they can be uploaded to the device as-is. Nothing in this class touches OpenGL state, so the same inputs can also be
+ * given to {@link ChunkCullingReference}.
+ *
+ * Each region is described by the following sequence of 32-bit integers:
+ *
+ * - SLOT: The slot of the region's mesh data in the {@link SectionDataMirror}
+ * - ORIGIN_X, ORIGIN_Y, ORIGIN_Z: The block position of the region's origin, relative to the camera's block position
+ *
+ * Each section is described by a single 32-bit integer, containing the index of its region (in the upper 24 bits) and
+ * its local index within the region (in the lower 8 bits).
+ */
+public class ChunkCullingInputs {
+    public static final int REGION_STRIDE = 4 * Integer.BYTES;
+    public static final int SECTION_STRIDE = Integer.BYTES;
+
+    public static final int FRUSTUM_PLANE_COUNT = 6;
+
+    private long pRegions;
+    private int regionCapacity;
+    private int regionCount;
+
+    // The client memory which the mesh data of each region is mirrored from
+    private long[] regionMeshData;
+
+    private long pSections;
+    private int sectionCapacity;
+    private int sectionCount;
+
+    private final float[] frustumPlanes = new float[FRUSTUM_PLANE_COUNT * 4];
+    private float cameraFracX, cameraFracY, cameraFracZ;
+
+    private boolean useBlockFaceCulling;
+
+    public ChunkCullingInputs() {
+        this.regionCapacity = 64;
+        this.pRegions = MemoryUtil.nmemAlloc((long) this.regionCapacity * REGION_STRIDE);
+        this.regionMeshData = new long[this.regionCapacity];
+
+        this.sectionCapacity = this.regionCapacity * RenderRegion.REGION_SIZE;
+        this.pSections = MemoryUtil.nmemAlloc((long) this.sectionCapacity * SECTION_STRIDE);
+    }
+
+    /**
+     * Clears the inputs and sets up the view which the sections will be culled against.
+     */
+    public void begin(Matrix4fc projection, Matrix4fc modelView, CameraTransform camera, boolean useBlockFaceCulling) {
+        this.regionCount = 0;
+        this.sectionCount = 0;
+
+        Matrix4f modelViewProjection = new Matrix4f(projection).mul(modelView);
+        Vector4f plane = new Vector4f();
+
+        for (int i = 0; i < FRUSTUM_PLANE_COUNT; i++) {
+            modelViewProjection.frustumPlane(i, plane);
+            plane.get(this.frustumPlanes, i * 4);
+        }
+
+        this.cameraFracX = camera.fracX;
+        this.cameraFracY = camera.fracY;
+        this.cameraFracZ = camera.fracZ;
+
+        this.useBlockFaceCulling = useBlockFaceCulling;
+    }
+
+    /**
+     * Adds a region and each section in its render list which has geometry.
+     *
+     * @param slot The slot of the region's mesh data in the {@link SectionDataMirror}
+     * @param pMeshData The client memory of the region's mesh data, see
+     * {@link me.jellysquid.mods.sodium.client.render.chunk.data.SectionRenderDataStorage#getDataPointer(int)}
+     * @return The index of the region, or -1 if it has no sections to add
+     */
+    public int addRegion(RenderRegion region, ChunkRenderList renderList, int slot, long pMeshData, CameraTransform camera) {
+        ByteIterator iterator = renderList.sectionsWithGeometryIterator(false);
+
+        if (iterator == null) {
+            return -1;
+        }
+
+        int regionIndex = this.regionCount++;
+        this.ensureRegionCapacity(this.regionCount);
+
+        long pRegion = this.pRegions + ((long) regionIndex * REGION_STRIDE);
+        MemoryUtil.memPutInt(pRegion + 0L, slot);
+        MemoryUtil.memPutInt(pRegion + 4L, region.getOriginX() - camera.intX);
+        MemoryUtil.memPutInt(pRegion + 8L, region.getOriginY() - camera.intY);
+        MemoryUtil.memPutInt(pRegion + 12L, region.getOriginZ() - camera.intZ);
+
+        this.regionMeshData[regionIndex] = pMeshData;
+
+        this.ensureSectionCapacity(this.sectionCount + renderList.getSectionsWithGeometryCount());
+
+        while (iterator.hasNext()) {
+            MemoryUtil.memPutInt(this.pSections + ((long) this.sectionCount++ * SECTION_STRIDE),
+                    (regionIndex << 8) | iterator.nextByteAsInt());
+        }
+
+        return regionIndex;
+    }
+
+    private void ensureRegionCapacity(int count) {
+        if (count > this.regionCapacity) {
+            this.regionCapacity = Math.max(this.regionCapacity * 2, count);
+            this.pRegions = MemoryUtil.nmemRealloc(this.pRegions, (long) this.regionCapacity * REGION_STRIDE);
+            this.regionMeshData = Arrays.copyOf(this.regionMeshData, this.regionCapacity);
+        }
+    }
+
+    private void ensureSectionCapacity(int count) {
+        if (count > this.sectionCapacity) {
+            this.sectionCapacity = Math.max(this.sectionCapacity * 2, count);
+            this.pSections = MemoryUtil.nmemRealloc(this.pSections, (long) this.sectionCapacity * SECTION_STRIDE);
+        }
+    }
+
+    public int getRegionSlot(int regionIndex) {
+        return MemoryUtil.memGetInt(this.pRegions + ((long) regionIndex * REGION_STRIDE) + 0L);
+    }
+
+    public int getRegionOriginX(int regionIndex) {
+        return MemoryUtil.memGetInt(this.pRegions + ((long) regionIndex * REGION_STRIDE) + 4L);
+    }
+
+    public int getRegionOriginY(int regionIndex) {
+        return MemoryUtil.memGetInt(this.pRegions + ((long) regionIndex * REGION_STRIDE) + 8L);
+    }
+
+    public int getRegionOriginZ(int regionIndex) {
+        return MemoryUtil.memGetInt(this.pRegions + ((long) regionIndex * REGION_STRIDE) + 12L);
+    }
+
+    public long getRegionMeshData(int regionIndex) {
+        return this.regionMeshData[regionIndex];
+    }
+
+    public int getSection(int index) {
+        return MemoryUtil.memGetInt(this.pSections + ((long) index * SECTION_STRIDE));
+    }
+
+    public ByteBuffer getRegionBuffer() {
+        return MemoryUtil.memByteBuffer(this.pRegions, this.regionCount * REGION_STRIDE);
+    }
+
+    public ByteBuffer getSectionBuffer() {
+        return MemoryUtil.memByteBuffer(this.pSections, this.sectionCount * SECTION_STRIDE);
+    }
+
+    public int getRegionCount() {
+        return this.regionCount;
+    }
+
+    public int getSectionCount() {
+        return this.sectionCount;
+    }
+
+    /**
+     * @return The planes of the view frustum, as a sequence of (A, B, C, D) coefficients in camera-relative space
+     */
+    public float[] getFrustumPlanes() {
+        return this.frustumPlanes;
+    }
+
+    public float getCameraFracX() {
+        return this.cameraFracX;
+    }
+
+    public float getCameraFracY() {
+        return this.cameraFracY;
+    }
+
+    public float getCameraFracZ() {
+        return this.cameraFracZ;
+    }
+
+    public boolean useBlockFaceCulling() {
+        return this.useBlockFaceCulling;
+    }
+
+    public void delete() {
+        MemoryUtil.nmemFree(this.pRegions);
+        MemoryUtil.nmemFree(this.pSections);
+
+        this.pRegions = MemoryUtil.NULL;
+        this.pSections = MemoryUtil.NULL;
+    }
+}
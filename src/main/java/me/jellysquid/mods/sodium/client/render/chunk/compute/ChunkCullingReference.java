@@ -0,0 +1,107 @@
+package me.jellysquid.mods.sodium.client.render.chunk.compute;
+
+import me.jellysquid.mods.sodium.client.gl.device.IndirectDrawBatch;
+import me.jellysquid.mods.sodium.client.model.quad.properties.ModelQuadFacing;
+import me.jellysquid.mods.sodium.client.render.chunk.LocalSectionIndex;
+import me.jellysquid.mods.sodium.client.render.chunk.data.SectionRenderDataUnsafe;
+import me.jellysquid.mods.sodium.client.util.BitwiseMath;
+
+/**
+ * A CPU implementation of the culling shader (see blocks/section_cull.csh), which produces the same draw commands from
+ * the same inputs. The only difference is that the commands are written in the order of the section list, whereas the
+ * shader may write them in any order. This is used to validate the output of the shader, so it should be kept in sync
+ * with it, rather than being optimized.
+ */
+public class ChunkCullingReference {
+    // Models can extend outside the bounds of their block by up to one block, see OcclusionCuller
+    public static final float SECTION_BOUNDS_PADDING = 1.0f + 0.125f;
+
+    /**
+     * Appends the draw commands for every section of the inputs which is visible to the batch.
+     */
+    public static void generate(ChunkCullingInputs inputs, IndirectDrawBatch batch) {
+        for (int index = 0; index < inputs.getSectionCount(); index++) {
+            int entry = inputs.getSection(index);
+
+            int regionIndex = entry >>> 8;
+            int sectionIndex = entry & 0xFF;
+
+            long pMeshData = SectionRenderDataUnsafe.heapPointer(inputs.getRegionMeshData(regionIndex), sectionIndex);
+            int sliceMask = SectionRenderDataUnsafe.getSliceMask(pMeshData);
+
+            int originX = inputs.getRegionOriginX(regionIndex) + (LocalSectionIndex.unpackX(sectionIndex) << 4);
+            int originY = inputs.getRegionOriginY(regionIndex) + (LocalSectionIndex.unpackY(sectionIndex) << 4);
+            int originZ = inputs.getRegionOriginZ(regionIndex) + (LocalSectionIndex.unpackZ(sectionIndex) << 4);
+
+            if (inputs.useBlockFaceCulling()) {
+                sliceMask &= getVisibleFaces(originX, originY, originZ);
+            }
+
+            if (sliceMask == 0 || !isInsideFrustum(inputs.getFrustumPlanes(),
+                    originX - inputs.getCameraFracX(),
+                    originY - inputs.getCameraFracY(),
+                    originZ - inputs.getCameraFracZ())) {
+                continue;
+            }
+
+            batch.reserve(ModelQuadFacing.COUNT);
+
+            int size = batch.size();
+
+            for (int facing = 0; facing < ModelQuadFacing.COUNT; facing++) {
+                if ((sliceMask & (1 << facing)) != 0) {
+                    batch.set(size++, SectionRenderDataUnsafe.getElementCount(pMeshData, facing),
+                            SectionRenderDataUnsafe.getVertexOffset(pMeshData, facing), regionIndex);
+                }
+            }
+
+            batch.setSize(size);
+        }
+    }
+
+    /**
+     * Equivalent to {@link me.jellysquid.mods.sodium.client.render.chunk.DefaultChunkRenderer}'s culling of block
+     * faces, but with the bounds of the section given relative to the camera's block position.
+     */
+    static int getVisibleFaces(int originX, int originY, int originZ) {
+        int planes = 1 << ModelQuadFacing.UNASSIGNED.ordinal();
+
+        planes |= BitwiseMath.lessThan(originX, 3) << ModelQuadFacing.POS_X.ordinal();
+        planes |= BitwiseMath.lessThan(originY, 3) << ModelQuadFacing.POS_Y.ordinal();
+        planes |= BitwiseMath.lessThan(originZ, 3) << ModelQuadFacing.POS_Z.ordinal();
+
+        planes |= BitwiseMath.greaterThan(originX + 16, -3) << ModelQuadFacing.NEG_X.ordinal();
+        planes |= BitwiseMath.greaterThan(originY + 16, -3) << ModelQuadFacing.NEG_Y.ordinal();
+        planes |= BitwiseMath.greaterThan(originZ + 16, -3) << ModelQuadFacing.NEG_Z.ordinal();
+
+        return planes;
+    }
+
+    /**
+     * @return True if the padded bounds of the section with the given camera-relative origin are not entirely outside
+     * any plane of the frustum
+     */
+    static boolean isInsideFrustum(float[] planes, float x, float y, float z) {
+        float minX = x - SECTION_BOUNDS_PADDING, maxX = x + 16.0f + SECTION_BOUNDS_PADDING;
+        float minY = y - SECTION_BOUNDS_PADDING, maxY = y + 16.0f + SECTION_BOUNDS_PADDING;
+        float minZ = z - SECTION_BOUNDS_PADDING, maxZ = z + 16.0f + SECTION_BOUNDS_PADDING;
+
+        for (int i = 0; i < planes.length; i += 4) {
+            float a = planes[i + 0];
+            float b = planes[i + 1];
+            float c = planes[i + 2];
+            float d = planes[i + 3];
+
+            // Test the corner of the box which is furthest along the plane's normal
+            float dist = (a * (a > 0.0f ? maxX : minX)) +
+                    (b * (b > 0.0f ? maxY : minY)) +
+                    (c * (c > 0.0f ? maxZ : minZ)) + d;
+
+            if (dist < 0.0f) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
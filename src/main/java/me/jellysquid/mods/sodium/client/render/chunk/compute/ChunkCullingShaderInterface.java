@@ -0,0 +1,44 @@
+package me.jellysquid.mods.sodium.client.render.chunk.compute;
+
+import me.jellysquid.mods.sodium.client.gl.shader.uniform.GlUniformFloat3v;
+import me.jellysquid.mods.sodium.client.gl.shader.uniform.GlUniformFloat4v;
+import me.jellysquid.mods.sodium.client.gl.shader.uniform.GlUniformInt;
+import me.jellysquid.mods.sodium.client.render.chunk.shader.ShaderBindingContext;
+
+/**
+ * The interface of the compute program which generates the draw commands for chunks, see blocks/section_cull.csh.
+ */
+public class ChunkCullingShaderInterface {
+    private final GlUniformFloat4v[] uniformFrustumPlanes = new GlUniformFloat4v[ChunkCullingInputs.FRUSTUM_PLANE_COUNT];
+    private final GlUniformFloat3v uniformCameraFraction;
+
+    private final GlUniformInt uniformSectionCount;
+    private final GlUniformInt uniformUseBlockFaceCulling;
+
+    private final float[] plane = new float[4];
+
+    public ChunkCullingShaderInterface(ShaderBindingContext context) {
+        for (int i = 0; i < this.uniformFrustumPlanes.length; i++) {
+            this.uniformFrustumPlanes[i] = context.bindUniform("u_FrustumPlanes[" + i + "]", GlUniformFloat4v::new);
+        }
+
+        this.uniformCameraFraction = context.bindUniform("u_CameraFraction", GlUniformFloat3v::new);
+
+        this.uniformSectionCount = context.bindUniform("u_SectionCount", GlUniformInt::new);
+        this.uniformUseBlockFaceCulling = context.bindUniform("u_UseBlockFaceCulling", GlUniformInt::new);
+    }
+
+    public void setInputs(ChunkCullingInputs inputs) {
+        float[] planes = inputs.getFrustumPlanes();
+
+        for (int i = 0; i < this.uniformFrustumPlanes.length; i++) {
+            System.arraycopy(planes, i * 4, this.plane, 0, 4);
+            this.uniformFrustumPlanes[i].set(this.plane);
+        }
+
+        this.uniformCameraFraction.set(inputs.getCameraFracX(), inputs.getCameraFracY(), inputs.getCameraFracZ());
+
+        this.uniformSectionCount.setInt(inputs.getSectionCount());
+        this.uniformUseBlockFaceCulling.setInt(inputs.useBlockFaceCulling() ? 1 : 0);
+    }
+}
@@ -0,0 +1,276 @@
+package me.jellysquid.mods.sodium.client.render.chunk.compute;
+
+import me.jellysquid.mods.sodium.client.gl.buffer.GlBuffer;
+import me.jellysquid.mods.sodium.client.gl.buffer.GlBufferTarget;
+import me.jellysquid.mods.sodium.client.gl.buffer.GlBufferUsage;
+import me.jellysquid.mods.sodium.client.gl.buffer.GlMutableBuffer;
+import me.jellysquid.mods.sodium.client.gl.device.CommandList;
+import me.jellysquid.mods.sodium.client.gl.device.IndirectDrawBatch;
+import me.jellysquid.mods.sodium.client.gl.device.RenderDevice;
+import me.jellysquid.mods.sodium.client.gl.func.GlFunctions;
+import me.jellysquid.mods.sodium.client.gl.shader.GlProgram;
+import me.jellysquid.mods.sodium.client.gl.shader.GlShader;
+import me.jellysquid.mods.sodium.client.gl.shader.ShaderConstants;
+import me.jellysquid.mods.sodium.client.gl.shader.ShaderLoader;
+import me.jellysquid.mods.sodium.client.gl.shader.ShaderType;
+import me.jellysquid.mods.sodium.client.model.quad.properties.ModelQuadFacing;
+import me.jellysquid.mods.sodium.client.render.chunk.ChunkRenderMatrices;
+import me.jellysquid.mods.sodium.client.render.chunk.data.SectionRenderDataStorage;
+import me.jellysquid.mods.sodium.client.render.chunk.lists.ChunkRenderList;
+import me.jellysquid.mods.sodium.client.render.chunk.region.RenderRegion;
+import me.jellysquid.mods.sodium.client.render.viewport.CameraTransform;
+import net.minecraft.util.Identifier;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.lwjgl.opengl.GL42C;
+import org.lwjgl.opengl.GLCapabilities;
+import org.lwjgl.system.MemoryUtil;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Generates the draw commands for the visible sections of a render pass on the device. The CPU only needs to write
+ * one integer for each section in the render lists (see {@link ChunkCullingInputs}), and a compute shader culls the
+ * faces and bounds of every section and writes the draw commands into a buffer, along with the number of commands.
+ * These can then be used directly by glMultiDrawElementsIndirectCount, without ever being read back.
+ *
+ * Since the commands are appended in whatever order the shader invocations finish, this can't be used for render
+ * passes which need their geometry to be drawn in a particular order.
+ *
+ * When the system property "sodium.debug.validate_gpu_culling" is set to true, the generated commands are read back
+ * and compared against {@link ChunkCullingReference} after every dispatch. This stalls the pipeline and is only meant
+ * for debugging.
+ */
+public class ComputeChunkCuller {
+    private static final Logger LOGGER = LogManager.getLogger(ComputeChunkCuller.class);
+
+    private static final boolean VALIDATE = Boolean.parseBoolean(System.getProperty("sodium.debug.validate_gpu_culling", "false"));
+
+    private static final int LOCAL_SIZE_X = 64;
+
+    private static final int BINDING_SECTION_DATA = 0;
+    private static final int BINDING_REGIONS = 1;
+    private static final int BINDING_SECTIONS = 2;
+    private static final int BINDING_COMMANDS = 3;
+    private static final int BINDING_COMMAND_COUNT = 4;
+
+    private final GlProgram<ChunkCullingShaderInterface> program;
+
+    private final ChunkCullingInputs inputs = new ChunkCullingInputs();
+    private final SectionDataMirror mirror;
+
+    private final GlMutableBuffer regionBuffer;
+    private final GlMutableBuffer sectionBuffer;
+    private final GlMutableBuffer commandBuffer;
+    private final GlMutableBuffer commandCountBuffer;
+
+    private final ByteBuffer zeroCount = MemoryUtil.memCalloc(1, Integer.BYTES);
+
+    private int pass;
+
+    public ComputeChunkCuller(CommandList commandList) {
+        this.program = createProgram();
+        this.mirror = new SectionDataMirror(commandList);
+
+        this.regionBuffer = commandList.createMutableBuffer();
+        this.sectionBuffer = commandList.createMutableBuffer();
+        this.commandBuffer = commandList.createMutableBuffer();
+
+        this.commandCountBuffer = commandList.createMutableBuffer();
+        commandList.allocateStorage(this.commandCountBuffer, Integer.BYTES, GlBufferUsage.DYNAMIC_COPY);
+    }
+
+    /**
+     * @return True if the device supports compute shaders, shader storage buffers, and draw commands whose count is
+     * read from a buffer
+     */
+    public static boolean isSupported(RenderDevice device) {
+        GLCapabilities capabilities = device.getCapabilities();
+
+        return capabilities.OpenGL43 && GlFunctions.isIndirectCountDrawSupported();
+    }
+
+    private static GlProgram<ChunkCullingShaderInterface> createProgram() {
+        ShaderConstants.Builder constants = ShaderConstants.builder();
+        constants.add("LOCAL_SIZE_X", String.valueOf(LOCAL_SIZE_X));
+        constants.add("REGION_SIZE", RenderRegion.REGION_SIZE + "u");
+        constants.add("SECTION_BOUNDS_PADDING", String.valueOf(ChunkCullingReference.SECTION_BOUNDS_PADDING));
+
+        GlShader shader = ShaderLoader.loadShader(ShaderType.COMPUTE,
+                new Identifier("sodium", "blocks/section_cull.csh"), constants.build());
+
+        try {
+            return GlProgram.builder(new Identifier("sodium", "chunk_culling"))
+                    .attachShader(shader)
+                    .link(ChunkCullingShaderInterface::new);
+        } finally {
+            shader.delete();
+        }
+    }
+
+    /**
+     * Starts collecting the sections for a render pass.
+     */
+    public void begin(ChunkRenderMatrices matrices, CameraTransform camera, boolean useBlockFaceCulling) {
+        this.inputs.begin(matrices.projection(), matrices.modelView(), camera, useBlockFaceCulling);
+        this.mirror.evict(++this.pass);
+    }
+
+    /**
+     * Adds the sections with geometry in the render list of a region, making sure that the mesh data of the region is
+     * available to the device.
+     *
+     * @return The index of the region, which is the base instance of its draw commands, or -1 if it wasn't added
+     */
+    public int addRegion(CommandList commandList, RenderRegion region, SectionRenderDataStorage storage,
+                         ChunkRenderList renderList, CameraTransform camera) {
+        if (renderList.getSectionsWithGeometryCount() == 0) {
+            return -1;
+        }
+
+        int slot = this.mirror.getSlot(commandList, storage, this.pass);
+
+        return this.inputs.addRegion(region, renderList, slot, storage.getDataPointer(0), camera);
+    }
+
+    public boolean isEmpty() {
+        return this.inputs.getSectionCount() == 0;
+    }
+
+    /**
+     * Generates the draw commands for the sections which have been added since {@link #begin}. The commands can be
+     * used by any draw which is submitted afterwards.
+     */
+    public void dispatch(CommandList commandList) {
+        int sectionCount = this.inputs.getSectionCount();
+
+        commandList.uploadData(this.regionBuffer, this.inputs.getRegionBuffer(), GlBufferUsage.STREAM_DRAW);
+        commandList.uploadData(this.sectionBuffer, this.inputs.getSectionBuffer(), GlBufferUsage.STREAM_DRAW);
+        commandList.uploadSubData(this.commandCountBuffer, 0, this.zeroCount);
+
+        long commandBufferSize = (long) this.getMaxCommandCount() * IndirectDrawBatch.COMMAND_STRIDE;
+
+        if (this.commandBuffer.getSize() < commandBufferSize) {
+            commandList.allocateStorage(this.commandBuffer, Math.max(commandBufferSize, this.commandBuffer.getSize() * 2),
+                    GlBufferUsage.DYNAMIC_COPY);
+        }
+
+        commandList.bindBufferBase(GlBufferTarget.SHADER_STORAGE_BUFFER, BINDING_SECTION_DATA, this.mirror.getBufferObject());
+        commandList.bindBufferBase(GlBufferTarget.SHADER_STORAGE_BUFFER, BINDING_REGIONS, this.regionBuffer);
+        commandList.bindBufferBase(GlBufferTarget.SHADER_STORAGE_BUFFER, BINDING_SECTIONS, this.sectionBuffer);
+        commandList.bindBufferBase(GlBufferTarget.SHADER_STORAGE_BUFFER, BINDING_COMMANDS, this.commandBuffer);
+        commandList.bindBufferBase(GlBufferTarget.SHADER_STORAGE_BUFFER, BINDING_COMMAND_COUNT, this.commandCountBuffer);
+
+        this.program.bind();
+        this.program.getInterface()
+                .setInputs(this.inputs);
+
+        commandList.dispatchCompute((sectionCount + LOCAL_SIZE_X - 1) / LOCAL_SIZE_X, 1, 1);
+
+        this.program.unbind();
+
+        commandList.memoryBarrier(GL42C.GL_COMMAND_BARRIER_BIT);
+
+        if (VALIDATE) {
+            this.validate(commandList);
+        }
+    }
+
+    private void validate(CommandList commandList) {
+        commandList.memoryBarrier(GL42C.GL_BUFFER_UPDATE_BARRIER_BIT);
+
+        ByteBuffer countBuffer = MemoryUtil.memAlloc(Integer.BYTES);
+        ByteBuffer commandBuffer = MemoryUtil.memAlloc(this.getMaxCommandCount() * IndirectDrawBatch.COMMAND_STRIDE);
+
+        IndirectDrawBatch expected = new IndirectDrawBatch(this.getMaxCommandCount());
+
+        try {
+            commandList.downloadSubData(this.commandCountBuffer, 0, countBuffer);
+
+            int count = countBuffer.getInt(0);
+
+            if (count < 0 || count > this.getMaxCommandCount()) {
+                LOGGER.error("GPU culling produced an invalid number of draw commands: {} (max {})", count, this.getMaxCommandCount());
+                return;
+            }
+
+            commandBuffer.limit(count * IndirectDrawBatch.COMMAND_STRIDE);
+            commandList.downloadSubData(this.commandBuffer, 0, commandBuffer);
+
+            ChunkCullingReference.generate(this.inputs, expected);
+
+            List<Command> actualCommands = readCommands(commandBuffer, count);
+            List<Command> expectedCommands = readCommands(expected.getBuffer(), expected.size());
+
+            if (!actualCommands.equals(expectedCommands)) {
+                LOGGER.error("GPU culling produced {} draw commands which don't match the {} commands of the reference implementation",
+                        actualCommands.size(), expectedCommands.size());
+            }
+        } finally {
+            expected.delete();
+
+            MemoryUtil.memFree(countBuffer);
+            MemoryUtil.memFree(commandBuffer);
+        }
+    }
+
+    private static List<Command> readCommands(ByteBuffer buffer, int count) {
+        var commands = new ArrayList<Command>(count);
+
+        for (int i = 0; i < count; i++) {
+            int offset = i * IndirectDrawBatch.COMMAND_STRIDE;
+
+            commands.add(new Command(buffer.getInt(offset + 0), buffer.getInt(offset + 4), buffer.getInt(offset + 8),
+                    buffer.getInt(offset + 12), buffer.getInt(offset + 16)));
+        }
+
+        // The shader doesn't write commands in a stable order, but the meshes of every section are stored in separate
+        // ranges of the geometry heap, so the base vertex of each command is unique
+        commands.sort(Comparator.comparingInt(Command::baseVertex));
+
+        return commands;
+    }
+
+    public int getRegionCount() {
+        return this.inputs.getRegionCount();
+    }
+
+    public int getMaxCommandCount() {
+        return this.inputs.getSectionCount() * ModelQuadFacing.COUNT;
+    }
+
+    /**
+     * @return An upper bound of the number of elements in any draw command, used to size the index buffer
+     */
+    public int getMaxElementCount() {
+        return this.mirror.getMaxElementCount();
+    }
+
+    public GlBuffer getCommandBuffer() {
+        return this.commandBuffer;
+    }
+
+    public GlBuffer getCommandCountBuffer() {
+        return this.commandCountBuffer;
+    }
+
+    public void delete(CommandList commandList) {
+        this.program.delete();
+        this.mirror.delete(commandList);
+        this.inputs.delete();
+
+        commandList.deleteBuffer(this.regionBuffer);
+        commandList.deleteBuffer(this.sectionBuffer);
+        commandList.deleteBuffer(this.commandBuffer);
+        commandList.deleteBuffer(this.commandCountBuffer);
+
+        MemoryUtil.memFree(this.zeroCount);
+    }
+
+    private record Command(int count, int instanceCount, int firstIndex, int baseVertex, int baseInstance) {
+
+    }
+}
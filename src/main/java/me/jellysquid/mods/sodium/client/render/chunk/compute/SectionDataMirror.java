@@ -0,0 +1,161 @@
+package me.jellysquid.mods.sodium.client.render.chunk.compute;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.objects.Reference2ReferenceOpenHashMap;
+import me.jellysquid.mods.sodium.client.gl.buffer.GlBuffer;
+import me.jellysquid.mods.sodium.client.gl.buffer.GlBufferUsage;
+import me.jellysquid.mods.sodium.client.gl.buffer.GlMutableBuffer;
+import me.jellysquid.mods.sodium.client.gl.device.CommandList;
+import me.jellysquid.mods.sodium.client.model.quad.properties.ModelQuadFacing;
+import me.jellysquid.mods.sodium.client.render.chunk.data.SectionRenderDataStorage;
+import me.jellysquid.mods.sodium.client.render.chunk.data.SectionRenderDataUnsafe;
+import me.jellysquid.mods.sodium.client.render.chunk.region.RenderRegion;
+import org.lwjgl.system.MemoryUtil;
+
+/**
+ * Keeps a copy of the mesh data of each {@link SectionRenderDataStorage} in a device buffer, so that the culling shader
+ * can read it without the mesh data being uploaded every frame. Each storage is given a fixed-size slot in the buffer,
+ * which is only re-uploaded after the storage has been modified.
+ *
+ * Storages aren't notified when their region is deleted, so slots which haven't been used for a while are released
+ * by {@link #evict(int)} instead.
+ */
+public class SectionDataMirror {
+    private static final long SLOT_SIZE = RenderRegion.REGION_SIZE * SectionRenderDataUnsafe.STRIDE;
+
+    // The number of culling passes which a slot can go unused for before it is released
+    private static final int MAX_SLOT_AGE = 120;
+
+    private final Reference2ReferenceOpenHashMap<SectionRenderDataStorage, Slot> slots = new Reference2ReferenceOpenHashMap<>();
+    private final IntArrayList freeSlots = new IntArrayList();
+
+    private GlMutableBuffer buffer;
+    private int slotCapacity;
+
+    // The largest element count of any mesh which has been uploaded, used to size the shared index buffer
+    private int maxElementCount;
+
+    public SectionDataMirror(CommandList commandList) {
+        this.slotCapacity = 64;
+
+        this.buffer = commandList.createMutableBuffer();
+        commandList.allocateStorage(this.buffer, this.slotCapacity * SLOT_SIZE, GlBufferUsage.DYNAMIC_DRAW);
+
+        for (int slot = this.slotCapacity - 1; slot >= 0; slot--) {
+            this.freeSlots.add(slot);
+        }
+    }
+
+    /**
+     * Returns the slot of the storage, allocating one if needed, and uploads the storage's mesh data if the copy in the
+     * slot is out of date.
+     */
+    public int getSlot(CommandList commandList, SectionRenderDataStorage storage, int pass) {
+        Slot slot = this.slots.get(storage);
+
+        if (slot == null) {
+            this.slots.put(storage, slot = new Slot(this.allocateSlot(commandList)));
+        }
+
+        if (!slot.uploaded || slot.version != storage.getVersion()) {
+            long pMeshData = storage.getDataPointer(0);
+
+            commandList.uploadSubData(this.buffer, slot.index * SLOT_SIZE, MemoryUtil.memByteBuffer(pMeshData, (int) SLOT_SIZE));
+
+            this.maxElementCount = Math.max(this.maxElementCount, getMaxElementCount(pMeshData));
+
+            slot.version = storage.getVersion();
+            slot.uploaded = true;
+        }
+
+        slot.lastUsedPass = pass;
+
+        return slot.index;
+    }
+
+    /**
+     * Releases the slots which haven't been used since the culling pass {@param pass} - {@link #MAX_SLOT_AGE}.
+     */
+    public void evict(int pass) {
+        var it = this.slots.values()
+                .iterator();
+
+        while (it.hasNext()) {
+            Slot slot = it.next();
+
+            if (pass - slot.lastUsedPass > MAX_SLOT_AGE) {
+                this.freeSlots.add(slot.index);
+                it.remove();
+            }
+        }
+    }
+
+    private int allocateSlot(CommandList commandList) {
+        if (this.freeSlots.isEmpty()) {
+            this.grow(commandList);
+        }
+
+        return this.freeSlots.popInt();
+    }
+
+    private void grow(CommandList commandList) {
+        int prevCapacity = this.slotCapacity;
+        int newCapacity = prevCapacity * 2;
+
+        GlMutableBuffer prevBuffer = this.buffer;
+        GlMutableBuffer newBuffer = commandList.createMutableBuffer();
+
+        commandList.allocateStorage(newBuffer, newCapacity * SLOT_SIZE, GlBufferUsage.DYNAMIC_DRAW);
+        commandList.copyBufferSubData(prevBuffer, newBuffer, 0, 0, prevCapacity * SLOT_SIZE);
+        commandList.deleteBuffer(prevBuffer);
+
+        for (int slot = newCapacity - 1; slot >= prevCapacity; slot--) {
+            this.freeSlots.add(slot);
+        }
+
+        this.buffer = newBuffer;
+        this.slotCapacity = newCapacity;
+    }
+
+    private static int getMaxElementCount(long pMeshDataArray) {
+        int max = 0;
+
+        for (int sectionIndex = 0; sectionIndex < RenderRegion.REGION_SIZE; sectionIndex++) {
+            long pMeshData = SectionRenderDataUnsafe.heapPointer(pMeshDataArray, sectionIndex);
+
+            for (int facing = 0; facing < ModelQuadFacing.COUNT; facing++) {
+                max = Math.max(max, SectionRenderDataUnsafe.getElementCount(pMeshData, facing));
+            }
+        }
+
+        return max;
+    }
+
+    public GlBuffer getBufferObject() {
+        return this.buffer;
+    }
+
+    public int getMaxElementCount() {
+        return this.maxElementCount;
+    }
+
+    public void delete(CommandList commandList) {
+        commandList.deleteBuffer(this.buffer);
+
+        this.slots.clear();
+        this.freeSlots.clear();
+    }
+
+    private static class Slot {
+        private final int index;
+
+        private int version;
+        private boolean uploaded;
+
+        private int lastUsedPass;
+
+        private Slot(int index) {
+            this.index = index;
+        }
+    }
+}
@@ -29,11 +29,17 @@ public class BuiltSectionInfo {
     public final BlockEntity @Nullable[] culledBlockEntities;
     public final Sprite @Nullable[] animatedSprites;
 
+    // The number of block faces which were merged by greedy meshing, and the number of quads they were merged into
+    public final int mergedFaceCount;
+    public final int mergedQuadCount;
+
     private BuiltSectionInfo(@NotNull Collection<TerrainRenderPass> blockRenderPasses,
                              @NotNull Collection<BlockEntity> globalBlockEntities,
                              @NotNull Collection<BlockEntity> culledBlockEntities,
                              @NotNull Collection<Sprite> animatedSprites,
-                             @NotNull ChunkOcclusionData occlusionData) {
+                             long visibilityData,
+                             int mergedFaceCount,
+                             int mergedQuadCount) {
         this.globalBlockEntities = toArray(globalBlockEntities, BlockEntity[]::new);
         this.culledBlockEntities = toArray(culledBlockEntities, BlockEntity[]::new);
         this.animatedSprites = toArray(animatedSprites, Sprite[]::new);
@@ -54,7 +60,10 @@ public class BuiltSectionInfo {
 
         this.flags = flags;
 
-        this.visibilityData = VisibilityEncoding.encode(occlusionData);
+        this.visibilityData = visibilityData;
+
+        this.mergedFaceCount = mergedFaceCount;
+        this.mergedQuadCount = mergedQuadCount;
     }
 
     public static class Builder {
@@ -63,14 +72,25 @@ public class BuiltSectionInfo {
         private final List<BlockEntity> culledBlockEntities = new ArrayList<>();
         private final Set<Sprite> animatedSprites = new ObjectOpenHashSet<>();
 
-        private ChunkOcclusionData occlusionData;
+        private long visibilityData;
+
+        private int mergedFaceCount;
+        private int mergedQuadCount;
 
         public void addRenderPass(TerrainRenderPass pass) {
             this.blockRenderPasses.add(pass);
         }
 
         public void setOcclusionData(ChunkOcclusionData data) {
-            this.occlusionData = data;
+            this.visibilityData = VisibilityEncoding.encode(data);
+        }
+
+        /**
+         * Sets the visibility data directly from its encoded form, such as when it was restored from the mesh cache.
+         * @param visibilityData The visibility data, as encoded by {@link VisibilityEncoding}
+         */
+        public void setVisibilityData(long visibilityData) {
+            this.visibilityData = visibilityData;
         }
 
         /**
@@ -93,8 +113,19 @@ public class BuiltSectionInfo {
             (cull ? this.culledBlockEntities : this.globalBlockEntities).add(entity);
         }
 
+        /**
+         * Records the geometry which was produced by greedy meshing, which is only used for debug statistics.
+         * @param faceCount The number of block faces which were merged
+         * @param quadCount The number of quads which the faces were merged into
+         */
+        public void addMergedQuads(int faceCount, int quadCount) {
+            this.mergedFaceCount += faceCount;
+            this.mergedQuadCount += quadCount;
+        }
+
         public BuiltSectionInfo build() {
-            return new BuiltSectionInfo(this.blockRenderPasses, this.globalBlockEntities, this.culledBlockEntities, this.animatedSprites, this.occlusionData);
+            return new BuiltSectionInfo(this.blockRenderPasses, this.globalBlockEntities, this.culledBlockEntities, this.animatedSprites, this.visibilityData,
+                    this.mergedFaceCount, this.mergedQuadCount);
         }
     }
 
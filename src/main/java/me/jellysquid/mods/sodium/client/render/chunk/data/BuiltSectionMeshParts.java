@@ -1,22 +1,95 @@
 package me.jellysquid.mods.sodium.client.render.chunk.data;
 
+import me.jellysquid.mods.sodium.client.gl.arena.PendingUpload;
+import me.jellysquid.mods.sodium.client.gl.arena.staging.StagingAllocation;
+import me.jellysquid.mods.sodium.client.gl.arena.staging.StagingBuffer;
 import me.jellysquid.mods.sodium.client.gl.util.VertexRange;
 import me.jellysquid.mods.sodium.client.util.NativeBuffer;
+import org.jetbrains.annotations.Nullable;
 
 public class BuiltSectionMeshParts {
     private final VertexRange[] ranges;
-    private final NativeBuffer buffer;
+    private final int length;
+
+    // Exactly one of these is set, depending on whether the vertex data has been moved into a staging buffer
+    private NativeBuffer buffer;
+    private StagingAllocation stagedBuffer;
+
+    @Nullable
+    private final TranslucentQuadData translucentData;
 
     public BuiltSectionMeshParts(NativeBuffer buffer, VertexRange[] ranges) {
+        this(buffer, ranges, null);
+    }
+
+    public BuiltSectionMeshParts(NativeBuffer buffer, VertexRange[] ranges, @Nullable TranslucentQuadData translucentData) {
         this.ranges = ranges;
         this.buffer = buffer;
+        this.length = buffer.getLength();
+        this.translucentData = translucentData;
+    }
+
+    /**
+     * Tries to move the vertex data into space allocated from the staging buffer, so that it doesn't need to be
+     * copied again when it is uploaded. If successful, the client memory of the vertex data is freed. This can be
+     * called from any thread which owns the mesh.
+     *
+     * @return True if the vertex data was moved into the staging buffer
+     */
+    public boolean stage(StagingBuffer stagingBuffer) {
+        if (this.buffer == null) {
+            return true;
+        }
+
+        StagingAllocation allocation = stagingBuffer.allocate(this.length);
+
+        if (allocation == null) {
+            return false;
+        }
+
+        allocation.write(this.buffer.getDirectBuffer());
+
+        this.buffer.free();
+        this.buffer = null;
+
+        this.stagedBuffer = allocation;
+
+        return true;
     }
 
-    public NativeBuffer getVertexData() {
+    /**
+     * @return The vertex data in client memory, or null if it has been moved into a staging buffer by
+     * {@link #stage(StagingBuffer)}
+     */
+    public @Nullable NativeBuffer getVertexData() {
         return this.buffer;
     }
 
+    public int getVertexDataLength() {
+        return this.length;
+    }
+
+    public PendingUpload createUpload() {
+        return this.buffer != null ? new PendingUpload(this.buffer) : new PendingUpload(this.stagedBuffer);
+    }
+
     public VertexRange[] getVertexRanges() {
         return this.ranges;
     }
+
+    /**
+     * Returns the data needed to re-sort this mesh when the camera moves, or null if the mesh is not sorted.
+     */
+    public @Nullable TranslucentQuadData getTranslucentData() {
+        return this.translucentData;
+    }
+
+    public void delete() {
+        if (this.buffer != null) {
+            this.buffer.free();
+        } else {
+            // Does nothing if the copy has already been submitted
+            this.stagedBuffer.release();
+        }
+    }
 }
@@ -12,6 +12,9 @@ public class SectionRenderDataStorage {
 
     private final long pMeshDataArray;
 
+    // Incremented whenever the mesh data of any section changes, so that copies of it can be kept up to date
+    private int version;
+
     public SectionRenderDataStorage() {
         this.pMeshDataArray = SectionRenderDataUnsafe.allocateHeap(RenderRegion.REGION_SIZE);
     }
@@ -51,6 +54,8 @@ public class SectionRenderDataStorage {
         }
 
         SectionRenderDataUnsafe.setSliceMask(pMeshData, sliceMask);
+
+        this.version++;
     }
 
     public void removeMeshes(int localSectionIndex) {
@@ -62,6 +67,8 @@ public class SectionRenderDataStorage {
         this.allocations[localSectionIndex] = null;
 
         SectionRenderDataUnsafe.clear(this.getDataPointer(localSectionIndex));
+
+        this.version++;
     }
 
     public void onBufferResized() {
@@ -80,12 +87,23 @@ public class SectionRenderDataStorage {
         var offset = allocation.getOffset();
         var data = this.getDataPointer(sectionIndex);
 
+        // Most segments don't move when the buffer is compacted, and they shouldn't be treated as modified
+        if (SectionRenderDataUnsafe.getVertexOffset(data, 0) == offset) {
+            return;
+        }
+
         for (int facing = 0; facing < ModelQuadFacing.COUNT; facing++) {
             SectionRenderDataUnsafe.setVertexOffset(data, facing, offset);
 
             var count = SectionRenderDataUnsafe.getElementCount(data, facing);
             offset += (count / 6) * 4; // convert elements back into vertices
         }
+
+        this.version++;
+    }
+
+    public int getVersion() {
+        return this.version;
     }
 
     public long getDataPointer(int sectionIndex) {
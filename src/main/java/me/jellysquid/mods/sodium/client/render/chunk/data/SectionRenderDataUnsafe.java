@@ -18,7 +18,7 @@ public class SectionRenderDataUnsafe {
     private static final long OFFSET_SLICE_MASK = 0;
     private static final long OFFSET_SLICE_RANGES = 8;
 
-    private static final long STRIDE = 64;
+    public static final long STRIDE = 64;
 
     public static long allocateHeap(int count) {
         return MemoryUtil.nmemCalloc(count, STRIDE);
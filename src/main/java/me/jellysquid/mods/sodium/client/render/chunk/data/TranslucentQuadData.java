@@ -0,0 +1,100 @@
+package me.jellysquid.mods.sodium.client.render.chunk.data;
+
+import me.jellysquid.mods.sodium.client.util.NativeBuffer;
+import me.jellysquid.mods.sodium.client.util.sorting.RadixSort;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The unsorted geometry of a translucent mesh, along with the center point of every quad in it. This is kept around
+ * after a section is built so that the mesh can be re-sorted on a worker thread when the camera moves, without needing
+ * to rebuild the section. Instances are immutable and can be shared freely between threads.
+ */
+public class TranslucentQuadData {
+    private static final int VERTICES_PER_QUAD = 4;
+
+    private final byte[] vertexData;
+    private final float[] centroids;
+
+    private final int vertexStride;
+    private final int quadStride;
+    private final int quadCount;
+
+    public TranslucentQuadData(ByteBuffer vertexData, float[] centroids, int vertexStride) {
+        this(copyOf(vertexData), centroids, vertexStride);
+    }
+
+    /**
+     * Creates the translucent data from existing arrays, which are not copied and must not be modified afterwards.
+     */
+    public TranslucentQuadData(byte[] vertexData, float[] centroids, int vertexStride) {
+        this.vertexStride = vertexStride;
+        this.quadStride = vertexStride * VERTICES_PER_QUAD;
+        this.quadCount = vertexData.length / this.quadStride;
+
+        if (centroids.length != this.quadCount * 3) {
+            throw new IllegalArgumentException("Centroid count does not match the number of quads");
+        }
+
+        this.vertexData = vertexData;
+        this.centroids = centroids;
+    }
+
+    private static byte[] copyOf(ByteBuffer buffer) {
+        var array = new byte[buffer.remaining()];
+        buffer.get(buffer.position(), array);
+
+        return array;
+    }
+
+    /**
+     * Creates a copy of the vertex data with the quads ordered from furthest to nearest relative to the given
+     * position. The position is relative to the origin of the section.
+     */
+    public NativeBuffer sort(float cameraX, float cameraY, float cameraZ) {
+        final var centroids = this.centroids;
+        final var keys = new int[this.quadCount];
+
+        for (int quadIndex = 0; quadIndex < this.quadCount; quadIndex++) {
+            float dx = centroids[(quadIndex * 3) + 0] - cameraX;
+            float dy = centroids[(quadIndex * 3) + 1] - cameraY;
+            float dz = centroids[(quadIndex * 3) + 2] - cameraZ;
+
+            // The distance is negated so that the furthest quads come first
+            keys[quadIndex] = RadixSort.Floats.createRadixKey(-((dx * dx) + (dy * dy) + (dz * dz)));
+        }
+
+        var order = RadixSort.sort(keys);
+
+        var buffer = new NativeBuffer(this.vertexData.length);
+        var dst = buffer.getDirectBuffer();
+
+        for (int quadIndex = 0; quadIndex < this.quadCount; quadIndex++) {
+            dst.put(quadIndex * this.quadStride, this.vertexData, order[quadIndex] * this.quadStride, this.quadStride);
+        }
+
+        return buffer;
+    }
+
+    public int getQuadCount() {
+        return this.quadCount;
+    }
+
+    /**
+     * Returns the unsorted vertex data. The returned array must not be modified.
+     */
+    public byte[] getVertexData() {
+        return this.vertexData;
+    }
+
+    /**
+     * Returns the center point of each quad, as three floats per quad. The returned array must not be modified.
+     */
+    public float[] getCentroids() {
+        return this.centroids;
+    }
+
+    public int getVertexStride() {
+        return this.vertexStride;
+    }
+}
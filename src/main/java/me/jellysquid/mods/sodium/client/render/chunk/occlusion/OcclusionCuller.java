@@ -1,26 +1,46 @@
 package me.jellysquid.mods.sodium.client.render.chunk.occlusion;
 
-import it.unimi.dsi.fastutil.longs.Long2ReferenceMap;
 import me.jellysquid.mods.sodium.client.render.chunk.RenderSection;
+import me.jellysquid.mods.sodium.client.render.chunk.SectionTable;
+import me.jellysquid.mods.sodium.client.render.chunk.region.RenderRegion;
 import me.jellysquid.mods.sodium.client.render.viewport.CameraTransform;
 import me.jellysquid.mods.sodium.client.render.viewport.Viewport;
+import me.jellysquid.mods.sodium.client.render.viewport.frustum.Frustum;
 import me.jellysquid.mods.sodium.client.util.collections.DoubleBufferedQueue;
 import me.jellysquid.mods.sodium.client.util.collections.ReadQueue;
 import me.jellysquid.mods.sodium.client.util.collections.WriteQueue;
 import net.minecraft.util.math.ChunkSectionPos;
 import net.minecraft.util.math.MathHelper;
 import net.minecraft.world.World;
-import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 public class OcclusionCuller {
-    private final Long2ReferenceMap<RenderSection> sections;
+    // The minimum number of sections in a wavefront before the visibility tests are split across threads
+    private static final int PARALLEL_THRESHOLD = 1024;
+
+    // The number of sections which are tested by each parallel task
+    private static final int PARALLEL_BATCH_SIZE = 256;
+
+    private final SectionTable sections;
     private final World world;
 
     private final DoubleBufferedQueue<RenderSection> queue = new DoubleBufferedQueue<>();
 
-    public OcclusionCuller(Long2ReferenceMap<RenderSection> sections, World world) {
+    private final boolean useParallelSearch;
+
+    // The results of the visibility tests for the wavefront which is currently being processed
+    private boolean[] visibilityResults = new boolean[PARALLEL_THRESHOLD];
+
+    // Identifies the current search in the frustum test results which are cached on each render region. This is
+    // never zero, so that the initial state of a region never matches a search.
+    private int searchId;
+
+    public OcclusionCuller(SectionTable sections, World world, boolean useParallelSearch) {
         this.sections = sections;
         this.world = world;
+        this.useParallelSearch = useParallelSearch;
     }
 
     public void findVisible(Visitor visitor,
@@ -32,10 +52,50 @@ public class OcclusionCuller {
         final var queues = this.queue;
         queues.reset();
 
+        this.searchId = (this.searchId & SEARCH_ID_MASK) + 1;
+
         this.init(visitor, queues.write(), viewport, searchDistance, useOcclusionCulling, frame);
 
         while (queues.flip()) {
-            processQueue(visitor, viewport, searchDistance, useOcclusionCulling, frame, queues.read(), queues.write());
+            if (this.useParallelSearch) {
+                this.processQueueParallel(visitor, viewport, searchDistance, useOcclusionCulling, frame, this.searchId, queues.read(), queues.write());
+            } else {
+                processQueue(visitor, viewport, searchDistance, useOcclusionCulling, frame, this.searchId, queues.read(), queues.write());
+            }
+        }
+    }
+
+    // The visibility tests (render distance and frustum) are the most expensive part of processing each section, and
+    // they only depend on the section and the viewport. So we can run them for the whole wavefront in parallel, and
+    // then walk the wavefront in order to visit the neighbors of each section. This produces exactly the same visible
+    // set and ordering as the single-threaded search.
+    private void processQueueParallel(Visitor visitor,
+                                      Viewport viewport,
+                                      float searchDistance,
+                                      boolean useOcclusionCulling,
+                                      int frame,
+                                      int searchId,
+                                      ReadQueue<RenderSection> readQueue,
+                                      WriteQueue<RenderSection> writeQueue)
+    {
+        final int count = readQueue.size();
+
+        if (count < PARALLEL_THRESHOLD) {
+            processQueue(visitor, viewport, searchDistance, useOcclusionCulling, frame, searchId, readQueue, writeQueue);
+            return;
+        }
+
+        if (this.visibilityResults.length < count) {
+            this.visibilityResults = new boolean[Math.max(count, this.visibilityResults.length * 2)];
+        }
+
+        final var results = this.visibilityResults;
+
+        ForkJoinPool.commonPool()
+                .invoke(new VisibilityTestTask(readQueue, results, 0, count, viewport, searchDistance, searchId));
+
+        for (int i = 0; i < count; i++) {
+            processSection(visitor, viewport, useOcclusionCulling, frame, readQueue.dequeue(), results[i], writeQueue);
         }
     }
 
@@ -44,50 +104,64 @@ public class OcclusionCuller {
                                      float searchDistance,
                                      boolean useOcclusionCulling,
                                      int frame,
+                                     int searchId,
                                      ReadQueue<RenderSection> readQueue,
                                      WriteQueue<RenderSection> writeQueue)
     {
         RenderSection section;
 
         while ((section = readQueue.dequeue()) != null) {
-            boolean visible = isSectionVisible(section, viewport, searchDistance);
-            visitor.visit(section, visible);
+            processSection(visitor, viewport, useOcclusionCulling, frame, section,
+                    isSectionVisible(section, viewport, searchDistance, searchId), writeQueue);
+        }
+    }
 
-            if (!visible) {
-                continue;
-            }
+    private static void processSection(Visitor visitor,
+                                       Viewport viewport,
+                                       boolean useOcclusionCulling,
+                                       int frame,
+                                       RenderSection section,
+                                       boolean visible,
+                                       WriteQueue<RenderSection> writeQueue)
+    {
+        visitor.visit(section, visible);
 
-            int connections;
-
-            {
-                if (useOcclusionCulling) {
-                    // When using occlusion culling, we can only traverse into neighbors for which there is a path of
-                    // visibility through this chunk. This is determined by taking all the incoming paths to this chunk and
-                    // creating a union of the outgoing paths from those.
-                    connections = VisibilityEncoding.getConnections(section.getVisibilityData(), section.getIncomingDirections());
-                } else {
-                    // Not using any occlusion culling, so traversing in any direction is legal.
-                    connections = GraphDirectionSet.ALL;
-                }
+        if (!visible) {
+            return;
+        }
 
-                // We can only traverse *outwards* from the center of the graph search, so mask off any invalid
-                // directions.
-                connections &= getOutwardDirections(viewport.getChunkCoord(), section);
+        int connections;
+
+        {
+            if (useOcclusionCulling) {
+                // When using occlusion culling, we can only traverse into neighbors for which there is a path of
+                // visibility through this chunk. This is determined by taking all the incoming paths to this chunk and
+                // creating a union of the outgoing paths from those.
+                connections = VisibilityEncoding.getConnections(section.getVisibilityData(), section.getIncomingDirections());
+            } else {
+                // Not using any occlusion culling, so traversing in any direction is legal.
+                connections = GraphDirectionSet.ALL;
             }
 
-            visitNeighbors(writeQueue, section, connections, frame);
+            // We can only traverse *outwards* from the center of the graph search, so mask off any invalid
+            // directions.
+            connections &= getOutwardDirections(viewport.getChunkCoord(), section);
         }
+
+        visitNeighbors(writeQueue, section, connections, frame);
     }
 
-    private static boolean isSectionVisible(RenderSection section, Viewport viewport, float maxDistance) {
-        return isWithinRenderDistance(viewport.getTransform(), section, maxDistance) && isWithinFrustum(viewport, section);
+    private static boolean isSectionVisible(RenderSection section, Viewport viewport, float maxDistance, int searchId) {
+        return isWithinRenderDistance(viewport.getTransform(), section, maxDistance) && isWithinFrustum(viewport, section, searchId);
     }
 
     private static void visitNeighbors(final WriteQueue<RenderSection> queue, RenderSection section, int outgoing, int frame) {
+        final var table = section.getTable();
+        final int id = section.getId();
+
         // Only traverse into neighbors which are actually present.
-        // This avoids a null-check on each invocation to enqueue, and since the compiler will see that a null
-        // is never encountered (after profiling), it will optimize it away.
-        outgoing &= section.getAdjacentMask();
+        // This avoids a check for absent neighbors on each invocation to enqueue.
+        outgoing &= table.getAdjacentMask(id);
 
         // Check if there are any valid connections left, and if not, early-exit.
         if (outgoing == GraphDirectionSet.NONE) {
@@ -97,42 +171,24 @@ public class OcclusionCuller {
         // This helps the compiler move the checks for some invariants upwards.
         queue.ensureCapacity(6);
 
-        if (GraphDirectionSet.contains(outgoing, GraphDirection.DOWN)) {
-            visitNode(queue, section.adjacentDown, GraphDirectionSet.of(GraphDirection.UP), frame);
-        }
-
-        if (GraphDirectionSet.contains(outgoing, GraphDirection.UP)) {
-            visitNode(queue, section.adjacentUp, GraphDirectionSet.of(GraphDirection.DOWN), frame);
-        }
-
-        if (GraphDirectionSet.contains(outgoing, GraphDirection.NORTH)) {
-            visitNode(queue, section.adjacentNorth, GraphDirectionSet.of(GraphDirection.SOUTH), frame);
-        }
-
-        if (GraphDirectionSet.contains(outgoing, GraphDirection.SOUTH)) {
-            visitNode(queue, section.adjacentSouth, GraphDirectionSet.of(GraphDirection.NORTH), frame);
-        }
-
-        if (GraphDirectionSet.contains(outgoing, GraphDirection.WEST)) {
-            visitNode(queue, section.adjacentWest, GraphDirectionSet.of(GraphDirection.EAST), frame);
-        }
-
-        if (GraphDirectionSet.contains(outgoing, GraphDirection.EAST)) {
-            visitNode(queue, section.adjacentEast, GraphDirectionSet.of(GraphDirection.WEST), frame);
+        for (int direction = 0; direction < GraphDirection.COUNT; direction++) {
+            if (GraphDirectionSet.contains(outgoing, direction)) {
+                visitNode(queue, table, table.getAdjacent(id, direction), GraphDirectionSet.of(GraphDirection.opposite(direction)), frame);
+            }
         }
     }
 
-    private static void visitNode(final WriteQueue<RenderSection> queue, @NotNull RenderSection render, int incoming, int frame) {
-        if (render.getLastVisibleFrame() != frame) {
+    private static void visitNode(final WriteQueue<RenderSection> queue, SectionTable table, int id, int incoming, int frame) {
+        if (table.getLastVisibleFrame(id) != frame) {
             // This is the first time we are visiting this section during the given frame, so we must
             // reset the state.
-            render.setLastVisibleFrame(frame);
-            render.setIncomingDirections(GraphDirectionSet.NONE);
+            table.setLastVisibleFrame(id, frame);
+            table.setIncomingDirections(id, GraphDirectionSet.NONE);
 
-            queue.enqueue(render);
+            queue.enqueue(table.get(id));
         }
 
-        render.addIncomingDirections(incoming);
+        table.addIncomingDirections(id, incoming);
     }
 
     private static int getOutwardDirections(ChunkSectionPos origin, RenderSection section) {
@@ -186,6 +242,79 @@ public class OcclusionCuller {
                 CHUNK_SECTION_SIZE, CHUNK_SECTION_SIZE, CHUNK_SECTION_SIZE);
     }
 
+    // The amount which the bounds of a region or column are padded by, so that they contain the bounds of every
+    // section within them.
+    private static final float SECTION_BOUNDS_PADDING = CHUNK_SECTION_SIZE - 8.0f;
+
+    private static final int REGION_HALF_WIDTH = RenderRegion.REGION_WIDTH * 8;
+    private static final int REGION_HALF_HEIGHT = RenderRegion.REGION_HEIGHT * 8;
+    private static final int REGION_HALF_LENGTH = RenderRegion.REGION_LENGTH * 8;
+
+    private static final int SEARCH_ID_MASK = (1 << 29) - 1;
+
+    // Tests the section against the frustum hierarchically. The region containing the section is tested first, and
+    // then the column of sections containing it, and the section itself is only tested if both of them intersect with
+    // the frustum. Since the bounds of the region and column contain the bounds of the section, the result is the same
+    // as testing the section directly. The results for each region and column are cached for the rest of the search.
+    //
+    // When the search is running in parallel, multiple threads can test the same region at once. Each of them computes
+    // the same result and stores it in a single write, so this race is harmless.
+    private static boolean isWithinFrustum(Viewport viewport, RenderSection section, int searchId) {
+        var region = section.getRegion();
+        int result = getRegionIntersection(viewport, region, searchId);
+
+        if (result == Frustum.INTERSECT) {
+            result = getColumnIntersection(viewport, region, section, searchId);
+
+            if (result == Frustum.INTERSECT) {
+                return isWithinFrustum(viewport, section);
+            }
+        }
+
+        return result == Frustum.INSIDE;
+    }
+
+    private static int getRegionIntersection(Viewport viewport, RenderRegion region, int searchId) {
+        int state = region.getFrustumState();
+
+        if ((state >>> 2) == searchId) {
+            return state & 0b11;
+        }
+
+        int result = viewport.getBoxIntersection(
+                region.getOriginX() + REGION_HALF_WIDTH,
+                region.getOriginY() + REGION_HALF_HEIGHT,
+                region.getOriginZ() + REGION_HALF_LENGTH,
+                REGION_HALF_WIDTH + SECTION_BOUNDS_PADDING,
+                REGION_HALF_HEIGHT + SECTION_BOUNDS_PADDING,
+                REGION_HALF_LENGTH + SECTION_BOUNDS_PADDING);
+
+        region.setFrustumState((searchId << 2) | result);
+
+        return result;
+    }
+
+    private static int getColumnIntersection(Viewport viewport, RenderRegion region, RenderSection section, int searchId) {
+        int columnIndex = RenderRegion.getColumnIndex(section.getChunkX(), section.getChunkZ());
+        int state = region.getColumnFrustumState(columnIndex);
+
+        if ((state >>> 2) == searchId) {
+            return state & 0b11;
+        }
+
+        int result = viewport.getBoxIntersection(
+                section.getCenterX(),
+                region.getOriginY() + REGION_HALF_HEIGHT,
+                section.getCenterZ(),
+                CHUNK_SECTION_SIZE,
+                REGION_HALF_HEIGHT + SECTION_BOUNDS_PADDING,
+                CHUNK_SECTION_SIZE);
+
+        region.setColumnFrustumState(columnIndex, (searchId << 2) | result);
+
+        return result;
+    }
+
     private void init(Visitor visitor,
                       WriteQueue<RenderSection> queue,
                       Viewport viewport,
@@ -293,15 +422,52 @@ public class OcclusionCuller {
     private void tryVisitNode(WriteQueue<RenderSection> queue, int x, int y, int z, int direction, int frame, Viewport viewport) {
         RenderSection section = this.getRenderSection(x, y, z);
 
-        if (section == null || !isWithinFrustum(viewport, section)) {
+        if (section == null || !isWithinFrustum(viewport, section, this.searchId)) {
             return;
         }
 
-        visitNode(queue, section, GraphDirectionSet.of(direction), frame);
+        visitNode(queue, this.sections, section.getId(), GraphDirectionSet.of(direction), frame);
     }
 
     private RenderSection getRenderSection(int x, int y, int z) {
-        return this.sections.get(ChunkSectionPos.asLong(x, y, z));
+        return this.sections.get(x, y, z);
+    }
+
+    private static class VisibilityTestTask extends RecursiveAction {
+        private final ReadQueue<RenderSection> queue;
+        private final boolean[] results;
+        private final int start, end;
+
+        private final Viewport viewport;
+        private final float searchDistance;
+        private final int searchId;
+
+        private VisibilityTestTask(ReadQueue<RenderSection> queue, boolean[] results, int start, int end,
+                                   Viewport viewport, float searchDistance, int searchId) {
+            this.queue = queue;
+            this.results = results;
+            this.start = start;
+            this.end = end;
+            this.viewport = viewport;
+            this.searchDistance = searchDistance;
+            this.searchId = searchId;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.end - this.start <= PARALLEL_BATCH_SIZE) {
+                for (int i = this.start; i < this.end; i++) {
+                    this.results[i] = isSectionVisible(this.queue.get(i), this.viewport, this.searchDistance, this.searchId);
+                }
+
+                return;
+            }
+
+            int mid = (this.start + this.end) >>> 1;
+
+            invokeAll(new VisibilityTestTask(this.queue, this.results, this.start, mid, this.viewport, this.searchDistance, this.searchId),
+                    new VisibilityTestTask(this.queue, this.results, mid, this.end, this.viewport, this.searchDistance, this.searchId));
+        }
     }
 
     public interface Visitor {
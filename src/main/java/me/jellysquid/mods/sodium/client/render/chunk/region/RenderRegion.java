@@ -14,6 +14,7 @@ import me.jellysquid.mods.sodium.client.render.chunk.vertex.format.ChunkMeshForm
 import me.jellysquid.mods.sodium.client.util.MathUtil;
 import net.minecraft.util.math.ChunkSectionPos;
 import org.apache.commons.lang3.Validate;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.Arrays;
 import java.util.Map;
@@ -40,6 +41,10 @@ public class RenderRegion {
     }
 
     private final StagingBuffer stagingBuffer;
+
+    // The arena which is shared by every region, or null if each region has its own arena
+    private final @Nullable GlBufferArena sharedArena;
+
     private final int x, y, z;
 
     private final ChunkRenderList renderList;
@@ -50,12 +55,18 @@ public class RenderRegion {
     private final Map<TerrainRenderPass, SectionRenderDataStorage> sectionRenderData = new Reference2ReferenceOpenHashMap<>();
     private DeviceResources resources;
 
-    public RenderRegion(int x, int y, int z, StagingBuffer stagingBuffer) {
+    // The cached results of frustum tests against the bounds of this region and each column of sections within it,
+    // which are written by the occlusion culler
+    private int frustumState;
+    private final int[] columnFrustumState = new int[REGION_WIDTH * REGION_LENGTH];
+
+    public RenderRegion(int x, int y, int z, StagingBuffer stagingBuffer, @Nullable GlBufferArena sharedArena) {
         this.x = x;
         this.y = y;
         this.z = z;
 
         this.stagingBuffer = stagingBuffer;
+        this.sharedArena = sharedArena;
         this.renderList = new ChunkRenderList(this);
     }
 
@@ -125,11 +136,40 @@ public class RenderRegion {
             this.resources.deleteTessellations(commandList);
         }
 
+        this.updateMeshOffsets();
+    }
+
+    /**
+     * Updates the offsets of every mesh in this region after the segments of its arena have been moved.
+     */
+    public void updateMeshOffsets() {
         for (var storage : this.sectionRenderData.values()) {
             storage.onBufferResized();
         }
     }
 
+    /**
+     * Incrementally compacts the geometry arena of this region, see {@link GlBufferArena#compact(CommandList, long)}.
+     * A shared arena is compacted by {@link RenderRegionManager} instead.
+     *
+     * @return The number of bytes which were moved
+     */
+    public long compact(CommandList commandList, long maxBytes) {
+        if (this.resources == null || this.sharedArena != null) {
+            return 0L;
+        }
+
+        long bytes = this.resources.getGeometryArena()
+                .compact(commandList, maxBytes);
+
+        // The buffer object is still the same, so only the offsets of the meshes need to be updated
+        if (bytes > 0L) {
+            this.updateMeshOffsets();
+        }
+
+        return bytes;
+    }
+
     public void addSection(RenderSection section) {
         var sectionIndex = section.getSectionIndex();
         var prev = this.sections[sectionIndex];
@@ -170,7 +210,7 @@ public class RenderRegion {
 
     public DeviceResources createResources(CommandList commandList) {
         if (this.resources == null) {
-            this.resources = new DeviceResources(commandList, this.stagingBuffer);
+            this.resources = new DeviceResources(commandList, this.stagingBuffer, this.sharedArena);
         }
 
         return this.resources;
@@ -187,13 +227,44 @@ public class RenderRegion {
         return this.renderList;
     }
 
+    public int getFrustumState() {
+        return this.frustumState;
+    }
+
+    public void setFrustumState(int state) {
+        this.frustumState = state;
+    }
+
+    public int getColumnFrustumState(int columnIndex) {
+        return this.columnFrustumState[columnIndex];
+    }
+
+    public void setColumnFrustumState(int columnIndex, int state) {
+        this.columnFrustumState[columnIndex] = state;
+    }
+
+    /**
+     * @return The index of the column within this region which contains the given section
+     */
+    public static int getColumnIndex(int chunkX, int chunkZ) {
+        return ((chunkX & REGION_WIDTH_M) << REGION_LENGTH_SH) | (chunkZ & REGION_LENGTH_M);
+    }
+
     public static class DeviceResources {
         private final GlBufferArena geometryArena;
+        private final boolean ownsGeometryArena;
+
         private GlTessellation tessellation;
 
-        public DeviceResources(CommandList commandList, StagingBuffer stagingBuffer) {
-            int stride = ChunkMeshFormats.COMPACT.getVertexFormat().getStride();
-            this.geometryArena = new GlBufferArena(commandList, REGION_SIZE * 756, stride, stagingBuffer);
+        public DeviceResources(CommandList commandList, StagingBuffer stagingBuffer, @Nullable GlBufferArena sharedArena) {
+            if (sharedArena != null) {
+                this.geometryArena = sharedArena;
+                this.ownsGeometryArena = false;
+            } else {
+                int stride = ChunkMeshFormats.COMPACT.getVertexFormat().getStride();
+                this.geometryArena = new GlBufferArena(commandList, REGION_SIZE * 756, stride, stagingBuffer);
+                this.ownsGeometryArena = true;
+            }
         }
 
         public void updateTessellation(CommandList commandList, GlTessellation tessellation) {
@@ -221,7 +292,10 @@ public class RenderRegion {
 
         public void delete(CommandList commandList) {
             this.deleteTessellations(commandList);
-            this.geometryArena.delete(commandList);
+
+            if (this.ownsGeometryArena) {
+                this.geometryArena.delete(commandList);
+            }
         }
 
         public GlBufferArena getGeometryArena() {
@@ -229,7 +303,9 @@ public class RenderRegion {
         }
 
         public boolean shouldDelete() {
-            return this.geometryArena.isEmpty();
+            // A shared arena is never empty while other regions use it, so the resources are kept until the region
+            // itself is deleted
+            return this.ownsGeometryArena && this.geometryArena.isEmpty();
         }
     }
 }
@@ -4,6 +4,7 @@ import it.unimi.dsi.fastutil.longs.Long2ReferenceOpenHashMap;
 import it.unimi.dsi.fastutil.objects.Reference2ReferenceMap;
 import it.unimi.dsi.fastutil.objects.Reference2ReferenceOpenHashMap;
 import me.jellysquid.mods.sodium.client.SodiumClientMod;
+import me.jellysquid.mods.sodium.client.gl.arena.GlBufferArena;
 import me.jellysquid.mods.sodium.client.gl.arena.PendingUpload;
 import me.jellysquid.mods.sodium.client.gl.arena.staging.FallbackStagingBuffer;
 import me.jellysquid.mods.sodium.client.gl.arena.staging.MappedStagingBuffer;
@@ -15,23 +16,50 @@ import me.jellysquid.mods.sodium.client.render.chunk.compile.ChunkBuildOutput;
 import me.jellysquid.mods.sodium.client.render.chunk.data.BuiltSectionMeshParts;
 import me.jellysquid.mods.sodium.client.render.chunk.terrain.DefaultTerrainRenderPasses;
 import me.jellysquid.mods.sodium.client.render.chunk.terrain.TerrainRenderPass;
+import me.jellysquid.mods.sodium.client.render.chunk.vertex.format.ChunkMeshFormats;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
 
 public class RenderRegionManager {
+    // The maximum number of bytes which can be moved by the compaction of geometry arenas each frame
+    private static final long MAX_COMPACTION_BYTES = 2 * 1024 * 1024;
+
     private final Long2ReferenceOpenHashMap<RenderRegion> regions = new Long2ReferenceOpenHashMap<>();
 
+    // The regions in the order which their arenas will be compacted in. Each region is moved to the back once it has
+    // been compacted, so that the budget of each frame is shared between all regions over time.
+    private final ArrayDeque<RenderRegion> compactionQueue = new ArrayDeque<>();
+
+    // The initial capacity of the shared arena, in vertices, which is enough for the geometry of several regions
+    private static final int SHARED_ARENA_INITIAL_CAPACITY = RenderRegion.REGION_SIZE * 756 * 16;
+
     private final StagingBuffer stagingBuffer;
 
-    public RenderRegionManager(CommandList commandList) {
+    // The arena which holds the geometry of every region, or null if each region has its own arena
+    private final @Nullable GlBufferArena sharedArena;
+
+    public RenderRegionManager(CommandList commandList, boolean useSharedArena) {
         this.stagingBuffer = createStagingBuffer(commandList);
+
+        if (useSharedArena) {
+            int stride = ChunkMeshFormats.COMPACT.getVertexFormat().getStride();
+            this.sharedArena = new GlBufferArena(commandList, SHARED_ARENA_INITIAL_CAPACITY, stride, this.stagingBuffer);
+        } else {
+            this.sharedArena = null;
+        }
     }
 
-    public void update() {
-        this.stagingBuffer.flip();
+    /**
+     * @return The number of bytes which were moved by compacting the geometry arenas of the regions
+     */
+    public long update() {
+        long compactionBudget = MAX_COMPACTION_BYTES;
 
         try (CommandList commandList = RenderDevice.INSTANCE.createCommandList()) {
+            this.stagingBuffer.flip(commandList);
+
             Iterator<RenderRegion> it = this.regions.values()
                     .iterator();
 
@@ -43,42 +71,99 @@ public class RenderRegionManager {
                     region.delete(commandList);
 
                     it.remove();
+                    this.compactionQueue.remove(region);
+                }
+            }
+
+            // Continue from where the previous frame stopped, visiting each region at most once
+            for (int remaining = this.compactionQueue.size(); remaining > 0 && compactionBudget > 0; remaining--) {
+                RenderRegion region = this.compactionQueue.removeFirst();
+                compactionBudget -= region.compact(commandList, compactionBudget);
+
+                this.compactionQueue.addLast(region);
+            }
+
+            if (this.sharedArena != null) {
+                long bytes = this.sharedArena.compact(commandList, compactionBudget);
+
+                // Any region could own the segments which were moved
+                if (bytes > 0L) {
+                    for (RenderRegion region : this.regions.values()) {
+                        region.updateMeshOffsets();
+                    }
                 }
+
+                compactionBudget -= bytes;
+            }
+        }
+
+        return MAX_COMPACTION_BYTES - compactionBudget;
+    }
+
+    /**
+     * Moves the vertex data of each mesh in the result into the staging buffer, so that the render thread only needs
+     * to copy it into the geometry arenas when the result is uploaded. Meshes which don't fit into the staging buffer
+     * are left as they are, and will be copied into the staging buffer during the upload instead. This can be called
+     * from any thread which owns the result.
+     *
+     * @return The number of bytes of vertex data which were moved into the staging buffer
+     */
+    public long stageMeshes(ChunkBuildOutput result) {
+        long bytes = 0;
+
+        for (BuiltSectionMeshParts mesh : result.meshes.values()) {
+            if (mesh.stage(this.stagingBuffer)) {
+                bytes += mesh.getVertexDataLength();
             }
         }
+
+        return bytes;
     }
 
-    public void uploadMeshes(CommandList commandList, Collection<ChunkBuildOutput> results) {
+    /**
+     * @return The number of bytes of vertex data which were uploaded
+     */
+    public long uploadMeshes(CommandList commandList, Collection<ChunkBuildOutput> results) {
+        long bytes = 0;
+
         for (var entry : this.createMeshUploadQueues(results)) {
-            this.uploadMeshes(commandList, entry.getKey(), entry.getValue());
+            bytes += this.uploadMeshes(commandList, entry.getKey(), entry.getValue());
         }
+
+        return bytes;
     }
 
-    private void uploadMeshes(CommandList commandList, RenderRegion region, Collection<ChunkBuildOutput> results) {
+    private long uploadMeshes(CommandList commandList, RenderRegion region, Collection<ChunkBuildOutput> results) {
         var uploads = new ArrayList<PendingSectionUpload>();
 
         for (ChunkBuildOutput result : results) {
             for (TerrainRenderPass pass : DefaultTerrainRenderPasses.ALL) {
+                BuiltSectionMeshParts mesh = result.getMesh(pass);
+
+                // Partial results (such as re-sorted geometry) leave the meshes of any other passes in place
+                if (mesh == null && !result.replacesAllMeshes()) {
+                    continue;
+                }
+
                 var storage = region.getStorage(pass);
 
                 if (storage != null) {
                     storage.removeMeshes(result.render.getSectionIndex());
                 }
 
-                BuiltSectionMeshParts mesh = result.getMesh(pass);
-
                 if (mesh != null) {
-                    uploads.add(new PendingSectionUpload(result.render, mesh, pass,
-                            new PendingUpload(mesh.getVertexData())));
+                    uploads.add(new PendingSectionUpload(result.render, mesh, pass, mesh.createUpload()));
                 }
             }
         }
 
         // If we have nothing to upload, abort!
         if (uploads.isEmpty()) {
-            return;
+            return 0;
         }
 
+        long bytes = 0;
+
         var resources = region.createResources(commandList);
         var arena = resources.getGeometryArena();
 
@@ -88,7 +173,14 @@ public class RenderRegionManager {
         // If any of the buffers changed, the tessellation will need to be updated
         // Once invalidated the tessellation will be re-created on the next attempted use
         if (bufferChanged) {
-            region.refresh(commandList);
+            if (this.sharedArena != null) {
+                // Re-allocating the shared arena moves the segments of every region
+                for (RenderRegion other : this.regions.values()) {
+                    other.refresh(commandList);
+                }
+            } else {
+                region.refresh(commandList);
+            }
         }
 
         // Collect the upload results
@@ -96,7 +188,11 @@ public class RenderRegionManager {
             var storage = region.createStorage(upload.pass);
             storage.setMeshes(upload.section.getSectionIndex(),
                     upload.vertexUpload.getResult(), upload.meshData.getVertexRanges());
+
+            bytes += upload.meshData.getVertexDataLength();
         }
+
+        return bytes;
     }
 
     private Reference2ReferenceMap.FastEntrySet<RenderRegion, List<ChunkBuildOutput>> createMeshUploadQueues(Collection<ChunkBuildOutput> results) {
@@ -116,6 +212,12 @@ public class RenderRegionManager {
         }
 
         this.regions.clear();
+        this.compactionQueue.clear();
+
+        if (this.sharedArena != null) {
+            this.sharedArena.delete(commandList);
+        }
+
         this.stagingBuffer.delete(commandList);
     }
 
@@ -123,6 +225,27 @@ public class RenderRegionManager {
         return this.regions.values();
     }
 
+    /**
+     * @return Every geometry arena which is in use, where a shared arena is only included once
+     */
+    public List<GlBufferArena> getGeometryArenas() {
+        if (this.sharedArena != null) {
+            return List.of(this.sharedArena);
+        }
+
+        var arenas = new ArrayList<GlBufferArena>();
+
+        for (RenderRegion region : this.regions.values()) {
+            var resources = region.getResources();
+
+            if (resources != null) {
+                arenas.add(resources.getGeometryArena());
+            }
+        }
+
+        return arenas;
+    }
+
     public StagingBuffer getStagingBuffer() {
         return this.stagingBuffer;
     }
@@ -139,7 +262,8 @@ public class RenderRegionManager {
         var instance = this.regions.get(key);
 
         if (instance == null) {
-            this.regions.put(key, instance = new RenderRegion(x, y, z, this.stagingBuffer));
+            this.regions.put(key, instance = new RenderRegion(x, y, z, this.stagingBuffer, this.sharedArena));
+            this.compactionQueue.addLast(instance);
         }
 
         return instance;
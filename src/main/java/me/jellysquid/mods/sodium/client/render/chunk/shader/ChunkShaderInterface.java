@@ -19,6 +19,8 @@ public class ChunkShaderInterface {
 
     private final GlUniformMatrix4f uniformModelViewMatrix;
     private final GlUniformMatrix4f uniformProjectionMatrix;
+
+    // Null if the region offset is provided by a vertex attribute instead
     private final GlUniformFloat3v uniformRegionOffset;
 
     // The fog shader component used by this program in order to setup the appropriate GL state
@@ -27,7 +29,7 @@ public class ChunkShaderInterface {
     public ChunkShaderInterface(ShaderBindingContext context, ChunkShaderOptions options) {
         this.uniformModelViewMatrix = context.bindUniform("u_ModelViewMatrix", GlUniformMatrix4f::new);
         this.uniformProjectionMatrix = context.bindUniform("u_ProjectionMatrix", GlUniformMatrix4f::new);
-        this.uniformRegionOffset = context.bindUniform("u_RegionOffset", GlUniformFloat3v::new);
+        this.uniformRegionOffset = options.useRegionOffsetAttribute() ? null : context.bindUniform("u_RegionOffset", GlUniformFloat3v::new);
 
         this.uniformTextures = new EnumMap<>(ChunkShaderTextureSlot.class);
         this.uniformTextures.put(ChunkShaderTextureSlot.BLOCK, context.bindUniform("u_BlockTex", GlUniformInt::new));
@@ -62,6 +64,10 @@ public class ChunkShaderInterface {
     }
 
     public void setRegionOffset(float x, float y, float z) {
+        if (this.uniformRegionOffset == null) {
+            throw new IllegalStateException("Program was created with a region offset attribute");
+        }
+
         this.uniformRegionOffset.set(x, y, z);
     }
 }
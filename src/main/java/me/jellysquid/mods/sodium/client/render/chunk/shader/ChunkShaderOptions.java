@@ -4,7 +4,19 @@ import me.jellysquid.mods.sodium.client.gl.shader.ShaderConstants;
 import me.jellysquid.mods.sodium.client.render.chunk.terrain.TerrainRenderPass;
 import me.jellysquid.mods.sodium.client.render.chunk.vertex.format.ChunkVertexType;
 
-public record ChunkShaderOptions(ChunkFogMode fog, TerrainRenderPass pass, ChunkVertexType vertexType) {
+/**
+ * @param useRegionOffsetAttribute True if the offset of each region is provided by a per-instance vertex attribute
+ *                                 instead of a uniform, so that multiple regions can be drawn at once
+ * @param useTextureRepeat True if the texture of merged quads should be repeated within its atlas tile, which is only
+ *                         needed when greedy meshing is enabled
+ */
+public record ChunkShaderOptions(ChunkFogMode fog, TerrainRenderPass pass, ChunkVertexType vertexType,
+                                 boolean useRegionOffsetAttribute, boolean useTextureRepeat) {
+    public ChunkShaderOptions(ChunkFogMode fog, TerrainRenderPass pass, ChunkVertexType vertexType,
+                              boolean useTextureRepeat) {
+        this(fog, pass, vertexType, false, useTextureRepeat);
+    }
+
     public ShaderConstants constants() {
         ShaderConstants.Builder constants = ShaderConstants.builder();
         constants.addAll(this.fog.getDefines());
@@ -13,6 +25,14 @@ public record ChunkShaderOptions(ChunkFogMode fog, TerrainRenderPass pass, Chunk
             constants.add("USE_FRAGMENT_DISCARD");
         }
 
+        if (this.useRegionOffsetAttribute) {
+            constants.add("USE_REGION_OFFSET_ATTRIBUTE");
+        }
+
+        if (this.useTextureRepeat) {
+            constants.add("USE_TEXTURE_REPEAT");
+        }
+
         constants.add("USE_VERTEX_COMPRESSION"); // TODO: allow compact vertex format to be disabled
         constants.add("VERT_POS_SCALE", String.valueOf(this.vertexType.getPositionScale()));
         constants.add("VERT_POS_OFFSET", String.valueOf(this.vertexType.getPositionOffset()));
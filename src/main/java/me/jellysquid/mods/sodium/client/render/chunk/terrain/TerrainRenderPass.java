@@ -8,12 +8,18 @@ public class TerrainRenderPass {
 
     private final boolean useReverseOrder;
     private final boolean fragmentDiscard;
+    private final boolean sortGeometry;
 
     public TerrainRenderPass(RenderLayer layer, boolean useReverseOrder, boolean allowFragmentDiscard) {
+        this(layer, useReverseOrder, allowFragmentDiscard, false);
+    }
+
+    public TerrainRenderPass(RenderLayer layer, boolean useReverseOrder, boolean allowFragmentDiscard, boolean sortGeometry) {
         this.layer = layer;
 
         this.useReverseOrder = useReverseOrder;
         this.fragmentDiscard = allowFragmentDiscard;
+        this.sortGeometry = sortGeometry;
     }
 
     public boolean isReverseOrder() {
@@ -33,4 +39,12 @@ public class TerrainRenderPass {
     public boolean supportsFragmentDiscard() {
         return this.fragmentDiscard;
     }
+
+    /**
+     * Returns whether the quads within each section of this pass should be sorted back-to-front relative to the
+     * camera, which is necessary for blending to produce correct results.
+     */
+    public boolean isSorted() {
+        return this.sortGeometry;
+    }
 }
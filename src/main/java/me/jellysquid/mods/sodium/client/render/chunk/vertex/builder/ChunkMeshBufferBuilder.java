@@ -6,6 +6,7 @@ import me.jellysquid.mods.sodium.client.render.chunk.vertex.format.ChunkVertexTy
 import org.lwjgl.system.MemoryUtil;
 
 import java.nio.ByteBuffer;
+import java.util.Arrays;
 
 public class ChunkMeshBufferBuilder {
     private final ChunkVertexEncoder encoder;
@@ -18,7 +19,14 @@ public class ChunkMeshBufferBuilder {
     private int capacity;
     private int sectionIndex;
 
+    // The center point of each quad (packed as x, y, z) in section-local coordinates, or null if not being collected
+    private float[] centroids;
+
     public ChunkMeshBufferBuilder(ChunkVertexType vertexType, int initialCapacity) {
+        this(vertexType, initialCapacity, false);
+    }
+
+    public ChunkMeshBufferBuilder(ChunkVertexType vertexType, int initialCapacity, boolean collectCentroids) {
         this.encoder = vertexType.getEncoder();
         this.stride = vertexType.getVertexFormat().getStride();
 
@@ -26,6 +34,10 @@ public class ChunkMeshBufferBuilder {
 
         this.capacity = initialCapacity;
         this.initialCapacity = initialCapacity;
+
+        if (collectCentroids) {
+            this.centroids = new float[1024 * 3];
+        }
     }
 
     public void push(ChunkVertexEncoder.Vertex[] vertices, Material material) {
@@ -42,9 +54,35 @@ public class ChunkMeshBufferBuilder {
             ptr = this.encoder.write(ptr, material, vertex, this.sectionIndex);
         }
 
+        if (this.centroids != null) {
+            this.addCentroid(vertexStart >> 2, vertices);
+        }
+
         this.count += vertexCount;
     }
 
+    private void addCentroid(int quadIndex, ChunkVertexEncoder.Vertex[] vertices) {
+        int offset = quadIndex * 3;
+
+        if (offset + 3 > this.centroids.length) {
+            this.centroids = Arrays.copyOf(this.centroids, this.centroids.length * 2);
+        }
+
+        float x = 0.0f, y = 0.0f, z = 0.0f;
+
+        for (ChunkVertexEncoder.Vertex vertex : vertices) {
+            x += vertex.x;
+            y += vertex.y;
+            z += vertex.z;
+        }
+
+        float scale = 1.0f / vertices.length;
+
+        this.centroids[offset + 0] = x * scale;
+        this.centroids[offset + 1] = y * scale;
+        this.centroids[offset + 2] = z * scale;
+    }
+
     private void grow(int len) {
         // The new capacity will at least as large as the write it needs to service
         int cap = Math.max(this.capacity * 2, this.capacity + len);
@@ -88,4 +126,16 @@ public class ChunkMeshBufferBuilder {
     public int count() {
         return this.count;
     }
+
+    /**
+     * Returns a copy of the quad centroids which have been collected since the builder was started, or null if this
+     * builder does not collect them.
+     */
+    public float[] copyCentroids() {
+        if (this.centroids == null) {
+            return null;
+        }
+
+        return Arrays.copyOf(this.centroids, (this.count >> 2) * 3);
+    }
 }
@@ -1,17 +1,197 @@
 package me.jellysquid.mods.sodium.client.render.immediate.model;
 
+import me.jellysquid.mods.sodium.client.model.quad.BakedQuadView;
 import me.jellysquid.mods.sodium.client.model.quad.ModelQuadView;
+import me.jellysquid.mods.sodium.client.render.texture.SpriteUtil;
+import me.jellysquid.mods.sodium.client.util.DirectionUtil;
 import net.caffeinemc.mods.sodium.api.math.MatrixHelper;
 import net.caffeinemc.mods.sodium.api.util.ColorABGR;
 import net.caffeinemc.mods.sodium.api.util.ColorU8;
 import net.caffeinemc.mods.sodium.api.vertex.buffer.VertexBufferWriter;
 import net.caffeinemc.mods.sodium.api.vertex.format.common.ModelVertex;
+import net.minecraft.client.render.model.BakedQuad;
+import net.minecraft.client.texture.Sprite;
 import net.minecraft.client.util.math.MatrixStack;
+import net.minecraft.util.math.Direction;
+import org.jetbrains.annotations.Nullable;
 import org.joml.Matrix3f;
 import org.joml.Matrix4f;
 import org.lwjgl.system.MemoryStack;
 
+import java.util.List;
+
 public class BakedModelEncoder {
+    // The number of quads which are written to the stack and pushed at once. Most models fit into a single batch,
+    // while larger ones are split so that the stack (which is only 64 KB by default) can't overflow.
+    private static final int MAX_BATCH_QUADS = 64;
+
+    // The packed normal of each direction when it is transformed by an identity matrix
+    private static final int[] IDENTITY_NORMALS = new int[Direction.values().length];
+
+    static {
+        Matrix3f identity = new Matrix3f();
+
+        for (Direction direction : Direction.values()) {
+            IDENTITY_NORMALS[direction.ordinal()] = MatrixHelper.transformNormal(identity, direction);
+        }
+    }
+
+    /**
+     * Provides the color of each quad in a batch, which is written as-is to every vertex of the quad. The vertex
+     * colors stored in the baked quad are not used.
+     */
+    @FunctionalInterface
+    public interface QuadColorProvider {
+        int getColor(BakedQuadView quad);
+    }
+
+    /**
+     * Writes every quad in the list with a single pass over the quads, pushing them to the writer in as few batches
+     * as possible. Quads with a color index use {@param tintColor}, and all other quads are white. The sprite of each
+     * quad is marked as active.
+     */
+    public static void writeQuadVertices(VertexBufferWriter writer, MatrixStack.Entry matrices, List<BakedQuad> quads, int tintColor, int light, int overlay) {
+        writeQuadVertices(writer, matrices, quads, null, tintColor, light, overlay);
+    }
+
+    /**
+     * Writes every quad in the list with a single pass over the quads, pushing them to the writer in as few batches
+     * as possible. The color of each quad is given by {@param colors}. The sprite of each quad is marked as active.
+     */
+    public static void writeQuadVertices(VertexBufferWriter writer, MatrixStack.Entry matrices, List<BakedQuad> quads, QuadColorProvider colors, int light, int overlay) {
+        writeQuadVertices(writer, matrices, quads, colors, 0xFFFFFFFF, light, overlay);
+    }
+
+    @SuppressWarnings("ForLoopReplaceableByForEach")
+    private static void writeQuadVertices(VertexBufferWriter writer, MatrixStack.Entry matrices, List<BakedQuad> quads,
+                                          @Nullable QuadColorProvider colors, int tintColor, int light, int overlay) {
+        Matrix3f matNormal = matrices.getNormalMatrix();
+        Matrix4f matPosition = matrices.getPositionMatrix();
+
+        // Items and blocks are often drawn without any rotation, in which case the normals don't need transforming
+        boolean identityNormals = isIdentity(matNormal);
+
+        int quadCount = quads.size();
+
+        for (int batchStart = 0; batchStart < quadCount; batchStart += MAX_BATCH_QUADS) {
+            int batchEnd = Math.min(batchStart + MAX_BATCH_QUADS, quadCount);
+
+            try (MemoryStack stack = MemoryStack.stackPush()) {
+                long buffer = stack.nmalloc((batchEnd - batchStart) * 4 * ModelVertex.STRIDE);
+                long ptr = buffer;
+
+                int vertexCount = 0;
+
+                for (int quadIndex = batchStart; quadIndex < batchEnd; quadIndex++) {
+                    BakedQuad bakedQuad = quads.get(quadIndex);
+
+                    if (bakedQuad.getVertexData().length < 32) {
+                        continue; // ignore bad quads
+                    }
+
+                    BakedQuadView quad = (BakedQuadView) bakedQuad;
+
+                    int color;
+
+                    if (colors != null) {
+                        color = colors.getColor(quad);
+                    } else {
+                        color = quad.hasColor() ? tintColor : 0xFFFFFFFF;
+                    }
+
+                    Direction lightFace = quad.getLightFace();
+
+                    // The packed transformed normal vector
+                    int normal = identityNormals ? IDENTITY_NORMALS[lightFace.ordinal()] : MatrixHelper.transformNormal(matNormal, lightFace);
+
+                    for (int i = 0; i < 4; i++) {
+                        // The position vector
+                        float x = quad.getX(i);
+                        float y = quad.getY(i);
+                        float z = quad.getZ(i);
+
+                        // The transformed position vector
+                        float xt = MatrixHelper.transformPositionX(matPosition, x, y, z);
+                        float yt = MatrixHelper.transformPositionY(matPosition, x, y, z);
+                        float zt = MatrixHelper.transformPositionZ(matPosition, x, y, z);
+
+                        ModelVertex.write(ptr, xt, yt, zt, color, quad.getTexU(i), quad.getTexV(i), overlay, light, normal);
+                        ptr += ModelVertex.STRIDE;
+                    }
+
+                    vertexCount += 4;
+
+                    SpriteUtil.markSpriteActive(quad.getSprite());
+                }
+
+                if (vertexCount > 0) {
+                    writer.push(stack, buffer, vertexCount, ModelVertex.FORMAT);
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes every quad of a cached item mesh, in the same way as {@link #writeQuadVertices(VertexBufferWriter,
+     * MatrixStack.Entry, List, QuadColorProvider, int, int)}. The color of each quad is given by {@param colors}.
+     */
+    public static void writeMeshVertices(VertexBufferWriter writer, MatrixStack.Entry matrices, ItemModelMesh mesh, ItemQuadColors colors, int light, int overlay) {
+        Matrix3f matNormal = matrices.getNormalMatrix();
+        Matrix4f matPosition = matrices.getPositionMatrix();
+
+        boolean identityNormals = isIdentity(matNormal);
+
+        float[] positions = mesh.getPositions();
+        float[] texCoords = mesh.getTexCoords();
+        byte[] lightFaces = mesh.getLightFaces();
+        int[] colorIndices = mesh.getColorIndices();
+
+        int quadCount = mesh.getQuadCount();
+
+        for (int batchStart = 0; batchStart < quadCount; batchStart += MAX_BATCH_QUADS) {
+            int batchEnd = Math.min(batchStart + MAX_BATCH_QUADS, quadCount);
+
+            try (MemoryStack stack = MemoryStack.stackPush()) {
+                long buffer = stack.nmalloc((batchEnd - batchStart) * 4 * ModelVertex.STRIDE);
+                long ptr = buffer;
+
+                for (int quadIndex = batchStart; quadIndex < batchEnd; quadIndex++) {
+                    int color = colors.getColor(colorIndices[quadIndex]);
+
+                    Direction lightFace = DirectionUtil.ALL_DIRECTIONS[lightFaces[quadIndex]];
+                    int normal = identityNormals ? IDENTITY_NORMALS[lightFace.ordinal()] : MatrixHelper.transformNormal(matNormal, lightFace);
+
+                    for (int i = 0; i < 4; i++) {
+                        int vertexIndex = (quadIndex * 4) + i;
+
+                        float x = positions[(vertexIndex * 3) + 0];
+                        float y = positions[(vertexIndex * 3) + 1];
+                        float z = positions[(vertexIndex * 3) + 2];
+
+                        float xt = MatrixHelper.transformPositionX(matPosition, x, y, z);
+                        float yt = MatrixHelper.transformPositionY(matPosition, x, y, z);
+                        float zt = MatrixHelper.transformPositionZ(matPosition, x, y, z);
+
+                        ModelVertex.write(ptr, xt, yt, zt, color, texCoords[(vertexIndex * 2) + 0], texCoords[(vertexIndex * 2) + 1], overlay, light, normal);
+                        ptr += ModelVertex.STRIDE;
+                    }
+                }
+
+                writer.push(stack, buffer, (batchEnd - batchStart) * 4, ModelVertex.FORMAT);
+            }
+        }
+
+        for (Sprite sprite : mesh.getSprites()) {
+            SpriteUtil.markSpriteActive(sprite);
+        }
+    }
+
+    private static boolean isIdentity(Matrix3f mat) {
+        return mat.m00 == 1.0f && mat.m01 == 0.0f && mat.m02 == 0.0f &&
+                mat.m10 == 0.0f && mat.m11 == 1.0f && mat.m12 == 0.0f &&
+                mat.m20 == 0.0f && mat.m21 == 0.0f && mat.m22 == 1.0f;
+    }
+
     public static void writeQuadVertices(VertexBufferWriter writer, MatrixStack.Entry matrices, ModelQuadView quad, int color, int light, int overlay) {
         Matrix3f matNormal = matrices.getNormalMatrix();
         Matrix4f matPosition = matrices.getPositionMatrix();
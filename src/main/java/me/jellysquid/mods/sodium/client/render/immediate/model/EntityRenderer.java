@@ -7,206 +7,141 @@ import net.minecraft.client.model.ModelPart;
 import net.minecraft.client.util.math.MatrixStack;
 import net.minecraft.util.math.Direction;
 import org.apache.commons.lang3.ArrayUtils;
+import org.joml.Matrix3f;
 import org.joml.Matrix4f;
-import org.joml.Vector2f;
-import org.joml.Vector3f;
 import org.lwjgl.system.MemoryStack;
 import org.lwjgl.system.MemoryUtil;
 
+import static me.jellysquid.mods.sodium.client.render.immediate.model.ModelPartGeometry.*;
+
+/**
+ * Renders model parts using the geometry which was baked for them by {@link ModelPartGeometry}. The vertices of every
+ * part in the hierarchy are written into a single scratch buffer, which is then pushed to the vertex consumer at once.
+ *
+ * This must only be used from the render thread.
+ */
 public class EntityRenderer {
+    // The vertices of the model which is being rendered
+    private static long SCRATCH_BUFFER = MemoryUtil.NULL;
+    private static int SCRATCH_BUFFER_CAPACITY = 0;
 
-    private static final int NUM_CUBE_VERTICES = 8;
-    private static final int NUM_CUBE_FACES = 6;
-    private static final int NUM_FACE_VERTICES = 4;
-
-    private static final int
-            FACE_NEG_Y = 0, // DOWN
-            FACE_POS_Y = 1, // UP
-            FACE_NEG_Z = 2, // NORTH
-            FACE_POS_Z = 3, // SOUTH
-            FACE_NEG_X = 4, // WEST
-            FACE_POS_X = 5; // EAST
-
-    private static final int
-            VERTEX_X1_Y1_Z1 = 0,
-            VERTEX_X2_Y1_Z1 = 1,
-            VERTEX_X2_Y2_Z1 = 2,
-            VERTEX_X1_Y2_Z1 = 3,
-            VERTEX_X1_Y1_Z2 = 4,
-            VERTEX_X2_Y1_Z2 = 5,
-            VERTEX_X2_Y2_Z2 = 6,
-            VERTEX_X1_Y2_Z2 = 7;
-
-
-    private static final long SCRATCH_BUFFER = MemoryUtil.nmemAlignedAlloc(64, NUM_CUBE_FACES * NUM_FACE_VERTICES * ModelVertex.STRIDE);
-
-    private static final Vector3f[] CUBE_CORNERS = new Vector3f[NUM_CUBE_VERTICES];
-    private static final int[][] CUBE_VERTICES = new int[][] {
-            { VERTEX_X2_Y1_Z2, VERTEX_X1_Y1_Z2, VERTEX_X1_Y1_Z1, VERTEX_X2_Y1_Z1 },
-            { VERTEX_X2_Y2_Z1, VERTEX_X1_Y2_Z1, VERTEX_X1_Y2_Z2, VERTEX_X2_Y2_Z2 },
-            { VERTEX_X2_Y1_Z1, VERTEX_X1_Y1_Z1, VERTEX_X1_Y2_Z1, VERTEX_X2_Y2_Z1 },
-            { VERTEX_X1_Y1_Z2, VERTEX_X2_Y1_Z2, VERTEX_X2_Y2_Z2, VERTEX_X1_Y2_Z2 },
-            { VERTEX_X2_Y1_Z2, VERTEX_X2_Y1_Z1, VERTEX_X2_Y2_Z1, VERTEX_X2_Y2_Z2 },
-            { VERTEX_X1_Y1_Z1, VERTEX_X1_Y1_Z2, VERTEX_X1_Y2_Z2, VERTEX_X1_Y2_Z1 },
-    };
-
-    private static final Vector3f[][] VERTEX_POSITIONS = new Vector3f[NUM_CUBE_FACES][NUM_FACE_VERTICES];
-    private static final Vector3f[][] VERTEX_POSITIONS_MIRRORED = new Vector3f[NUM_CUBE_FACES][NUM_FACE_VERTICES];
-
-    private static final Vector2f[][] VERTEX_TEXTURES = new Vector2f[NUM_CUBE_FACES][NUM_FACE_VERTICES];
-    private static final Vector2f[][] VERTEX_TEXTURES_MIRRORED = new Vector2f[NUM_CUBE_FACES][NUM_FACE_VERTICES];
+    // The transformed corners of the cuboids in the model part which is being rendered
+    private static float[] TRANSFORMED_CORNERS = new float[NUM_CUBE_VERTICES * 3 * 16];
 
     private static final int[] CUBE_NORMALS = new int[NUM_CUBE_FACES];
-    private static final int[] CUBE_NORMALS_MIRRORED = new int[NUM_CUBE_FACES];
-
-    static {
-        for (int cornerIndex = 0; cornerIndex < NUM_CUBE_VERTICES; cornerIndex++) {
-            CUBE_CORNERS[cornerIndex] = new Vector3f();
-        }
 
-        for (int quadIndex = 0; quadIndex < NUM_CUBE_FACES; quadIndex++) {
-            for (int vertexIndex = 0; vertexIndex < NUM_FACE_VERTICES; vertexIndex++) {
-                VERTEX_TEXTURES[quadIndex][vertexIndex] = new Vector2f();
-                VERTEX_POSITIONS[quadIndex][vertexIndex] = CUBE_CORNERS[CUBE_VERTICES[quadIndex][vertexIndex]];
-            }
-        }
+    public static void render(MatrixStack matrixStack, VertexBufferWriter writer, ModelPart part, int light, int overlay, int color) {
+        int vertexCount = writePart(matrixStack, part, light, overlay, color, 0);
 
-        for (int quadIndex = 0; quadIndex < NUM_CUBE_FACES; quadIndex++) {
-            for (int vertexIndex = 0; vertexIndex < NUM_FACE_VERTICES; vertexIndex++) {
-                VERTEX_TEXTURES_MIRRORED[quadIndex][vertexIndex] = VERTEX_TEXTURES[quadIndex][3 - vertexIndex];
-                VERTEX_POSITIONS_MIRRORED[quadIndex][vertexIndex] = VERTEX_POSITIONS[quadIndex][3 - vertexIndex];
+        if (vertexCount > 0) {
+            try (MemoryStack stack = MemoryStack.stackPush()) {
+                writer.push(stack, SCRATCH_BUFFER, vertexCount, ModelVertex.FORMAT);
             }
         }
     }
 
-    public static void render(MatrixStack matrixStack, VertexBufferWriter writer, ModelPart part, int light, int overlay, int color) {
+    /**
+     * Writes the vertices of the part and its children to the scratch buffer, starting at {@param vertexIndex}.
+     *
+     * @return The index after the last vertex which was written
+     */
+    private static int writePart(MatrixStack matrixStack, ModelPart part, int light, int overlay, int color, int vertexIndex) {
         ModelPartData accessor = ModelPartData.from(part);
-        
+
         if (!accessor.isVisible()) {
-            return;
+            return vertexIndex;
         }
 
-        var cuboids = accessor.getCuboids();
+        var geometry = accessor.getGeometry();
         var children = accessor.getChildren();
 
-        if (ArrayUtils.isEmpty(cuboids) && ArrayUtils.isEmpty(children)) {
-            return;
+        if (geometry.isEmpty() && ArrayUtils.isEmpty(children)) {
+            return vertexIndex;
         }
 
         matrixStack.push();
 
         part.rotate(matrixStack);
 
-        if (!accessor.isHidden()) {
-            renderCuboids(matrixStack.peek(), writer, cuboids, light, overlay, color);
+        if (!accessor.isHidden() && !geometry.isEmpty()) {
+            vertexIndex = writeGeometry(matrixStack.peek(), geometry, light, overlay, color, vertexIndex);
         }
 
-        renderChildren(matrixStack, writer, light, overlay, color, children);
+        for (ModelPart child : children) {
+            vertexIndex = writePart(matrixStack, child, light, overlay, color, vertexIndex);
+        }
 
         matrixStack.pop();
-    }
 
-    private static void renderChildren(MatrixStack matrices, VertexBufferWriter writer, int light, int overlay, int color, ModelPart[] children) {
-        for (ModelPart part : children) {
-            render(matrices, writer, part, light, overlay, color);
-        }
+        return vertexIndex;
     }
 
-    private static void renderCuboids(MatrixStack.Entry matrices, VertexBufferWriter writer, ModelCuboid[] cuboids, int light, int overlay, int color) {
-        prepareNormals(matrices);
-
-        for (ModelCuboid cuboid : cuboids) {
-            prepareVertices(matrices, cuboid);
-
-            var vertexCount = emitQuads(cuboid, color, overlay, light);
-
-            try (MemoryStack stack = MemoryStack.stackPush()) {
-                writer.push(stack, SCRATCH_BUFFER, vertexCount, ModelVertex.FORMAT);
-            }
-        }
-    }
+    private static int writeGeometry(MatrixStack.Entry matrices, ModelPartGeometry geometry, int light, int overlay, int color, int vertexIndex) {
+        prepareNormals(matrices.getNormalMatrix());
+        prepareCorners(matrices.getPositionMatrix(), geometry);
 
-    private static int emitQuads(ModelCuboid cuboid, int color, int overlay, int light) {
-        final var positions = cuboid.mirror ? VERTEX_POSITIONS_MIRRORED : VERTEX_POSITIONS;
-        final var textures = cuboid.mirror ? VERTEX_TEXTURES_MIRRORED : VERTEX_TEXTURES;
-        final var normals = cuboid.mirror ? CUBE_NORMALS_MIRRORED :  CUBE_NORMALS;
+        int vertexCount = geometry.getVertexCount();
+        ensureScratchCapacity(vertexIndex + vertexCount);
 
-        var vertexCount = 0;
+        var corners = TRANSFORMED_CORNERS;
+        var vertexCorners = geometry.getVertexCorners();
+        var vertexTexCoords = geometry.getVertexTexCoords();
+        var vertexNormals = geometry.getVertexNormals();
 
-        long ptr = SCRATCH_BUFFER;
+        long ptr = SCRATCH_BUFFER + ((long) vertexIndex * ModelVertex.STRIDE);
 
-        for (int quadIndex = 0; quadIndex < NUM_CUBE_FACES; quadIndex++) {
-            if (!cuboid.shouldDrawFace(quadIndex)) {
-                continue;
-            }
+        for (int i = 0; i < vertexCount; i++) {
+            int corner = vertexCorners[i] * 3;
 
-            emitVertex(ptr, positions[quadIndex][0], color, textures[quadIndex][0], overlay, light, normals[quadIndex]);
-            ptr += ModelVertex.STRIDE;
+            ModelVertex.write(ptr, corners[corner + 0], corners[corner + 1], corners[corner + 2], color,
+                    vertexTexCoords[(i * 2) + 0], vertexTexCoords[(i * 2) + 1], overlay, light,
+                    CUBE_NORMALS[vertexNormals[i]]);
 
-            emitVertex(ptr, positions[quadIndex][1], color, textures[quadIndex][1], overlay, light, normals[quadIndex]);
             ptr += ModelVertex.STRIDE;
+        }
 
-            emitVertex(ptr, positions[quadIndex][2], color, textures[quadIndex][2], overlay, light, normals[quadIndex]);
-            ptr += ModelVertex.STRIDE;
+        return vertexIndex + vertexCount;
+    }
 
-            emitVertex(ptr, positions[quadIndex][3], color, textures[quadIndex][3], overlay, light, normals[quadIndex]);
-            ptr += ModelVertex.STRIDE;
+    private static void prepareCorners(Matrix4f matrix, ModelPartGeometry geometry) {
+        var corners = geometry.getCorners();
+        int cornerCount = geometry.getCornerCount();
 
-            vertexCount += 4;
+        if (TRANSFORMED_CORNERS.length < corners.length) {
+            TRANSFORMED_CORNERS = new float[corners.length];
         }
 
-        return vertexCount;
-    }
+        var transformed = TRANSFORMED_CORNERS;
 
-    private static void emitVertex(long ptr, Vector3f pos, int color, Vector2f tex, int overlay, int light, int normal) {
-        ModelVertex.write(ptr, pos.x, pos.y, pos.z, color, tex.x, tex.y, overlay, light, normal);
-    }
+        for (int i = 0; i < cornerCount; i++) {
+            float x = corners[(i * 3) + 0];
+            float y = corners[(i * 3) + 1];
+            float z = corners[(i * 3) + 2];
 
-    private static void prepareVertices(MatrixStack.Entry matrices, ModelCuboid cuboid) {
-        buildVertexPosition(CUBE_CORNERS[VERTEX_X1_Y1_Z1], cuboid.x1, cuboid.y1, cuboid.z1, matrices.getPositionMatrix());
-        buildVertexPosition(CUBE_CORNERS[VERTEX_X2_Y1_Z1], cuboid.x2, cuboid.y1, cuboid.z1, matrices.getPositionMatrix());
-        buildVertexPosition(CUBE_CORNERS[VERTEX_X2_Y2_Z1], cuboid.x2, cuboid.y2, cuboid.z1, matrices.getPositionMatrix());
-        buildVertexPosition(CUBE_CORNERS[VERTEX_X1_Y2_Z1], cuboid.x1, cuboid.y2, cuboid.z1, matrices.getPositionMatrix());
-        buildVertexPosition(CUBE_CORNERS[VERTEX_X1_Y1_Z2], cuboid.x1, cuboid.y1, cuboid.z2, matrices.getPositionMatrix());
-        buildVertexPosition(CUBE_CORNERS[VERTEX_X2_Y1_Z2], cuboid.x2, cuboid.y1, cuboid.z2, matrices.getPositionMatrix());
-        buildVertexPosition(CUBE_CORNERS[VERTEX_X2_Y2_Z2], cuboid.x2, cuboid.y2, cuboid.z2, matrices.getPositionMatrix());
-        buildVertexPosition(CUBE_CORNERS[VERTEX_X1_Y2_Z2], cuboid.x1, cuboid.y2, cuboid.z2, matrices.getPositionMatrix());
-
-        buildVertexTexCoord(VERTEX_TEXTURES[FACE_NEG_Y], cuboid.u1, cuboid.v0, cuboid.u2, cuboid.v1);
-        buildVertexTexCoord(VERTEX_TEXTURES[FACE_POS_Y], cuboid.u2, cuboid.v1, cuboid.u3, cuboid.v0);
-        buildVertexTexCoord(VERTEX_TEXTURES[FACE_NEG_Z], cuboid.u1, cuboid.v1, cuboid.u2, cuboid.v2);
-        buildVertexTexCoord(VERTEX_TEXTURES[FACE_POS_Z], cuboid.u4, cuboid.v1, cuboid.u5, cuboid.v2);
-        buildVertexTexCoord(VERTEX_TEXTURES[FACE_NEG_X], cuboid.u2, cuboid.v1, cuboid.u4, cuboid.v2);
-        buildVertexTexCoord(VERTEX_TEXTURES[FACE_POS_X], cuboid.u0, cuboid.v1, cuboid.u1, cuboid.v2);
+            transformed[(i * 3) + 0] = MatrixHelper.transformPositionX(matrix, x, y, z);
+            transformed[(i * 3) + 1] = MatrixHelper.transformPositionY(matrix, x, y, z);
+            transformed[(i * 3) + 2] = MatrixHelper.transformPositionZ(matrix, x, y, z);
+        }
     }
 
-    private static void prepareNormals(MatrixStack.Entry matrices) {
-        CUBE_NORMALS[FACE_NEG_Y] = MatrixHelper.transformNormal(matrices.getNormalMatrix(), Direction.DOWN);
-        CUBE_NORMALS[FACE_POS_Y] = MatrixHelper.transformNormal(matrices.getNormalMatrix(), Direction.UP);
-        CUBE_NORMALS[FACE_NEG_Z] = MatrixHelper.transformNormal(matrices.getNormalMatrix(), Direction.NORTH);
-        CUBE_NORMALS[FACE_POS_Z] = MatrixHelper.transformNormal(matrices.getNormalMatrix(), Direction.SOUTH);
-        CUBE_NORMALS[FACE_POS_X] = MatrixHelper.transformNormal(matrices.getNormalMatrix(), Direction.WEST);
-        CUBE_NORMALS[FACE_NEG_X] = MatrixHelper.transformNormal(matrices.getNormalMatrix(), Direction.EAST);
-
-        // When mirroring is used, the normals for EAST and WEST are swapped.
-        CUBE_NORMALS_MIRRORED[FACE_NEG_Y] = CUBE_NORMALS[FACE_NEG_Y];
-        CUBE_NORMALS_MIRRORED[FACE_POS_Y] = CUBE_NORMALS[FACE_POS_Y];
-        CUBE_NORMALS_MIRRORED[FACE_NEG_Z] = CUBE_NORMALS[FACE_NEG_Z];
-        CUBE_NORMALS_MIRRORED[FACE_POS_Z] = CUBE_NORMALS[FACE_POS_Z];
-        CUBE_NORMALS_MIRRORED[FACE_POS_X] = CUBE_NORMALS[FACE_NEG_X]; // mirrored
-        CUBE_NORMALS_MIRRORED[FACE_NEG_X] = CUBE_NORMALS[FACE_POS_X]; // mirrored
+    private static void prepareNormals(Matrix3f matrix) {
+        CUBE_NORMALS[FACE_NEG_Y] = MatrixHelper.transformNormal(matrix, Direction.DOWN);
+        CUBE_NORMALS[FACE_POS_Y] = MatrixHelper.transformNormal(matrix, Direction.UP);
+        CUBE_NORMALS[FACE_NEG_Z] = MatrixHelper.transformNormal(matrix, Direction.NORTH);
+        CUBE_NORMALS[FACE_POS_Z] = MatrixHelper.transformNormal(matrix, Direction.SOUTH);
+        CUBE_NORMALS[FACE_POS_X] = MatrixHelper.transformNormal(matrix, Direction.WEST);
+        CUBE_NORMALS[FACE_NEG_X] = MatrixHelper.transformNormal(matrix, Direction.EAST);
     }
 
-    private static void buildVertexPosition(Vector3f vector, float x, float y, float z, Matrix4f matrix) {
-        vector.x = MatrixHelper.transformPositionX(matrix, x, y, z);
-        vector.y = MatrixHelper.transformPositionY(matrix, x, y, z);
-        vector.z = MatrixHelper.transformPositionZ(matrix, x, y, z);
-    }
+    private static void ensureScratchCapacity(int vertexCount) {
+        if (vertexCount <= SCRATCH_BUFFER_CAPACITY) {
+            return;
+        }
+
+        // Most models are well under this size, so the buffer should only need to grow a few times
+        int capacity = Math.max(vertexCount, Math.max(SCRATCH_BUFFER_CAPACITY * 2, 1024));
 
-    private static void buildVertexTexCoord(Vector2f[] uvs, float u1, float v1, float u2, float v2) {
-        uvs[0].set(u2, v1);
-        uvs[1].set(u1, v1);
-        uvs[2].set(u1, v2);
-        uvs[3].set(u2, v2);
+        SCRATCH_BUFFER = MemoryUtil.nmemRealloc(SCRATCH_BUFFER, (long) capacity * ModelVertex.STRIDE);
+        SCRATCH_BUFFER_CAPACITY = capacity;
     }
 }
@@ -0,0 +1,134 @@
+package me.jellysquid.mods.sodium.client.render.immediate.model;
+
+import me.jellysquid.mods.sodium.client.model.quad.BakedQuadView;
+import me.jellysquid.mods.sodium.client.util.DirectionUtil;
+import net.minecraft.client.render.model.BakedModel;
+import net.minecraft.client.render.model.BakedQuad;
+import net.minecraft.client.texture.Sprite;
+import net.minecraft.util.math.Direction;
+import net.minecraft.util.math.random.Random;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The quads of an item model, flattened into arrays in the same order that they would be rendered in. Everything which
+ * doesn't depend on the item stack or the transform is stored here, so that rendering the model again only needs to
+ * transform the vertices and look up the color of each tint index.
+ */
+public class ItemModelMesh {
+    public static final ItemModelMesh EMPTY = new ItemModelMesh(new float[0], new float[0], new byte[0], new int[0], new Sprite[0]);
+
+    // For each vertex, its position as a (x, y, z) triplet, and its texture coordinates as a (u, v) pair
+    private final float[] positions;
+    private final float[] texCoords;
+
+    // For each quad, the ordinal of its light face and its tint index (or -1 if it is not tinted)
+    private final byte[] lightFaces;
+    private final int[] colorIndices;
+
+    // The distinct sprites used by the quads, which need to be marked as active whenever the model is rendered
+    private final Sprite[] sprites;
+
+    private ItemModelMesh(float[] positions, float[] texCoords, byte[] lightFaces, int[] colorIndices, Sprite[] sprites) {
+        this.positions = positions;
+        this.texCoords = texCoords;
+        this.lightFaces = lightFaces;
+        this.colorIndices = colorIndices;
+        this.sprites = sprites;
+    }
+
+    /**
+     * Collects the quads of the model for each direction (and then the un-culled quads) in the same order as the
+     * vanilla item renderer, re-seeding the random before each query.
+     */
+    public static ItemModelMesh bake(BakedModel model, Random random, long seed) {
+        List<BakedQuad> quads = new ArrayList<>();
+
+        for (Direction direction : DirectionUtil.ALL_DIRECTIONS) {
+            random.setSeed(seed);
+            quads.addAll(model.getQuads(null, direction, random));
+        }
+
+        random.setSeed(seed);
+        quads.addAll(model.getQuads(null, null, random));
+
+        quads.removeIf(quad -> quad.getVertexData().length < 32); // ignore bad quads
+
+        if (quads.isEmpty()) {
+            return EMPTY;
+        }
+
+        int quadCount = quads.size();
+
+        float[] positions = new float[quadCount * 4 * 3];
+        float[] texCoords = new float[quadCount * 4 * 2];
+        byte[] lightFaces = new byte[quadCount];
+        int[] colorIndices = new int[quadCount];
+
+        Set<Sprite> sprites = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        for (int quadIndex = 0; quadIndex < quadCount; quadIndex++) {
+            BakedQuadView quad = (BakedQuadView) quads.get(quadIndex);
+
+            for (int i = 0; i < 4; i++) {
+                int vertexIndex = (quadIndex * 4) + i;
+
+                positions[(vertexIndex * 3) + 0] = quad.getX(i);
+                positions[(vertexIndex * 3) + 1] = quad.getY(i);
+                positions[(vertexIndex * 3) + 2] = quad.getZ(i);
+
+                texCoords[(vertexIndex * 2) + 0] = quad.getTexU(i);
+                texCoords[(vertexIndex * 2) + 1] = quad.getTexV(i);
+            }
+
+            lightFaces[quadIndex] = (byte) quad.getLightFace().ordinal();
+            colorIndices[quadIndex] = quad.getColorIndex();
+
+            if (quad.getSprite() != null) {
+                sprites.add(quad.getSprite());
+            }
+        }
+
+        return new ItemModelMesh(positions, texCoords, lightFaces, colorIndices, sprites.toArray(new Sprite[0]));
+    }
+
+    public boolean isEmpty() {
+        return this.lightFaces.length == 0;
+    }
+
+    public int getQuadCount() {
+        return this.lightFaces.length;
+    }
+
+    /**
+     * @return The approximate number of bytes of memory used by the arrays of this mesh
+     */
+    public int getSize() {
+        return (this.positions.length * Float.BYTES) + (this.texCoords.length * Float.BYTES) + this.lightFaces.length +
+                (this.colorIndices.length * Integer.BYTES) + (this.sprites.length * 8);
+    }
+
+    float[] getPositions() {
+        return this.positions;
+    }
+
+    float[] getTexCoords() {
+        return this.texCoords;
+    }
+
+    byte[] getLightFaces() {
+        return this.lightFaces;
+    }
+
+    int[] getColorIndices() {
+        return this.colorIndices;
+    }
+
+    Sprite[] getSprites() {
+        return this.sprites;
+    }
+}
@@ -0,0 +1,71 @@
+package me.jellysquid.mods.sodium.client.render.immediate.model;
+
+import it.unimi.dsi.fastutil.objects.Reference2ObjectLinkedOpenHashMap;
+import net.minecraft.client.render.model.BakedModel;
+import net.minecraft.client.render.model.BasicBakedModel;
+import net.minecraft.util.math.random.LocalRandom;
+import net.minecraft.util.math.random.Random;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Caches the flattened quads of item models, so that screens which draw the same items every frame (such as inventories
+ * and chests) don't need to query the quads of each model and decode them again for every slot. The least recently
+ * used meshes are evicted once the cache grows beyond its byte budget.
+ *
+ * Only models whose quads can't change between calls are cached, which is the case for the plain models created by
+ * the vanilla model loader. The cache is keyed on the identity of the model, and must be cleared when resources are
+ * reloaded so that the old models can be collected.
+ *
+ * This must only be used from the render thread.
+ */
+public class ItemModelMeshCache {
+    private static final int MAX_SIZE = 1024 * 1024 * 4; /* 4 MB */
+
+    // The random seed which is used by the vanilla item renderer to query the quads of a model
+    private static final long RANDOM_SEED = 42L;
+
+    private final Reference2ObjectLinkedOpenHashMap<BakedModel, ItemModelMesh> meshes = new Reference2ObjectLinkedOpenHashMap<>();
+    private final Random random = new LocalRandom(RANDOM_SEED);
+
+    private int size;
+
+    /**
+     * @return The mesh of the model, or null if the model can't be cached
+     */
+    public @Nullable ItemModelMesh getOrCreate(BakedModel model) {
+        if (!isCacheable(model)) {
+            return null;
+        }
+
+        ItemModelMesh mesh = this.meshes.getAndMoveToLast(model);
+
+        if (mesh == null) {
+            mesh = ItemModelMesh.bake(model, this.random, RANDOM_SEED);
+
+            this.meshes.putAndMoveToLast(model, mesh);
+            this.size += mesh.getSize();
+
+            this.evict();
+        }
+
+        return mesh;
+    }
+
+    private void evict() {
+        // Always keep the most recently used mesh, even if it alone is larger than the budget
+        while (this.size > MAX_SIZE && this.meshes.size() > 1) {
+            this.size -= this.meshes.removeFirst()
+                    .getSize();
+        }
+    }
+
+    public void clear() {
+        this.meshes.clear();
+        this.size = 0;
+    }
+
+    private static boolean isCacheable(BakedModel model) {
+        // Subclasses (which are often added by mods) may generate their quads dynamically
+        return model.getClass() == BasicBakedModel.class;
+    }
+}
@@ -0,0 +1,72 @@
+package me.jellysquid.mods.sodium.client.render.immediate.model;
+
+import me.jellysquid.mods.sodium.client.model.quad.BakedQuadView;
+import net.caffeinemc.mods.sodium.api.util.ColorARGB;
+import net.minecraft.client.color.item.ItemColorProvider;
+import net.minecraft.item.ItemStack;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * Provides the colors of the quads in an item model from the color provider of the item. The color of each tint index
+ * is only requested from the color provider once per item, since the same index is usually shared by many quads.
+ *
+ * Instances are meant to be re-used for each item which is rendered, so they must not be shared between threads.
+ */
+public class ItemQuadColors implements BakedModelEncoder.QuadColorProvider {
+    private static final int CACHED_TINT_INDICES = 8;
+
+    private final int[] tintColors = new int[CACHED_TINT_INDICES];
+    private final boolean[] tintColorsValid = new boolean[CACHED_TINT_INDICES];
+
+    private ItemColorProvider colorProvider;
+    private ItemStack itemStack;
+
+    /**
+     * Prepares for rendering the quads of the item stack.
+     */
+    public void init(@Nullable ItemColorProvider colorProvider, ItemStack itemStack) {
+        this.colorProvider = colorProvider;
+        this.itemStack = itemStack;
+
+        Arrays.fill(this.tintColorsValid, false);
+    }
+
+    /**
+     * Releases the item stack, so that it isn't kept alive until the next item is rendered.
+     */
+    public void reset() {
+        this.colorProvider = null;
+        this.itemStack = null;
+    }
+
+    @Override
+    public int getColor(BakedQuadView quad) {
+        return this.getColor(quad.getColorIndex());
+    }
+
+    /**
+     * @return The color of quads with the tint index, or white if the quads are not tinted
+     */
+    public int getColor(int tintIndex) {
+        if (this.colorProvider == null || tintIndex == -1) {
+            return 0xFFFFFFFF;
+        }
+
+        if (tintIndex < 0 || tintIndex >= CACHED_TINT_INDICES) {
+            return this.getTintColor(tintIndex);
+        }
+
+        if (!this.tintColorsValid[tintIndex]) {
+            this.tintColors[tintIndex] = this.getTintColor(tintIndex);
+            this.tintColorsValid[tintIndex] = true;
+        }
+
+        return this.tintColors[tintIndex];
+    }
+
+    private int getTintColor(int tintIndex) {
+        return ColorARGB.toABGR(this.colorProvider.getColor(this.itemStack, tintIndex), 255);
+    }
+}
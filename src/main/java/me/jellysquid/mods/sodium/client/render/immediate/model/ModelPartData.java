@@ -8,6 +8,7 @@ public interface ModelPartData {
     }
 
     ModelCuboid[] getCuboids();
+    ModelPartGeometry getGeometry();
     ModelPart[] getChildren();
 
     boolean isVisible();
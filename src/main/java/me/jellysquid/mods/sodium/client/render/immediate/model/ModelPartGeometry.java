@@ -0,0 +1,184 @@
+package me.jellysquid.mods.sodium.client.render.immediate.model;
+
+/**
+ * The geometry of the cuboids in a model part, which is baked once when the part is created. Everything which doesn't
+ * depend on the transform of the part (the faces which are drawn, the vertex order of mirrored cuboids, and the texture
+ * coordinates of each vertex) is computed up front, so that rendering only needs to transform the corners of each
+ * cuboid and copy out the vertices.
+ *
+ * Since model parts are created once for each entity model layer and then shared by every entity which uses the
+ * layer, this geometry is shared by them as well.
+ */
+public class ModelPartGeometry {
+    static final int NUM_CUBE_VERTICES = 8;
+    static final int NUM_CUBE_FACES = 6;
+    static final int NUM_FACE_VERTICES = 4;
+
+    static final int
+            FACE_NEG_Y = 0, // DOWN
+            FACE_POS_Y = 1, // UP
+            FACE_NEG_Z = 2, // NORTH
+            FACE_POS_Z = 3, // SOUTH
+            FACE_NEG_X = 4, // WEST
+            FACE_POS_X = 5; // EAST
+
+    private static final int
+            VERTEX_X1_Y1_Z1 = 0,
+            VERTEX_X2_Y1_Z1 = 1,
+            VERTEX_X2_Y2_Z1 = 2,
+            VERTEX_X1_Y2_Z1 = 3,
+            VERTEX_X1_Y1_Z2 = 4,
+            VERTEX_X2_Y1_Z2 = 5,
+            VERTEX_X2_Y2_Z2 = 6,
+            VERTEX_X1_Y2_Z2 = 7;
+
+    private static final int[][] CUBE_VERTICES = new int[][] {
+            { VERTEX_X2_Y1_Z2, VERTEX_X1_Y1_Z2, VERTEX_X1_Y1_Z1, VERTEX_X2_Y1_Z1 },
+            { VERTEX_X2_Y2_Z1, VERTEX_X1_Y2_Z1, VERTEX_X1_Y2_Z2, VERTEX_X2_Y2_Z2 },
+            { VERTEX_X2_Y1_Z1, VERTEX_X1_Y1_Z1, VERTEX_X1_Y2_Z1, VERTEX_X2_Y2_Z1 },
+            { VERTEX_X1_Y1_Z2, VERTEX_X2_Y1_Z2, VERTEX_X2_Y2_Z2, VERTEX_X1_Y2_Z2 },
+            { VERTEX_X2_Y1_Z2, VERTEX_X2_Y1_Z1, VERTEX_X2_Y2_Z1, VERTEX_X2_Y2_Z2 },
+            { VERTEX_X1_Y1_Z1, VERTEX_X1_Y1_Z2, VERTEX_X1_Y2_Z2, VERTEX_X1_Y2_Z1 },
+    };
+
+    public static final ModelPartGeometry EMPTY = new ModelPartGeometry(new float[0], new int[0], new float[0], new byte[0]);
+
+    // The positions of the corners of each cuboid, as a sequence of (x, y, z) triplets
+    private final float[] corners;
+
+    // For each vertex, the index of its corner, its texture coordinates as a (u, v) pair, and the face whose normal
+    // it uses (see FACE_*)
+    private final int[] vertexCorners;
+    private final float[] vertexTexCoords;
+    private final byte[] vertexNormals;
+
+    private ModelPartGeometry(float[] corners, int[] vertexCorners, float[] vertexTexCoords, byte[] vertexNormals) {
+        this.corners = corners;
+        this.vertexCorners = vertexCorners;
+        this.vertexTexCoords = vertexTexCoords;
+        this.vertexNormals = vertexNormals;
+    }
+
+    public static ModelPartGeometry bake(ModelCuboid[] cuboids) {
+        if (cuboids.length == 0) {
+            return EMPTY;
+        }
+
+        int vertexCount = 0;
+
+        for (ModelCuboid cuboid : cuboids) {
+            for (int quadIndex = 0; quadIndex < NUM_CUBE_FACES; quadIndex++) {
+                if (cuboid.shouldDrawFace(quadIndex)) {
+                    vertexCount += NUM_FACE_VERTICES;
+                }
+            }
+        }
+
+        float[] corners = new float[cuboids.length * NUM_CUBE_VERTICES * 3];
+
+        int[] vertexCorners = new int[vertexCount];
+        float[] vertexTexCoords = new float[vertexCount * 2];
+        byte[] vertexNormals = new byte[vertexCount];
+
+        float[][] texCoords = new float[NUM_CUBE_FACES][NUM_FACE_VERTICES * 2];
+
+        int vertexIndex = 0;
+
+        for (int cuboidIndex = 0; cuboidIndex < cuboids.length; cuboidIndex++) {
+            ModelCuboid cuboid = cuboids[cuboidIndex];
+
+            bakeCorners(corners, cuboidIndex * NUM_CUBE_VERTICES, cuboid);
+            bakeTexCoords(texCoords, cuboid);
+
+            for (int quadIndex = 0; quadIndex < NUM_CUBE_FACES; quadIndex++) {
+                if (!cuboid.shouldDrawFace(quadIndex)) {
+                    continue;
+                }
+
+                for (int i = 0; i < NUM_FACE_VERTICES; i++) {
+                    // Mirrored cuboids have their vertices in the opposite order, so that they keep the same winding
+                    int faceVertex = cuboid.mirror ? (NUM_FACE_VERTICES - 1) - i : i;
+
+                    vertexCorners[vertexIndex] = (cuboidIndex * NUM_CUBE_VERTICES) + CUBE_VERTICES[quadIndex][faceVertex];
+                    vertexTexCoords[(vertexIndex * 2) + 0] = texCoords[quadIndex][(faceVertex * 2) + 0];
+                    vertexTexCoords[(vertexIndex * 2) + 1] = texCoords[quadIndex][(faceVertex * 2) + 1];
+                    vertexNormals[vertexIndex] = (byte) (cuboid.mirror ? getMirroredFace(quadIndex) : quadIndex);
+
+                    vertexIndex++;
+                }
+            }
+        }
+
+        return new ModelPartGeometry(corners, vertexCorners, vertexTexCoords, vertexNormals);
+    }
+
+    private static void bakeCorners(float[] corners, int cornerIndex, ModelCuboid cuboid) {
+        setCorner(corners, cornerIndex + VERTEX_X1_Y1_Z1, cuboid.x1, cuboid.y1, cuboid.z1);
+        setCorner(corners, cornerIndex + VERTEX_X2_Y1_Z1, cuboid.x2, cuboid.y1, cuboid.z1);
+        setCorner(corners, cornerIndex + VERTEX_X2_Y2_Z1, cuboid.x2, cuboid.y2, cuboid.z1);
+        setCorner(corners, cornerIndex + VERTEX_X1_Y2_Z1, cuboid.x1, cuboid.y2, cuboid.z1);
+        setCorner(corners, cornerIndex + VERTEX_X1_Y1_Z2, cuboid.x1, cuboid.y1, cuboid.z2);
+        setCorner(corners, cornerIndex + VERTEX_X2_Y1_Z2, cuboid.x2, cuboid.y1, cuboid.z2);
+        setCorner(corners, cornerIndex + VERTEX_X2_Y2_Z2, cuboid.x2, cuboid.y2, cuboid.z2);
+        setCorner(corners, cornerIndex + VERTEX_X1_Y2_Z2, cuboid.x1, cuboid.y2, cuboid.z2);
+    }
+
+    private static void setCorner(float[] corners, int cornerIndex, float x, float y, float z) {
+        corners[(cornerIndex * 3) + 0] = x;
+        corners[(cornerIndex * 3) + 1] = y;
+        corners[(cornerIndex * 3) + 2] = z;
+    }
+
+    private static void bakeTexCoords(float[][] texCoords, ModelCuboid cuboid) {
+        setTexCoords(texCoords[FACE_NEG_Y], cuboid.u1, cuboid.v0, cuboid.u2, cuboid.v1);
+        setTexCoords(texCoords[FACE_POS_Y], cuboid.u2, cuboid.v1, cuboid.u3, cuboid.v0);
+        setTexCoords(texCoords[FACE_NEG_Z], cuboid.u1, cuboid.v1, cuboid.u2, cuboid.v2);
+        setTexCoords(texCoords[FACE_POS_Z], cuboid.u4, cuboid.v1, cuboid.u5, cuboid.v2);
+        setTexCoords(texCoords[FACE_NEG_X], cuboid.u2, cuboid.v1, cuboid.u4, cuboid.v2);
+        setTexCoords(texCoords[FACE_POS_X], cuboid.u0, cuboid.v1, cuboid.u1, cuboid.v2);
+    }
+
+    private static void setTexCoords(float[] uvs, float u1, float v1, float u2, float v2) {
+        uvs[0] = u2; uvs[1] = v1;
+        uvs[2] = u1; uvs[3] = v1;
+        uvs[4] = u1; uvs[5] = v2;
+        uvs[6] = u2; uvs[7] = v2;
+    }
+
+    // When mirroring is used, the normals for EAST and WEST are swapped
+    private static int getMirroredFace(int quadIndex) {
+        return switch (quadIndex) {
+            case FACE_NEG_X -> FACE_POS_X;
+            case FACE_POS_X -> FACE_NEG_X;
+            default -> quadIndex;
+        };
+    }
+
+    public boolean isEmpty() {
+        return this.vertexCorners.length == 0;
+    }
+
+    public int getCornerCount() {
+        return this.corners.length / 3;
+    }
+
+    public int getVertexCount() {
+        return this.vertexCorners.length;
+    }
+
+    float[] getCorners() {
+        return this.corners;
+    }
+
+    int[] getVertexCorners() {
+        return this.vertexCorners;
+    }
+
+    float[] getVertexTexCoords() {
+        return this.vertexTexCoords;
+    }
+
+    byte[] getVertexNormals() {
+        return this.vertexNormals;
+    }
+}
@@ -0,0 +1,87 @@
+package me.jellysquid.mods.sodium.client.render.particle;
+
+import net.minecraft.client.particle.Particle;
+
+import java.util.Arrays;
+
+/**
+ * The render state of many billboard particles, stored as a structure of arrays. Each slot is written by exactly one
+ * thread, so different ranges of the batch can be filled in parallel.
+ */
+public class BillboardParticleBatch {
+    // The interpolated position of each particle, relative to the camera
+    float[] x, y, z;
+
+    // The interpolated rotation of each particle around the view axis, or zero if it isn't rotated
+    float[] angle;
+
+    float[] size;
+    float[] minU, maxU, minV, maxV;
+
+    int[] color;
+    int[] light;
+
+    // The particle in each slot, which is needed to fetch its light on the render thread
+    Particle[] particles;
+
+    private int capacity;
+
+    public BillboardParticleBatch() {
+        this.allocate(0);
+    }
+
+    /**
+     * Ensures that the batch has at least {@param capacity} slots. Any existing contents are discarded.
+     */
+    public void reserve(int capacity) {
+        if (capacity > this.capacity) {
+            this.allocate(Math.max(capacity, this.capacity * 2));
+        }
+    }
+
+    private void allocate(int capacity) {
+        this.x = new float[capacity];
+        this.y = new float[capacity];
+        this.z = new float[capacity];
+        this.angle = new float[capacity];
+        this.size = new float[capacity];
+        this.minU = new float[capacity];
+        this.maxU = new float[capacity];
+        this.minV = new float[capacity];
+        this.maxV = new float[capacity];
+        this.color = new int[capacity];
+        this.light = new int[capacity];
+        this.particles = new Particle[capacity];
+
+        this.capacity = capacity;
+    }
+
+    public void set(int index, Particle particle,
+                    float x, float y, float z, float angle, float size,
+                    float minU, float maxU, float minV, float maxV,
+                    int color) {
+        this.particles[index] = particle;
+
+        this.x[index] = x;
+        this.y[index] = y;
+        this.z[index] = z;
+        this.angle[index] = angle;
+        this.size[index] = size;
+        this.minU[index] = minU;
+        this.maxU[index] = maxU;
+        this.minV[index] = minV;
+        this.maxV[index] = maxV;
+        this.color[index] = color;
+    }
+
+    public void setLight(int index, int light) {
+        this.light[index] = light;
+    }
+
+    /**
+     * Releases the particles held by the batch, so they aren't kept alive after they have been removed.
+     */
+    public void clear() {
+        Arrays.fill(this.particles, null);
+    }
+}
@@ -0,0 +1,17 @@
+package me.jellysquid.mods.sodium.client.render.particle;
+
+import net.minecraft.util.math.Vec3d;
+
+public interface BillboardParticleExtended {
+    /**
+     * Writes the render state of the particle (except for its light) into a slot of the batch. This does not access
+     * the world, so it can be called from any thread while the particle isn't being ticked.
+     */
+    void sodium$writeState(BillboardParticleBatch batch, int index, Vec3d cameraPos, float tickDelta);
+
+    /**
+     * @return The packed light of the particle. This may access the world, so it must only be called from the render
+     * thread.
+     */
+    int sodium$getLight(float tickDelta);
+}
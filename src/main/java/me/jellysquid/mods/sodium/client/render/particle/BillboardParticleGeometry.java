@@ -0,0 +1,80 @@
+package me.jellysquid.mods.sodium.client.render.particle;
+
+import net.caffeinemc.mods.sodium.api.vertex.format.common.ParticleVertex;
+
+/**
+ * Expands billboard particles into camera-facing quads. This is shared by the vanilla render path (one particle at a
+ * time) and the parallel render path, so that both produce exactly the same vertices.
+ */
+public class BillboardParticleGeometry {
+    /**
+     * Writes the four vertices of a billboard quad, starting at {@param ptr}. The quad is rotated by the camera
+     * rotation {@code (qx, qy, qz, qw)}, and then by {@param angle} around the view axis unless it is zero.
+     */
+    public static void writeQuad(long ptr,
+                                 float qx, float qy, float qz, float qw, float angle,
+                                 float x, float y, float z, float size,
+                                 float minU, float maxU, float minV, float maxV,
+                                 int color, int light) {
+        if (angle != 0.0F) {
+            // Quaternionf#rotateZ(angle)
+            float sin = (float) Math.sin(angle * 0.5F);
+            float cos = (float) Math.cos(angle * 0.5F);
+
+            float rx = (qx * cos) + (qy * sin);
+            float ry = (qy * cos) - (qx * sin);
+            float rz = (qw * sin) + (qz * cos);
+            float rw = (qw * cos) - (qz * sin);
+
+            qx = rx;
+            qy = ry;
+            qz = rz;
+            qw = rw;
+        }
+
+        writeVertex(ptr, qx, qy, qz, qw, -1.0F, -1.0F, x, y, z, maxU, maxV, color, light, size);
+        ptr += ParticleVertex.STRIDE;
+
+        writeVertex(ptr, qx, qy, qz, qw, -1.0F, 1.0F, x, y, z, maxU, minV, color, light, size);
+        ptr += ParticleVertex.STRIDE;
+
+        writeVertex(ptr, qx, qy, qz, qw, 1.0F, 1.0F, x, y, z, minU, minV, color, light, size);
+        ptr += ParticleVertex.STRIDE;
+
+        writeVertex(ptr, qx, qy, qz, qw, 1.0F, -1.0F, x, y, z, minU, maxV, color, light, size);
+    }
+
+    @SuppressWarnings("UnnecessaryLocalVariable")
+    private static void writeVertex(long buffer,
+                                    float q0x, float q0y, float q0z, float q0w,
+                                    float posX, float posY,
+                                    float originX, float originY, float originZ,
+                                    float u, float v, int color, int light, float size) {
+        // q0.hamiltonProduct(x, y, 0.0f, 0.0f)
+        float q1x = (q0w * posX) - (q0z * posY);
+        float q1y = (q0w * posY) + (q0z * posX);
+        float q1w = (q0x * posY) - (q0y * posX);
+        float q1z = -(q0x * posX) - (q0y * posY);
+
+        // Quaternion q2 = new Quaternion(rotation);
+        // q2.conjugate()
+        float q2x = -q0x;
+        float q2y = -q0y;
+        float q2z = -q0z;
+        float q2w = q0w;
+
+        // q2.hamiltonProduct(q1)
+        float q3x = q1z * q2x + q1x * q2w + q1y * q2z - q1w * q2y;
+        float q3y = q1z * q2y - q1x * q2z + q1y * q2w + q1w * q2x;
+        float q3z = q1z * q2z + q1x * q2y - q1y * q2x + q1w * q2w;
+
+        // Vector3f f = new Vector3f(q2.getX(), q2.getY(), q2.getZ())
+        // f.multiply(size)
+        // f.add(pos)
+        float fx = (q3x * size) + originX;
+        float fy = (q3y * size) + originY;
+        float fz = (q3z * size) + originZ;
+
+        ParticleVertex.put(buffer, fx, fy, fz, u, v, color, light);
+    }
+}
@@ -0,0 +1,62 @@
+package me.jellysquid.mods.sodium.client.render.particle;
+
+import net.caffeinemc.mods.sodium.api.vertex.format.common.ParticleVertex;
+import org.lwjgl.system.MemoryUtil;
+
+/**
+ * The layout of the per-instance record which is used to draw billboard particles with instancing. Each record holds
+ * the render state of one particle, which the vertex shader (see particles/billboard_instanced.vsh) expands into a
+ * camera-facing quad.
+ *
+ * {@link #expand(long, float, float, float, float, long)} performs the same expansion on the CPU, and is the reference
+ * for what the vertex shader must produce.
+ */
+public final class BillboardParticleInstance {
+    public static final int STRIDE = 44;
+
+    public static final int OFFSET_POSITION = 0;
+    public static final int OFFSET_SIZE_ANGLE = 12;
+    public static final int OFFSET_TEX_RECT = 20;
+    public static final int OFFSET_COLOR = 36;
+    public static final int OFFSET_LIGHT = 40;
+
+    public static void put(long ptr,
+                           float x, float y, float z, float size, float angle,
+                           float minU, float minV, float maxU, float maxV,
+                           int color, int light) {
+        MemoryUtil.memPutFloat(ptr + OFFSET_POSITION + 0, x);
+        MemoryUtil.memPutFloat(ptr + OFFSET_POSITION + 4, y);
+        MemoryUtil.memPutFloat(ptr + OFFSET_POSITION + 8, z);
+
+        MemoryUtil.memPutFloat(ptr + OFFSET_SIZE_ANGLE + 0, size);
+        MemoryUtil.memPutFloat(ptr + OFFSET_SIZE_ANGLE + 4, angle);
+
+        MemoryUtil.memPutFloat(ptr + OFFSET_TEX_RECT + 0, minU);
+        MemoryUtil.memPutFloat(ptr + OFFSET_TEX_RECT + 4, minV);
+        MemoryUtil.memPutFloat(ptr + OFFSET_TEX_RECT + 8, maxU);
+        MemoryUtil.memPutFloat(ptr + OFFSET_TEX_RECT + 12, maxV);
+
+        MemoryUtil.memPutInt(ptr + OFFSET_COLOR, color);
+        MemoryUtil.memPutInt(ptr + OFFSET_LIGHT, light);
+    }
+
+    /**
+     * Expands the instance record at {@param instance} into the four vertices of its quad, which are written in the
+     * {@link ParticleVertex} format starting at {@param vertices}. The camera rotation is given as the quaternion
+     * {@code (qx, qy, qz, qw)}.
+     */
+    public static void expand(long instance, float qx, float qy, float qz, float qw, long vertices) {
+        BillboardParticleGeometry.writeQuad(vertices, qx, qy, qz, qw,
+                MemoryUtil.memGetFloat(instance + OFFSET_SIZE_ANGLE + 4),
+                MemoryUtil.memGetFloat(instance + OFFSET_POSITION + 0),
+                MemoryUtil.memGetFloat(instance + OFFSET_POSITION + 4),
+                MemoryUtil.memGetFloat(instance + OFFSET_POSITION + 8),
+                MemoryUtil.memGetFloat(instance + OFFSET_SIZE_ANGLE + 0),
+                MemoryUtil.memGetFloat(instance + OFFSET_TEX_RECT + 0),
+                MemoryUtil.memGetFloat(instance + OFFSET_TEX_RECT + 8),
+                MemoryUtil.memGetFloat(instance + OFFSET_TEX_RECT + 4),
+                MemoryUtil.memGetFloat(instance + OFFSET_TEX_RECT + 12),
+                MemoryUtil.memGetInt(instance + OFFSET_COLOR),
+                MemoryUtil.memGetInt(instance + OFFSET_LIGHT));
+    }
+}
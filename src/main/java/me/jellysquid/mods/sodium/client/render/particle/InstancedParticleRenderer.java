@@ -0,0 +1,190 @@
+package me.jellysquid.mods.sodium.client.render.particle;
+
+import me.jellysquid.mods.sodium.client.gl.attribute.GlVertexAttribute;
+import me.jellysquid.mods.sodium.client.gl.attribute.GlVertexAttributeBinding;
+import me.jellysquid.mods.sodium.client.gl.attribute.GlVertexAttributeFormat;
+import me.jellysquid.mods.sodium.client.gl.buffer.GlBufferUsage;
+import me.jellysquid.mods.sodium.client.gl.buffer.GlMutableBuffer;
+import me.jellysquid.mods.sodium.client.gl.device.CommandList;
+import me.jellysquid.mods.sodium.client.gl.device.DrawCommandList;
+import me.jellysquid.mods.sodium.client.gl.device.RenderDevice;
+import me.jellysquid.mods.sodium.client.gl.func.GlFunctions;
+import me.jellysquid.mods.sodium.client.gl.shader.GlProgram;
+import me.jellysquid.mods.sodium.client.gl.shader.GlShader;
+import me.jellysquid.mods.sodium.client.gl.shader.ShaderConstants;
+import me.jellysquid.mods.sodium.client.gl.shader.ShaderLoader;
+import me.jellysquid.mods.sodium.client.gl.shader.ShaderType;
+import me.jellysquid.mods.sodium.client.gl.tessellation.GlPrimitiveType;
+import me.jellysquid.mods.sodium.client.gl.tessellation.GlTessellation;
+import me.jellysquid.mods.sodium.client.gl.tessellation.TessellationBinding;
+import me.jellysquid.mods.sodium.client.render.chunk.shader.ChunkFogMode;
+import net.caffeinemc.mods.sodium.api.vertex.buffer.VertexBufferWriter;
+import net.caffeinemc.mods.sodium.api.vertex.format.common.ParticleVertex;
+import net.minecraft.client.render.VertexConsumer;
+import net.minecraft.util.Identifier;
+import org.joml.Quaternionfc;
+import org.lwjgl.system.MemoryStack;
+import org.lwjgl.system.MemoryUtil;
+
+/**
+ * Draws billboard particles with a single instanced draw call. Each particle is written as one
+ * {@link BillboardParticleInstance} record, which is streamed to the device every frame, and the vertex shader expands
+ * each record into a camera-facing quad. Compared to writing the vertices of each quad on the CPU, this writes and
+ * uploads less than half as much data.
+ *
+ * When the system property "sodium.debug.expand_particles_on_cpu" is set to true, the instance records are instead
+ * expanded into vertices by {@link BillboardParticleInstance#expand(long, float, float, float, float, long)} and drawn
+ * through the vanilla buffer, which can be used to check the output of the vertex shader against the reference.
+ */
+public class InstancedParticleRenderer {
+    private static final boolean EXPAND_ON_CPU = Boolean.parseBoolean(System.getProperty("sodium.debug.expand_particles_on_cpu", "false"));
+
+    private static final int ATTRIBUTE_POSITION = 0;
+    private static final int ATTRIBUTE_SIZE_ANGLE = 1;
+    private static final int ATTRIBUTE_TEX_RECT = 2;
+    private static final int ATTRIBUTE_COLOR = 3;
+    private static final int ATTRIBUTE_LIGHT_COORD = 4;
+
+    private static final int FRAG_COLOR = 0;
+
+    // Each quad is drawn as two triangles, which are generated by the vertex shader
+    private static final int VERTICES_PER_INSTANCE = 6;
+
+    private final GlProgram<ParticleShaderInterface> program;
+    private final GlMutableBuffer instanceBuffer;
+    private final GlTessellation tessellation;
+
+    private long instances = MemoryUtil.NULL;
+    private int instanceCapacity = 0;
+
+    public InstancedParticleRenderer(CommandList commandList) {
+        this.program = createProgram();
+        this.instanceBuffer = commandList.createMutableBuffer();
+        this.tessellation = this.createTessellation(commandList);
+    }
+
+    public static boolean isSupported(RenderDevice device) {
+        return GlFunctions.isInstancedArraySupported();
+    }
+
+    private static GlProgram<ParticleShaderInterface> createProgram() {
+        ShaderConstants.Builder constants = ShaderConstants.builder();
+        constants.addAll(ChunkFogMode.SMOOTH.getDefines());
+
+        GlShader vertShader = ShaderLoader.loadShader(ShaderType.VERTEX,
+                new Identifier("sodium", "particles/billboard_instanced.vsh"), constants.build());
+
+        GlShader fragShader = ShaderLoader.loadShader(ShaderType.FRAGMENT,
+                new Identifier("sodium", "particles/billboard_instanced.fsh"), constants.build());
+
+        try {
+            return GlProgram.builder(new Identifier("sodium", "particle_shader"))
+                    .attachShader(vertShader)
+                    .attachShader(fragShader)
+                    .bindAttribute("a_Position", ATTRIBUTE_POSITION)
+                    .bindAttribute("a_SizeAngle", ATTRIBUTE_SIZE_ANGLE)
+                    .bindAttribute("a_TexRect", ATTRIBUTE_TEX_RECT)
+                    .bindAttribute("a_Color", ATTRIBUTE_COLOR)
+                    .bindAttribute("a_LightCoord", ATTRIBUTE_LIGHT_COORD)
+                    .bindFragmentData("fragColor", FRAG_COLOR)
+                    .link(ParticleShaderInterface::new);
+        } finally {
+            vertShader.delete();
+            fragShader.delete();
+        }
+    }
+
+    private GlTessellation createTessellation(CommandList commandList) {
+        int stride = BillboardParticleInstance.STRIDE;
+
+        return commandList.createTessellation(GlPrimitiveType.TRIANGLES, new TessellationBinding[] {
+                TessellationBinding.forInstanceBuffer(this.instanceBuffer, new GlVertexAttributeBinding[] {
+                        new GlVertexAttributeBinding(ATTRIBUTE_POSITION,
+                                new GlVertexAttribute(GlVertexAttributeFormat.FLOAT, 3, false, BillboardParticleInstance.OFFSET_POSITION, stride, false)),
+                        new GlVertexAttributeBinding(ATTRIBUTE_SIZE_ANGLE,
+                                new GlVertexAttribute(GlVertexAttributeFormat.FLOAT, 2, false, BillboardParticleInstance.OFFSET_SIZE_ANGLE, stride, false)),
+                        new GlVertexAttributeBinding(ATTRIBUTE_TEX_RECT,
+                                new GlVertexAttribute(GlVertexAttributeFormat.FLOAT, 4, false, BillboardParticleInstance.OFFSET_TEX_RECT, stride, false)),
+                        new GlVertexAttributeBinding(ATTRIBUTE_COLOR,
+                                new GlVertexAttribute(GlVertexAttributeFormat.UNSIGNED_BYTE, 4, true, BillboardParticleInstance.OFFSET_COLOR, stride, false)),
+                        new GlVertexAttributeBinding(ATTRIBUTE_LIGHT_COORD,
+                                new GlVertexAttribute(GlVertexAttributeFormat.UNSIGNED_SHORT, 2, false, BillboardParticleInstance.OFFSET_LIGHT, stride, true))
+                })
+        });
+    }
+
+    /**
+     * Ensures that there is space for the given number of instance records, which can then be written from any thread.
+     *
+     * @return The address of the first instance record
+     */
+    public long reserveInstances(int count) {
+        if (count > this.instanceCapacity) {
+            int capacity = Math.max(count, this.instanceCapacity * 2);
+
+            this.instances = MemoryUtil.nmemRealloc(this.instances, (long) capacity * BillboardParticleInstance.STRIDE);
+            this.instanceCapacity = capacity;
+        }
+
+        return this.instances;
+    }
+
+    /**
+     * @return True if the instance records should be passed to {@link #expand(int, Quaternionfc, VertexConsumer)}
+     * rather than {@link #draw(CommandList, int, Quaternionfc)}
+     */
+    public static boolean shouldExpandOnCpu() {
+        return EXPAND_ON_CPU;
+    }
+
+    /**
+     * Draws the instance records which were written into the space returned by {@link #reserveInstances(int)}, using
+     * the matrices, textures, and render state which were set up for the current particle sheet.
+     */
+    public void draw(CommandList commandList, int count, Quaternionfc cameraRotation) {
+        if (count == 0) {
+            return;
+        }
+
+        commandList.uploadData(this.instanceBuffer,
+                MemoryUtil.memByteBuffer(this.instances, count * BillboardParticleInstance.STRIDE), GlBufferUsage.STREAM_DRAW);
+
+        this.program.bind();
+        this.program.getInterface()
+                .setupState(cameraRotation);
+
+        try (DrawCommandList drawCommandList = commandList.beginTessellating(this.tessellation)) {
+            drawCommandList.drawArraysInstanced(VERTICES_PER_INSTANCE, count);
+        }
+
+        this.program.unbind();
+    }
+
+    /**
+     * Expands the instance records into vertices on the CPU, and writes them into the vertex consumer.
+     */
+    public void expand(int count, Quaternionfc rotation, VertexConsumer vertexConsumer) {
+        var writer = VertexBufferWriter.of(vertexConsumer);
+
+        try (MemoryStack stack = MemoryStack.stackPush()) {
+            long vertices = stack.nmalloc(4 * ParticleVertex.STRIDE);
+
+            for (int i = 0; i < count; i++) {
+                BillboardParticleInstance.expand(this.instances + ((long) i * BillboardParticleInstance.STRIDE),
+                        rotation.x(), rotation.y(), rotation.z(), rotation.w(), vertices);
+
+                writer.push(stack, vertices, 4, ParticleVertex.FORMAT);
+            }
+        }
+    }
+
+    public void delete(CommandList commandList) {
+        this.tessellation.delete(commandList);
+        commandList.deleteBuffer(this.instanceBuffer);
+        this.program.delete();
+
+        MemoryUtil.nmemFree(this.instances);
+        this.instances = MemoryUtil.NULL;
+        this.instanceCapacity = 0;
+    }
+}
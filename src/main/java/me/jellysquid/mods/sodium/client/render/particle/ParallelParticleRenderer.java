@@ -0,0 +1,326 @@
+package me.jellysquid.mods.sodium.client.render.particle;
+
+import me.jellysquid.mods.sodium.client.render.SodiumWorldRenderer;
+import net.caffeinemc.mods.sodium.api.vertex.buffer.VertexBufferWriter;
+import net.caffeinemc.mods.sodium.api.vertex.format.common.ParticleVertex;
+import net.minecraft.client.particle.BillboardParticle;
+import net.minecraft.client.particle.Particle;
+import net.minecraft.client.particle.ParticleTextureSheet;
+import net.minecraft.client.particle.SpriteBillboardParticle;
+import net.minecraft.client.render.Camera;
+import net.minecraft.client.render.VertexConsumer;
+import net.minecraft.util.crash.CrashException;
+import net.minecraft.util.crash.CrashReport;
+import net.minecraft.util.crash.CrashReportSection;
+import net.minecraft.util.math.Box;
+import net.minecraft.util.math.Vec3d;
+import org.joml.Quaternionf;
+import org.lwjgl.system.MemoryStack;
+import org.lwjgl.system.MemoryUtil;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Renders large numbers of billboard particles by splitting them into blocks which are processed on the common
+ * fork-join pool. Each block culls its particles, gathers their render state into a {@link BillboardParticleBatch},
+ * and then expands them into vertices in its own range of the vertex buffer. The ranges are then pushed to the vertex
+ * consumer in order. Alternatively, the particles can be written as instance records for the
+ * {@link InstancedParticleRenderer}.
+ *
+ * The particles given to this renderer keep their relative order, but they are drawn after any particles of the same
+ * sheet which are rendered through the vanilla path. This renderer must therefore only be used for sheets which draw
+ * without blending, where the order of particles doesn't change the result.
+ *
+ * The light of each particle is fetched on the render thread between these two steps, since the caches used by the
+ * lighting engine can't be accessed from multiple threads at once.
+ *
+ * Only vanilla particles which use the default billboard geometry are supported, see {@link #isSupported(Particle)}.
+ * All other particles must be rendered through the vanilla path.
+ */
+public class ParallelParticleRenderer {
+    // The smallest number of particles which will be rendered in parallel
+    public static final int PARALLEL_THRESHOLD = 1 << 12;
+
+    // The number of particles which are processed by each task
+    private static final int PARALLEL_BLOCK_SIZE = 1 << 10;
+
+    private static final Method BUILD_GEOMETRY_METHOD = findBuildGeometryMethod();
+
+    private static final ClassValue<Boolean> SUPPORTED_CLASSES = new ClassValue<>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            return isSupportedClass(type);
+        }
+    };
+
+    private final BillboardParticleBatch batch = new BillboardParticleBatch();
+
+    // The number of particles in each block which were not culled
+    private int[] blockCounts = new int[0];
+
+    private long vertexBuffer = MemoryUtil.NULL;
+    private int vertexBufferCapacity = 0;
+
+    /**
+     * Renders the particles into the vertex consumer. The particles must all be supported by this renderer. Particles
+     * which are not inside any visible chunk section are skipped.
+     */
+    public void render(List<Particle> particles, VertexConsumer vertexConsumer, Camera camera, float tickDelta,
+                       ParticleTextureSheet sheet) {
+        if (particles.isEmpty()) {
+            return;
+        }
+
+        try {
+            int blockCount = this.gather(particles, camera, tickDelta, sheet);
+
+            this.reserveVertexBuffer(particles.size() * 4);
+
+            var batch = this.batch;
+            var blockCounts = this.blockCounts;
+
+            Quaternionf rotation = camera.getRotation();
+            long vertexBuffer = this.vertexBuffer;
+
+            IntStream.range(0, blockCount).parallel().forEach(block -> {
+                int start = block * PARALLEL_BLOCK_SIZE;
+                expandBlock(batch, start, blockCounts[block], rotation, vertexBuffer + ((long) start * 4 * ParticleVertex.STRIDE));
+            });
+
+            var writer = VertexBufferWriter.of(vertexConsumer);
+
+            try (MemoryStack stack = MemoryStack.stackPush()) {
+                for (int block = 0; block < blockCount; block++) {
+                    if (blockCounts[block] > 0) {
+                        long ptr = vertexBuffer + ((long) block * PARALLEL_BLOCK_SIZE * 4 * ParticleVertex.STRIDE);
+                        writer.push(stack, ptr, blockCounts[block] * 4, ParticleVertex.FORMAT);
+                    }
+                }
+            }
+        } finally {
+            this.batch.clear();
+        }
+    }
+
+    /**
+     * Writes an instance record for each of the particles into the instanced renderer, in the same way as
+     * {@link #render(List, VertexConsumer, Camera, float, ParticleTextureSheet)}. The records are packed together
+     * without gaps, and in the same order as the particles.
+     *
+     * @return The number of instance records which were written
+     */
+    public int writeInstances(List<Particle> particles, InstancedParticleRenderer instancedRenderer, Camera camera,
+                              float tickDelta, ParticleTextureSheet sheet) {
+        if (particles.isEmpty()) {
+            return 0;
+        }
+
+        try {
+            int blockCount = this.gather(particles, camera, tickDelta, sheet);
+
+            var batch = this.batch;
+            var blockCounts = this.blockCounts;
+
+            // The first instance record of each block, since culled particles leave gaps in the batch
+            int[] blockOffsets = new int[blockCount];
+            int instanceCount = 0;
+
+            for (int block = 0; block < blockCount; block++) {
+                blockOffsets[block] = instanceCount;
+                instanceCount += blockCounts[block];
+            }
+
+            long instances = instancedRenderer.reserveInstances(instanceCount);
+
+            IntStream.range(0, blockCount).parallel().forEach(block -> {
+                int start = block * PARALLEL_BLOCK_SIZE;
+                writeInstanceBlock(batch, start, blockCounts[block], instances + ((long) blockOffsets[block] * BillboardParticleInstance.STRIDE));
+            });
+
+            return instanceCount;
+        } finally {
+            this.batch.clear();
+        }
+    }
+
+    /**
+     * Culls the particles and gathers the render state of the visible ones into the batch, including their light.
+     * The visible particles of each block are packed at the start of the block, and their count is stored in
+     * {@link #blockCounts}.
+     *
+     * @return The number of blocks
+     */
+    private int gather(List<Particle> particles, Camera camera, float tickDelta, ParticleTextureSheet sheet) {
+        int count = particles.size();
+        int blockCount = (count + PARALLEL_BLOCK_SIZE - 1) / PARALLEL_BLOCK_SIZE;
+
+        this.batch.reserve(count);
+
+        if (this.blockCounts.length < blockCount) {
+            this.blockCounts = new int[blockCount];
+        }
+
+        SodiumWorldRenderer renderer = SodiumWorldRenderer.instanceNullable();
+        Vec3d cameraPos = camera.getPos();
+
+        var batch = this.batch;
+        var blockCounts = this.blockCounts;
+
+        IntStream.range(0, blockCount).parallel().forEach(block -> {
+            blockCounts[block] = gatherBlock(batch, particles, block, renderer, cameraPos, tickDelta, sheet);
+        });
+
+        for (int block = 0; block < blockCount; block++) {
+            int start = block * PARALLEL_BLOCK_SIZE;
+
+            for (int index = start; index < start + blockCounts[block]; index++) {
+                batch.setLight(index, ((BillboardParticleExtended) batch.particles[index]).sodium$getLight(tickDelta));
+            }
+        }
+
+        return blockCount;
+    }
+
+    private static int gatherBlock(BillboardParticleBatch batch, List<Particle> particles, int block,
+                                   SodiumWorldRenderer renderer, Vec3d cameraPos, float tickDelta,
+                                   ParticleTextureSheet sheet) {
+        int start = block * PARALLEL_BLOCK_SIZE;
+        int end = Math.min(start + PARALLEL_BLOCK_SIZE, particles.size());
+
+        // Visible particles are packed at the start of the block
+        int index = start;
+
+        for (int i = start; i < end; i++) {
+            Particle particle = particles.get(i);
+
+            try {
+                if (renderer != null && !isVisible(renderer, particle)) {
+                    continue;
+                }
+
+                ((BillboardParticleExtended) particle).sodium$writeState(batch, index++, cameraPos, tickDelta);
+
+                if (particle instanceof SpriteTrackingParticle spriteParticle) {
+                    spriteParticle.sodium$markSpriteActive();
+                }
+            } catch (Throwable throwable) {
+                CrashReport crashReport = CrashReport.create(throwable, "Rendering Particle");
+                CrashReportSection crashReportSection = crashReport.addElement("Particle being rendered");
+                crashReportSection.add("Particle", particle::toString);
+                crashReportSection.add("Particle Type", sheet::toString);
+                throw new CrashException(crashReport);
+            }
+        }
+
+        return index - start;
+    }
+
+    private static boolean isVisible(SodiumWorldRenderer renderer, Particle particle) {
+        Box box = particle.getBoundingBox();
+
+        // Hack: Grow the particle's bounding box in order to work around mis-behaved particles
+        return renderer.isBoxVisible(box.minX - 1.0D, box.minY - 1.0D, box.minZ - 1.0D, box.maxX + 1.0D, box.maxY + 1.0D, box.maxZ + 1.0D);
+    }
+
+    private static void expandBlock(BillboardParticleBatch batch, int start, int count, Quaternionf rotation, long ptr) {
+        float qx = rotation.x();
+        float qy = rotation.y();
+        float qz = rotation.z();
+        float qw = rotation.w();
+
+        for (int index = start; index < start + count; index++) {
+            BillboardParticleGeometry.writeQuad(ptr, qx, qy, qz, qw, batch.angle[index],
+                    batch.x[index], batch.y[index], batch.z[index], batch.size[index],
+                    batch.minU[index], batch.maxU[index], batch.minV[index], batch.maxV[index],
+                    batch.color[index], batch.light[index]);
+
+            ptr += 4 * ParticleVertex.STRIDE;
+        }
+    }
+
+    private static void writeInstanceBlock(BillboardParticleBatch batch, int start, int count, long ptr) {
+        for (int index = start; index < start + count; index++) {
+            BillboardParticleInstance.put(ptr, batch.x[index], batch.y[index], batch.z[index],
+                    batch.size[index], batch.angle[index],
+                    batch.minU[index], batch.minV[index], batch.maxU[index], batch.maxV[index],
+                    batch.color[index], batch.light[index]);
+
+            ptr += BillboardParticleInstance.STRIDE;
+        }
+    }
+
+    private void reserveVertexBuffer(int vertexCount) {
+        if (vertexCount <= this.vertexBufferCapacity) {
+            return;
+        }
+
+        int capacity = Math.max(vertexCount, this.vertexBufferCapacity * 2);
+
+        this.vertexBuffer = MemoryUtil.nmemRealloc(this.vertexBuffer, (long) capacity * ParticleVertex.STRIDE);
+        this.vertexBufferCapacity = capacity;
+    }
+
+    /**
+     * Frees the vertex buffer of this renderer. The renderer can still be used afterwards, in which case a new buffer
+     * will be allocated.
+     */
+    public void delete() {
+        MemoryUtil.nmemFree(this.vertexBuffer);
+
+        this.vertexBuffer = MemoryUtil.NULL;
+        this.vertexBufferCapacity = 0;
+    }
+
+    /**
+     * @return True if there are enough threads available for rendering in parallel to be worthwhile
+     */
+    public static boolean isParallelismAvailable() {
+        return ForkJoinPool.getCommonPoolParallelism() > 1;
+    }
+
+    /**
+     * @return True if the particle can be rendered by this renderer, which requires that it is a vanilla particle and
+     * that it doesn't replace the geometry of {@link BillboardParticle}. Modded particles are never supported, since
+     * they may depend on being rendered from the render thread.
+     */
+    public static boolean isSupported(Particle particle) {
+        return SUPPORTED_CLASSES.get(particle.getClass());
+    }
+
+    private static boolean isSupportedClass(Class<?> type) {
+        if (BUILD_GEOMETRY_METHOD == null || !BillboardParticle.class.isAssignableFrom(type) || !type.getName().startsWith("net.minecraft.")) {
+            return false;
+        }
+
+        for (Class<?> c = type; c != BillboardParticle.class; c = c.getSuperclass()) {
+            // The override in SpriteBillboardParticle is added by Sodium, and only tracks the sprite of the particle
+            if (c == SpriteBillboardParticle.class) {
+                continue;
+            }
+
+            try {
+                c.getDeclaredMethod(BUILD_GEOMETRY_METHOD.getName(), BUILD_GEOMETRY_METHOD.getParameterTypes());
+
+                return false;
+            } catch (NoSuchMethodException ignored) {
+                // The class doesn't replace the geometry
+            }
+        }
+
+        return true;
+    }
+
+    private static Method findBuildGeometryMethod() {
+        // The name of the method depends on the mappings which are in use, so it is found by its signature instead
+        Class<?>[] parameters = new Class<?>[] { VertexConsumer.class, Camera.class, float.class };
+
+        return Arrays.stream(BillboardParticle.class.getDeclaredMethods())
+                .filter(method -> Arrays.equals(method.getParameterTypes(), parameters) && method.getReturnType() == void.class)
+                .findFirst()
+                .orElse(null);
+    }
+}
@@ -0,0 +1,73 @@
+package me.jellysquid.mods.sodium.client.render.particle;
+
+import com.mojang.blaze3d.platform.GlStateManager;
+import com.mojang.blaze3d.systems.RenderSystem;
+import me.jellysquid.mods.sodium.client.gl.shader.uniform.GlUniformFloat4v;
+import me.jellysquid.mods.sodium.client.gl.shader.uniform.GlUniformInt;
+import me.jellysquid.mods.sodium.client.gl.shader.uniform.GlUniformMatrix4f;
+import me.jellysquid.mods.sodium.client.render.chunk.shader.ChunkShaderFogComponent;
+import me.jellysquid.mods.sodium.client.render.chunk.shader.ShaderBindingContext;
+import me.jellysquid.mods.sodium.client.util.TextureUtil;
+import org.joml.Quaternionfc;
+import org.lwjgl.opengl.GL32C;
+
+/**
+ * The interface of the program which draws instanced billboard particles, see particles/billboard_instanced.vsh.
+ */
+public class ParticleShaderInterface {
+    private static final int TEXTURE_UNIT_PARTICLE = 0;
+    private static final int TEXTURE_UNIT_LIGHT = 2;
+
+    private final GlUniformMatrix4f uniformModelViewMatrix;
+    private final GlUniformMatrix4f uniformProjectionMatrix;
+    private final GlUniformFloat4v uniformCameraRotation;
+    private final GlUniformFloat4v uniformColorModulator;
+
+    private final GlUniformInt uniformParticleTex;
+    private final GlUniformInt uniformLightTex;
+
+    private final ChunkShaderFogComponent fogShader;
+
+    private final float[] rotation = new float[4];
+
+    public ParticleShaderInterface(ShaderBindingContext context) {
+        this.uniformModelViewMatrix = context.bindUniform("u_ModelViewMatrix", GlUniformMatrix4f::new);
+        this.uniformProjectionMatrix = context.bindUniform("u_ProjectionMatrix", GlUniformMatrix4f::new);
+        this.uniformCameraRotation = context.bindUniform("u_CameraRotation", GlUniformFloat4v::new);
+        this.uniformColorModulator = context.bindUniform("u_ColorModulator", GlUniformFloat4v::new);
+
+        this.uniformParticleTex = context.bindUniform("u_ParticleTex", GlUniformInt::new);
+        this.uniformLightTex = context.bindUniform("u_LightTex", GlUniformInt::new);
+
+        this.fogShader = new ChunkShaderFogComponent.Smooth(context);
+    }
+
+    /**
+     * Copies the matrices, textures, and fog parameters which were set up for the particle sheet by the vanilla
+     * renderer.
+     */
+    public void setupState(Quaternionfc cameraRotation) {
+        this.uniformModelViewMatrix.set(RenderSystem.getModelViewMatrix());
+        this.uniformProjectionMatrix.set(RenderSystem.getProjectionMatrix());
+
+        this.rotation[0] = cameraRotation.x();
+        this.rotation[1] = cameraRotation.y();
+        this.rotation[2] = cameraRotation.z();
+        this.rotation[3] = cameraRotation.w();
+
+        this.uniformCameraRotation.set(this.rotation);
+        this.uniformColorModulator.set(RenderSystem.getShaderColor());
+
+        this.bindTexture(this.uniformParticleTex, TEXTURE_UNIT_PARTICLE, TextureUtil.getBlockTextureId());
+        this.bindTexture(this.uniformLightTex, TEXTURE_UNIT_LIGHT, TextureUtil.getLightTextureId());
+
+        this.fogShader.setup();
+    }
+
+    private void bindTexture(GlUniformInt uniform, int unit, int textureId) {
+        GlStateManager._activeTexture(GL32C.GL_TEXTURE0 + unit);
+        GlStateManager._bindTexture(textureId);
+
+        uniform.setInt(unit);
+    }
+}
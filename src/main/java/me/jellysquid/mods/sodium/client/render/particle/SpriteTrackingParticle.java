@@ -0,0 +1,8 @@
+package me.jellysquid.mods.sodium.client.render.particle;
+
+public interface SpriteTrackingParticle {
+    /**
+     * Marks the sprite of the particle as active, if it is animated. This is safe to call from any thread.
+     */
+    void sodium$markSpriteActive();
+}
@@ -41,6 +41,26 @@ public final class Viewport {
         );
     }
 
+    /**
+     * @return Whether the box is outside, inside, or intersects with the frustum, as one of the constants in
+     * {@link Frustum}
+     */
+    public int getBoxIntersection(int intOriginX, int intOriginY, int intOriginZ, float floatSizeX, float floatSizeY, float floatSizeZ) {
+        float floatOriginX = (intOriginX - this.transform.intX) - this.transform.fracX;
+        float floatOriginY = (intOriginY - this.transform.intY) - this.transform.fracY;
+        float floatOriginZ = (intOriginZ - this.transform.intZ) - this.transform.fracZ;
+
+        return this.frustum.intersectAab(
+                floatOriginX - floatSizeX,
+                floatOriginY - floatSizeY,
+                floatOriginZ - floatSizeZ,
+
+                floatOriginX + floatSizeX,
+                floatOriginY + floatSizeY,
+                floatOriginZ + floatSizeZ
+        );
+    }
+
     public CameraTransform getTransform() {
         return this.transform;
     }
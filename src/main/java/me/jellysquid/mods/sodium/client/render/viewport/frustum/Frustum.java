@@ -1,5 +1,25 @@
 package me.jellysquid.mods.sodium.client.render.viewport.frustum;
 
 public interface Frustum {
+    /**
+     * The box is fully outside the frustum and is not visible.
+     */
+    int OUTSIDE = 0;
+
+    /**
+     * The box intersects with a plane of the frustum and is partially visible.
+     */
+    int INTERSECT = 1;
+
+    /**
+     * The box is fully contained within the frustum and is visible.
+     */
+    int INSIDE = 2;
+
     boolean testAab(float minX, float minY, float minZ, float maxX, float maxY, float maxZ);
+
+    /**
+     * @return Whether the box is {@link #OUTSIDE}, {@link #INSIDE}, or {@link #INTERSECT}s with the frustum
+     */
+    int intersectAab(float minX, float minY, float minZ, float maxX, float maxY, float maxZ);
 }
@@ -81,6 +81,11 @@ public final class DoubleBufferedQueue<E> {
         }
 
 
+        @Override
+        public E get(int offset) {
+            return this.elements[this.readIndex + offset];
+        }
+
         public void clear() {
             if (this.writeIndex != 0) {
                 Arrays.fill(this.elements, 0, this.writeIndex, null);
@@ -90,6 +95,7 @@ public final class DoubleBufferedQueue<E> {
             this.writeIndex = 0;
         }
 
+        @Override
         public int size() {
             return this.writeIndex - this.readIndex;
         }
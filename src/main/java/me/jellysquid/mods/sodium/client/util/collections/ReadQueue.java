@@ -4,4 +4,14 @@ import org.jetbrains.annotations.Nullable;
 
 public interface ReadQueue<E> {
     @Nullable E dequeue();
+
+    /**
+     * Returns the number of elements which have not yet been dequeued.
+     */
+    int size();
+
+    /**
+     * Returns the element at the given offset from the head of the queue without removing it.
+     */
+    E get(int offset);
 }
@@ -4,12 +4,26 @@ import net.caffeinemc.mods.sodium.api.util.ColorARGB;
 import net.minecraft.util.math.MathHelper;
 
 public class BoxBlur {
+    // Each lane holds the sum of one color channel over the sliding window. Since every sum is at most 255 times the
+    // size of the window, the lanes can't carry into each other for any window smaller than 2^21 / 255 colors.
+    private static final int LANE_WIDTH = 21;
+    private static final int LANE_MASK = (1 << LANE_WIDTH) - 1;
+
+    private static final int BLUE_LANE = 0;
+    private static final int GREEN_LANE = LANE_WIDTH;
+    private static final int RED_LANE = LANE_WIDTH * 2;
+
+    private static final int MAXIMUM_RADIUS = ((LANE_MASK / 255) - 1) / 2;
 
     public static void blur(ColorBuffer buf, ColorBuffer tmp, int radius) {
         if (buf.width != tmp.width || buf.height != tmp.height) {
             throw new IllegalArgumentException("Color buffers must have same dimensions");
         }
 
+        if (radius > MAXIMUM_RADIUS) {
+            throw new IllegalArgumentException("Blur radius must not be greater than " + MAXIMUM_RADIUS);
+        }
+
         if (isHomogenous(buf.data)) {
             return;
         }
@@ -24,52 +38,36 @@ public class BoxBlur {
         for (int y = 0; y < height; y++) {
             int srcRowOffset = ColorBuffer.getIndex(0, y, width);
 
-            int red, green, blue;
-
-            {
-                int color = src[srcRowOffset];
-                red = ColorARGB.unpackRed(color);
-                green = ColorARGB.unpackGreen(color);
-                blue = ColorARGB.unpackBlue(color);
-            }
-
             // Extend the window backwards by repeating the colors at the edge N times
-            red += red * radius;
-            green += green * radius;
-            blue += blue * radius;
+            long sum = toLanes(src[srcRowOffset]) * (radius + 1);
 
             // Extend the window forwards by sampling ahead N times
             for (int x = 1; x <= radius; x++) {
-                var color = src[srcRowOffset + x];
-                red += ColorARGB.unpackRed(color);
-                green += ColorARGB.unpackGreen(color);
-                blue += ColorARGB.unpackBlue(color);
+                sum += toLanes(src[srcRowOffset + x]);
             }
 
             for (int x = 0; x < width; x++) {
                 // The x and y coordinates are transposed to flip the output image
-                dst[ColorBuffer.getIndex(y, x, width)] = averageRGB(red, green, blue, multiplier);
-
-                {
-                    // Remove the color values that are behind the window
-                    var color = src[srcRowOffset + Math.max(0, x - radius)];
-
-                    red -= ColorARGB.unpackRed(color);
-                    green -= ColorARGB.unpackGreen(color);
-                    blue -= ColorARGB.unpackBlue(color);
-                }
-
-                {
-                    // Add the color values that are ahead of the window
-                    var color = src[srcRowOffset + Math.min(width - 1, x + radius + 1)];
-                    red += ColorARGB.unpackRed(color);
-                    green += ColorARGB.unpackGreen(color);
-                    blue += ColorARGB.unpackBlue(color);
-                }
+                dst[ColorBuffer.getIndex(y, x, width)] = averageRGB((int) (sum >>> RED_LANE) & LANE_MASK,
+                        (int) (sum >>> GREEN_LANE) & LANE_MASK, (int) (sum >>> BLUE_LANE) & LANE_MASK, multiplier);
+
+                // Remove the color values that are behind the window, and add the color values that are ahead of it
+                sum -= toLanes(src[srcRowOffset + Math.max(0, x - radius)]);
+                sum += toLanes(src[srcRowOffset + Math.min(width - 1, x + radius + 1)]);
             }
         }
     }
 
+    /**
+     * Spreads the color channels of an ARGB color into separate lanes of a long, so that the sums of every channel in
+     * the sliding window can be updated with a single addition or subtraction. The alpha channel is discarded.
+     */
+    private static long toLanes(int color) {
+        return ((long) ColorARGB.unpackRed(color) << RED_LANE) |
+                ((long) ColorARGB.unpackGreen(color) << GREEN_LANE) |
+                ((long) ColorARGB.unpackBlue(color) << BLUE_LANE);
+    }
+
     /**
      * Pre-computes a multiplier that can be used to avoid costly division when averaging the color data in the
      * sliding window.
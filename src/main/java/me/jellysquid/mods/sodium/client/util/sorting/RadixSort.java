@@ -1,5 +1,18 @@
 package me.jellysquid.mods.sodium.client.util.sorting;
 
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * A stable least-significant-digit radix sort over integer keys, which produces the indices of the keys in ascending
+ * order. The histogram and scratch buffers are kept per-thread, so that sorting does not allocate memory other than
+ * for the output array (if one is not provided.)
+ *
+ * Large arrays are sorted in parallel on the common fork-join pool, by splitting the keys into blocks which are
+ * counted and scattered independently. Since the offsets of each block are derived from the blocks before it, the
+ * result is identical to that of the sequential sort.
+ */
 public class RadixSort extends AbstractSort {
     private static final int DIGIT_BITS = 8;
     private static final int RADIX_KEY_BITS = Integer.BYTES * 8;
@@ -7,75 +20,242 @@ public class RadixSort extends AbstractSort {
     private static final int DIGIT_COUNT = (RADIX_KEY_BITS + DIGIT_BITS - 1) / DIGIT_BITS;
     private static final int DIGIT_MASK = (1 << DIGIT_BITS) - 1;
 
+    // Arrays smaller than this are sorted on the calling thread, since the overhead of splitting the work would be
+    // greater than the time saved
+    private static final int PARALLEL_THRESHOLD = 1 << 16;
+
+    // The minimum number of keys in each block of a parallel sort
+    private static final int PARALLEL_BLOCK_SIZE = 1 << 14;
+
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
     public static int[] sort(int[] keys) {
-        if (keys.length <= 1) {
-            return new int[keys.length];
+        var indices = new int[keys.length];
+        sort(keys, keys.length, indices);
+
+        return indices;
+    }
+
+    /**
+     * Sorts the first {@code length} keys, and writes the indices of the keys in ascending order into the given array.
+     *
+     * @param keys The keys to sort, which are not modified
+     * @param length The number of keys to sort
+     * @param indices The array which the sorted indices are written into, which must hold at least {@code length} elements
+     */
+    public static void sort(int[] keys, int length, int[] indices) {
+        if (length > keys.length || length > indices.length) {
+            throw new IllegalArgumentException("Length exceeds the size of the arrays");
         }
 
-        return radixSort(keys, createHistogram(keys));
+        if (length <= 1) {
+            if (length == 1) {
+                indices[0] = 0;
+            }
+
+            return;
+        }
+
+        if (length >= PARALLEL_THRESHOLD && ForkJoinPool.getCommonPoolParallelism() > 1) {
+            sortParallel(keys, length, indices);
+        } else {
+            sortSequential(keys, length, indices);
+        }
     }
 
-    private static int[][] createHistogram(int[] keys) {
-        var histogram = new int[DIGIT_COUNT][BUCKET_COUNT];
+    private static void sortSequential(int[] keys, int length, int[] indices) {
+        var scratch = SCRATCH.get();
+
+        // The buffers of this thread are being used by a parallel sort which it is helping with
+        if (scratch.inUse) {
+            scratch = new Scratch();
+        }
+
+        var histogram = scratch.histogram;
+        Arrays.fill(histogram, 0);
+
+        for (int i = 0; i < length; i++) {
+            final int key = keys[i];
 
-        for (final int key : keys) {
             for (int digit = 0; digit < DIGIT_COUNT; digit++) {
-                histogram[digit][extractDigit(key, digit)] += 1;
+                histogram[(digit * BUCKET_COUNT) + extractDigit(key, digit)]++;
             }
         }
 
-        return histogram;
-    }
+        int[] cur = indices;
+        int[] next = scratch.getBuffer(length);
+
+        for (int i = 0; i < length; i++) {
+            cur[i] = i;
+        }
 
-    private static void prefixSum(int[][] offsets) {
         for (int digit = 0; digit < DIGIT_COUNT; digit++) {
-            final var buckets = offsets[digit];
-            var sum = 0;
+            final int base = digit * BUCKET_COUNT;
 
-            for (int bucket_idx = 0; bucket_idx < BUCKET_COUNT; bucket_idx++) {
-                final var offset = sum;
-                sum += buckets[bucket_idx];
-                buckets[bucket_idx] = offset;
+            // If every key has the same value for this digit, the pass would not change the order
+            if (histogram[base + extractDigit(keys[0], digit)] == length) {
+                continue;
+            }
+
+            prefixSum(histogram, base);
+
+            for (int pos = 0; pos < length; pos++) {
+                final int index = cur[pos];
+                next[histogram[base + extractDigit(keys[index], digit)]++] = index;
             }
+
+            // (cur, next) = (next, cur)
+            var temp = next;
+            next = cur;
+            cur = temp;
+        }
+
+        if (cur != indices) {
+            System.arraycopy(cur, 0, indices, 0, length);
+        }
+    }
+
+    private static void sortParallel(int[] keys, int length, int[] indices) {
+        final int blockCount = Math.min(ForkJoinPool.getCommonPoolParallelism() * 4, (length + PARALLEL_BLOCK_SIZE - 1) / PARALLEL_BLOCK_SIZE);
+        final int blockSize = (length + blockCount - 1) / blockCount;
+
+        // The buffers of the calling thread are shared with the worker threads, which is safe since the calling
+        // thread waits for each step to complete. They are marked as in use, in case the calling thread runs another
+        // sort while helping with the work of the pool.
+        var scratch = SCRATCH.get();
+
+        if (scratch.inUse) {
+            scratch = new Scratch();
+        }
+
+        scratch.inUse = true;
+
+        try {
+            sortParallel(keys, length, indices, blockCount, blockSize, scratch.getCounts(blockCount), scratch.getBuffer(length));
+        } finally {
+            scratch.inUse = false;
         }
     }
 
-    private static int[] radixSort(int[] keys, int[][] offsets) {
-        prefixSum(offsets);
+    private static void sortParallel(int[] keys, int length, int[] indices, int blockCount, int blockSize,
+                                     int[][] counts, int[] buffer) {
+        int[] cur = indices;
+        int[] next = buffer;
 
-        final var length = keys.length;
+        IntStream.range(0, blockCount).parallel().forEach(block -> {
+            int start = block * blockSize;
+            int end = Math.min(start + blockSize, length);
 
-        int[] cur = createIndexBuffer(length);
-        int[] next = new int[length];
+            for (int i = start; i < end; i++) {
+                indices[i] = i;
+            }
+        });
 
         for (int digit = 0; digit < DIGIT_COUNT; digit++) {
-            final var buckets = offsets[digit];
+            final int shift = digit * DIGIT_BITS;
+            final int[] src = cur, dst = next;
 
-            for (int pos = 0; pos < length; pos++) {
-                final var index = cur[pos];
-                final var bucket_idx = extractDigit(keys[index], digit);
+            // Count the digits of each block in the current order
+            IntStream.range(0, blockCount).parallel().forEach(block -> {
+                var blockCounts = counts[block];
+                Arrays.fill(blockCounts, 0);
+
+                int start = block * blockSize;
+                int end = Math.min(start + blockSize, length);
+
+                for (int pos = start; pos < end; pos++) {
+                    blockCounts[(keys[src[pos]] >>> shift) & DIGIT_MASK]++;
+                }
+            });
 
-                next[buckets[bucket_idx]] = index;
-                buckets[bucket_idx] += 1;
+            // Turn the counts into the position where each block writes the first key of each bucket, so that the
+            // keys of each bucket are written in the same order as the blocks they came from
+            boolean singleBucket = false;
+            int sum = 0;
+
+            for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+                final int bucketStart = sum;
+
+                for (int block = 0; block < blockCount; block++) {
+                    int count = counts[block][bucket];
+                    counts[block][bucket] = sum;
+                    sum += count;
+                }
+
+                if (sum - bucketStart == length) {
+                    singleBucket = true;
+                    break;
+                }
             }
 
-            {
-                // (cur, next) = (next, cur)
-                var temp = next;
-                next = cur;
-                cur = temp;
+            // If every key has the same value for this digit, the pass would not change the order
+            if (singleBucket) {
+                continue;
             }
+
+            IntStream.range(0, blockCount).parallel().forEach(block -> {
+                var offsets = counts[block];
+
+                int start = block * blockSize;
+                int end = Math.min(start + blockSize, length);
+
+                for (int pos = start; pos < end; pos++) {
+                    final int index = src[pos];
+                    dst[offsets[(keys[index] >>> shift) & DIGIT_MASK]++] = index;
+                }
+            });
+
+            next = src;
+            cur = dst;
         }
 
-        return cur;
+        if (cur != indices) {
+            System.arraycopy(cur, 0, indices, 0, length);
+        }
     }
 
+    private static void prefixSum(int[] histogram, int base) {
+        int sum = 0;
 
+        for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+            final int offset = sum;
+            sum += histogram[base + bucket];
+            histogram[base + bucket] = offset;
+        }
+    }
 
     private static int extractDigit(int key, int digit) {
         return ((key >>> (digit * DIGIT_BITS)) & DIGIT_MASK);
     }
 
+    private static class Scratch {
+        private final int[] histogram = new int[DIGIT_COUNT * BUCKET_COUNT];
+        private int[] buffer = new int[0];
+
+        // The per-block counts of a parallel sort, which are only grown
+        private int[][] counts = new int[0][];
+
+        // Whether the buffers are being used by a parallel sort on this thread
+        private boolean inUse;
+
+        private int[][] getCounts(int blockCount) {
+            if (this.counts.length < blockCount) {
+                this.counts = new int[blockCount][BUCKET_COUNT];
+            }
+
+            return this.counts;
+        }
+
+        private int[] getBuffer(int length) {
+            if (this.buffer.length < length) {
+                // Grow by at least half to avoid repeated re-allocation when the inputs slowly increase in size
+                this.buffer = new int[Math.max(length, this.buffer.length + (this.buffer.length >> 1))];
+            }
+
+            return this.buffer;
+        }
+    }
+
     public static class Floats {
         private static final int BIT_COUNT = 32;
         private static final int FLIP_SIGN_MASK = 1 << (BIT_COUNT - 1);
@@ -22,9 +22,16 @@ public class VertexSorters {
     }
 
     private static abstract class AbstractVertexSorter implements VertexSorter {
+        // Below this many elements, the cost of the radix sort's fixed number of passes outweighs its linear scaling
+        private static final int RADIX_SORT_THRESHOLD = 64;
+
         @Override
         public final int[] sort(Vector3f[] positions) {
-            return this.mergeSort(positions);
+            if (positions.length < RADIX_SORT_THRESHOLD) {
+                return this.mergeSort(positions);
+            }
+
+            return this.radixSort(positions);
         }
 
         private int[] mergeSort(Vector3f[] positions) {
@@ -37,6 +44,17 @@ public class VertexSorters {
             return MergeSort.mergeSort(keys);
         }
 
+        private int[] radixSort(Vector3f[] positions) {
+            final var keys = new int[positions.length];
+
+            // The keys are negated, as elements are sorted from the greatest key to the least
+            for (int index = 0; index < positions.length; index++) {
+                keys[index] = RadixSort.Floats.createRadixKey(-this.getKey(positions[index]));
+            }
+
+            return RadixSort.sort(keys);
+        }
+
         protected abstract float getKey(Vector3f object);
     }
 }
@@ -1,7 +1,16 @@
 package me.jellysquid.mods.sodium.client.world;
 
 import net.minecraft.world.chunk.Palette;
+import org.jetbrains.annotations.Nullable;
 
 public interface PaletteStorageExtended {
     <T> void sodium$unpack(T[] out, Palette<T> palette);
+
+    /**
+     * Unpacks the palette indices of the storage into the given array, after mapping them through the given array of
+     * palette entry IDs.
+     *
+     * @param paletteIds The ID of each palette entry, or null if the palette indices are already global IDs
+     */
+    void sodium$unpackIds(int[] out, int @Nullable[] paletteIds);
 }
@@ -1,6 +1,7 @@
 package me.jellysquid.mods.sodium.client.world;
 
 import net.minecraft.world.chunk.ReadableContainer;
+import org.jetbrains.annotations.Nullable;
 
 public interface ReadableContainerExtended<T> {
     @SuppressWarnings("unchecked")
@@ -8,16 +9,34 @@ public interface ReadableContainerExtended<T> {
         return (ReadableContainerExtended<T>) container;
     }
 
-    static <T> ReadableContainer<T> clone(ReadableContainer<T> container) {
+    static <T> ReadableContainer<T> snapshot(ReadableContainer<T> container) {
         if (container == null) {
             return null;
         }
 
-        return of(container).sodium$copy();
+        return of(container).sodium$snapshot();
     }
 
     void sodium$unpack(T[] values);
     void sodium$unpack(T[] values, int minX, int minY, int minZ, int maxX, int maxY, int maxZ);
 
-    ReadableContainer<T> sodium$copy();
+    /**
+     * Unpacks the raw IDs of the values in the container (as given by the ID list of the container) instead of the
+     * values themselves. The ID of each palette entry is only looked up once.
+     */
+    void sodium$unpackIds(int[] ids);
+    void sodium$unpackIds(int[] ids, int minX, int minY, int minZ, int maxX, int maxY, int maxZ);
+
+    /**
+     * Returns the only value which the container holds if its palette has a single entry, otherwise null. A container
+     * with a larger palette may still hold a single value, but it is much cheaper to only check the palette.
+     */
+    @Nullable T sodium$getUniformValue();
+
+    /**
+     * Creates a read-only view of the container's current contents. The view shares its data with the container, and
+     * the container will only copy that data the next time it is modified. This must only be called from the thread
+     * which modifies the container.
+     */
+    ReadableContainer<T> sodium$snapshot();
 }
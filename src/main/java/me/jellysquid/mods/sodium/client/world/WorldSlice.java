@@ -5,10 +5,12 @@ import me.jellysquid.mods.sodium.client.world.biome.BiomeColorCache;
 import me.jellysquid.mods.sodium.client.world.biome.BiomeColorSource;
 import me.jellysquid.mods.sodium.client.world.biome.BiomeColorView;
 import me.jellysquid.mods.sodium.client.world.biome.BiomeSlice;
+import me.jellysquid.mods.sodium.client.world.biome.WorldBiomeColorCache;
 import me.jellysquid.mods.sodium.client.world.cloned.ChunkRenderContext;
 import me.jellysquid.mods.sodium.client.world.cloned.ClonedChunkSection;
 import me.jellysquid.mods.sodium.client.world.cloned.ClonedChunkSectionCache;
 import net.fabricmc.fabric.api.rendering.data.v1.RenderAttachedBlockView;
+import net.minecraft.block.Block;
 import net.minecraft.block.BlockState;
 import net.minecraft.block.Blocks;
 import net.minecraft.block.entity.BlockEntity;
@@ -64,6 +66,7 @@ public final class WorldSlice implements BlockRenderView, BiomeColorView, Render
 
     // The default block state used for out-of-bounds access
     private static final BlockState EMPTY_BLOCK_STATE = Blocks.AIR.getDefaultState();
+    private static final int EMPTY_BLOCK_STATE_ID = Block.STATE_IDS.getRawId(EMPTY_BLOCK_STATE);
 
     // The world this slice has copied data from
     private final ClientWorld world;
@@ -77,6 +80,12 @@ public final class WorldSlice implements BlockRenderView, BiomeColorView, Render
     // (Local Section -> Block States) table.
     private final BlockState[][] blockArrays;
 
+    // (Local Section -> Block State IDs) table.
+    private final int[][] stateIdArrays;
+
+    // (Local Section -> Uniform Block State ID) table, where sections with more than one block state are -1.
+    private final int[] uniformStateIds;
+
     // (Local Section -> Light Arrays) table.
     private final @Nullable ChunkNibbleArray[][] lightArrays;
 
@@ -92,7 +101,8 @@ public final class WorldSlice implements BlockRenderView, BiomeColorView, Render
     // The volume that this WorldSlice contains
     private BlockBox volume;
 
-    public static ChunkRenderContext prepare(World world, ChunkSectionPos origin, ClonedChunkSectionCache sectionCache) {
+    public static ChunkRenderContext prepare(World world, ChunkSectionPos origin, ClonedChunkSectionCache sectionCache,
+                                             @Nullable WorldBiomeColorCache biomeColors) {
         WorldChunk chunk = world.getChunk(origin.getX(), origin.getZ());
         ChunkSection section = chunk.getSectionArray()[world.sectionCoordToIndex(origin.getY())];
 
@@ -130,7 +140,7 @@ public final class WorldSlice implements BlockRenderView, BiomeColorView, Render
             }
         }
 
-        return new ChunkRenderContext(origin, sections, volume);
+        return new ChunkRenderContext(origin, sections, volume, biomeColors);
     }
 
     @SuppressWarnings("unchecked")
@@ -138,6 +148,8 @@ public final class WorldSlice implements BlockRenderView, BiomeColorView, Render
         this.world = world;
 
         this.blockArrays = new BlockState[SECTION_ARRAY_SIZE][SECTION_BLOCK_COUNT];
+        this.stateIdArrays = new int[SECTION_ARRAY_SIZE][SECTION_BLOCK_COUNT];
+        this.uniformStateIds = new int[SECTION_ARRAY_SIZE];
         this.lightArrays = new ChunkNibbleArray[SECTION_ARRAY_SIZE][LIGHT_TYPES.length];
 
         this.blockEntityArrays = new Int2ReferenceMap[SECTION_ARRAY_SIZE];
@@ -149,6 +161,10 @@ public final class WorldSlice implements BlockRenderView, BiomeColorView, Render
         for (BlockState[] blockArray : this.blockArrays) {
             Arrays.fill(blockArray, EMPTY_BLOCK_STATE);
         }
+
+        for (int[] stateIdArray : this.stateIdArrays) {
+            Arrays.fill(stateIdArray, EMPTY_BLOCK_STATE_ID);
+        }
     }
 
     public void copyData(ChunkRenderContext context) {
@@ -174,7 +190,10 @@ public final class WorldSlice implements BlockRenderView, BiomeColorView, Render
 
         Objects.requireNonNull(section, "Chunk section must be non-null");
 
-        this.unpackBlockData(this.blockArrays[sectionIndex], context, section);
+        this.unpackBlockData(this.blockArrays[sectionIndex], this.stateIdArrays[sectionIndex], context, section);
+
+        var uniformBlockState = section.getUniformBlockState();
+        this.uniformStateIds[sectionIndex] = uniformBlockState != null ? Block.STATE_IDS.getRawId(uniformBlockState) : -1;
 
         this.lightArrays[sectionIndex][LightType.BLOCK.ordinal()] = section.getLightArray(LightType.BLOCK);
         this.lightArrays[sectionIndex][LightType.SKY.ordinal()] = section.getLightArray(LightType.SKY);
@@ -183,9 +202,10 @@ public final class WorldSlice implements BlockRenderView, BiomeColorView, Render
         this.blockEntityRenderDataArrays[sectionIndex] = section.getBlockEntityRenderDataMap();
     }
 
-    private void unpackBlockData(BlockState[] blockArray, ChunkRenderContext context, ClonedChunkSection section) {
+    private void unpackBlockData(BlockState[] blockArray, int[] stateIdArray, ChunkRenderContext context, ClonedChunkSection section) {
         if (section.getBlockData() == null) {
             Arrays.fill(blockArray, EMPTY_BLOCK_STATE);
+            Arrays.fill(stateIdArray, EMPTY_BLOCK_STATE_ID);
             return;
         }
 
@@ -196,6 +216,7 @@ public final class WorldSlice implements BlockRenderView, BiomeColorView, Render
 
         if (origin.equals(pos)) {
             container.sodium$unpack(blockArray);
+            container.sodium$unpackIds(stateIdArray);
         } else {
             var bounds = context.getVolume();
 
@@ -210,6 +231,8 @@ public final class WorldSlice implements BlockRenderView, BiomeColorView, Render
 
             container.sodium$unpack(blockArray, minBlockX & 15, minBlockY & 15, minBlockZ & 15,
                     maxBlockX & 15, maxBlockY & 15, maxBlockZ & 15);
+            container.sodium$unpackIds(stateIdArray, minBlockX & 15, minBlockY & 15, minBlockZ & 15,
+                    maxBlockX & 15, maxBlockY & 15, maxBlockZ & 15);
         }
     }
 
@@ -243,6 +266,59 @@ public final class WorldSlice implements BlockRenderView, BiomeColorView, Render
                 [getLocalBlockIndex(relX & 15, relY & 15, relZ & 15)];
     }
 
+    /**
+     * Returns the raw ID of the block state at the given position (see {@link Block#STATE_IDS}), or the ID of air if
+     * the position is outside the volume of this slice.
+     */
+    public int getStateId(int x, int y, int z) {
+        if (!this.volume.contains(x, y, z)) {
+            return EMPTY_BLOCK_STATE_ID;
+        }
+
+        int relX = x - this.originX;
+        int relY = y - this.originY;
+        int relZ = z - this.originZ;
+
+        return this.stateIdArrays[getLocalSectionIndex(relX >> 4, relY >> 4, relZ >> 4)]
+                [getLocalBlockIndex(relX & 15, relY & 15, relZ & 15)];
+    }
+
+    /**
+     * Returns the block states of the section which contains the given block, indexed by
+     * {@link #getLocalBlockIndex(int, int, int)}. The block must be within the volume of this slice.
+     */
+    public BlockState[] getBlockArray(int x, int y, int z) {
+        return this.blockArrays[this.getSectionIndex(x, y, z)];
+    }
+
+    /**
+     * Returns the raw IDs of the block states (see {@link Block#STATE_IDS}) of the section which contains the given
+     * block, indexed by {@link #getLocalBlockIndex(int, int, int)}. The block must be within the volume of this slice.
+     */
+    public int[] getStateIdArray(int x, int y, int z) {
+        return this.stateIdArrays[this.getSectionIndex(x, y, z)];
+    }
+
+    /**
+     * Returns the raw ID of the block state of every block in the section which contains the given block, or -1 if
+     * the section may contain more than one block state. The block must be within the volume of this slice.
+     */
+    public int getUniformStateId(int x, int y, int z) {
+        return this.uniformStateIds[this.getSectionIndex(x, y, z)];
+    }
+
+    /**
+     * Returns the light array of the section which contains the given block, or null if the dimension of the world
+     * does not support the given light type. The block must be within the volume of this slice.
+     */
+    public @Nullable ChunkNibbleArray getLightArray(LightType type, int x, int y, int z) {
+        return this.lightArrays[this.getSectionIndex(x, y, z)][type.ordinal()];
+    }
+
+    private int getSectionIndex(int x, int y, int z) {
+        return getLocalSectionIndex((x - this.originX) >> 4, (y - this.originY) >> 4, (z - this.originZ) >> 4);
+    }
+
     @Override
     public FluidState getFluidState(BlockPos pos) {
         return this.getBlockState(pos)
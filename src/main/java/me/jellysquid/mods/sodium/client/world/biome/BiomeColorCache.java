@@ -8,9 +8,12 @@ import net.minecraft.client.color.world.BiomeColors;
 import net.minecraft.util.math.MathHelper;
 import net.minecraft.world.biome.Biome;
 import net.minecraft.world.biome.ColorResolver;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
 
 public class BiomeColorCache {
-    private static final int NEIGHBOR_BLOCK_RADIUS = 2;
+    static final int NEIGHBOR_BLOCK_RADIUS = 2;
     private final BiomeSlice biomeData;
 
     private final Reference2ReferenceOpenHashMap<ColorResolver, Slice[]> slices;
@@ -25,6 +28,16 @@ public class BiomeColorCache {
 
     private final int sizeXZ, sizeY;
 
+    // The shared cache of the world, or null if the colors of the vanilla color sources can't be shared
+    private @Nullable WorldBiomeColorCache sharedColors;
+    private long sharedEpoch;
+
+    // The layers of the shared cache which have been used by this build, indexed by color source and relative Y
+    private final int[][][] sharedLayers;
+    private final ColorBuffer sharedLayerBuffer;
+
+    private int chunkX, chunkZ;
+
     public BiomeColorCache(BiomeSlice biomeData, int blendRadius) {
         this.biomeData = biomeData;
         this.blendRadius = blendRadius;
@@ -36,6 +49,9 @@ public class BiomeColorCache {
         this.populateStamp = 1;
 
         this.tempColorBuffer = new ColorBuffer(this.sizeXZ, this.sizeXZ);
+
+        this.sharedLayers = new int[BiomeColorSource.COUNT][this.sizeY][];
+        this.sharedLayerBuffer = new ColorBuffer(this.sizeXZ, this.sizeXZ);
     }
 
     public void update(ChunkRenderContext context) {
@@ -48,17 +64,42 @@ public class BiomeColorCache {
         this.maxZ = (context.getOrigin().getMaxZ() + NEIGHBOR_BLOCK_RADIUS) + this.blendRadius;
 
         this.populateStamp++;
+
+        var sharedColors = context.getBiomeColors();
+
+        // The shared cache may have been created with another blend radius if the option was changed during the build
+        if (sharedColors != null && sharedColors.getBlendRadius() == this.blendRadius) {
+            this.sharedColors = sharedColors;
+            this.sharedEpoch = context.getBiomeColorEpoch();
+        } else {
+            this.sharedColors = null;
+        }
+
+        for (int[][] layers : this.sharedLayers) {
+            Arrays.fill(layers, null);
+        }
+
+        this.chunkX = context.getOrigin().getX();
+        this.chunkZ = context.getOrigin().getZ();
     }
 
     public int getColor(BiomeColorSource source, int blockX, int blockY, int blockZ) {
-        return switch (source) {
-            case GRASS -> getColor(BiomeColors.GRASS_COLOR, blockX, blockY, blockZ);
-            case FOLIAGE -> getColor(BiomeColors.FOLIAGE_COLOR, blockX, blockY, blockZ);
-            case WATER -> getColor(BiomeColors.WATER_COLOR, blockX, blockY, blockZ);
-        };
+        if (this.sharedColors != null) {
+            return this.getSharedColor(source, blockX, blockY, blockZ);
+        }
+
+        return this.getColor(getResolver(source), blockX, blockY, blockZ);
     }
 
     public int getColor(ColorResolver resolver, int blockX, int blockY, int blockZ) {
+        if (this.sharedColors != null) {
+            var source = BiomeColorSource.find(resolver);
+
+            if (source != null) {
+                return this.getSharedColor(source, blockX, blockY, blockZ);
+            }
+        }
+
         var relX = MathHelper.clamp(blockX, this.minX, this.maxX) - this.minX;
         var relY = MathHelper.clamp(blockY, this.minY, this.maxY) - this.minY;
         var relZ = MathHelper.clamp(blockZ, this.minZ, this.maxZ) - this.minZ;
@@ -78,6 +119,66 @@ public class BiomeColorCache {
         return buffer.get(relX, relZ);
     }
 
+    private int getSharedColor(BiomeColorSource source, int blockX, int blockY, int blockZ) {
+        // The shared layers only cover the neighboring blocks, not the extra area which is needed to blend them
+        var layerMinX = this.minX + this.blendRadius;
+        var layerMinZ = this.minZ + this.blendRadius;
+
+        var relX = MathHelper.clamp(blockX, layerMinX, this.maxX - this.blendRadius) - layerMinX;
+        var relY = MathHelper.clamp(blockY, this.minY, this.maxY) - this.minY;
+        var relZ = MathHelper.clamp(blockZ, layerMinZ, this.maxZ - this.blendRadius) - layerMinZ;
+
+        var layers = this.sharedLayers[source.ordinal()];
+        var layer = layers[relY];
+
+        if (layer == null) {
+            layers[relY] = layer = this.getSharedLayer(source, this.minY + relY);
+        }
+
+        if (layer.length == 1) {
+            return layer[0];
+        }
+
+        return layer[(relZ * WorldBiomeColorCache.LAYER_WIDTH) + relX];
+    }
+
+    private int[] getSharedLayer(BiomeColorSource source, int worldY) {
+        var sharedColors = this.sharedColors;
+        var layer = sharedColors.getLayer(this.chunkX, this.chunkZ, source, worldY);
+
+        if (layer == null) {
+            layer = this.createSharedLayer(source, worldY);
+            layer = sharedColors.putLayer(this.chunkX, this.chunkZ, source, worldY, layer, this.sharedEpoch);
+        }
+
+        return layer;
+    }
+
+    private int[] createSharedLayer(BiomeColorSource source, int worldY) {
+        var buffer = this.sharedLayerBuffer;
+        this.populateColorBuffer(buffer, worldY, getResolver(source));
+
+        if (this.blendRadius > 0) {
+            BoxBlur.blur(buffer, this.tempColorBuffer, this.blendRadius);
+        }
+
+        int first = buffer.get(this.blendRadius, this.blendRadius);
+        boolean uniform = true;
+
+        var layer = new int[WorldBiomeColorCache.LAYER_SIZE];
+
+        for (int z = 0; z < WorldBiomeColorCache.LAYER_WIDTH; z++) {
+            for (int x = 0; x < WorldBiomeColorCache.LAYER_WIDTH; x++) {
+                int color = buffer.get(x + this.blendRadius, z + this.blendRadius);
+                layer[(z * WorldBiomeColorCache.LAYER_WIDTH) + x] = color;
+
+                uniform &= color == first;
+            }
+        }
+
+        return uniform ? new int[] { first } : layer;
+    }
+
     private void initializeSlices(ColorResolver resolver) {
         var slice = new Slice[this.sizeY];
         this.slices.put(resolver, slice);
@@ -88,8 +189,16 @@ public class BiomeColorCache {
     }
 
     private void updateColorBuffers(int relY, ColorResolver resolver, Slice slice) {
-        int worldY = this.minY + relY;
+        this.populateColorBuffer(slice.buffer, this.minY + relY, resolver);
 
+        if (this.blendRadius > 0) {
+            BoxBlur.blur(slice.buffer, this.tempColorBuffer, this.blendRadius);
+        }
+
+        slice.lastPopulateStamp = this.populateStamp;
+    }
+
+    private void populateColorBuffer(ColorBuffer buffer, int worldY, ColorResolver resolver) {
         for (int worldZ = this.minZ; worldZ <= this.maxZ; worldZ++) {
             for (int worldX = this.minX; worldX <= this.maxX; worldX++) {
                 Biome biome = this.biomeData.getBiome(worldX, worldY, worldZ).value();
@@ -97,15 +206,17 @@ public class BiomeColorCache {
                 int relativeX = worldX - this.minX;
                 int relativeZ = worldZ - this.minZ;
 
-                slice.buffer.set(relativeX, relativeZ, resolver.getColor(biome, worldX, worldZ));
+                buffer.set(relativeX, relativeZ, resolver.getColor(biome, worldX, worldZ));
             }
         }
+    }
 
-        if (this.blendRadius > 0) {
-            BoxBlur.blur(slice.buffer, this.tempColorBuffer, this.blendRadius);
-        }
-
-        slice.lastPopulateStamp = this.populateStamp;
+    private static ColorResolver getResolver(BiomeColorSource source) {
+        return switch (source) {
+            case GRASS -> BiomeColors.GRASS_COLOR;
+            case FOLIAGE -> BiomeColors.FOLIAGE_COLOR;
+            case WATER -> BiomeColors.WATER_COLOR;
+        };
     }
 
     private static class Slice {
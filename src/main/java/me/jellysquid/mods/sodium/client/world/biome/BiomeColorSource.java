@@ -2,6 +2,7 @@ package me.jellysquid.mods.sodium.client.world.biome;
 
 import net.minecraft.client.color.world.BiomeColors;
 import net.minecraft.world.biome.ColorResolver;
+import org.jetbrains.annotations.Nullable;
 
 public enum BiomeColorSource {
     GRASS,
@@ -12,6 +13,19 @@ public enum BiomeColorSource {
     public static final int COUNT = VALUES.length;
 
     public static BiomeColorSource from(ColorResolver resolver) {
+        var source = find(resolver);
+
+        if (source == null) {
+            throw new UnsupportedOperationException();
+        }
+
+        return source;
+    }
+
+    /**
+     * @return The color source which uses the given resolver, or null if it is not one of the vanilla resolvers
+     */
+    public static @Nullable BiomeColorSource find(ColorResolver resolver) {
         if (resolver == BiomeColors.GRASS_COLOR) {
             return GRASS;
         } else if (resolver == BiomeColors.FOLIAGE_COLOR) {
@@ -20,6 +34,6 @@ public enum BiomeColorSource {
             return WATER;
         }
 
-        throw new UnsupportedOperationException();
+        return null;
     }
 }
@@ -0,0 +1,205 @@
+package me.jellysquid.mods.sodium.client.world.biome;
+
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.HeightLimitView;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Stores the blended biome colors of the world, so that they can be shared between chunk builds instead of being
+ * computed again for every section. Biomes rarely change, so the colors of a chunk column only need to be discarded
+ * when the column or one of its neighbors is loaded or unloaded.
+ *
+ * Colors are stored per chunk column as horizontal layers, one for each block Y coordinate and color source. Each
+ * layer covers the column and a border of {@link BiomeColorCache#NEIGHBOR_BLOCK_RADIUS} blocks around it, which is
+ * the area that a chunk build of the column can sample from. Layers where every color is the same are stored as a
+ * single value, and adjacent layers with the same contents share one array, since most columns only cover a single
+ * biome.
+ *
+ * Layers are computed by the chunk builder threads (see {@link BiomeColorCache}) from the world data which was copied
+ * for the build. To avoid storing colors which were computed from data that was copied before a column was
+ * invalidated, each build captures the epoch of its column when its data is copied. Invalidating a column replaces it
+ * with one of a new epoch, and layers computed by builds of an older epoch are not stored. Only the columns around a
+ * changed chunk are affected, so builds elsewhere can keep filling the cache while chunks are loaded.
+ */
+public class WorldBiomeColorCache {
+    // The cache is cleared if its layers would take more memory than this
+    private static final long MAXIMUM_SIZE = 64L * 1024L * 1024L;
+
+    static final int LAYER_WIDTH = 16 + (BiomeColorCache.NEIGHBOR_BLOCK_RADIUS * 2);
+    static final int LAYER_SIZE = LAYER_WIDTH * LAYER_WIDTH;
+
+    private final ConcurrentHashMap<Long, Column> columns = new ConcurrentHashMap<>();
+
+    private final int blendRadius;
+
+    // The range of block Y coordinates which builds can sample, including those just outside the world
+    private final int minY, height;
+
+    // The source of column epochs, which are unique so that a replaced column can never be mistaken for its successor
+    private final AtomicLong nextEpoch = new AtomicLong();
+    private final AtomicLong size = new AtomicLong();
+
+    public WorldBiomeColorCache(HeightLimitView world, int blendRadius) {
+        this.blendRadius = blendRadius;
+
+        this.minY = world.getBottomY() - BiomeColorCache.NEIGHBOR_BLOCK_RADIUS;
+        this.height = world.getHeight() + (BiomeColorCache.NEIGHBOR_BLOCK_RADIUS * 2);
+    }
+
+    public int getBlendRadius() {
+        return this.blendRadius;
+    }
+
+    /**
+     * Returns the epoch of the given chunk column, creating the column if needed. This must be captured on the main
+     * thread at the same time as the world data of a chunk build is copied.
+     */
+    public long getEpoch(int chunkX, int chunkZ) {
+        var column = this.columns.computeIfAbsent(ChunkPos.toLong(chunkX, chunkZ),
+                (key) -> new Column(this.height, this.nextEpoch.incrementAndGet()));
+
+        return column.epoch;
+    }
+
+    /**
+     * Discards the colors of every column which could have sampled biomes from the given chunk. This must be called
+     * from the main thread whenever a chunk is loaded or unloaded.
+     */
+    public void onChunkChanged(int chunkX, int chunkZ) {
+        // The area sampled by a column extends less than a chunk past its edges, so only adjacent columns are affected
+        for (int x = chunkX - 1; x <= chunkX + 1; x++) {
+            for (int z = chunkZ - 1; z <= chunkZ + 1; z++) {
+                var column = this.columns.remove(ChunkPos.toLong(x, z));
+
+                if (column != null) {
+                    this.release(column);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return The colors of the layer, or null if they have not been computed yet
+     */
+    @Nullable int[] getLayer(int chunkX, int chunkZ, BiomeColorSource source, int blockY) {
+        var column = this.columns.get(ChunkPos.toLong(chunkX, chunkZ));
+
+        if (column == null) {
+            return null;
+        }
+
+        return column.layers.get(this.getLayerIndex(source, blockY));
+    }
+
+    /**
+     * Stores the colors of a layer, unless the column has been invalidated since the world data of the build was
+     * copied.
+     *
+     * @param colors The colors of the layer, either with {@link #LAYER_SIZE} elements or with a single element if
+     *               all colors are the same
+     * @param epoch The epoch of the column when the world data was copied
+     * @return The array which is now stored for the layer, which may be shared with an adjacent layer
+     */
+    int[] putLayer(int chunkX, int chunkZ, BiomeColorSource source, int blockY, int[] colors, long epoch) {
+        var column = this.columns.get(ChunkPos.toLong(chunkX, chunkZ));
+
+        if (column == null || column.epoch != epoch) {
+            return colors;
+        }
+
+        int index = this.getLayerIndex(source, blockY);
+        int[] stored;
+
+        boolean full;
+
+        // The size of the column is only updated while holding its lock, so that it can't change after the column
+        // has been released
+        synchronized (column) {
+            if (column.released) {
+                return colors;
+            }
+
+            var existing = column.layers.get(index);
+
+            if (existing != null) {
+                // Another thread stored the layer first, so use that one instead
+                return existing;
+            }
+
+            stored = colors;
+
+            // Share the array of an adjacent layer if they are identical
+            for (int adjIndex = index - 1; adjIndex <= index + 1; adjIndex += 2) {
+                if (blockY + (adjIndex - index) < this.minY || blockY + (adjIndex - index) >= this.minY + this.height) {
+                    continue;
+                }
+
+                var adjColors = column.layers.get(adjIndex);
+
+                if (adjColors != null && Arrays.equals(adjColors, colors)) {
+                    stored = adjColors;
+                    break;
+                }
+            }
+
+            column.layers.set(index, stored);
+
+            if (stored != colors) {
+                return stored;
+            }
+
+            long bytes = (long) colors.length * Integer.BYTES;
+            column.size += bytes;
+
+            full = this.size.addAndGet(bytes) > MAXIMUM_SIZE;
+        }
+
+        // Other columns are locked while clearing, so this must happen after the lock of this column was released
+        if (full) {
+            this.clear();
+        }
+
+        return stored;
+    }
+
+    private int getLayerIndex(BiomeColorSource source, int blockY) {
+        return (source.ordinal() * this.height) + (blockY - this.minY);
+    }
+
+    private void clear() {
+        for (var key : this.columns.keySet()) {
+            var column = this.columns.remove(key);
+
+            if (column != null) {
+                this.release(column);
+            }
+        }
+    }
+
+    private void release(Column column) {
+        synchronized (column) {
+            column.released = true;
+            this.size.addAndGet(-column.size);
+        }
+    }
+
+    private static class Column {
+        private final AtomicReferenceArray<int[]> layers;
+        private final long epoch;
+
+        // The number of bytes used by the layers of this column, and whether it has been removed from the cache. These
+        // are only accessed while holding the lock of the column.
+        private long size;
+        private boolean released;
+
+        private Column(int height, long epoch) {
+            this.layers = new AtomicReferenceArray<>(BiomeColorSource.COUNT * height);
+            this.epoch = epoch;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package me.jellysquid.mods.sodium.client.world.cloned;
 
+import me.jellysquid.mods.sodium.client.world.biome.WorldBiomeColorCache;
 import net.minecraft.util.math.BlockBox;
 import net.minecraft.util.math.ChunkSectionPos;
 import org.jetbrains.annotations.Nullable;
@@ -9,10 +10,17 @@ public class ChunkRenderContext {
     private final ClonedChunkSection[] sections;
     private final BlockBox volume;
 
-    public ChunkRenderContext(ChunkSectionPos origin, ClonedChunkSection[] sections, BlockBox volume) {
+    private final @Nullable WorldBiomeColorCache biomeColors;
+    private final long biomeColorEpoch;
+
+    public ChunkRenderContext(ChunkSectionPos origin, ClonedChunkSection[] sections, BlockBox volume,
+                              @Nullable WorldBiomeColorCache biomeColors) {
         this.origin = origin;
         this.sections = sections;
         this.volume = volume;
+
+        this.biomeColors = biomeColors;
+        this.biomeColorEpoch = biomeColors != null ? biomeColors.getEpoch(origin.getX(), origin.getZ()) : 0L;
     }
 
     public ClonedChunkSection[] getSections() {
@@ -26,4 +34,15 @@ public class ChunkRenderContext {
     public BlockBox getVolume() {
         return this.volume;
     }
+
+    public @Nullable WorldBiomeColorCache getBiomeColors() {
+        return this.biomeColors;
+    }
+
+    /**
+     * @return The epoch of the chunk column in the shared biome color cache at the time the world data was copied
+     */
+    public long getBiomeColorEpoch() {
+        return this.biomeColorEpoch;
+    }
 }
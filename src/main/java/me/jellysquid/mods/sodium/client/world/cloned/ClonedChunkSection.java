@@ -37,6 +37,9 @@ public class ClonedChunkSection {
 
     private final @Nullable ReadableContainer<BlockState> blockData;
 
+    // The block state of every block in the section, or null if the palette of the section has more than one entry
+    private final @Nullable BlockState uniformBlockState;
+
     private final @Nullable ReadableContainer<RegistryEntry<Biome>> biomeData;
 
     private long lastUsedTimestamp = Long.MAX_VALUE;
@@ -53,7 +56,7 @@ public class ClonedChunkSection {
         if (section != null) {
             if (!section.isEmpty()) {
                 if (!world.isDebugWorld()) {
-                    blockData = ReadableContainerExtended.clone(section.getBlockStateContainer());
+                    blockData = ReadableContainerExtended.snapshot(section.getBlockStateContainer());
                 } else {
                     blockData = constructDebugWorldContainer(pos);
                 }
@@ -64,12 +67,15 @@ public class ClonedChunkSection {
                 }
             }
 
-            biomeData = ReadableContainerExtended.clone(section.getBiomeContainer());
+            biomeData = ReadableContainerExtended.snapshot(section.getBiomeContainer());
         }
 
         this.blockData = blockData;
         this.biomeData = biomeData;
 
+        this.uniformBlockState = blockData != null ?
+                ReadableContainerExtended.of(blockData).sodium$getUniformValue() : Blocks.AIR.getDefaultState();
+
         this.blockEntityMap = blockEntityMap;
         this.blockEntityRenderDataMap = blockEntityRenderDataMap;
 
@@ -203,6 +209,10 @@ public class ClonedChunkSection {
         return this.blockData;
     }
 
+    public @Nullable BlockState getUniformBlockState() {
+        return this.uniformBlockState;
+    }
+
     public @Nullable ReadableContainer<RegistryEntry<Biome>> getBiomeData() {
         return this.biomeData;
     }
@@ -3,6 +3,7 @@ package me.jellysquid.mods.sodium.mixin.core.world.chunk;
 import me.jellysquid.mods.sodium.client.world.PaletteStorageExtended;
 import net.minecraft.util.collection.EmptyPaletteStorage;
 import net.minecraft.world.chunk.Palette;
+import org.jetbrains.annotations.Nullable;
 import org.spongepowered.asm.mixin.Final;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.Shadow;
@@ -25,4 +26,13 @@ public class EmptyPaletteStorageMixin implements PaletteStorageExtended {
         var defaultEntry = Objects.requireNonNull(palette.get(0), "Palette must have default entry");
         Arrays.fill(out, defaultEntry);
     }
+
+    @Override
+    public void sodium$unpackIds(int[] out, int @Nullable[] paletteIds) {
+        if (this.size != out.length) {
+            throw new IllegalArgumentException("Array has mismatched size");
+        }
+
+        Arrays.fill(out, paletteIds != null ? paletteIds[0] : 0);
+    }
 }
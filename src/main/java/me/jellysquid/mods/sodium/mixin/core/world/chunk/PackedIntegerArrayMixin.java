@@ -3,6 +3,7 @@ package me.jellysquid.mods.sodium.mixin.core.world.chunk;
 import me.jellysquid.mods.sodium.client.world.PaletteStorageExtended;
 import net.minecraft.util.collection.PackedIntegerArray;
 import net.minecraft.world.chunk.Palette;
+import org.jetbrains.annotations.Nullable;
 import org.spongepowered.asm.mixin.Final;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.Shadow;
@@ -49,4 +50,27 @@ public class PackedIntegerArrayMixin implements PaletteStorageExtended {
             }
         }
     }
+
+    @Override
+    public void sodium$unpackIds(int[] out, int @Nullable[] paletteIds) {
+        if (this.size != out.length) {
+            throw new IllegalArgumentException("Array has mismatched size");
+        }
+
+        int idx = 0;
+
+        for (long word : this.data) {
+            long l = word;
+
+            for (int j = 0; j < this.elementsPerLong; ++j) {
+                int value = (int) (l & this.maxValue);
+                out[idx] = paletteIds != null ? paletteIds[value] : value;
+                l >>= this.elementBits;
+
+                if (++idx >= this.size) {
+                    return;
+                }
+            }
+        }
+    }
 }
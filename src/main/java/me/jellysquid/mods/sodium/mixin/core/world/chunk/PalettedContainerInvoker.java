@@ -0,0 +1,14 @@
+package me.jellysquid.mods.sodium.mixin.core.world.chunk;
+
+import net.minecraft.util.collection.IndexedIterable;
+import net.minecraft.world.chunk.PalettedContainer;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.gen.Invoker;
+
+@Mixin(PalettedContainer.class)
+public interface PalettedContainerInvoker {
+    @Invoker("<init>")
+    static <T> PalettedContainer<T> create(IndexedIterable<T> idList, PalettedContainer.PaletteProvider paletteProvider, PalettedContainer.Data<T> data) {
+        throw new AssertionError();
+    }
+}
@@ -2,11 +2,21 @@ package me.jellysquid.mods.sodium.mixin.core.world.chunk;
 
 import me.jellysquid.mods.sodium.client.world.PaletteStorageExtended;
 import me.jellysquid.mods.sodium.client.world.ReadableContainerExtended;
+import net.minecraft.network.PacketByteBuf;
+import net.minecraft.util.collection.IndexedIterable;
+import net.minecraft.world.chunk.IdListPalette;
+import net.minecraft.world.chunk.Palette;
 import net.minecraft.world.chunk.PalettedContainer;
 import net.minecraft.world.chunk.ReadableContainer;
+import org.jetbrains.annotations.Nullable;
 import org.spongepowered.asm.mixin.Final;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.Unique;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
 
 import java.util.Objects;
 
@@ -21,7 +31,13 @@ public abstract class PalettedContainerMixin<T> implements ReadableContainerExte
     private PalettedContainer.PaletteProvider paletteProvider;
 
     @Shadow
-    public abstract PalettedContainer<T> copy();
+    @Final
+    private IndexedIterable<T> idList;
+
+    // True if the current data is shared with a snapshot, and must be copied before it is modified. This is only
+    // accessed from the thread which owns the container.
+    @Unique
+    private boolean sodium$shared;
 
     @Override
     public void sodium$unpack(T[] values) {
@@ -65,7 +81,111 @@ public abstract class PalettedContainerMixin<T> implements ReadableContainerExte
     }
 
     @Override
-    public ReadableContainer<T> sodium$copy() {
-        return this.copy();
+    public void sodium$unpackIds(int[] ids) {
+        var indexer = Objects.requireNonNull(this.paletteProvider);
+
+        if (ids.length != indexer.getContainerSize()) {
+            throw new IllegalArgumentException("Array is wrong size");
+        }
+
+        var data = Objects.requireNonNull(this.data, "PalettedContainer must have data");
+
+        var storage = (PaletteStorageExtended) data.storage();
+        storage.sodium$unpackIds(ids, this.sodium$getPaletteIds(data.palette()));
+    }
+
+    @Override
+    public void sodium$unpackIds(int[] ids, int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        var indexer = Objects.requireNonNull(this.paletteProvider);
+
+        if (ids.length != indexer.getContainerSize()) {
+            throw new IllegalArgumentException("Array is wrong size");
+        }
+
+        var data = Objects.requireNonNull(this.data, "PalettedContainer must have data");
+
+        var storage = data.storage();
+        var paletteIds = this.sodium$getPaletteIds(data.palette());
+
+        for (int y = minY; y <= maxY; y++) {
+            for (int z = minZ; z <= maxZ; z++) {
+                for (int x = minX; x <= maxX; x++) {
+                    int localBlockIndex = indexer.computeIndex(x, y, z);
+
+                    int paletteIndex = storage.get(localBlockIndex);
+                    ids[localBlockIndex] = paletteIds != null ? paletteIds[paletteIndex] : paletteIndex;
+                }
+            }
+        }
+    }
+
+    @Override
+    public @Nullable T sodium$getUniformValue() {
+        var data = Objects.requireNonNull(this.data, "PalettedContainer must have data");
+        var palette = data.palette();
+
+        // The global palette always reports the size of the ID list, so it can't be mistaken for a single entry
+        if (palette.getSize() != 1) {
+            return null;
+        }
+
+        return palette.get(0);
+    }
+
+    /**
+     * @return The raw ID of each entry in the palette, or null if the palette is the global ID list
+     */
+    @Unique
+    private int @Nullable[] sodium$getPaletteIds(Palette<T> palette) {
+        if (palette instanceof IdListPalette<T>) {
+            return null;
+        }
+
+        var ids = new int[palette.getSize()];
+
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = this.idList.getRawId(palette.get(i));
+        }
+
+        return ids;
+    }
+
+    @Override
+    public ReadableContainer<T> sodium$snapshot() {
+        var data = Objects.requireNonNull(this.data, "PalettedContainer must have data");
+        this.sodium$shared = true;
+
+        return PalettedContainerInvoker.create(this.idList, this.paletteProvider, data);
+    }
+
+    // The palette and storage are modified in-place by these methods, so the data needs to be copied first if any
+    // snapshot still refers to it.
+    @Inject(method = "set(ILjava/lang/Object;)V", at = @At("HEAD"))
+    private void beforeSet(int index, T value, CallbackInfo ci) {
+        this.sodium$copyOnWrite();
+    }
+
+    @Inject(method = "swap(ILjava/lang/Object;)Ljava/lang/Object;", at = @At("HEAD"))
+    private void beforeSwap(int index, T value, CallbackInfoReturnable<T> cir) {
+        this.sodium$copyOnWrite();
+    }
+
+    @Inject(method = "readPacket", at = @At("HEAD"))
+    private void beforeReadPacket(PacketByteBuf buf, CallbackInfo ci) {
+        this.sodium$copyOnWrite();
+    }
+
+    // Resizing the palette replaces the data with a new copy, which can't be referred to by any snapshot yet
+    @Inject(method = "onResize(ILjava/lang/Object;)I", at = @At("RETURN"))
+    private void afterResize(int newBits, T object, CallbackInfoReturnable<Integer> cir) {
+        this.sodium$shared = false;
+    }
+
+    @Unique
+    private void sodium$copyOnWrite() {
+        if (this.sodium$shared) {
+            this.data = this.data.copy();
+            this.sodium$shared = false;
+        }
     }
 }
@@ -4,6 +4,7 @@ import me.jellysquid.mods.sodium.client.model.ModelCuboidAccessor;
 import me.jellysquid.mods.sodium.client.render.immediate.model.EntityRenderer;
 import me.jellysquid.mods.sodium.client.render.immediate.model.ModelCuboid;
 import me.jellysquid.mods.sodium.client.render.immediate.model.ModelPartData;
+import me.jellysquid.mods.sodium.client.render.immediate.model.ModelPartGeometry;
 import me.jellysquid.mods.sodium.client.render.vertex.VertexConsumerUtils;
 import net.caffeinemc.mods.sodium.api.math.MatrixHelper;
 import net.caffeinemc.mods.sodium.api.util.ColorABGR;
@@ -64,6 +65,9 @@ public class ModelPartMixin implements ModelPartData {
     @Unique
     private ModelCuboid[] sodium$cuboids;
 
+    @Unique
+    private ModelPartGeometry sodium$geometry;
+
     @Inject(method = "<init>", at = @At("RETURN"))
     private void onInit(List<ModelPart.Cuboid> cuboids, Map<String, ModelPart> children, CallbackInfo ci) {
         var copies = new ModelCuboid[cuboids.size()];
@@ -74,6 +78,7 @@ public class ModelPartMixin implements ModelPartData {
         }
 
         this.sodium$cuboids = copies;
+        this.sodium$geometry = ModelPartGeometry.bake(copies);
         this.sodium$children = children.values()
                 .toArray(ModelPart[]::new);
 
@@ -119,6 +124,11 @@ public class ModelPartMixin implements ModelPartData {
         return this.sodium$cuboids;
     }
 
+    @Override
+    public ModelPartGeometry getGeometry() {
+        return this.sodium$geometry;
+    }
+
     @Override
     public boolean isVisible() {
         return this.visible;
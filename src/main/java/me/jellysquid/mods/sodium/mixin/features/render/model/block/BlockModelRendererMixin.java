@@ -1,12 +1,9 @@
 package me.jellysquid.mods.sodium.mixin.features.render.model.block;
 
-import me.jellysquid.mods.sodium.client.model.quad.BakedQuadView;
 import me.jellysquid.mods.sodium.client.render.immediate.model.BakedModelEncoder;
-import me.jellysquid.mods.sodium.client.render.texture.SpriteUtil;
 import me.jellysquid.mods.sodium.client.render.vertex.VertexConsumerUtils;
 import me.jellysquid.mods.sodium.client.util.DirectionUtil;
 import net.caffeinemc.mods.sodium.api.util.ColorABGR;
-import net.caffeinemc.mods.sodium.api.vertex.buffer.VertexBufferWriter;
 import net.minecraft.block.BlockState;
 import net.minecraft.client.render.VertexConsumer;
 import net.minecraft.client.render.block.BlockModelRenderer;
@@ -57,7 +54,7 @@ public class BlockModelRendererMixin {
             List<BakedQuad> quads = bakedModel.getQuads(blockState, direction, random);
 
             if (!quads.isEmpty()) {
-                renderQuads(entry, writer, defaultColor, quads, light, overlay);
+                BakedModelEncoder.writeQuadVertices(writer, entry, quads, defaultColor, light, overlay);
             }
         }
 
@@ -65,27 +62,7 @@ public class BlockModelRendererMixin {
         List<BakedQuad> quads = bakedModel.getQuads(blockState, null, random);
 
         if (!quads.isEmpty()) {
-            renderQuads(entry, writer, defaultColor, quads, light, overlay);
-        }
-    }
-
-    @Unique
-    @SuppressWarnings("ForLoopReplaceableByForEach")
-    private static void renderQuads(MatrixStack.Entry matrices, VertexBufferWriter writer, int defaultColor, List<BakedQuad> quads, int light, int overlay) {
-        for (int i = 0; i < quads.size(); i++) {
-            BakedQuad bakedQuad = quads.get(i);
-
-            if (bakedQuad.getVertexData().length < 32) {
-                continue; // ignore bad quads
-            }
-
-            BakedQuadView quad = (BakedQuadView) bakedQuad;
-
-            int color = quad.hasColor() ? defaultColor : 0xFFFFFFFF;
-
-            BakedModelEncoder.writeQuadVertices(writer, matrices, quad, color, light, overlay);
-
-            SpriteUtil.markSpriteActive(quad.getSprite());
+            BakedModelEncoder.writeQuadVertices(writer, entry, quads, defaultColor, light, overlay);
         }
     }
 }
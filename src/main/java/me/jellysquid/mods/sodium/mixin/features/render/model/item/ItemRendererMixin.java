@@ -1,13 +1,12 @@
 package me.jellysquid.mods.sodium.mixin.features.render.model.item;
 
-import me.jellysquid.mods.sodium.client.model.quad.BakedQuadView;
 import me.jellysquid.mods.sodium.client.render.immediate.model.BakedModelEncoder;
-import me.jellysquid.mods.sodium.client.render.texture.SpriteUtil;
+import me.jellysquid.mods.sodium.client.render.immediate.model.ItemModelMesh;
+import me.jellysquid.mods.sodium.client.render.immediate.model.ItemModelMeshCache;
+import me.jellysquid.mods.sodium.client.render.immediate.model.ItemQuadColors;
 import me.jellysquid.mods.sodium.client.render.vertex.VertexConsumerUtils;
 import me.jellysquid.mods.sodium.client.model.color.interop.ItemColorsExtended;
 import me.jellysquid.mods.sodium.client.util.DirectionUtil;
-import net.caffeinemc.mods.sodium.api.util.ColorARGB;
-import net.caffeinemc.mods.sodium.api.vertex.buffer.VertexBufferWriter;
 import net.minecraft.client.color.item.ItemColorProvider;
 import net.minecraft.client.color.item.ItemColors;
 import net.minecraft.client.render.VertexConsumer;
@@ -16,6 +15,7 @@ import net.minecraft.client.render.model.BakedModel;
 import net.minecraft.client.render.model.BakedQuad;
 import net.minecraft.client.util.math.MatrixStack;
 import net.minecraft.item.ItemStack;
+import net.minecraft.resource.ResourceManager;
 import net.minecraft.util.math.Direction;
 import net.minecraft.util.math.random.LocalRandom;
 import net.minecraft.util.math.random.Random;
@@ -31,6 +31,12 @@ public class ItemRendererMixin {
     @Unique
     private final Random random = new LocalRandom(42L);
 
+    @Unique
+    private final ItemQuadColors quadColors = new ItemQuadColors();
+
+    @Unique
+    private final ItemModelMeshCache meshCache = new ItemModelMeshCache();
+
     @Shadow
     @Final
     private ItemColors colors;
@@ -58,12 +64,27 @@ public class ItemRendererMixin {
             colorProvider = ((ItemColorsExtended) this.colors).sodium$getColorProvider(itemStack);
         }
 
+        ItemQuadColors quadColors = this.quadColors;
+        quadColors.init(colorProvider, itemStack);
+
+        ItemModelMesh mesh = this.meshCache.getOrCreate(model);
+
+        if (mesh != null) {
+            if (!mesh.isEmpty()) {
+                BakedModelEncoder.writeMeshVertices(writer, matrices, mesh, quadColors, light, overlay);
+            }
+
+            quadColors.reset();
+
+            return;
+        }
+
         for (Direction direction : DirectionUtil.ALL_DIRECTIONS) {
             random.setSeed(42L);
             List<BakedQuad> quads = model.getQuads(null, direction, random);
 
             if (!quads.isEmpty()) {
-                this.renderBakedItemQuads(matrices, writer, quads, itemStack, colorProvider, light, overlay);
+                BakedModelEncoder.writeQuadVertices(writer, matrices, quads, quadColors, light, overlay);
             }
         }
 
@@ -71,31 +92,17 @@ public class ItemRendererMixin {
         List<BakedQuad> quads = model.getQuads(null, null, random);
 
         if (!quads.isEmpty()) {
-            this.renderBakedItemQuads(matrices, writer, quads, itemStack, colorProvider, light, overlay);
+            BakedModelEncoder.writeQuadVertices(writer, matrices, quads, quadColors, light, overlay);
         }
-    }
 
-    @Unique
-    @SuppressWarnings("ForLoopReplaceableByForEach")
-    private void renderBakedItemQuads(MatrixStack.Entry matrices, VertexBufferWriter writer, List<BakedQuad> quads, ItemStack itemStack, ItemColorProvider colorProvider, int light, int overlay) {
-        for (int i = 0; i < quads.size(); i++) {
-            BakedQuad bakedQuad = quads.get(i);
-
-            if (bakedQuad.getVertexData().length < 32) {
-                continue; // ignore bad quads
-            }
-
-            BakedQuadView quad = (BakedQuadView) bakedQuad;
-
-            int color = 0xFFFFFFFF;
-
-            if (colorProvider != null && quad.hasColor()) {
-                color = ColorARGB.toABGR((colorProvider.getColor(itemStack, quad.getColorIndex())), 255);
-            }
-
-            BakedModelEncoder.writeQuadVertices(writer, matrices, quad, color, light, overlay);
+        quadColors.reset();
+    }
 
-            SpriteUtil.markSpriteActive(quad.getSprite());
-        }
+    /**
+     * The models are replaced when resources are reloaded, so the meshes of the old models can't be used anymore.
+     */
+    @Inject(method = "reload", at = @At("TAIL"))
+    private void onReload(ResourceManager manager, CallbackInfo ci) {
+        this.meshCache.clear();
     }
 }
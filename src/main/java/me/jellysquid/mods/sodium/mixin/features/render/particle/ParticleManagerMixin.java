@@ -0,0 +1,181 @@
+package me.jellysquid.mods.sodium.mixin.features.render.particle;
+
+import me.jellysquid.mods.sodium.client.SodiumClientMod;
+import me.jellysquid.mods.sodium.client.gl.device.CommandList;
+import me.jellysquid.mods.sodium.client.gl.device.RenderDevice;
+import me.jellysquid.mods.sodium.client.render.particle.InstancedParticleRenderer;
+import me.jellysquid.mods.sodium.client.render.particle.ParallelParticleRenderer;
+import net.minecraft.client.particle.Particle;
+import net.minecraft.client.particle.ParticleManager;
+import net.minecraft.client.particle.ParticleTextureSheet;
+import net.minecraft.client.render.Camera;
+import net.minecraft.client.render.LightmapTextureManager;
+import net.minecraft.client.render.Tessellator;
+import net.minecraft.client.render.VertexConsumerProvider;
+import net.minecraft.client.world.ClientWorld;
+import net.minecraft.client.util.math.MatrixStack;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Unique;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.Redirect;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+
+@Mixin(ParticleManager.class)
+public class ParticleManagerMixin {
+    // The sheets which draw billboard particles into the shared buffer, using the vertex format of ParticleVertex.
+    // Only sheets which draw without blending are included, since the particles rendered in parallel are drawn after
+    // the rest, and the result of blending would otherwise depend on the order.
+    @Unique
+    private static final Set<ParticleTextureSheet> BILLBOARD_SHEETS = Set.of(ParticleTextureSheet.PARTICLE_SHEET_OPAQUE,
+            ParticleTextureSheet.PARTICLE_SHEET_LIT);
+
+    @Unique
+    private final ParallelParticleRenderer parallelRenderer = new ParallelParticleRenderer();
+
+    // The particles of the current sheet which will be rendered in parallel, and those which will be rendered by the
+    // vanilla loop instead
+    @Unique
+    private final List<Particle> parallelParticles = new ArrayList<>();
+
+    @Unique
+    private final List<Particle> serialParticles = new ArrayList<>();
+
+    // Created when instanced rendering is first used, since it requires a graphics context
+    @Unique
+    private InstancedParticleRenderer instancedRenderer;
+
+    @Unique
+    private boolean useParallelRendering;
+
+    @Unique
+    private boolean useInstancedRendering;
+
+    @Inject(method = "renderParticles", at = @At("HEAD"))
+    private void preRenderParticles(MatrixStack matrices, VertexConsumerProvider.Immediate immediate, LightmapTextureManager lightmapTextureManager, Camera camera, float tickDelta, CallbackInfo ci) {
+        this.useParallelRendering = SodiumClientMod.options().performance.useParallelParticleRendering &&
+                ParallelParticleRenderer.isParallelismAvailable();
+        this.useInstancedRendering = this.useParallelRendering &&
+                SodiumClientMod.options().performance.useInstancedParticleRendering &&
+                InstancedParticleRenderer.isSupported(RenderDevice.INSTANCE);
+    }
+
+    @SuppressWarnings({ "unchecked" })
+    @Redirect(method = "renderParticles", at = @At(value = "INVOKE", target = "Ljava/util/Map;get(Ljava/lang/Object;)Ljava/lang/Object;"))
+    private <V> V splitParticleList(Map<ParticleTextureSheet, Queue<Particle>> map, Object key) {
+        Queue<Particle> queue = map.get(key);
+
+        if (!this.useParallelRendering || queue == null || queue.size() < ParallelParticleRenderer.PARALLEL_THRESHOLD || !BILLBOARD_SHEETS.contains(key)) {
+            return (V) queue;
+        }
+
+        for (Particle particle : queue) {
+            if (ParallelParticleRenderer.isSupported(particle)) {
+                this.parallelParticles.add(particle);
+            } else {
+                this.serialParticles.add(particle);
+            }
+        }
+
+        // The vanilla loop renders the unsupported particles, and the rest are added to the buffer just before it is
+        // drawn
+        return (V) this.serialParticles;
+    }
+
+    @Redirect(method = "renderParticles", at = @At(value = "INVOKE", target = "Lnet/minecraft/client/particle/ParticleTextureSheet;draw(Lnet/minecraft/client/render/Tessellator;)V"))
+    private void drawParticleSheet(ParticleTextureSheet sheet, Tessellator tessellator, MatrixStack matrices, VertexConsumerProvider.Immediate immediate, LightmapTextureManager lightmapTextureManager, Camera camera, float tickDelta) {
+        if (this.useInstancedRendering && !this.parallelParticles.isEmpty()) {
+            this.drawParticleSheetInstanced(sheet, tessellator, camera, tickDelta);
+            return;
+        }
+
+        try {
+            if (!this.parallelParticles.isEmpty()) {
+                this.parallelRenderer.render(this.parallelParticles, tessellator.getBuffer(), camera, tickDelta, sheet);
+            }
+        } finally {
+            this.parallelParticles.clear();
+            this.serialParticles.clear();
+        }
+
+        sheet.draw(tessellator);
+    }
+
+    @Unique
+    private void drawParticleSheetInstanced(ParticleTextureSheet sheet, Tessellator tessellator, Camera camera, float tickDelta) {
+        InstancedParticleRenderer instancedRenderer = this.getInstancedRenderer();
+        int instanceCount;
+
+        try {
+            instanceCount = this.parallelRenderer.writeInstances(this.parallelParticles, instancedRenderer, camera, tickDelta, sheet);
+        } finally {
+            this.parallelParticles.clear();
+            this.serialParticles.clear();
+        }
+
+        if (InstancedParticleRenderer.shouldExpandOnCpu()) {
+            instancedRenderer.expand(instanceCount, camera.getRotation(), tessellator.getBuffer());
+            sheet.draw(tessellator);
+
+            return;
+        }
+
+        // The vanilla particles are drawn first, and the instanced particles are then drawn using the same render state
+        sheet.draw(tessellator);
+
+        RenderDevice.enterManagedCode();
+
+        try (CommandList commandList = RenderDevice.INSTANCE.createCommandList()) {
+            instancedRenderer.draw(commandList, instanceCount, camera.getRotation());
+        } finally {
+            RenderDevice.exitManagedCode();
+        }
+    }
+
+    @Unique
+    private InstancedParticleRenderer getInstancedRenderer() {
+        if (this.instancedRenderer == null) {
+            RenderDevice.enterManagedCode();
+
+            try (CommandList commandList = RenderDevice.INSTANCE.createCommandList()) {
+                this.instancedRenderer = new InstancedParticleRenderer(commandList);
+            } finally {
+                RenderDevice.exitManagedCode();
+            }
+        }
+
+        return this.instancedRenderer;
+    }
+
+    // The renderers are torn down whenever the world is changed or unloaded, since their buffers are sized for the
+    // particles of the previous world and would otherwise never be released
+    @Inject(method = "setWorld", at = @At("RETURN"))
+    private void onSetWorld(ClientWorld world, CallbackInfo ci) {
+        this.parallelRenderer.delete();
+
+        if (this.instancedRenderer != null) {
+            RenderDevice.enterManagedCode();
+
+            try (CommandList commandList = RenderDevice.INSTANCE.createCommandList()) {
+                this.instancedRenderer.delete(commandList);
+            } finally {
+                RenderDevice.exitManagedCode();
+            }
+
+            this.instancedRenderer = null;
+        }
+    }
+
+    @Inject(method = "renderParticles", at = @At("RETURN"))
+    private void postRenderParticles(MatrixStack matrices, VertexConsumerProvider.Immediate immediate, LightmapTextureManager lightmapTextureManager, Camera camera, float tickDelta, CallbackInfo ci) {
+        // Ensure particles don't linger in the temporary collections
+        this.parallelParticles.clear();
+        this.serialParticles.clear();
+    }
+}
@@ -1,5 +1,6 @@
 package me.jellysquid.mods.sodium.mixin.features.textures.animations.tracking;
 
+import me.jellysquid.mods.sodium.client.render.particle.SpriteTrackingParticle;
 import me.jellysquid.mods.sodium.client.render.texture.SpriteUtil;
 import net.minecraft.client.particle.BillboardParticle;
 import net.minecraft.client.particle.SpriteBillboardParticle;
@@ -15,7 +16,7 @@ import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 
 @Mixin(SpriteBillboardParticle.class)
-public abstract class SpriteBillboardParticleMixin extends BillboardParticle {
+public abstract class SpriteBillboardParticleMixin extends BillboardParticle implements SpriteTrackingParticle {
     @Shadow
     protected Sprite sprite;
 
@@ -33,10 +34,15 @@ public abstract class SpriteBillboardParticleMixin extends BillboardParticle {
 
     @Override
     public void buildGeometry(VertexConsumer vertexConsumer, Camera camera, float tickDelta) {
+        this.sodium$markSpriteActive();
+
+        super.buildGeometry(vertexConsumer, camera, tickDelta);
+    }
+
+    @Override
+    public void sodium$markSpriteActive() {
         if (this.shouldTickSprite) {
             SpriteUtil.markSpriteActive(this.sprite);
         }
-
-        super.buildGeometry(vertexConsumer, camera, tickDelta);
     }
 }
\ No newline at end of file
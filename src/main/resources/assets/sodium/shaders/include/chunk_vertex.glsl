@@ -7,6 +7,12 @@ vec2 _vert_tex_diffuse_coord;
 // The light texture coordinate of the vertex
 ivec2 _vert_tex_light_coord;
 
+#ifdef USE_TEXTURE_REPEAT
+// The texture repeat parameters of the vertex, which are only used by merged quads (see GreedyQuadMerger)
+uint _vert_tex_repeat_size;
+uint _vert_tex_repeat_mode;
+#endif
+
 // The color of the vertex
 vec4 _vert_color;
 
@@ -33,7 +39,11 @@ in ivec2 a_LightCoord;
 void _vert_init() {
     _vert_position = (vec3(a_PosId.xyz) * VERT_POS_SCALE + VERT_POS_OFFSET);
     _vert_tex_diffuse_coord = (a_TexCoord * VERT_TEX_SCALE);
-    _vert_tex_light_coord = a_LightCoord;
+    _vert_tex_light_coord = a_LightCoord & 0xFF;
+#ifdef USE_TEXTURE_REPEAT
+    _vert_tex_repeat_size = uint(a_LightCoord.x >> 8) & 0xFFu;
+    _vert_tex_repeat_mode = uint(a_LightCoord.y >> 8) & 0xFFu;
+#endif
     _vert_color = a_Color;
 
     _draw_id = (a_PosId.w >> 8u) & 0xFFu;